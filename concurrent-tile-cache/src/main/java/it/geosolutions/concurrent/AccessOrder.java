@@ -0,0 +1,173 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.concurrent;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.google.common.base.Predicate;
+
+/**
+ * Least recently used order of the tiles of a cache segment, used by the LRU eviction. As done by Guava, the changes are buffered and
+ * applied to the order only by the thread holding its lock, so that the readers never wait for each other:
+ * <ul>
+ * <li>the accesses to the cached tiles are recorded in a bounded ring buffer, without allocating; when the buffer is full the access is
+ * dropped, so that under heavy reads the order is approximate and the memory of the buffer does not grow;</li>
+ * <li>the additions and the removals of the tiles are recorded in a queue which is never dropped, so that every cached tile can be
+ * evicted and no removed tile is retained by the order.</li>
+ * </ul>
+ * The buffers are drained when the read buffer is half full, when a tile is added or removed and the lock is free, and always before
+ * selecting a victim.
+ */
+final class AccessOrder {
+
+    /** Size of the read buffer. It must be a power of 2. */
+    private static final int READ_BUFFER_SIZE = 128;
+
+    /** Number of pending reads after which the buffers are drained */
+    private static final int READ_DRAIN_THRESHOLD = READ_BUFFER_SIZE / 2;
+
+    /** The tiles of the segment */
+    private final Map<TileKey, CachedTileImpl> map;
+
+    /** Ring buffer of the accesses not yet applied to the order */
+    private final AtomicReferenceArray<CachedTileImpl> reads = new AtomicReferenceArray<CachedTileImpl>(
+            READ_BUFFER_SIZE);
+
+    /** Number of accesses written in the read buffer */
+    private final AtomicLong readsWritten = new AtomicLong(0);
+
+    /** Number of accesses applied from the read buffer, written only under the lock */
+    private volatile long readsDrained;
+
+    /** Tiles added or removed, not yet applied to the order */
+    private final Queue<CachedTileImpl> writes = new ConcurrentLinkedQueue<CachedTileImpl>();
+
+    /** The tiles from the least to the most recently used, guarded by the lock */
+    private final LinkedHashMap<TileKey, CachedTileImpl> order = new LinkedHashMap<TileKey, CachedTileImpl>();
+
+    /** Lock guarding the order */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    AccessOrder(Map<TileKey, CachedTileImpl> map) {
+        this.map = map;
+    }
+
+    /**
+     * Records an access of a cached tile, making it the most recently used one. The access is dropped if the read buffer is full.
+     */
+    void recordAccess(CachedTileImpl cti) {
+        long written = readsWritten.get();
+        long pending = written - readsDrained;
+        if (pending < READ_BUFFER_SIZE && readsWritten.compareAndSet(written, written + 1)) {
+            reads.lazySet((int) (written & (READ_BUFFER_SIZE - 1)), cti);
+            pending++;
+        }
+        if (pending >= READ_DRAIN_THRESHOLD) {
+            tryDrain();
+        }
+    }
+
+    /**
+     * Records a tile added to or removed from the segment: an added tile becomes the most recently used one, while a removed tile is no more
+     * retained by the order. The call never blocks: if another thread holds the lock, the change is applied by the next drain.
+     */
+    void recordChange(CachedTileImpl cti) {
+        writes.add(cti);
+        tryDrain();
+    }
+
+    /**
+     * Selects the least recently used tile accepted by the filter.
+     *
+     * @param filter the filter of the tiles which can be evicted
+     * @return the tile to evict or <code>null</code> if no tile is accepted by the filter.
+     */
+    CachedTileImpl selectVictim(Predicate<? super CachedTileImpl> filter) {
+        lock.lock();
+        try {
+            drain();
+            Iterator<Map.Entry<TileKey, CachedTileImpl>> it = order.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<TileKey, CachedTileImpl> entry = it.next();
+                CachedTileImpl cti = entry.getValue();
+                if (map.get(entry.getKey()) != cti) {
+                    // removed or replaced in the meantime
+                    it.remove();
+                } else if (filter.apply(cti)) {
+                    return cti;
+                }
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Drains the buffers if the lock is free */
+    private void tryDrain() {
+        if (lock.tryLock()) {
+            try {
+                drain();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /** Applies the pending additions, removals and accesses to the order */
+    private void drain() {
+        CachedTileImpl cti;
+        while ((cti = writes.poll()) != null) {
+            apply(cti);
+        }
+        long drained = readsDrained;
+        long written = readsWritten.get();
+        for (; drained < written; drained++) {
+            int index = (int) (drained & (READ_BUFFER_SIZE - 1));
+            cti = reads.get(index);
+            if (cti == null) {
+                // the slot has been reserved but not yet written
+                break;
+            }
+            reads.lazySet(index, null);
+            apply(cti);
+        }
+        readsDrained = drained;
+    }
+
+    /**
+     * Makes a cached tile the most recently used one, or removes from the order a tile which is no more cached. A tile removed after being
+     * applied is removed again by the change recorded for its removal.
+     */
+    private void apply(CachedTileImpl cti) {
+        TileKey key = cti.getKey();
+        if (map.get(key) == cti) {
+            order.remove(key);
+            order.put(key, cti);
+        } else if (order.get(key) == cti) {
+            order.remove(key);
+        }
+    }
+}
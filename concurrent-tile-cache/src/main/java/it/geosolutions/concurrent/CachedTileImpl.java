@@ -23,11 +23,9 @@ import java.awt.image.DataBuffer;
 import java.awt.image.Raster;
 import java.awt.image.RenderedImage;
 import java.lang.ref.WeakReference;
-import java.math.BigInteger;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.media.jai.CachedTile;
-import javax.media.jai.PlanarImage;
-import javax.media.jai.remote.SerializableRenderedImage;
 
 /**
  * This class is used by ConcurrentTileCache to create an object that includes all the information associated with a tile, and is put into the cache.
@@ -46,7 +44,7 @@ public final class CachedTileImpl implements CachedTile {
 
     private long timeStamp; // the last time this tile is accessed (if diagnosticEnable==false it is set only at the creation time)
 
-    final Object key; // the key used to hash this tile
+    final TileKey key; // the key used to hash this tile
     
     private final Object imageKey; // Key of the associated image
 
@@ -54,6 +52,12 @@ public final class CachedTileImpl implements CachedTile {
 
     private Actions action; // every action done by the tile cache
 
+    private volatile double priority; // eviction priority used by the cost aware eviction
+
+    private volatile boolean evicted; // true if the tile has been selected for eviction by the cache
+
+    private final AtomicBoolean accounted = new AtomicBoolean(); // true if the tile memory is accounted by the cache
+
     /**
      * Constructor that takes a tile cache metric
      * 
@@ -69,9 +73,9 @@ public final class CachedTileImpl implements CachedTile {
 
         this.tileCacheMetric = tileCacheMetric; // may be null
 
-        key = hashKey(owner, tileX, tileY);
-        
-        imageKey = hashKey(owner);
+        key = TileKey.create(owner, tileX, tileY);
+
+        imageKey = key.getImageKey();
 
         DataBuffer db = tile.getDataBuffer();
         tileSize = db.getDataTypeSize(db.getDataType()) / 8L * db.getSize() * db.getNumBanks();
@@ -83,7 +87,7 @@ public final class CachedTileImpl implements CachedTile {
      * Returns the key associated to the tile.
      * @return
      */
-    public Object getKey() {
+    public TileKey getKey() {
         return key;
     }
 
@@ -96,48 +100,17 @@ public final class CachedTileImpl implements CachedTile {
     }
     
     /**
-     * Returns the hash table "key" as a <code>Object</code> for this tile.
+     * Returns the hash table "key" as a <code>Object</code> for this tile. The returned object is a {@link TileKey}.
      */
     public static Object hashKey(RenderedImage owner, int tileX, int tileY) {
-        long idx = tileY * (long) owner.getNumXTiles() + tileX;
-
-        BigInteger imageID = null;
-        if (owner instanceof PlanarImage)
-            imageID = (BigInteger) ((PlanarImage) owner).getImageID();
-        else if (owner instanceof SerializableRenderedImage)
-            imageID = (BigInteger) ((SerializableRenderedImage) owner).getImageID();
-
-        if (imageID != null) {
-            byte[] buf = imageID.toByteArray();
-            int length = buf.length;
-            byte[] buf1 = new byte[length + 8];
-            System.arraycopy(buf, 0, buf1, 0, length);
-            for (int i = 7, j = 0; i >= 0; i--, j += 8)
-                buf1[length++] = (byte) (idx >> j);
-            return new BigInteger(buf1);
-        }
-
-        idx = idx & 0x00000000ffffffffL;
-        return Long.valueOf((((long) owner.hashCode() << 32) | idx));
+        return TileKey.create(owner, tileX, tileY);
     }
 
     /**
      * Returns the hash table "key" as a <code>Object</code> for this image.
      */
     public static Object hashKey(RenderedImage owner) {
-
-        BigInteger imageID = null;
-        if (owner instanceof PlanarImage)
-            imageID = (BigInteger) ((PlanarImage) owner).getImageID();
-        else if (owner instanceof SerializableRenderedImage)
-            imageID = (BigInteger) ((SerializableRenderedImage) owner).getImageID();
-
-        if (imageID != null) {
-            byte[] buf = imageID.toByteArray();
-            return new BigInteger(buf);
-        }
-
-        return owner.hashCode();
+        return TileKey.imageKey(owner);
     }
 
     /** Returns the value of the cached tile. */
@@ -177,6 +150,69 @@ public final class CachedTileImpl implements CachedTile {
         action = newAction;
     }
 
+    /**
+     * Returns the recomputation cost of the tile: the mean compute time of the tiles of the image if the tile cache metric is a
+     * {@link TileCacheMetric} which has recorded it, 1 otherwise.
+     */
+    public double getTileCost() {
+        if (tileCacheMetric instanceof TileCacheMetric) {
+            double cost = ((TileCacheMetric) tileCacheMetric).getComputeTime();
+            if (cost > 0) {
+                return cost;
+            }
+        }
+        return 1d;
+    }
+
+    /** Returns the priority class of the tile, if the tile cache metric is a {@link TileCacheMetric} with a class, otherwise <code>null</code>. */
+    public TilePriorityClass getPriorityClass() {
+        return tileCacheMetric instanceof TileCacheMetric ? ((TileCacheMetric) tileCacheMetric)
+                .getPriorityClass() : null;
+    }
+
+    /** Returns the eviction priority of the tile. Tiles with lower priority are evicted first. */
+    double getPriority() {
+        return priority;
+    }
+
+    /** Sets the eviction priority of the tile */
+    void setPriority(double priority) {
+        this.priority = priority;
+    }
+
+    /** Indicates if the tile has been selected for eviction by the cache */
+    boolean isEvicted() {
+        return evicted;
+    }
+
+    /** Marks the tile as selected for eviction by the cache */
+    void setEvicted() {
+        evicted = true;
+    }
+
+    /** Clears the eviction mark of a tile which has not been evicted */
+    void clearEvicted() {
+        evicted = false;
+    }
+
+    /**
+     * Marks the tile memory as accounted by the cache.
+     * 
+     * @return <code>false</code> if the tile memory was already accounted
+     */
+    boolean setAccounted() {
+        return accounted.compareAndSet(false, true);
+    }
+
+    /**
+     * Marks the tile memory as no more accounted by the cache.
+     * 
+     * @return <code>false</code> if the tile memory was not accounted
+     */
+    boolean clearAccounted() {
+        return accounted.compareAndSet(true, false);
+    }
+
     /** Sets the timestamp to the new current value */
     public void updateTileTimeStamp() {
         timeStamp = System.currentTimeMillis();
@@ -17,23 +17,34 @@
 */
 package it.geosolutions.concurrent;
 
+import it.geosolutions.concurrent.OffHeapTileStore.OffHeapTile;
+
 import java.awt.Point;
 import java.awt.image.Raster;
 import java.awt.image.RenderedImage;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Observable;
 import java.util.Set;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import javax.media.jai.TileCache;
 
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.RemovalCause;
 import com.google.common.cache.RemovalListener;
 import com.google.common.cache.RemovalNotification;
-import com.google.common.cache.Weigher;
 import com.sun.media.jai.util.CacheDiagnostics;
 
 public class ConcurrentTileCache extends Observable implements TileCache,
@@ -51,11 +62,55 @@ public static final boolean DEFAULT_DIAGNOSTIC = false;
 /** The default concurrency settings */
 public static final int DEFAULT_CONCURRENCY_LEVEL = 4;
 
+/** The default memory capacity of the off-heap tile store (disabled). */
+public static final long DEFAULT_OFF_HEAP_CACHE = 0L;
+
+/** The default eviction policy */
+public static final EvictionPolicy DEFAULT_EVICTION_POLICY = EvictionPolicy.LRU;
+
+/** The default number of segments (a single segment) */
+public static final int DEFAULT_SEGMENT_COUNT = 1;
+
+/**
+ * Number of requests of a segment after which the memory budget of the
+ * segments is rebalanced. It must be a power of 2.
+ */
+private static final int REBALANCE_INTERVAL = 4096;
+
+/**
+ * Minimum difference between the hit ratios of two segments for moving
+ * memory budget from one to the other
+ */
+private static final double REBALANCE_MIN_GAP = 0.05;
+
+/**
+ * Order used by the cost aware eviction: tiles with lower priority are
+ * evicted first
+ */
+private static final Comparator<CachedTileImpl> PRIORITY_ORDER = new Comparator<CachedTileImpl>() {
+    public int compare(CachedTileImpl o1, CachedTileImpl o2) {
+        return Double.compare(o1.getPriority(), o2.getPriority());
+    }
+};
+
+/**
+ * The cache segments. The tiles of an image are always cached in the same
+ * segment, selected by the image key.
+ */
+private volatile Segment[] segments;
+
+/** The number of segments of the cache */
+private int segmentCount = DEFAULT_SEGMENT_COUNT;
+
+/** Lock ensuring that only one thread at a time rebalances the segments */
+private final ReentrantLock rebalanceLock = new ReentrantLock();
+
 /**
- * The tile cache. A Guava Cache is used to cache the tiles. The "key" is a
- * <code>Object</code>. The "value" is a CachedTileImpl.
+ * Lock guarding the replacement of the segments: the tiles are added and
+ * removed under the read lock, while the segments are rebuilt or flushed
+ * under the write lock, so that no tile is left in a discarded segment
  */
-private Cache<Object, CachedTileImpl> cacheObject;
+private final ReentrantReadWriteLock segmentsLock = new ReentrantReadWriteLock();
 
 /** The memory capacity of the cache. */
 private long memoryCacheCapacity;
@@ -69,29 +124,427 @@ private float memoryCacheThreshold = DEFAULT_MEMORY_THRESHOLD;
 /** diagnosticEnabled enable/disable */
 private volatile boolean diagnosticEnabled = DEFAULT_DIAGNOSTIC;
 
+/** The eviction policy of the cache */
+private volatile EvictionPolicy evictionPolicy = DEFAULT_EVICTION_POLICY;
+
+/** Memory used by the cached tiles */
+private final AtomicLong memoryUsed = new AtomicLong(0);
+
 /**
- * The listener is used for receiving notification about the removal of a tile
- * for size constraints
+ * The comparator used for selecting the tiles to evict, or <code>null</code>
+ * for using the eviction policy
  */
-private final RemovalListener<Object, CachedTileImpl> listener = new RemovalListener<Object, CachedTileImpl>() {
-    public void onRemoval(RemovalNotification<Object, CachedTileImpl> n) {
-        // if a tile is manually removed, the diagnosticEnabled already consider
-        // it in
-        // the remove() method
+private volatile Comparator<? super CachedTileImpl> tileComparator;
 
-        if (diagnosticEnabled) {
-            synchronized (this) {
-                if (n.wasEvicted() && n.getCause() == RemovalCause.SIZE) {
-                    CachedTileImpl cti = n.getValue();
-                    cti.setAction(Actions.REMOVAL_FROM_EVICTION);
-                    setChanged();
-                    notifyObservers(cti);
+/** Number of tiles examined by the sampled eviction for each evicted tile */
+private volatile int evictionSampleSize = SampledEvictor.DEFAULT_SAMPLE_SIZE;
+
+/** Number of tiles found by getTile() */
+private final AtomicLong hitCount = new AtomicLong(0);
+
+/** Number of tiles not found by getTile() */
+private final AtomicLong missCount = new AtomicLong(0);
+
+/** Number of tiles evicted for memory constraints */
+private final AtomicLong evictionCount = new AtomicLong(0);
+
+/** Number of tiles removed explicitly or by a flush */
+private final AtomicLong removalCount = new AtomicLong(0);
+
+/** Number of tiles replaced by a new tile with the same key */
+private final AtomicLong replacementCount = new AtomicLong(0);
+
+/** Index of the cached tile keys for each image */
+private final ImageTileIndex tileIndex = new ImageTileIndex();
+
+/** Asynchronous delivery of the tile events when the diagnostics are enabled */
+private final TileEventDispatcher events = new TileEventDispatcher("ConcurrentTileCache events",
+        TileEventDispatcher.DEFAULT_BUFFER_SIZE);
+
+/**
+ * Listener notifying the tile events to the observers, on the event
+ * delivery thread
+ */
+private final TileCacheListener observerNotifier = new TileCacheListener() {
+    public void tileEvents(List<TileCacheEvent> list) {
+        for (int i = 0; i < list.size(); i++) {
+            TileCacheEvent event = list.get(i);
+            CachedTileImpl cti = event.getCachedTile();
+            cti.setAction(event.getAction());
+            setChanged();
+            notifyObservers(cti);
+        }
+    }
+};
+
+/**
+ * Second level store keeping the tiles evicted from the cache outside the
+ * heap. It is <code>null</code> if disabled.
+ */
+private volatile OffHeapTileStore offHeapStore;
+
+/**
+ * Independent segment of the cache, with its own Guava cache, memory budget
+ * and eviction, so that its budget can be changed at any time. With the LRU
+ * policy the segment evicts exactly the least recently used tiles, while the
+ * cost aware eviction and the tile comparator evict the first tile of a
+ * sample of the segment tiles.
+ */
+private final class Segment {
+
+    /** The tiles of the segment */
+    final Cache<TileKey, CachedTileImpl> cache;
+
+    /**
+     * Indicates that the tiles of the segment have been moved to a new
+     * segment, so its removals must be ignored
+     */
+    volatile boolean retired;
+
+    /** Memory used by the tiles of the segment */
+    final AtomicLong memoryUsed = new AtomicLong(0);
+
+    /**
+     * Memory used by the tiles of each priority class in the segment. It is
+     * the only count of the class memory: the memory of a class in the cache
+     * is the sum of its memory in the segments.
+     */
+    final ConcurrentMap<TilePriorityClass, AtomicLong> classMemory = new ConcurrentHashMap<TilePriorityClass, AtomicLong>();
+
+    /**
+     * Filter of the tiles which can be evicted without taking their class
+     * below its guaranteed memory in the segment
+     */
+    final Predicate<CachedTileImpl> notGuaranteed = new Predicate<CachedTileImpl>() {
+        public boolean apply(CachedTileImpl cti) {
+            return !isGuaranteed(cti);
+        }
+    };
+
+    /** Memory available to the segment */
+    volatile long budget;
+
+    /** Number of tiles found in the segment */
+    final AtomicLong hits = new AtomicLong(0);
+
+    /** Number of tiles not found in the segment */
+    final AtomicLong misses = new AtomicLong(0);
+
+    /** Hits and misses at the last rebalance, guarded by the rebalance lock */
+    long lastHits;
+
+    long lastMisses;
+
+    /** Access order of the tiles, kept with the LRU policy */
+    final AccessOrder accessOrder;
+
+    /** Victim selection for the cost aware eviction and the tile comparator */
+    final SampledEvictor evictor = new SampledEvictor(evictionSampleSize);
+
+    /** Lock ensuring that only one thread at a time evicts tiles */
+    final ReentrantLock evictionLock = new ReentrantLock();
+
+    /**
+     * Inflation value of the GreedyDual-Size algorithm: it is the priority of
+     * the last evicted tile and it is added to the priority of every new or
+     * accessed tile, so that the tiles not accessed anymore are evicted with
+     * time.
+     */
+    volatile double inflation;
+
+    /**
+     * The listener is used for keeping the tile index updated and for
+     * receiving notification about the removal of a tile for size constraints
+     */
+    private final RemovalListener<TileKey, CachedTileImpl> listener = new RemovalListener<TileKey, CachedTileImpl>() {
+        public void onRemoval(RemovalNotification<TileKey, CachedTileImpl> n) {
+            if (retired) {
+                return;
+            }
+            // the key of a replaced tile is kept in the index for its new value
+            CachedTileImpl cti = n.getValue();
+            tileIndex.remove(cti);
+            if (n.getCause() == RemovalCause.REPLACED) {
+                replacementCount.incrementAndGet();
+            }
+            // Update Cache Memory Size
+            releaseTile(cti);
+            recordChange(cti);
+            // tiles evicted by the cache itself are counted by tileEvicted()
+            if (n.getCause() == RemovalCause.EXPLICIT && !cti.isEvicted()) {
+                removalCount.incrementAndGet();
+            }
+        }
+    };
+
+    Segment(long budget) {
+        this.budget = budget;
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder();
+        builder.concurrencyLevel(concurrencyLevel).removalListener(listener);
+        this.cache = builder.build();
+        this.accessOrder = new AccessOrder(cache.asMap());
+    }
+
+    /**
+     * Moves a tile of a retired segment in this segment, unless the key is
+     * already cached. The tile stays accounted by the cache, while its memory
+     * moves to this segment; a tile which cannot be moved is released.
+     */
+    void moveTile(CachedTileImpl cti) {
+        if (cache.asMap().putIfAbsent(cti.getKey(), cti) == null) {
+            addMemory(cti, cti.getTileSize());
+            recordChange(cti);
+        } else {
+            tileIndex.remove(cti);
+            if (cti.clearAccounted()) {
+                ConcurrentTileCache.this.memoryUsed.addAndGet(-cti.getTileSize());
+            }
+        }
+    }
+
+    /**
+     * Accounts the memory of a tile about to be added to the segment. The
+     * tile is accounted before being put in the cache, so that the removal
+     * listener always finds it accounted.
+     */
+    void accountTile(CachedTileImpl cti) {
+        if (cti.setAccounted()) {
+            addMemory(cti, cti.getTileSize());
+            ConcurrentTileCache.this.memoryUsed.addAndGet(cti.getTileSize());
+        }
+    }
+
+    /**
+     * Releases the memory of a tile removed from the segment. The memory of
+     * the segment, of the tile class and of the cache are released together,
+     * only by the first release of the tile.
+     */
+    void releaseTile(CachedTileImpl cti) {
+        if (cti.clearAccounted()) {
+            addMemory(cti, -cti.getTileSize());
+            ConcurrentTileCache.this.memoryUsed.addAndGet(-cti.getTileSize());
+        }
+    }
+
+    /** Adds the memory of the tile to the memory used by the segment and by its priority class in the segment */
+    private void addMemory(CachedTileImpl cti, long size) {
+        memoryUsed.addAndGet(size);
+        TilePriorityClass priorityClass = cti.getPriorityClass();
+        if (priorityClass == null) {
+            return;
+        }
+        AtomicLong used = classMemory.get(priorityClass);
+        if (used == null) {
+            AtomicLong newUsed = new AtomicLong(0);
+            used = classMemory.putIfAbsent(priorityClass, newUsed);
+            if (used == null) {
+                used = newUsed;
+            }
+        }
+        used.addAndGet(size);
+    }
+
+    /**
+     * Indicates if evicting the tile would take its priority class below the
+     * guaranteed minimum share of the segment budget
+     */
+    boolean isGuaranteed(CachedTileImpl cti) {
+        TilePriorityClass priorityClass = cti.getPriorityClass();
+        if (priorityClass == null) {
+            return false;
+        }
+        AtomicLong used = classMemory.get(priorityClass);
+        long minimum = (long) (priorityClass.getMinimumShare() * budget);
+        return used != null && used.get() - cti.getTileSize() < minimum;
+    }
+
+    /** Updates the priority and the access order of a tile found in the segment */
+    void tileAccessed(CachedTileImpl cti) {
+        updatePriority(cti);
+        recordAccess(cti);
+    }
+
+    /** Makes the tile the most recently used one, with the LRU policy */
+    private void recordAccess(CachedTileImpl cti) {
+        if (evictionPolicy == EvictionPolicy.LRU) {
+            accessOrder.recordAccess(cti);
+        }
+    }
+
+    /** Records a tile added to or removed from the segment, with the LRU policy */
+    void recordChange(CachedTileImpl cti) {
+        if (evictionPolicy == EvictionPolicy.LRU) {
+            accessOrder.recordChange(cti);
+        }
+    }
+
+    /**
+     * Updates the priority of a tile: for the cost aware eviction the
+     * priority is the current inflation value plus the tile cost for each
+     * byte, otherwise it is the access time, used for keeping the access
+     * order when the segments are rebuilt.
+     */
+    void updatePriority(CachedTileImpl cti) {
+        if (evictionPolicy == EvictionPolicy.COST_AWARE) {
+            long size = Math.max(cti.getTileSize(), 1);
+            cti.setPriority(inflation + cti.getTileCost() / size);
+        } else {
+            cti.setPriority(System.nanoTime());
+        }
+    }
+
+    /** Counts a request of a tile and periodically rebalances the segments */
+    void request(boolean hit) {
+        long count = hit ? hits.incrementAndGet() : misses.incrementAndGet();
+        if ((count & (REBALANCE_INTERVAL - 1)) == 0) {
+            rebalance();
+        }
+    }
+
+    /**
+     * Evicts the least recently used tiles, or the tiles with the lowest
+     * priority, until the memory used is below the segment budget. The tiles
+     * of the priority classes below their guaranteed memory are never
+     * selected, unless the guaranteed memory exceeds the budget. If another
+     * thread is already evicting tiles, the method returns immediately.
+     */
+    void evictTiles() {
+        if (memoryUsed.get() <= budget || !evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            ConcurrentMap<TileKey, CachedTileImpl> map = cache.asMap();
+            // the tiles of a retired segment are evicted from the new one
+            while (!retired && memoryUsed.get() > budget) {
+                // the sample is taken among the tiles which are not guaranteed,
+                // and only if there are none the guaranteed tiles are evicted
+                CachedTileImpl victim = selectVictim(map, notGuaranteed);
+                if (victim == null) {
+                    victim = selectVictim(map, Predicates.<CachedTileImpl> alwaysTrue());
                 }
+                if (victim == null) {
+                    break;
+                }
+                evict(victim);
             }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Evicts the least recently used tiles of the priority class, or the ones
+     * with the lowest priority, until the memory used by the class in the
+     * cache is below the maximum. If another thread is
+     * already evicting tiles, the method returns immediately.
+     */
+    void evictTiles(final TilePriorityClass priorityClass, long maximum) {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            Predicate<CachedTileImpl> filter = new Predicate<CachedTileImpl>() {
+                public boolean apply(CachedTileImpl cti) {
+                    return cti.getPriorityClass() == priorityClass;
+                }
+            };
+            ConcurrentMap<TileKey, CachedTileImpl> map = cache.asMap();
+            while (!retired && getCacheMemoryUsed(priorityClass) > maximum) {
+                CachedTileImpl victim = selectVictim(map, filter);
+                if (victim == null) {
+                    break;
+                }
+                evict(victim);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
 
+    /**
+     * Selects the tile to evict among the tiles accepted by the filter: the
+     * least recently used one in exact LRU order, otherwise the first one of
+     * a sample of the accepted tiles.
+     */
+    private CachedTileImpl selectVictim(ConcurrentMap<TileKey, CachedTileImpl> map,
+            Predicate<CachedTileImpl> filter) {
+        if (isExactLru()) {
+            return accessOrder.selectVictim(filter);
         }
+        return evictor.selectVictim(map, tileOrder(), filter);
     }
-};
+
+    /**
+     * Evicts the tile, unless it has been removed or replaced in the
+     * meantime. The tile is marked as evicted before the removal, so that the
+     * listener does not count it as a removal, and the mark is cleared if the
+     * tile is not removed.
+     */
+    private void evict(CachedTileImpl victim) {
+        victim.setEvicted();
+        if (cache.asMap().remove(victim.getKey(), victim)) {
+            // the remaining tiles age by the priority of the evicted one
+            if (victim.getPriority() > inflation) {
+                inflation = victim.getPriority();
+            }
+            tileEvicted(victim);
+        } else {
+            victim.clearEvicted();
+        }
+    }
+}
+
+/**
+ * Indicates if the tiles are evicted in exact LRU order, that is with the LRU
+ * policy and without a tile comparator
+ */
+private boolean isExactLru() {
+    return evictionPolicy == EvictionPolicy.LRU && tileComparator == null;
+}
+
+/**
+ * Returns the order of the tiles for the sampled eviction: the tile
+ * comparator, if defined, otherwise the tile priority
+ */
+private Comparator<? super CachedTileImpl> tileOrder() {
+    Comparator<? super CachedTileImpl> comparator = tileComparator;
+    if (comparator != null) {
+        return comparator;
+    }
+    return PRIORITY_ORDER;
+}
+
+/**
+ * Evicts the tiles of the priority class exceeding its maximum memory,
+ * starting from the segment of the last added tile
+ */
+private void enforceQuota(TilePriorityClass priorityClass, Segment first) {
+    long maximum = (long) (priorityClass.getMaximumShare() * memoryCacheCapacity * memoryCacheThreshold);
+    if (getCacheMemoryUsed(priorityClass) <= maximum) {
+        return;
+    }
+    first.evictTiles(priorityClass, maximum);
+    Segment[] segs = segments;
+    for (int i = 0; i < segs.length && getCacheMemoryUsed(priorityClass) > maximum; i++) {
+        if (segs[i] != first) {
+            segs[i].evictTiles(priorityClass, maximum);
+        }
+    }
+}
+
+/** The eviction policies supported by the cache */
+public enum EvictionPolicy {
+    /** The least recently used tiles are evicted first */
+    LRU,
+    /**
+     * The tiles with the lowest recomputation cost for each byte are evicted
+     * first, following the GreedyDual-Size algorithm. The cost of a tile is
+     * the mean compute time of the tiles of its image, measured by the tile
+     * scheduler and carried by a {@link TileCacheMetric}. The tiles are
+     * selected by sampling the cache.
+     */
+    COST_AWARE
+}
 
 // diagnostic actions
 /** A list of all the possible diagnostic actions */
@@ -112,19 +565,186 @@ public enum Actions {
 
 };
 
-/** Private cache creation method */
-private Cache<Object, CachedTileImpl> buildCache() {
-    CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder();
-    builder.maximumWeight((long) (memoryCacheCapacity * memoryCacheThreshold))
-            .concurrencyLevel(concurrencyLevel)
-            .weigher(new Weigher<Object, CachedTileImpl>() {
-                public int weigh(Object o, CachedTileImpl cti) {
-                    return (int) cti.getTileSize();
-                }
-            });
+/**
+ * Private cache creation method. The memory is divided equally between the
+ * segments.
+ */
+private Segment[] buildCache() {
+    long maximum = (long) (memoryCacheCapacity * memoryCacheThreshold);
+    Segment[] newSegments = new Segment[segmentCount];
+    for (int i = 0; i < segmentCount; i++) {
+        long budget = maximum / segmentCount;
+        if (i == 0) {
+            budget += maximum % segmentCount;
+        }
+        newSegments[i] = new Segment(budget);
+    }
+    return newSegments;
+}
+
+/**
+ * Rebuilds the segments with the current settings, moving the cached tiles
+ * in the new segments instead of discarding them. The tiles exceeding the
+ * budget of the new segments are evicted.
+ */
+private void rebuildSegments() {
+    segmentsLock.writeLock().lock();
+    rebalanceLock.lock();
+    Segment[] oldSegments = segments;
+    // no tile is evicted from the old segments while they are copied, so
+    // that every copied tile is still accounted
+    for (int i = 0; i < oldSegments.length; i++) {
+        oldSegments[i].evictionLock.lock();
+    }
+    try {
+        Segment[] newSegments = buildCache();
+        // the tiles are copied before publishing the new segments, so that
+        // the readers always find them; no tile is added in the meantime
+        List<CachedTileImpl> tiles = new ArrayList<CachedTileImpl>();
+        for (int i = 0; i < oldSegments.length; i++) {
+            tiles.addAll(oldSegments[i].cache.asMap().values());
+        }
+        // with the LRU policy the tiles are moved from the least to the most
+        // recently used, keeping their access order
+        if (evictionPolicy == EvictionPolicy.LRU) {
+            Collections.sort(tiles, PRIORITY_ORDER);
+        }
+        for (int i = 0; i < tiles.size(); i++) {
+            CachedTileImpl cti = tiles.get(i);
+            segmentFor(newSegments, cti.getImageKey()).moveTile(cti);
+        }
+        segments = newSegments;
+        for (int i = 0; i < oldSegments.length; i++) {
+            oldSegments[i].retired = true;
+        }
+    } finally {
+        for (int i = 0; i < oldSegments.length; i++) {
+            oldSegments[i].evictionLock.unlock();
+        }
+        rebalanceLock.unlock();
+        segmentsLock.writeLock().unlock();
+    }
+    evictSegments();
+}
+
+/**
+ * Updates the budget of the segments with the current settings, keeping the
+ * proportions between them, and evicts the tiles exceeding the new budget.
+ * The cached tiles are kept.
+ */
+private void resize() {
+    long maximum = (long) (memoryCacheCapacity * memoryCacheThreshold);
+    rebalanceLock.lock();
+    try {
+        Segment[] segs = segments;
+        long total = 0;
+        for (int i = 0; i < segs.length; i++) {
+            total += segs[i].budget;
+        }
+        long assigned = 0;
+        for (int i = 0; i < segs.length; i++) {
+            long budget;
+            if (i == segs.length - 1) {
+                budget = maximum - assigned;
+            } else if (total > 0) {
+                budget = (long) ((double) segs[i].budget / total * maximum);
+            } else {
+                budget = maximum / segs.length;
+            }
+            segs[i].budget = budget;
+            assigned += budget;
+        }
+    } finally {
+        rebalanceLock.unlock();
+    }
+    evictSegments();
+}
 
-    return builder.build();
+/** Evicts the tiles exceeding the budget of each segment */
+private void evictSegments() {
+    Segment[] segs = segments;
+    for (int i = 0; i < segs.length; i++) {
+        segs[i].evictTiles();
+    }
+}
+
+/** Returns the segment containing the tiles of the image */
+private Segment segmentFor(Object imageKey) {
+    return segmentFor(segments, imageKey);
+}
+
+/** Returns the segment containing the tiles of the image among the given segments */
+private static Segment segmentFor(Segment[] segs, Object imageKey) {
+    if (segs.length == 1) {
+        return segs[0];
+    }
+    // the hash is spread for avoiding the collisions of the lower bits
+    int h = imageKey.hashCode();
+    h ^= (h >>> 20) ^ (h >>> 12);
+    h ^= (h >>> 7) ^ (h >>> 4);
+    return segs[(h & 0x7fffffff) % segs.length];
+}
 
+/**
+ * Moves a part of the memory budget from the segment with the highest hit
+ * ratio to the one with the lowest hit ratio, since the last rebalance. If
+ * another thread is already rebalancing the segments, the method returns
+ * immediately.
+ */
+private void rebalance() {
+    Segment[] segs = segments;
+    if (segs.length < 2 || !rebalanceLock.tryLock()) {
+        return;
+    }
+    try {
+        Segment donor = null;
+        Segment receiver = null;
+        double donorRatio = -1;
+        double receiverRatio = 2;
+        long donorMisses = 0;
+        long receiverMisses = 0;
+        long total = 0;
+        for (int i = 0; i < segs.length; i++) {
+            Segment seg = segs[i];
+            long hits = seg.hits.get();
+            long misses = seg.misses.get();
+            long windowHits = hits - seg.lastHits;
+            long windowMisses = misses - seg.lastMisses;
+            seg.lastHits = hits;
+            seg.lastMisses = misses;
+            total += seg.budget;
+            // a segment without requests does not need its memory
+            double ratio = windowHits + windowMisses == 0 ? 1d : (double) windowHits
+                    / (windowHits + windowMisses);
+            // with the same ratio, the segment with more misses needs more memory
+            if (ratio > donorRatio || (ratio == donorRatio && windowMisses < donorMisses)) {
+                donorRatio = ratio;
+                donorMisses = windowMisses;
+                donor = seg;
+            }
+            if (windowMisses > 0
+                    && (ratio < receiverRatio || (ratio == receiverRatio && windowMisses > receiverMisses))) {
+                receiverRatio = ratio;
+                receiverMisses = windowMisses;
+                receiver = seg;
+            }
+        }
+        if (donor == null || receiver == null || donor == receiver
+                || donorRatio - receiverRatio < REBALANCE_MIN_GAP) {
+            return;
+        }
+        // the budget moves in small steps and no segment is left without memory
+        long step = total / (segs.length * 16);
+        long minimum = total / (segs.length * 4);
+        step = Math.min(step, donor.budget - minimum);
+        if (step > 0) {
+            donor.budget -= step;
+            receiver.budget += step;
+            donor.evictTiles();
+        }
+    } finally {
+        rebalanceLock.unlock();
+    }
 }
 
 public ConcurrentTileCache() {
@@ -140,9 +760,11 @@ public ConcurrentTileCache(long memoryCacheCapacity, boolean diagnostic,
     this.diagnosticEnabled = diagnostic;
     this.memoryCacheCapacity = memoryCacheCapacity;
     this.concurrencyLevel=concurrencyLevel;
-    
+    // the observers are notified together with the other listeners
+    events.addListener(observerNotifier);
+
     // cache creation
-    cacheObject = buildCache();
+    segments = buildCache();
 }
 
 /** Add a new tile to the cache */
@@ -155,64 +777,106 @@ public void add(RenderedImage owner, int tileX, int tileY, Raster data,
         Object tileCacheMetric) {
     // This tile is not in the cache; create a new CachedTileImpl.
     // else just update.
-    Object key = CachedTileImpl.hashKey(owner, tileX, tileY);
     // old tile
     CachedTileImpl cti;
     // create a new tile
     CachedTileImpl cti_new = new CachedTileImpl(owner, tileX, tileY, data,
             tileCacheMetric);
-
-    // if the tile is already cached
-    if (diagnosticEnabled) {
-        cti = (CachedTileImpl) cacheObject.asMap().put(key, cti_new);
-        synchronized (this) {
+    // the tile key is created together with the tile
+    TileKey key = cti_new.getKey();
+    Segment segment;
+    // the segments are not replaced while the tile is added
+    segmentsLock.readLock().lock();
+    try {
+        segment = segmentFor(key.getImageKey());
+        segment.updatePriority(cti_new);
+
+        // the tile is accounted before being visible to the other threads,
+        // so that a concurrent removal always releases its memory
+        segment.accountTile(cti_new);
+
+        // if the tile is already cached
+        if (diagnosticEnabled) {
+            cti = (CachedTileImpl) segment.cache.asMap().put(key, cti_new);
+            // the key is indexed only after the tile is cached
+            tileIndex.add(cti_new, segment.cache.asMap());
+            segment.recordChange(cti_new);
             if (cti != null) {
                 cti.updateTileTimeStamp();
-                cti.setAction(Actions.SUBSTITUTION_FROM_ADD);
-                setChanged();
-                notifyObservers(cti);
-                return;
+                events.publish(cti, Actions.SUBSTITUTION_FROM_ADD);
+            } else {
+                events.publish(cti_new, Actions.ADDITION);
             }
-
-            cti_new.setAction(Actions.ADDITION);
-            setChanged();
-            notifyObservers(cti_new);
+        } else {
+            // new tile insertion
+            segment.cache.put(key, cti_new);
+            // the key is indexed only after the tile is cached
+            tileIndex.add(cti_new, segment.cache.asMap());
+            segment.recordChange(cti_new);
         }
-    } else {
-        // new tile insertion
-        cacheObject.put(key, cti_new);
+    } finally {
+        segmentsLock.readLock().unlock();
+    }
+    segment.evictTiles();
+    TilePriorityClass priorityClass = cti_new.getPriorityClass();
+    if (priorityClass != null) {
+        enforceQuota(priorityClass, segment);
+    }
+}
 
+/**
+ * Handles a tile evicted for memory constraints, by moving it to the
+ * off-heap store and by notifying the observers.
+ */
+private void tileEvicted(CachedTileImpl cti) {
+    evictionCount.incrementAndGet();
+    // tiles evicted for size constraints are moved outside the heap
+    OffHeapTileStore store = offHeapStore;
+    if (store != null) {
+        store.put(cti);
+    }
+    if (diagnosticEnabled) {
+        events.publish(cti, Actions.REMOVAL_FROM_EVICTION);
     }
 }
 
 /** Removes the selected tile from the cache */
 public void remove(RenderedImage owner, int tileX, int tileY) {
-    Object key = CachedTileImpl.hashKey(owner, tileX, tileY);
     // check if the tile is still in cache
-    CachedTileImpl cti = (CachedTileImpl) cacheObject.getIfPresent(key);
+    TileKey key = TileKey.lookupKey(owner, tileX, tileY);
+    CachedTileImpl cti = (CachedTileImpl) segmentFor(key.getImageKey()).cache
+            .getIfPresent(key);
     // if so the tile is deleted (even if another thread write on it)
     if (cti != null) {
-        if (diagnosticEnabled) {
-            synchronized (this) {
-                cti.setAction(Actions.ABOUT_TO_REMOVAL);
-                setChanged();
-                notifyObservers(cti);
-
-                cti = (CachedTileImpl) cacheObject.asMap().remove(key);
-                if (cti != null) {
-                    cti.setAction(Actions.MANUAL_REMOVAL);
-                    setChanged();
-                    notifyObservers(cti);
+        // the lookup key is only valid for a single operation
+        removeTile(cti);
+    }
+    // the tile is removed also from the off-heap store
+    OffHeapTileStore store = offHeapStore;
+    if (store != null) {
+        store.remove(TileKey.lookupKey(owner, tileX, tileY));
+    }
 
-                }
+}
 
+/** Removes the tile from the cache */
+private void removeTile(CachedTileImpl cti) {
+    TileKey key = cti.getKey();
+    segmentsLock.readLock().lock();
+    try {
+        Cache<TileKey, CachedTileImpl> cache = segmentFor(key.getImageKey()).cache;
+        if (diagnosticEnabled) {
+            events.publish(cti, Actions.ABOUT_TO_REMOVAL);
+            cti = (CachedTileImpl) cache.asMap().remove(key);
+            if (cti != null) {
+                events.publish(cti, Actions.MANUAL_REMOVAL);
             }
         } else {
-            cacheObject.invalidate(key);
+            cache.invalidate(key);
         }
-
+    } finally {
+        segmentsLock.readLock().unlock();
     }
-
 }
 
 /** Retrieves the selected tile from the cache */
@@ -220,21 +884,23 @@ public Raster getTile(RenderedImage owner, int tileX, int tileY) {
     // instantiation of the result raster
     Raster tileData = null;
 
-    Object key = CachedTileImpl.hashKey(owner, tileX, tileY);
     // check if the tile is present
-    CachedTileImpl cti = (CachedTileImpl) cacheObject.getIfPresent(key);
+    TileKey key = TileKey.lookupKey(owner, tileX, tileY);
+    Segment segment = segmentFor(key.getImageKey());
+    CachedTileImpl cti = (CachedTileImpl) segment.cache.getIfPresent(key);
     if (cti == null) {
-        return null;
+        missCount.incrementAndGet();
+        segment.request(false);
+        // the tile may have been moved outside the heap
+        return getOffHeapTile(owner, tileX, tileY);
     }
+    hitCount.incrementAndGet();
+    segment.request(true);
+    segment.tileAccessed(cti);
     if (diagnosticEnabled) {
-        synchronized (this) {
-
-            // Update last-access time for diagnosticEnabled
-            cti.updateTileTimeStamp();
-            cti.setAction(Actions.UPDATING_TILE_FROM_GETTILE);
-            setChanged();
-            notifyObservers(cti);
-        }
+        // Update last-access time for diagnosticEnabled
+        cti.updateTileTimeStamp();
+        events.publish(cti, Actions.UPDATING_TILE_FROM_GETTILE);
     }
     // return the selected tile
     tileData = cti.getTile();
@@ -249,30 +915,26 @@ public Raster getTile(RenderedImage owner, int tileX, int tileY) {
 public Raster[] getTiles(RenderedImage owner) {
     // instantiation of the result array
     Raster[] tilesData = null;
-    // total number of tiles present in the cache
-    int tileCount = (int) cacheObject.size();
-
-    int size = Math.min(owner.getNumXTiles() * owner.getNumYTiles(), tileCount);
+    // only the tiles indexed for the image are checked
+    Object imageKey = TileKey.imageKey(owner);
+    TileKey[] keys = tileIndex.keys(imageKey);
+    Segment segment = segmentFor(imageKey);
 
+    int size = keys.length;
     if (size > 0) {
-        int minTx = owner.getMinTileX();
-        int minTy = owner.getMinTileY();
-        int maxTx = minTx + owner.getNumXTiles();
-        int maxTy = minTy + owner.getNumYTiles();
-
-        // arbitrarily set a temporary vector size
-        Vector<Raster> tempData = new Vector<Raster>(10, 20);
-        // cycle through all the tile in the image and check if they are in the
-        // cache...
-        for (int y = minTy; y < maxTy; y++) {
-            for (int x = minTx; x < maxTx; x++) {
-
-                Raster rasterTile = getTile(owner, x, y);
-
-                // ...then add to the vector if present
-                if (rasterTile != null) {
-                    tempData.add(rasterTile);
+        // temporary vector containing the tiles found
+        Vector<Raster> tempData = new Vector<Raster>(size);
+        for (int i = 0; i < size; i++) {
+            CachedTileImpl cti = (CachedTileImpl) segment.cache.getIfPresent(keys[i]);
+            // ...then add to the vector if present
+            if (cti != null) {
+                segment.tileAccessed(cti);
+                if (diagnosticEnabled) {
+                    // Update last-access time for diagnosticEnabled
+                    cti.updateTileTimeStamp();
+                    events.publish(cti, Actions.UPDATING_TILE_FROM_GETTILE);
                 }
+                tempData.add(cti.getTile());
             }
         }
 
@@ -290,29 +952,30 @@ public Raster[] getTiles(RenderedImage owner) {
  * Removes all tiles in the cache which are owned by the image.
  */
 public void removeTiles(RenderedImage owner) {
-
-    if (diagnosticEnabled) {
-        int minTx = owner.getMinTileX();
-        int minTy = owner.getMinTileY();
-        int maxTx = minTx + owner.getNumXTiles();
-        int maxTy = minTy + owner.getNumYTiles();
-
-        for (int y = minTy; y < maxTy; y++) {
-            for (int x = minTx; x < maxTx; x++) {
-                remove(owner, x, y);
-            }
-        }
-    } else {
-            int minTx = owner.getMinTileX();
-            int minTy = owner.getMinTileY();
-            int maxTx = minTx + owner.getNumXTiles();
-            int maxTy = minTy + owner.getNumYTiles();
-
-            for (int y = minTy; y < maxTy; y++) {
-                for (int x = minTx; x < maxTx; x++) {
-                    remove(owner, x, y);
+    Object imageKey = TileKey.imageKey(owner);
+    // the keys are detached from the index and then removed from the cache
+    TileKey[] keys = tileIndex.removeAll(imageKey);
+    segmentsLock.readLock().lock();
+    try {
+        Cache<TileKey, CachedTileImpl> cache = segmentFor(imageKey).cache;
+
+        for (int i = 0; i < keys.length; i++) {
+            if (diagnosticEnabled) {
+                CachedTileImpl cti = (CachedTileImpl) cache.getIfPresent(keys[i]);
+                if (cti != null) {
+                    removeTile(cti);
                 }
+            } else {
+                cache.invalidate(keys[i]);
             }
+        }
+    } finally {
+        segmentsLock.readLock().unlock();
+    }
+    // the tiles are removed also from the off-heap store
+    OffHeapTileStore store = offHeapStore;
+    if (store != null) {
+        store.removeTiles(imageKey);
     }
 }
 
@@ -359,31 +1022,60 @@ public Raster[] getTiles(RenderedImage owner, Point[] tileIndices) {
     return tilesData;
 }
 
-/** Removes all tiles present in the cache without checking for the image owner */
+/**
+ * Removes all tiles present in the cache without checking for the image
+ * owner. The segments are rebuilt keeping their memory budget.
+ */
 public synchronized void flush() {
-    // It is necessary to clear all the elements
-    // from the old cache.
-    if (diagnosticEnabled) {
-        // Creation of an iterator for accessing to every tile in the cache
-        Iterator<Object> keys = cacheObject.asMap().keySet().iterator();
-        // cycle across the cache for removing and updating every tile
-        while (keys.hasNext()) {
-            Object key = keys.next();
-            CachedTileImpl cti = (CachedTileImpl) cacheObject.asMap().remove(
-                    key);
-
-            // diagnosticEnabled
-
-            cti.setAction(Actions.REMOVAL_FROM_FLUSH);
-            setChanged();
-            notifyObservers(cti);
-
+    // no tile is added while the segments are cleared and replaced
+    segmentsLock.writeLock().lock();
+    try {
+        // It is necessary to clear all the elements
+        // from the old cache.
+        Segment[] oldSegments = segments;
+        for (int i = 0; i < oldSegments.length; i++) {
+            Cache<TileKey, CachedTileImpl> cache = oldSegments[i].cache;
+            if (diagnosticEnabled) {
+                // Creation of an iterator for accessing to every tile in the cache
+                Iterator<TileKey> keys = cache.asMap().keySet().iterator();
+                // cycle across the cache for removing and updating every tile
+                while (keys.hasNext()) {
+                    TileKey key = keys.next();
+                    CachedTileImpl cti = (CachedTileImpl) cache.asMap().remove(key);
+
+                    // diagnosticEnabled
+                    if (cti != null) {
+                        events.publish(cti, Actions.REMOVAL_FROM_FLUSH);
+                    }
+                }
+            } else {
+                cache.invalidateAll();
+            }
         }
-    } else {
-        cacheObject.invalidateAll();
+        Segment[] newSegments = buildCache();
+        // the budgets moved by the rebalancing are kept
+        rebalanceLock.lock();
+        try {
+            if (newSegments.length == oldSegments.length) {
+                for (int i = 0; i < newSegments.length; i++) {
+                    newSegments[i].budget = oldSegments[i].budget;
+                }
+            }
+            segments = newSegments;
+        } finally {
+            rebalanceLock.unlock();
+        }
+        for (int i = 0; i < oldSegments.length; i++) {
+            oldSegments[i].retired = true;
+        }
+        tileIndex.clear();
+    } finally {
+        segmentsLock.writeLock().unlock();
+    }
+    OffHeapTileStore store = offHeapStore;
+    if (store != null) {
+        store.flush();
     }
-    // cache.invalidateAll();
-    cacheObject = buildCache();
 
 }
 
@@ -415,13 +1107,16 @@ public int getTileCapacity() {
     throw new UnsupportedOperationException("Deprecated Operation");
 }
 
-/** Sets the cache memory capacity and then flush and rebuild the cache */
+/**
+ * Sets the cache memory capacity. The cached tiles are kept and, if the
+ * capacity shrinks, the tiles with the lowest priority are evicted.
+ */
 public synchronized void setMemoryCapacity(long memoryCacheCapacity) {
     if (memoryCacheCapacity < 0) {
         throw new IllegalArgumentException("Memory capacity too small");
     } else {
         this.memoryCacheCapacity = memoryCacheCapacity;
-        flush();
+        resize();
 
     }
 
@@ -432,14 +1127,17 @@ public long getMemoryCapacity() {
     return memoryCacheCapacity;
 }
 
-/** Sets the cache memory threshold and then flush and rebuild the cache */
+/**
+ * Sets the cache memory threshold. The cached tiles are kept and, if the
+ * threshold shrinks, the tiles with the lowest priority are evicted.
+ */
 public synchronized void setMemoryThreshold(float mt) {
     if (mt < 0.0F || mt > 1.0F) {
         throw new IllegalArgumentException(
                 "Memory threshold should be between 0 and 1");
     } else {
         memoryCacheThreshold = mt;
-        flush();
+        resize();
 
     }
 
@@ -450,14 +1148,17 @@ public float getMemoryThreshold() {
     return memoryCacheThreshold;
 }
 
-/** Sets the cache ConcurrencyLevel and then flush and rebuild the cache */
+/**
+ * Sets the cache ConcurrencyLevel and then rebuild the cache, moving the
+ * cached tiles in the new cache
+ */
 public synchronized void setConcurrencyLevel(int concurrency) {
     if (concurrency<1) {
         throw new IllegalArgumentException(
                 "ConcurrencyLevel must be at least 1");
     } else {
         concurrencyLevel = concurrency;
-        flush();
+        rebuildSegments();
 
     }
 
@@ -468,23 +1169,139 @@ public int getConcurrencyLevel() {
     return concurrencyLevel;
 }
 
+/** Sets the cache eviction policy and then flush and rebuild the cache */
+public synchronized void setEvictionPolicy(EvictionPolicy policy) {
+    if (policy == null) {
+        throw new IllegalArgumentException("Eviction policy cannot be null");
+    } else {
+        evictionPolicy = policy;
+        flush();
+
+    }
+
+}
+
+/** Retrieve the cache eviction policy */
+public EvictionPolicy getEvictionPolicy() {
+    return evictionPolicy;
+}
+
 /**
- * Not Supported
- * 
- * @throws UnsupportedOperationException
+ * Sets the number of independent segments of the cache and then rebuild the
+ * cache, moving the cached tiles in the new segments. The tiles are routed
+ * to the segments by their owner image and the memory is initially divided
+ * equally between the segments; then it is periodically moved from the
+ * segments with the highest hit ratio to the ones with the lowest hit ratio.
  */
-public void setTileComparator(Comparator comparator) {
-    throw new UnsupportedOperationException("Comparator not supported");
+public synchronized void setSegmentCount(int segmentCount) {
+    if (segmentCount < 1) {
+        throw new IllegalArgumentException("Segment count must be at least 1");
+    } else {
+        this.segmentCount = segmentCount;
+        rebuildSegments();
+
+    }
 
 }
 
+/** Retrieve the number of segments of the cache */
+public int getSegmentCount() {
+    return segmentCount;
+}
+
 /**
- * Not Supported
- * 
- * @throws UnsupportedOperationException
+ * Sets the memory capacity of the off-heap tile store. The tiles evicted
+ * from the cache are copied outside the heap, until this capacity is reached,
+ * and they are copied back when requested again. A value of 0 disables the
+ * store. The tiles already stored are discarded.
+ * <p>
+ * The capacity is limited to the maximum direct memory of the JVM, set by
+ * <code>-XX:MaxDirectMemorySize</code>. The direct memory of the discarded
+ * tiles is released only by the garbage collector: a tile which cannot be
+ * copied because the direct memory is exhausted is dropped.
+ */
+public synchronized void setOffHeapCapacity(long offHeapCapacity) {
+    if (offHeapCapacity < 0) {
+        throw new IllegalArgumentException("Off-heap capacity too small");
+    }
+    OffHeapTileStore oldStore = offHeapStore;
+    offHeapStore = offHeapCapacity > 0 ? new OffHeapTileStore(offHeapCapacity) : null;
+    if (oldStore != null) {
+        oldStore.flush();
+    }
+}
+
+/** Retrieve the off-heap tile store memory capacity */
+public long getOffHeapCapacity() {
+    OffHeapTileStore store = offHeapStore;
+    return store != null ? store.getCapacity() : DEFAULT_OFF_HEAP_CACHE;
+}
+
+/** Retrieves the number of tiles in the off-heap tile store */
+public long getOffHeapTileCount() {
+    OffHeapTileStore store = offHeapStore;
+    return store != null ? store.size() : 0;
+}
+
+/**
+ * Rehydrates the selected tile from the off-heap store, if present, and puts
+ * it back in the cache.
+ */
+private Raster getOffHeapTile(RenderedImage owner, int tileX, int tileY) {
+    OffHeapTileStore store = offHeapStore;
+    if (store == null) {
+        return null;
+    }
+    TileKey key = TileKey.lookupKey(owner, tileX, tileY);
+    OffHeapTile stored = store.get(key);
+    if (stored == null) {
+        return null;
+    }
+    // the tile is moved back to the heap cache
+    store.remove(key);
+    Raster data = stored.toRaster();
+    add(owner, tileX, tileY, data, stored.getTileCacheMetric());
+    return data;
+}
+
+/**
+ * Sets the comparator used for selecting the tiles to evict, instead of the
+ * eviction policy. The comparator orders the {@link javax.media.jai.CachedTile}s
+ * of the cache: at each eviction a sample of tiles is examined and the first
+ * tile of the sample is evicted. A <code>null</code> comparator restores the
+ * eviction policy. The priority class quotas are still respected.
  */
+@SuppressWarnings("unchecked")
+public void setTileComparator(Comparator comparator) {
+    tileComparator = comparator;
+}
+
+/** Retrieves the comparator used for selecting the tiles to evict, if any */
 public Comparator getTileComparator() {
-    throw new UnsupportedOperationException("Comparator not supported");
+    return tileComparator;
+}
+
+/**
+ * Sets the number of tiles examined by the sampled eviction for each evicted
+ * tile. The sampled eviction is used only by the cost aware eviction policy
+ * and by the tile comparator, while the LRU policy evicts the tiles in exact
+ * order. Larger samples approximate better the eviction order but make the
+ * eviction slower.
+ */
+public synchronized void setEvictionSampleSize(int sampleSize) {
+    if (sampleSize < 1) {
+        throw new IllegalArgumentException("Sample size must be at least 1");
+    }
+    evictionSampleSize = sampleSize;
+    Segment[] segs = segments;
+    for (int i = 0; i < segs.length; i++) {
+        segs[i].evictor.setSampleSize(sampleSize);
+    }
+}
+
+/** Retrieves the number of tiles examined by the sampled eviction */
+public int getEvictionSampleSize() {
+    return evictionSampleSize;
 }
 
 /** Disables diagnosticEnabled for the observers */
@@ -501,38 +1318,81 @@ public synchronized void enableDiagnostics() {
 
 }
 
+/**
+ * Adds a listener receiving asynchronously the tile events, generated only
+ * when the diagnostics are enabled
+ */
+public void addTileCacheListener(TileCacheListener listener) {
+    events.addListener(listener);
+}
+
+/** Removes a listener of the tile events */
+public void removeTileCacheListener(TileCacheListener listener) {
+    events.removeListener(listener);
+}
+
+/**
+ * Retrieves the number of tile events dropped because they were generated
+ * faster than they could be delivered
+ */
+public long getDroppedEventCount() {
+    return events.getDroppedCount();
+}
+
 /** Retrieves the hit count from the cache statistics */
 public long getCacheHitCount() {
-    if(diagnosticEnabled){
-        return cacheObject.stats().hitCount();
-    }
-    return 0;
+    return hitCount.get();
 }
 
 /** Retrieves the current memory size of the cache */
-public synchronized long getCacheMemoryUsed() {
-    Iterator<Object> keys = cacheObject.asMap().keySet().iterator();
-    long memoryUsed = 0;
-    while (keys.hasNext()) {
-        Object key = keys.next();
-        CachedTileImpl cti = (CachedTileImpl) cacheObject.getIfPresent(key);
-        memoryUsed += cti.getTileSize();
-    }
-    return memoryUsed;
+public long getCacheMemoryUsed() {
+    return memoryUsed.get();
 }
 
 /** Retrieves the miss count from the cache statistics */
 public long getCacheMissCount() {
-    if(diagnosticEnabled){
-        return cacheObject.stats().missCount();
+    return missCount.get();
+}
+
+/**
+ * Retrieves the memory used by the cached tiles of the priority class, as the
+ * sum of its memory in the segments
+ */
+public long getCacheMemoryUsed(TilePriorityClass priorityClass) {
+    Segment[] segs = segments;
+    long used = 0;
+    for (int i = 0; i < segs.length; i++) {
+        AtomicLong segmentUsed = segs[i].classMemory.get(priorityClass);
+        if (segmentUsed != null) {
+            used += segmentUsed.get();
+        }
     }
-    return 0;
-    
+    return used;
+}
+
+/** Retrieves the memory used by the cached tiles of the image */
+public long getCacheMemoryUsed(RenderedImage owner) {
+    return tileIndex.memory(TileKey.imageKey(owner));
+}
+
+/**
+ * Retrieves a snapshot of the cache statistics. The statistics are always
+ * collected and the cache is not locked while reading them.
+ */
+public TileCacheStatistics getStatistics() {
+    return new TileCacheStatistics(hitCount.get(), missCount.get(), evictionCount.get(),
+            removalCount.get(), replacementCount.get(), getCacheTileCount(), memoryUsed.get(),
+            tileIndex.memoryByImage());
 }
 
 /** Retrieves the number of tiles in the cache */
 public long getCacheTileCount() {
-    return cacheObject.size();
+    Segment[] segs = segments;
+    long size = 0;
+    for (int i = 0; i < segs.length; i++) {
+        size += segs[i].cache.size();
+    }
+    return size;
 }
 
 /**
@@ -22,15 +22,16 @@ import it.geosolutions.concurrent.ConcurrentTileCache.Actions;
 import java.awt.Point;
 import java.awt.image.Raster;
 import java.awt.image.RenderedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
-import java.util.Map;
+import java.util.List;
 import java.util.Observable;
-import java.util.Set;
 import java.util.Vector;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -49,7 +50,8 @@ import com.sun.media.jai.util.CacheDiagnostics;
  * contains all the cached tiles while the second one contains the mapping of the tile keys for each image. This class implements
  * {@link CacheDiagnostics} in order to get the statistics associated to the {@link TileCache}. The user can define the cache memory capacity, the
  * concurrency level (which indicates in how many segments the cache must be divided), the threshold of the total memory to use and a boolean
- * indicating if the diagnostic must be enabled.
+ * indicating if the diagnostic must be enabled. When the diagnostic is enabled, the tile events are delivered asynchronously to the observers and
+ * to the {@link TileCacheListener}s, so that they never run on the threads accessing the cache.
  * 
  * @author Nicola Lagomarsini GeoSolutions S.A.S.
  * 
@@ -68,21 +70,37 @@ public class ConcurrentTileCacheMultiMap extends Observable implements TileCache
     /** The default concurrency settings */
     public static final int DEFAULT_CONCURRENCY_LEVEL = 4;
 
+    /** Order of the tiles by last access, the least recently used first */
+    private static final Comparator<CachedTileImpl> ACCESS_ORDER = new Comparator<CachedTileImpl>() {
+        public int compare(CachedTileImpl o1, CachedTileImpl o2) {
+            return Double.compare(o1.getPriority(), o2.getPriority());
+        }
+    };
+
     /**
      * The tile cache. A Guava Cache is used to cache the tiles. The "key" is a <code>Object</code>. The "value" is a CachedTileImpl.
      */
-    private Cache<Object, CachedTileImpl> cacheObject;
+    private volatile Cache<TileKey, CachedTileImpl> cacheObject;
+
+    /** The listener of the tiles removed from the current cache */
+    private TileRemovalListener cacheListener;
+
+    /**
+     * Lock guarding the replacement of the cache: the tiles are added and removed under the read lock, while the cache is rebuilt or flushed
+     * under the write lock, so that no tile is left in a discarded cache
+     */
+    private final ReentrantReadWriteLock cacheLock = new ReentrantReadWriteLock();
 
     /**
      * A concurrent multimap used for mapping the tile keys for each image
      */
-    private Map<Object, Set<Object>> multimap;
+    private final ImageTileIndex multimap = new ImageTileIndex();
 
     /** The memory capacity of the cache. */
     private long memoryCacheCapacity;
 
-    /** The current memory capacity of the cache. */
-    private AtomicLong currentCacheCapacity;
+    /** The current memory capacity of the cache, bound to the listener of the current cache. */
+    private volatile AtomicLong currentCacheCapacity;
 
     /** The concurrency level of the cache. */
     private int concurrencyLevel;
@@ -93,6 +111,23 @@ public class ConcurrentTileCacheMultiMap extends Observable implements TileCache
     /** diagnosticEnabled enable/disable */
     private volatile boolean diagnosticEnabled = DEFAULT_DIAGNOSTIC;
 
+    /** Asynchronous delivery of the tile events when the diagnostics are enabled */
+    private final TileEventDispatcher events = new TileEventDispatcher(
+            "ConcurrentTileCacheMultiMap events", TileEventDispatcher.DEFAULT_BUFFER_SIZE);
+
+    /** Listener notifying the tile events to the observers, on the event delivery thread */
+    private final TileCacheListener observerNotifier = new TileCacheListener() {
+        public void tileEvents(List<TileCacheEvent> list) {
+            for (int i = 0; i < list.size(); i++) {
+                TileCacheEvent event = list.get(i);
+                CachedTileImpl cti = event.getCachedTile();
+                cti.setAction(event.getAction());
+                setChanged();
+                notifyObservers(cti);
+            }
+        }
+    };
+
     /**
      * Logger to use for reporting the informations about the TileCache operations.
      */
@@ -113,12 +148,11 @@ public class ConcurrentTileCacheMultiMap extends Observable implements TileCache
         this.diagnosticEnabled = diagnostic;
         this.memoryCacheCapacity = memoryCacheCapacity;
         this.concurrencyLevel = concurrencyLevel;
+        // the observers are notified together with the other listeners
+        events.addListener(observerNotifier);
 
         // cache creation
-        cacheObject = buildCache();
-
-        // multimap creation
-        multimap = new ConcurrentHashMap<Object, Set<Object>>();
+        publishCache(buildCache(diagnosticEnabled));
     }
 
     /** Add a new tile to the cache */
@@ -138,51 +172,50 @@ public class ConcurrentTileCacheMultiMap extends Observable implements TileCache
         CachedTileImpl cti;
         // create a new tile
         CachedTileImpl cti_new = new CachedTileImpl(owner, tileX, tileY, data, tileCacheMetric);
+        // the access time is kept for moving the tiles when the cache is rebuilt
+        cti_new.setPriority(System.nanoTime());
 
-        if (diagnosticEnabled) {
-            // if the tile is already cached
-            cti = (CachedTileImpl) cacheObject.asMap().putIfAbsent(cti_new.key, cti_new);
-            synchronized (cacheObject) {
+        // the cache is not replaced while the tile is added
+        cacheLock.readLock().lock();
+        try {
+            if (diagnosticEnabled) {
+                // if the tile is already cached
+                cti = (CachedTileImpl) cacheObject.asMap().putIfAbsent(cti_new.key, cti_new);
                 if (cti != null) {
                     cti.updateTileTimeStamp();
-                    cti.setAction(Actions.SUBSTITUTION_FROM_ADD);
-                    setChanged();
-                    notifyObservers(cti);
+                    events.publish(cti, Actions.SUBSTITUTION_FROM_ADD);
+                } else {
+                    // Update Cache Memory Size
+                    currentCacheCapacity.addAndGet(cti_new.getTileSize());
                 }
-                // Update Cache Memory Size
-                currentCacheCapacity.addAndGet(cti_new.getTileSize());
 
-                // Update the tile action in order to notify it to the observers
-                cti_new.setAction(Actions.ADDITION);
-                setChanged();
-                notifyObservers(cti_new);
-                updateMultiMap(cti_new.key, imageKey);
-            }
-        } else {
-            if (LOGGER.isLoggable(Level.FINE)) {
-                LOGGER.fine("Added new Tile Image key " + imageKey);
+                // Notify the tile action to the observers
+                events.publish(cti_new, Actions.ADDITION);
+                multimap.add(cti_new.key, cti_new.getTileSize());
+            } else {
+                if (LOGGER.isLoggable(Level.FINE)) {
+                    LOGGER.fine("Added new Tile Image key " + imageKey);
+                }
+                // new tile insertion
+                cacheObject.asMap().putIfAbsent(cti_new.key, cti_new);
+                // Atomically adds a new key set if needed and then adds the tile key inside the MultiMap.
+                multimap.add(cti_new.key, cti_new.getTileSize());
             }
-            // new tile insertion
-            cacheObject.asMap().putIfAbsent(cti_new.key, cti_new);
-            // Atomically adds a new Map if needed and then adds a new tile inside the MultiMap.
-            updateMultiMap(cti_new.key, imageKey);
+        } finally {
+            cacheLock.readLock().unlock();
         }
     }
 
     /** Removes the selected tile from the cache */
     public void remove(RenderedImage owner, int tileX, int tileY) {
-        // Calculation of the tile key
-        Object key = CachedTileImpl.hashKey(owner, tileX, tileY);
         // remove operation
-        removeTileByKey(key);
+        removeTileByKey(TileKey.lookupKey(owner, tileX, tileY));
     }
 
     /** Retrieves the selected tile from the cache */
     public Raster getTile(RenderedImage owner, int tileX, int tileY) {
-        // Calculation of the tile key
-        Object key = CachedTileImpl.hashKey(owner, tileX, tileY);
         // Get operation
-        return getTileFromKey(key);
+        return getTileFromKey(TileKey.lookupKey(owner, tileX, tileY));
     }
 
     /**
@@ -200,37 +233,31 @@ public class ConcurrentTileCacheMultiMap extends Observable implements TileCache
             LOGGER.fine("Getting image Tiles Image key " + imageKey);
         }
         // Selection of the tile keys for the image
-        Set<Object> keys = multimap.get(imageKey);
+        TileKey[] keys = multimap.keys(imageKey);
 
         // If no key is found then a null object is returned
-        if (keys == null || keys.isEmpty()) {
+        if (keys.length == 0) {
             return tilesData;
         }
 
-        // Else it is created an iterator on the tile keys
-        Iterator<Object> it = keys.iterator();
-        // Another check on the iterator
-        if (it.hasNext()) {
-            // arbitrarily set a temporary vector size
-            Vector<Raster> tempData = new Vector<Raster>(10, 20);
-            // cycle through all the tile keys present in the multimap and check if they are in the
-            // cache...
-            while (it.hasNext()) {
-                Object key = it.next();
-                // get the tile from the key
-                Raster rasterTile = getTileFromKey(key);
-
-                // ...then add to the vector if present
-                if (rasterTile != null) {
-                    tempData.add(rasterTile);
-                }
-            }
-            // Vector size
-            int tmpsize = tempData.size();
-            if (tmpsize > 0) {
-                tilesData = (Raster[]) tempData.toArray(new Raster[tmpsize]);
+        // temporary vector containing the tiles found
+        Vector<Raster> tempData = new Vector<Raster>(keys.length);
+        // cycle through all the tile keys present in the multimap and check if they are in the
+        // cache...
+        for (int i = 0; i < keys.length; i++) {
+            // get the tile from the key
+            Raster rasterTile = getTileFromKey(keys[i]);
+
+            // ...then add to the vector if present
+            if (rasterTile != null) {
+                tempData.add(rasterTile);
             }
         }
+        // Vector size
+        int tmpsize = tempData.size();
+        if (tmpsize > 0) {
+            tilesData = (Raster[]) tempData.toArray(new Raster[tmpsize]);
+        }
         return tilesData;
     }
 
@@ -245,23 +272,24 @@ public class ConcurrentTileCacheMultiMap extends Observable implements TileCache
         if (diagnosticEnabled) {
             synchronized (cacheObject) {
                 // Selection of the keys associated to the image and removal of each of them
-                Set<Object> keys = multimap.get(imageKey);
-                if (keys != null) {
-                    Iterator<Object> it = keys.iterator();
-                    while (it.hasNext()) {
-                        Object key = it.next();
-                        removeTileByKey(key);
-                    }
+                TileKey[] keys = multimap.removeAll(imageKey);
+                for (int i = 0; i < keys.length; i++) {
+                    removeTileByKey(keys[i]);
                 }
             }
         } else {
             // Get the keys associated to the image and remove them
-            Set<Object> keys = multimap.get(imageKey);
-            if (keys != null) {
+            TileKey[] keys = multimap.removeAll(imageKey);
+            if (keys.length > 0) {
                 if (LOGGER.isLoggable(Level.FINE)) {
                     LOGGER.fine("Removing image Tiles Image key " + imageKey);
                 }
-                cacheObject.invalidateAll(keys);
+                cacheLock.readLock().lock();
+                try {
+                    cacheObject.invalidateAll(Arrays.asList(keys));
+                } finally {
+                    cacheLock.readLock().unlock();
+                }
             }
         }
     }
@@ -316,35 +344,40 @@ public class ConcurrentTileCacheMultiMap extends Observable implements TileCache
     /** Removes all tiles present in the cache without checking for the image owner */
     public void flush() {
         synchronized (cacheObject) {
-            // It is necessary to clear all the elements
-            // from the old cache.
-            if (diagnosticEnabled) {
-                // Creation of an iterator for accessing to every tile in the cache
-                Iterator<Object> keys = cacheObject.asMap().keySet().iterator();
-                // cycle across the cache for removing and updating every tile
-                while (keys.hasNext()) {
-                    Object key = keys.next();
-                    CachedTileImpl cti = (CachedTileImpl) cacheObject.asMap().remove(key);
-
-                    // diagnosticEnabled
-
-                    cti.setAction(Actions.REMOVAL_FROM_FLUSH);
-                    setChanged();
-                    notifyObservers(cti);
+            // no tile is added while the cache is cleared and replaced
+            cacheLock.writeLock().lock();
+            try {
+                // It is necessary to clear all the elements
+                // from the old cache.
+                if (diagnosticEnabled) {
+                    // Creation of an iterator for accessing to every tile in the cache
+                    Iterator<TileKey> keys = cacheObject.asMap().keySet().iterator();
+                    // cycle across the cache for removing and updating every tile
+                    while (keys.hasNext()) {
+                        TileKey key = keys.next();
+                        CachedTileImpl cti = (CachedTileImpl) cacheObject.asMap().remove(key);
+
+                        // diagnosticEnabled
+                        if (cti != null) {
+                            events.publish(cti, Actions.REMOVAL_FROM_FLUSH);
+                        }
+                    }
+                } else {
+                    // Invalidation of all the keys of the cache
+                    cacheObject.invalidateAll();
                 }
-            } else {
-                // Invalidation of all the keys of the cache
-                cacheObject.invalidateAll();
-            }
 
-            if (LOGGER.isLoggable(Level.FINE)) {
-                LOGGER.fine("Flushing cache");
-            }
+                if (LOGGER.isLoggable(Level.FINE)) {
+                    LOGGER.fine("Flushing cache");
+                }
 
-            // Cache creation
-            cacheObject = buildCache();
-            // multimap creation
-            multimap = new ConcurrentHashMap<Object, Set<Object>>();
+                // Cache creation
+                publishCache(buildCache(diagnosticEnabled));
+                // multimap cleanup
+                multimap.clear();
+            } finally {
+                cacheLock.writeLock().unlock();
+            }
         }
     }
 
@@ -375,15 +408,17 @@ public class ConcurrentTileCacheMultiMap extends Observable implements TileCache
         throw new UnsupportedOperationException("Deprecated Operation");
     }
 
-    /** Sets the cache memory capacity and then flush and rebuild the cache */
+    /**
+     * Sets the cache memory capacity and then rebuild the cache, moving the cached tiles in the new cache. If the capacity shrinks, the least
+     * recently used tiles are evicted.
+     */
     public void setMemoryCapacity(long memoryCacheCapacity) {
         synchronized (cacheObject) {
             if (memoryCacheCapacity < 0) {
                 throw new IllegalArgumentException("Memory capacity too small");
             } else {
                 this.memoryCacheCapacity = memoryCacheCapacity;
-                // The flush is done in order to rebuild the cache with the new settings
-                flush();
+                rebuildCache();
             }
         }
     }
@@ -393,16 +428,17 @@ public class ConcurrentTileCacheMultiMap extends Observable implements TileCache
         return memoryCacheCapacity;
     }
 
-    /** Sets the cache memory threshold and then flush and rebuild the cache */
+    /**
+     * Sets the cache memory threshold and then rebuild the cache, moving the cached tiles in the new cache. If the threshold shrinks, the least
+     * recently used tiles are evicted.
+     */
     public void setMemoryThreshold(float mt) {
         synchronized (cacheObject) {
             if (mt < 0.0F || mt > 1.0F) {
                 throw new IllegalArgumentException("Memory threshold should be between 0 and 1");
             } else {
                 memoryCacheThreshold = mt;
-                // The flush is done in order to rebuild the cache with the new settings
-                flush();
-
+                rebuildCache();
             }
         }
     }
@@ -412,16 +448,14 @@ public class ConcurrentTileCacheMultiMap extends Observable implements TileCache
         return memoryCacheThreshold;
     }
 
-    /** Sets the cache ConcurrencyLevel and then flush and rebuild the cache */
+    /** Sets the cache ConcurrencyLevel and then rebuild the cache, moving the cached tiles in the new cache */
     public void setConcurrencyLevel(int concurrency) {
         synchronized (cacheObject) {
             if (concurrency < 1) {
                 throw new IllegalArgumentException("ConcurrencyLevel must be at least 1");
             } else {
                 concurrencyLevel = concurrency;
-                // The flush is done in order to rebuild the cache with the new settings
-                flush();
-
+                rebuildCache();
             }
         }
     }
@@ -468,6 +502,21 @@ public class ConcurrentTileCacheMultiMap extends Observable implements TileCache
         }
     }
 
+    /** Adds a listener receiving asynchronously the tile events, generated only when the diagnostics are enabled */
+    public void addTileCacheListener(TileCacheListener listener) {
+        events.addListener(listener);
+    }
+
+    /** Removes a listener of the tile events */
+    public void removeTileCacheListener(TileCacheListener listener) {
+        events.removeListener(listener);
+    }
+
+    /** Retrieves the number of tile events dropped because they were generated faster than they could be delivered */
+    public long getDroppedEventCount() {
+        return events.getDroppedCount();
+    }
+
     /** Retrieves the hit count from the cache statistics */
     public long getCacheHitCount() {
         if (diagnosticEnabled) {
@@ -504,46 +553,55 @@ public class ConcurrentTileCacheMultiMap extends Observable implements TileCache
     }
 
     /**
-     * Creation of a listener to use for handling the removed tiles
-     * 
-     * @param diagnostic
-     * @return
+     * Listener handling the tiles removed from a cache. Each cache has its own listener and memory counter, and the listener of a replaced cache
+     * is detached, so that the old cache never changes the memory counter and the multimap of the new one.
      */
-    private RemovalListener<Object, CachedTileImpl> createListener(final boolean diagnostic) {
-        return new RemovalListener<Object, CachedTileImpl>() {
-            public void onRemoval(RemovalNotification<Object, CachedTileImpl> n) {
-                // if a tile is manually removed, the diagnosticEnabled already consider
-                // it in
-                // the remove() method
-
-                if (diagnostic) {
-                    synchronized (cacheObject) {
-                        CachedTileImpl cti = n.getValue();
-                        // Update of the tile action
-                        if (n.wasEvicted()) {
-                            cti.setAction(Actions.REMOVAL_FROM_EVICTION);
-                        } else {
-                            cti.setAction(Actions.MANUAL_REMOVAL);
-                        }
-                        // Update Cache Memory Size
-                        currentCacheCapacity.addAndGet(-cti.getTileSize());
-                        // Removal from the multimap
-                        removeTileFromMultiMap(cti);
-                        setChanged();
-                        notifyObservers(cti);
-                    }
-                } else {
-                    CachedTileImpl cti = n.getValue();
-                    if (n.getCause() == RemovalCause.SIZE) {
-                        // Logging if the tile is removed because the size is exceeded
-                        if (LOGGER.isLoggable(Level.FINE)) {
-                            LOGGER.fine("Removing from MultiMap for size");
-                        }
+    private final class TileRemovalListener implements RemovalListener<TileKey, CachedTileImpl> {
+
+        /** Indicates if the diagnostics were enabled when the cache was built */
+        private final boolean diagnostic;
+
+        /** Memory used by the tiles of the cache */
+        final AtomicLong memory = new AtomicLong(0);
+
+        /** The cache handled by the listener, once built */
+        Cache<TileKey, CachedTileImpl> cache;
+
+        /** Indicates that the cache has been replaced, so its removals must be ignored */
+        volatile boolean detached;
+
+        TileRemovalListener(boolean diagnostic) {
+            this.diagnostic = diagnostic;
+        }
+
+        public void onRemoval(RemovalNotification<TileKey, CachedTileImpl> n) {
+            if (detached) {
+                return;
+            }
+            // if a tile is manually removed, the diagnosticEnabled already consider
+            // it in
+            // the remove() method
+
+            if (diagnostic) {
+                CachedTileImpl cti = n.getValue();
+                // Update Cache Memory Size
+                memory.addAndGet(-cti.getTileSize());
+                // Removal from the multimap
+                removeTileFromMultiMap(cti);
+                // Notify the tile action
+                events.publish(cti, n.wasEvicted() ? Actions.REMOVAL_FROM_EVICTION
+                        : Actions.MANUAL_REMOVAL);
+            } else {
+                CachedTileImpl cti = n.getValue();
+                if (n.getCause() == RemovalCause.SIZE) {
+                    // Logging if the tile is removed because the size is exceeded
+                    if (LOGGER.isLoggable(Level.FINE)) {
+                        LOGGER.fine("Removing from MultiMap for size");
                     }
-                    removeTileFromMultiMap(cti);
                 }
+                removeTileFromMultiMap(cti);
             }
-        };
+        }
     }
 
     /**
@@ -552,44 +610,24 @@ public class ConcurrentTileCacheMultiMap extends Observable implements TileCache
      * @param cti
      */
     private void removeTileFromMultiMap(CachedTileImpl cti) {
-        // Tile key
-        Object key = cti.getKey();
-        // Image key
-        Object imageKey = cti.getImageKey();
-        // KeySet associated to the image
-        Set<Object> tileKeys = multimap.get(imageKey);
-
         if (LOGGER.isLoggable(Level.FINE)) {
-            LOGGER.fine("Removing tile from MultiMap Image key " + imageKey);
-        }
-
-        if (tileKeys != null) {
-            // Removal of the keys
-            tileKeys.remove(key);
-            if (LOGGER.isLoggable(Level.FINE)) {
-                LOGGER.fine("Removed Tile Image key " + imageKey);
-            }
-            // If the KeySet is empty then it is removed from the multimap
-            if (tileKeys.isEmpty()) {
-                multimap.remove(imageKey);
-                if (LOGGER.isLoggable(Level.FINE)) {
-                    LOGGER.fine("Removed image SET Image key " + imageKey);
-                }
-            }
+            LOGGER.fine("Removing tile from MultiMap Image key " + cti.getImageKey());
         }
+        multimap.remove(cti.getKey());
     }
 
-    /** Private cache creation method */
-    private Cache<Object, CachedTileImpl> buildCache() {
+    /** Private cache creation method. The cache is returned together with the listener of its removed tiles */
+    private TileRemovalListener buildCache(boolean diagnostic) {
+        TileRemovalListener listener = new TileRemovalListener(diagnostic);
         CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder();
         builder.maximumWeight((long) (memoryCacheCapacity * memoryCacheThreshold))
-                .concurrencyLevel(concurrencyLevel).weigher(new Weigher<Object, CachedTileImpl>() {
-                    public int weigh(Object o, CachedTileImpl cti) {
+                .concurrencyLevel(concurrencyLevel).weigher(new Weigher<TileKey, CachedTileImpl>() {
+                    public int weigh(TileKey o, CachedTileImpl cti) {
                         return (int) cti.getTileSize();
                     }
                 });
         // Setting of the listener
-        builder.removalListener(createListener(diagnosticEnabled));
+        builder.removalListener(listener);
         // Enable statistics only when the diagnostic flag is set to true;
         if(diagnosticEnabled){
             builder.recordStats();
@@ -598,37 +636,58 @@ public class ConcurrentTileCacheMultiMap extends Observable implements TileCache
         if (LOGGER.isLoggable(Level.FINE)) {
             LOGGER.fine("Building Cache");
         }
-        // Update of the Memory cache size
-        currentCacheCapacity = new AtomicLong(0);
+        listener.cache = builder.build();
+        return listener;
+    }
 
-        return builder.build();
+    /**
+     * Publishes the new cache together with its memory counter, and detaches the listener of the old cache. Called under the write lock, or by
+     * the constructor.
+     */
+    private void publishCache(TileRemovalListener listener) {
+        TileRemovalListener oldListener = cacheListener;
+        cacheListener = listener;
+        currentCacheCapacity = listener.memory;
+        cacheObject = listener.cache;
+        if (oldListener != null) {
+            oldListener.detached = true;
+        }
     }
 
     /**
-     * Update of the multimap when a tile is added.
-     * 
-     * @param key
-     * @param imageKey
+     * Rebuilds the cache with the current settings, moving the cached tiles in the new cache. The tiles are moved from the least recently used,
+     * so that Guava evicts them first if the new cache is smaller. No tile is added or removed during the copy, while the tiles evicted from the
+     * new cache are removed from the multimap and from its memory counter by its own listener.
      */
-    private void updateMultiMap(Object key, Object imageKey) {
-        Set<Object> tileKeys = null;
-        synchronized (cacheObject) {
-            // Check if the multimap contains the keys for the image
-            tileKeys = multimap.get(imageKey);
-            if (tileKeys == null) {
-                // If no key is present then a new KeySet is created and then added to the multimap
-                tileKeys = new ConcurrentSkipListSet<Object>();
-                multimap.put(imageKey, tileKeys);
-                if (LOGGER.isLoggable(Level.FINE)) {
-                    LOGGER.fine("Created new Set for the image Image key " + imageKey);
-                }
+    private void rebuildCache() {
+        cacheLock.writeLock().lock();
+        try {
+            Cache<TileKey, CachedTileImpl> oldCache = cacheObject;
+            // the removals still pending are notified before the copy
+            oldCache.cleanUp();
+            List<CachedTileImpl> tiles = new ArrayList<CachedTileImpl>(oldCache.asMap().values());
+            Collections.sort(tiles, ACCESS_ORDER);
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.fine("Moving " + tiles.size() + " tiles in the rebuilt cache");
             }
+            // the tiles are copied before publishing the new cache, so that the readers always find them
+            TileRemovalListener newCache = buildCache(diagnosticEnabled);
+            for (int i = 0; i < tiles.size(); i++) {
+                moveTile(newCache, tiles.get(i));
+            }
+            publishCache(newCache);
+        } finally {
+            cacheLock.writeLock().unlock();
         }
-        if (LOGGER.isLoggable(Level.FINE)) {
-            LOGGER.fine("Added Tile to the set Image key " + imageKey);
+    }
+
+    /** Moves a tile of the old cache in the new cache, unless the key is already cached */
+    private void moveTile(TileRemovalListener newCache, CachedTileImpl cti) {
+        if (newCache.cache.asMap().putIfAbsent(cti.getKey(), cti) == null) {
+            if (newCache.diagnostic) {
+                newCache.memory.addAndGet(cti.getTileSize());
+            }
         }
-        // Finally the tile key is added.
-        tileKeys.add(key);
     }
 
     /**
@@ -636,33 +695,34 @@ public class ConcurrentTileCacheMultiMap extends Observable implements TileCache
      * 
      * @param key
      */
-    private void removeTileByKey(Object key) {
-        // check if the tile is still in cache
-        CachedTileImpl cti = (CachedTileImpl) cacheObject.getIfPresent(key);
-        // if so the tile is deleted (even if another thread write on it)
-        if (cti != null) {
-            if (diagnosticEnabled) {
-                synchronized (cacheObject) {
+    private void removeTileByKey(TileKey key) {
+        cacheLock.readLock().lock();
+        try {
+            // check if the tile is still in cache
+            CachedTileImpl cti = (CachedTileImpl) cacheObject.getIfPresent(key);
+            // if so the tile is deleted (even if another thread write on it)
+            if (cti != null) {
+                // the key may be a lookup key, which is valid only for a single operation
+                key = cti.getKey();
+                if (diagnosticEnabled) {
                     // Upgrade the tile action
-                    cti.setAction(Actions.ABOUT_TO_REMOVAL);
-                    setChanged();
-                    notifyObservers(cti);
+                    events.publish(cti, Actions.ABOUT_TO_REMOVAL);
                     // Removal of the tile
                     cti = (CachedTileImpl) cacheObject.asMap().remove(key);
                     if (cti != null) {
                         // Upgrade the tile action
-                        cti.setAction(Actions.MANUAL_REMOVAL);
-                        setChanged();
-                        notifyObservers(cti);
+                        events.publish(cti, Actions.MANUAL_REMOVAL);
                     }
+                } else {
+                    if (LOGGER.isLoggable(Level.FINE)) {
+                        LOGGER.fine("Removed Tile Image key " + cti.getImageKey());
+                    }
+                    // Discard the tile from the cache
+                    cacheObject.invalidate(key);
                 }
-            } else {
-                if (LOGGER.isLoggable(Level.FINE)) {
-                    LOGGER.fine("Removed Tile Image key " + cti.getImageKey());
-                }
-                // Discard the tile from the cache
-                cacheObject.invalidate(key);
             }
+        } finally {
+            cacheLock.readLock().unlock();
         }
     }
 
@@ -672,7 +732,7 @@ public class ConcurrentTileCacheMultiMap extends Observable implements TileCache
      * @param key
      * @return
      */
-    private Raster getTileFromKey(Object key) {
+    private Raster getTileFromKey(TileKey key) {
         Raster tileData = null;
         // check if the tile is present
         CachedTileImpl cti = (CachedTileImpl) cacheObject.asMap().get(key);
@@ -683,15 +743,11 @@ public class ConcurrentTileCacheMultiMap extends Observable implements TileCache
             }
             return null;
         }
+        cti.setPriority(System.nanoTime());
         if (diagnosticEnabled) {
-            synchronized (cacheObject) {
-
-                // Update last-access time for diagnosticEnabled
-                cti.updateTileTimeStamp();
-                cti.setAction(Actions.UPDATING_TILE_FROM_GETTILE);
-                setChanged();
-                notifyObservers(cti);
-            }
+            // Update last-access time for diagnosticEnabled
+            cti.updateTileTimeStamp();
+            events.publish(cti, Actions.UPDATING_TILE_FROM_GETTILE);
         }
         if (LOGGER.isLoggable(Level.FINE)) {
             LOGGER.fine("Get the selected tile Image key " + cti.getImageKey());
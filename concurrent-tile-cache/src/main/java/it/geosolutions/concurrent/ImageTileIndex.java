@@ -0,0 +1,229 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.concurrent;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Secondary index of the concurrent tile caches which maps each image key to the keys of its cached tiles. It allows to enumerate or remove the
+ * tiles of an image with a cost proportional to the number of cached tiles instead of the number of tiles of the image.
+ * <p>
+ * Each image has its own key set, guarded by its own monitor, so that operations on different images never contend. An empty key set is
+ * removed from the index and marked as removed, so that a concurrent addition is done on a new set.
+ * <p>
+ * The index is kept consistent with the cache by adding the key after the tile has been put in the cache and by removing it from the cache
+ * removal listener. When the operations refer to the tile instance, they are done under the monitor of the key set: a key is added only if
+ * its tile is still cached and removed only if it is still mapped to the removed tile, so that a tile removed before being indexed, or
+ * replaced by a new tile, never leaves a stale key. Callers must anyway check the cache, since a tile may be removed at any time.
+ * <p>
+ * The size of each tile is stored together with its key, so that the memory used by each image is available without accessing the cache.
+ */
+final class ImageTileIndex {
+
+    /** Empty key array */
+    private static final TileKey[] EMPTY = new TileKey[0];
+
+    /** Map of the key sets for each image */
+    private final ConcurrentMap<Object, KeySet> index = new ConcurrentHashMap<Object, KeySet>();
+
+    /** Adds the tile key, with the tile size, to the set of the tile owner. The size of an already indexed key is updated. */
+    void add(TileKey key, long size) {
+        put(key, null, size, null);
+    }
+
+    /**
+     * Adds the key of the tile to the set of the tile owner, if the tile is still in the cache. A key already indexed for a replaced tile is
+     * updated.
+     * 
+     * @param cti the tile added to the cache.
+     * @param cache the tiles of the cache.
+     */
+    void add(CachedTileImpl cti, Map<TileKey, CachedTileImpl> cache) {
+        put(cti.getKey(), cti, cti.getTileSize(), cache);
+    }
+
+    /**
+     * Indexes the key with the tile and its size. If a cache is given, the key is indexed only if it still maps to the tile, checked
+     * under the monitor of the key set.
+     */
+    private void put(TileKey key, CachedTileImpl cti, long size, Map<TileKey, CachedTileImpl> cache) {
+        Object imageKey = key.getImageKey();
+        while (true) {
+            KeySet keys = index.get(imageKey);
+            if (keys == null) {
+                KeySet newKeys = new KeySet();
+                keys = index.putIfAbsent(imageKey, newKeys);
+                if (keys == null) {
+                    keys = newKeys;
+                }
+            }
+            synchronized (keys) {
+                // If the set has been removed in the meantime a new one must be used
+                if (!keys.removed) {
+                    // the tile may have been removed before being indexed
+                    if (cache == null || cache.get(key) == cti) {
+                        IndexedTile old = keys.put(key, new IndexedTile(cti, size));
+                        keys.memory += old != null ? size - old.size : size;
+                    }
+                    removeIfEmpty(imageKey, keys);
+                    return;
+                }
+            }
+        }
+    }
+
+    /** Removes the tile key from the set of the tile owner. The set is removed if empty. */
+    void remove(TileKey key) {
+        remove(key, null);
+    }
+
+    /**
+     * Removes the key of the tile from the set of the tile owner, unless it has been indexed for a new tile in the meantime. The set is
+     * removed if empty.
+     */
+    void remove(CachedTileImpl cti) {
+        remove(cti.getKey(), cti);
+    }
+
+    /** Removes the key, if indexed with the tile or if the tile is <code>null</code> */
+    private void remove(TileKey key, CachedTileImpl cti) {
+        Object imageKey = key.getImageKey();
+        KeySet keys = index.get(imageKey);
+        if (keys != null) {
+            synchronized (keys) {
+                IndexedTile old = keys.get(key);
+                if (old != null && (cti == null || old.tile == cti)) {
+                    keys.remove(key);
+                    keys.memory -= old.size;
+                }
+                removeIfEmpty(imageKey, keys);
+            }
+        }
+    }
+
+    /** Removes the set from the index if empty. It must be called holding the monitor of the set. */
+    private void removeIfEmpty(Object imageKey, KeySet keys) {
+        if (keys.isEmpty() && !keys.removed) {
+            keys.removed = true;
+            index.remove(imageKey, keys);
+        }
+    }
+
+    /** Returns a snapshot of the tile keys associated to the image key */
+    TileKey[] keys(Object imageKey) {
+        KeySet keys = index.get(imageKey);
+        if (keys == null) {
+            return EMPTY;
+        }
+        synchronized (keys) {
+            return keys.keySet().toArray(new TileKey[keys.size()]);
+        }
+    }
+
+    /** Detaches all the tile keys associated to the image key and returns them */
+    TileKey[] removeAll(Object imageKey) {
+        KeySet keys = index.remove(imageKey);
+        if (keys == null) {
+            return EMPTY;
+        }
+        synchronized (keys) {
+            keys.removed = true;
+            return keys.keySet().toArray(new TileKey[keys.size()]);
+        }
+    }
+
+    /** Returns the number of indexed tiles for the image key */
+    int size(Object imageKey) {
+        KeySet keys = index.get(imageKey);
+        if (keys == null) {
+            return 0;
+        }
+        synchronized (keys) {
+            return keys.size();
+        }
+    }
+
+    /** Returns the memory used by the indexed tiles of the image key */
+    long memory(Object imageKey) {
+        KeySet keys = index.get(imageKey);
+        if (keys == null) {
+            return 0;
+        }
+        synchronized (keys) {
+            return keys.memory;
+        }
+    }
+
+    /** Returns a snapshot of the memory used by the indexed tiles of each image key */
+    Map<Object, Long> memoryByImage() {
+        Map<Object, Long> result = new HashMap<Object, Long>();
+        Iterator<Map.Entry<Object, KeySet>> it = index.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Object, KeySet> entry = it.next();
+            KeySet keys = entry.getValue();
+            synchronized (keys) {
+                if (!keys.removed) {
+                    result.put(entry.getKey(), Long.valueOf(keys.memory));
+                }
+            }
+        }
+        return result;
+    }
+
+    /** Removes all the key sets from the index */
+    void clear() {
+        Iterator<KeySet> it = index.values().iterator();
+        while (it.hasNext()) {
+            KeySet keys = it.next();
+            synchronized (keys) {
+                keys.removed = true;
+            }
+            it.remove();
+        }
+    }
+
+    /** A tile of the index, with its size. The tile is <code>null</code> if only the size is indexed. */
+    private static final class IndexedTile {
+
+        private final CachedTileImpl tile;
+
+        private final long size;
+
+        IndexedTile(CachedTileImpl tile, long size) {
+            this.tile = tile;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Set of the tile keys of a single image, mapped to the indexed tiles. The flag indicates that the set is no more part of the index.
+     */
+    private static final class KeySet extends HashMap<TileKey, IndexedTile> {
+
+        private static final long serialVersionUID = 1L;
+
+        private boolean removed;
+
+        /** Sum of the sizes of the indexed tiles */
+        private long memory;
+    }
+}
@@ -0,0 +1,450 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.concurrent;
+
+import java.awt.Point;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferDouble;
+import java.awt.image.DataBufferFloat;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DataBufferShort;
+import java.awt.image.DataBufferUShort;
+import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+
+/**
+ * Second level tile store used by {@link ConcurrentTileCache}. The tiles evicted from the heap cache are copied inside direct
+ * {@link ByteBuffer}s together with the {@link SampleModel} and the {@link DataBuffer} layout, so that they can be rehydrated into a heap
+ * {@link Raster} without recomputing them. The direct buffers are outside the Java heap, so they are not scanned by the garbage collector.
+ * <p>
+ * The stored tiles are kept inside a Guava Cache weighted by their size in bytes, so that the store memory never exceeds its capacity. Only
+ * tiles backed by the standard java.awt.image {@link DataBuffer} implementations are stored.
+ * <p>
+ * The direct memory of a discarded tile is released only when its buffer is garbage collected, so the direct memory in use may exceed the
+ * store capacity until the next collection. The capacity is limited to the maximum direct memory of the JVM, set by
+ * <code>-XX:MaxDirectMemorySize</code> and equal to the maximum heap size by default; if the direct memory is nevertheless exhausted, the
+ * tile is dropped instead of being stored.
+ */
+final class OffHeapTileStore {
+
+    /** Logger to use for reporting the informations about the store operations. */
+    private final static Logger LOGGER = Logger.getLogger(OffHeapTileStore.class.toString());
+
+    /** The stored tiles */
+    private final Cache<TileKey, OffHeapTile> storeObject;
+
+    /** Index of the stored tile keys for each image */
+    private final ImageTileIndex tileIndex = new ImageTileIndex();
+
+    /** Memory capacity of the store */
+    private final long capacity;
+
+    /** Maximum direct memory of the JVM */
+    private final long maxDirectMemory;
+
+    /** The pool of the direct buffers of the JVM, or <code>null</code> if not available */
+    private final BufferPoolMXBean directPool;
+
+    OffHeapTileStore(long capacity) {
+        maxDirectMemory = maxDirectMemory();
+        directPool = directPool();
+        if (capacity > maxDirectMemory) {
+            LOGGER.warning("Off-heap store capacity " + capacity
+                    + " reduced to the maximum direct memory " + maxDirectMemory
+                    + ", set by -XX:MaxDirectMemorySize");
+            capacity = maxDirectMemory;
+        }
+        this.capacity = capacity;
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder();
+        builder.maximumWeight(capacity).weigher(new Weigher<TileKey, OffHeapTile>() {
+            public int weigh(TileKey key, OffHeapTile tile) {
+                return tile.getSize();
+            }
+        }).removalListener(new RemovalListener<TileKey, OffHeapTile>() {
+            public void onRemoval(RemovalNotification<TileKey, OffHeapTile> n) {
+                // a replaced tile is still in the store with its new value
+                if (n.getCause() != RemovalCause.REPLACED) {
+                    tileIndex.remove(n.getKey());
+                }
+            }
+        });
+        storeObject = builder.build();
+    }
+
+    /** Returns the memory capacity of the store */
+    long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the maximum direct memory of the JVM: the value of the last <code>-XX:MaxDirectMemorySize</code> option, or the maximum heap
+     * size if the option is not set.
+     */
+    static long maxDirectMemory() {
+        long maxDirectMemory = 0;
+        List<String> arguments = ManagementFactory.getRuntimeMXBean().getInputArguments();
+        for (String argument : arguments) {
+            if (argument.startsWith("-XX:MaxDirectMemorySize=")) {
+                maxDirectMemory = parseSize(argument.substring(argument.indexOf('=') + 1));
+            }
+        }
+        return maxDirectMemory > 0 ? maxDirectMemory : Runtime.getRuntime().maxMemory();
+    }
+
+    /** Returns the pool of the direct buffers of the JVM, or <code>null</code> if not available */
+    private static BufferPoolMXBean directPool() {
+        List<BufferPoolMXBean> pools = ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class);
+        for (BufferPoolMXBean pool : pools) {
+            if ("direct".equals(pool.getName())) {
+                return pool;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Indicates if a direct buffer of the given size would exceed the maximum direct memory. The check avoids the allocation, which would
+     * wait for the garbage collector before failing.
+     */
+    private boolean exceedsDirectMemory(long size) {
+        if (directPool == null) {
+            return false;
+        }
+        long used = directPool.getMemoryUsed();
+        return used >= 0 && used + size > maxDirectMemory;
+    }
+
+    /** Parses a JVM memory size, with an optional k, m, g or t suffix. Returns 0 if the size is not valid. */
+    private static long parseSize(String size) {
+        long multiplier = 1;
+        int unit = size.length() > 0 ? "kmgt".indexOf(Character.toLowerCase(size.charAt(size
+                .length() - 1))) : -1;
+        if (unit >= 0) {
+            for (int i = 0; i <= unit; i++) {
+                multiplier *= 1024;
+            }
+            size = size.substring(0, size.length() - 1);
+        }
+        try {
+            return Long.parseLong(size) * multiplier;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Copies the tile outside the heap. Tiles which are not supported or bigger than the store capacity are ignored, and tiles which cannot
+     * be copied because the direct memory is exhausted are dropped.
+     *
+     * @return <code>true</code> if the tile has been stored.
+     */
+    boolean put(CachedTileImpl cti) {
+        if (cti.getTileSize() > capacity) {
+            return false;
+        }
+        if (exceedsDirectMemory(cti.getTileSize())) {
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.fine("Direct memory exhausted, tile dropped by the off-heap store Image key "
+                        + cti.getImageKey());
+            }
+            return false;
+        }
+        OffHeapTile tile;
+        try {
+            tile = OffHeapTile.create(cti.getTile(), cti.getTileCacheMetric());
+        } catch (OutOfMemoryError e) {
+            // the direct memory of the discarded tiles has not been released yet:
+            // the tile is dropped, as it would be without the store
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.log(Level.FINE, "Direct memory exhausted, tile dropped by the off-heap store Image key "
+                        + cti.getImageKey(), e);
+            }
+            return false;
+        }
+        if (tile == null) {
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.fine("Tile not supported by the off-heap store Image key "
+                        + cti.getImageKey());
+            }
+            return false;
+        }
+        TileKey key = cti.getKey();
+        storeObject.put(key, tile);
+        // the key is indexed only after the tile is stored
+        tileIndex.add(key, tile.getSize());
+        return true;
+    }
+
+    /** Returns the stored tile associated to the key, or <code>null</code> */
+    OffHeapTile get(TileKey key) {
+        return storeObject.getIfPresent(key);
+    }
+
+    /** Removes the tile associated to the key */
+    void remove(TileKey key) {
+        storeObject.invalidate(key);
+    }
+
+    /** Removes all the stored tiles of the image */
+    void removeTiles(Object imageKey) {
+        TileKey[] keys = tileIndex.removeAll(imageKey);
+        for (int i = 0; i < keys.length; i++) {
+            storeObject.invalidate(keys[i]);
+        }
+    }
+
+    /** Returns the number of stored tiles */
+    long size() {
+        return storeObject.size();
+    }
+
+    /** Removes all the stored tiles */
+    void flush() {
+        storeObject.invalidateAll();
+        tileIndex.clear();
+    }
+
+    /**
+     * A tile copied outside the heap. It contains the tile data and all the information needed for creating the {@link Raster} again.
+     */
+    static final class OffHeapTile {
+
+        /** Tile sample model */
+        private final SampleModel sampleModel;
+
+        /** Data type of the {@link DataBuffer} */
+        private final int dataType;
+
+        /** Size of the {@link DataBuffer} banks */
+        private final int bankSize;
+
+        /** Offsets of the {@link DataBuffer} banks */
+        private final int[] offsets;
+
+        /** Length of the {@link DataBuffer} bank arrays */
+        private final int[] bankLengths;
+
+        /** Tile bounds */
+        private final int minX, minY, width, height;
+
+        /** Sample model translation */
+        private final int sampleModelTranslateX, sampleModelTranslateY;
+
+        /** Metric associated to the tile */
+        private final Object tileCacheMetric;
+
+        /** Tile data. The position is always 0 and the buffer is never modified after creation */
+        private final ByteBuffer data;
+
+        private OffHeapTile(Raster tile, int[] bankLengths, ByteBuffer data, Object tileCacheMetric) {
+            DataBuffer db = tile.getDataBuffer();
+            this.sampleModel = tile.getSampleModel();
+            this.dataType = db.getDataType();
+            this.bankSize = db.getSize();
+            this.offsets = db.getOffsets();
+            this.bankLengths = bankLengths;
+            this.minX = tile.getMinX();
+            this.minY = tile.getMinY();
+            this.width = tile.getWidth();
+            this.height = tile.getHeight();
+            this.sampleModelTranslateX = tile.getSampleModelTranslateX();
+            this.sampleModelTranslateY = tile.getSampleModelTranslateY();
+            this.data = data;
+            this.tileCacheMetric = tileCacheMetric;
+        }
+
+        /**
+         * Copies the input tile inside a direct buffer. Returns <code>null</code> if the tile {@link DataBuffer} is not supported.
+         * 
+         * @throws OutOfMemoryError if the direct memory is exhausted.
+         */
+        static OffHeapTile create(Raster tile, Object tileCacheMetric) {
+            DataBuffer db = tile.getDataBuffer();
+            int numBanks = db.getNumBanks();
+            int[] bankLengths = new int[numBanks];
+            long total = 0;
+            for (int b = 0; b < numBanks; b++) {
+                int length = bankLength(db, b);
+                if (length < 0) {
+                    return null;
+                }
+                bankLengths[b] = length;
+                total += (long) length * (DataBuffer.getDataTypeSize(db.getDataType()) / 8);
+            }
+            if (total > Integer.MAX_VALUE) {
+                return null;
+            }
+
+            ByteBuffer data = ByteBuffer.allocateDirect((int) total).order(ByteOrder.nativeOrder());
+            for (int b = 0; b < numBanks; b++) {
+                int position = data.position();
+                switch (db.getDataType()) {
+                case DataBuffer.TYPE_BYTE:
+                    data.put(((DataBufferByte) db).getData(b));
+                    break;
+                case DataBuffer.TYPE_USHORT:
+                    data.asShortBuffer().put(((DataBufferUShort) db).getData(b));
+                    data.position(position + bankLengths[b] * 2);
+                    break;
+                case DataBuffer.TYPE_SHORT:
+                    data.asShortBuffer().put(((DataBufferShort) db).getData(b));
+                    data.position(position + bankLengths[b] * 2);
+                    break;
+                case DataBuffer.TYPE_INT:
+                    data.asIntBuffer().put(((DataBufferInt) db).getData(b));
+                    data.position(position + bankLengths[b] * 4);
+                    break;
+                case DataBuffer.TYPE_FLOAT:
+                    data.asFloatBuffer().put(((DataBufferFloat) db).getData(b));
+                    data.position(position + bankLengths[b] * 4);
+                    break;
+                case DataBuffer.TYPE_DOUBLE:
+                    data.asDoubleBuffer().put(((DataBufferDouble) db).getData(b));
+                    data.position(position + bankLengths[b] * 8);
+                    break;
+                }
+            }
+            data.clear();
+            return new OffHeapTile(tile, bankLengths, data, tileCacheMetric);
+        }
+
+        /**
+         * Returns the length of the selected bank array, or -1 if the {@link DataBuffer} is not supported.
+         */
+        private static int bankLength(DataBuffer db, int bank) {
+            switch (db.getDataType()) {
+            case DataBuffer.TYPE_BYTE:
+                return db instanceof DataBufferByte ? ((DataBufferByte) db).getData(bank).length : -1;
+            case DataBuffer.TYPE_USHORT:
+                return db instanceof DataBufferUShort ? ((DataBufferUShort) db).getData(bank).length
+                        : -1;
+            case DataBuffer.TYPE_SHORT:
+                return db instanceof DataBufferShort ? ((DataBufferShort) db).getData(bank).length
+                        : -1;
+            case DataBuffer.TYPE_INT:
+                return db instanceof DataBufferInt ? ((DataBufferInt) db).getData(bank).length : -1;
+            case DataBuffer.TYPE_FLOAT:
+                return db instanceof DataBufferFloat ? ((DataBufferFloat) db).getData(bank).length
+                        : -1;
+            case DataBuffer.TYPE_DOUBLE:
+                return db instanceof DataBufferDouble ? ((DataBufferDouble) db).getData(bank).length
+                        : -1;
+            default:
+                return -1;
+            }
+        }
+
+        /**
+         * Creates a new heap {@link Raster} containing a copy of the stored data. This method can be called concurrently.
+         */
+        Raster toRaster() {
+            // A duplicate is used so that the stored buffer position is never changed
+            ByteBuffer src = data.duplicate().order(ByteOrder.nativeOrder());
+            int numBanks = bankLengths.length;
+            DataBuffer db = null;
+            switch (dataType) {
+            case DataBuffer.TYPE_BYTE: {
+                byte[][] banks = new byte[numBanks][];
+                for (int b = 0; b < numBanks; b++) {
+                    banks[b] = new byte[bankLengths[b]];
+                    src.get(banks[b]);
+                }
+                db = new DataBufferByte(banks, bankSize, offsets);
+                break;
+            }
+            case DataBuffer.TYPE_USHORT:
+            case DataBuffer.TYPE_SHORT: {
+                short[][] banks = new short[numBanks][];
+                for (int b = 0; b < numBanks; b++) {
+                    banks[b] = new short[bankLengths[b]];
+                    src.asShortBuffer().get(banks[b]);
+                    src.position(src.position() + bankLengths[b] * 2);
+                }
+                db = dataType == DataBuffer.TYPE_USHORT ? new DataBufferUShort(banks, bankSize,
+                        offsets) : new DataBufferShort(banks, bankSize, offsets);
+                break;
+            }
+            case DataBuffer.TYPE_INT: {
+                int[][] banks = new int[numBanks][];
+                for (int b = 0; b < numBanks; b++) {
+                    banks[b] = new int[bankLengths[b]];
+                    src.asIntBuffer().get(banks[b]);
+                    src.position(src.position() + bankLengths[b] * 4);
+                }
+                db = new DataBufferInt(banks, bankSize, offsets);
+                break;
+            }
+            case DataBuffer.TYPE_FLOAT: {
+                float[][] banks = new float[numBanks][];
+                for (int b = 0; b < numBanks; b++) {
+                    banks[b] = new float[bankLengths[b]];
+                    src.asFloatBuffer().get(banks[b]);
+                    src.position(src.position() + bankLengths[b] * 4);
+                }
+                db = new DataBufferFloat(banks, bankSize, offsets);
+                break;
+            }
+            case DataBuffer.TYPE_DOUBLE: {
+                double[][] banks = new double[numBanks][];
+                for (int b = 0; b < numBanks; b++) {
+                    banks[b] = new double[bankLengths[b]];
+                    src.asDoubleBuffer().get(banks[b]);
+                    src.position(src.position() + bankLengths[b] * 8);
+                }
+                db = new DataBufferDouble(banks, bankSize, offsets);
+                break;
+            }
+            }
+
+            // The raster covering the whole sample model is created and then the child with the tile bounds
+            WritableRaster parent = Raster.createWritableRaster(sampleModel, db, new Point(
+                    sampleModelTranslateX, sampleModelTranslateY));
+            if (parent.getMinX() == minX && parent.getMinY() == minY
+                    && parent.getWidth() == width && parent.getHeight() == height) {
+                return parent;
+            }
+            return parent.createWritableChild(minX, minY, width, height, minX, minY, null);
+        }
+
+        /** Returns the size of the stored data in bytes */
+        int getSize() {
+            return data.capacity();
+        }
+
+        /** Returns the metric associated to the tile */
+        Object getTileCacheMetric() {
+            return tileCacheMetric;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.concurrent;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+
+/**
+ * Approximated eviction strategy used by the concurrent tile caches when the tiles must not be evicted in LRU order. Instead of keeping the
+ * tiles sorted, a small sample of cached tiles is taken at each eviction and the first tile of the sample, in the order imposed by the
+ * {@link Comparator}, is selected as victim.
+ * <p>
+ * The samples are taken by a cursor which moves across the cache and restarts when the end is reached, so that every tile is examined in turn.
+ * This class is not thread safe: callers must ensure that only one thread at a time selects a victim.
+ */
+final class SampledEvictor {
+
+    /** The default number of tiles examined for each eviction */
+    static final int DEFAULT_SAMPLE_SIZE = 8;
+
+    /** Number of tiles examined for each eviction */
+    private volatile int sampleSize;
+
+    /** Map currently sampled */
+    private Map<TileKey, CachedTileImpl> sampledMap;
+
+    /** Cursor on the sampled map */
+    private Iterator<CachedTileImpl> cursor;
+
+    SampledEvictor(int sampleSize) {
+        setSampleSize(sampleSize);
+    }
+
+    /** Sets the number of tiles examined for each eviction */
+    void setSampleSize(int sampleSize) {
+        if (sampleSize < 1) {
+            throw new IllegalArgumentException("Sample size must be at least 1");
+        }
+        this.sampleSize = sampleSize;
+    }
+
+    /**
+     * Selects the tile to evict among a sample of the map tiles.
+     *
+     * @param map the cache map
+     * @param order the order imposed on the tiles. The first tile is evicted first.
+     * @return the tile to evict or <code>null</code> if the map is empty.
+     */
+    CachedTileImpl selectVictim(Map<TileKey, CachedTileImpl> map,
+            Comparator<? super CachedTileImpl> order) {
+        return selectVictim(map, order, Predicates.<CachedTileImpl> alwaysTrue());
+    }
+
+    /**
+     * Selects the tile to evict among a sample of the map tiles accepted by the filter.
+     *
+     * @param map the cache map
+     * @param order the order imposed on the tiles. The first tile is evicted first.
+     * @param filter the filter of the tiles which can be evicted
+     * @return the tile to evict or <code>null</code> if no tile is accepted by the filter.
+     */
+    CachedTileImpl selectVictim(Map<TileKey, CachedTileImpl> map,
+            Comparator<? super CachedTileImpl> order, Predicate<? super CachedTileImpl> filter) {
+        if (map != sampledMap) {
+            // the cache has been rebuilt
+            sampledMap = map;
+            cursor = null;
+        }
+        CachedTileImpl victim = null;
+        // the whole map is scanned at most once
+        boolean restarted = false;
+        int size = sampleSize;
+        for (int i = 0; i < size;) {
+            if (cursor == null || !cursor.hasNext()) {
+                if (restarted) {
+                    break;
+                }
+                cursor = map.values().iterator();
+                restarted = true;
+                if (!cursor.hasNext()) {
+                    break;
+                }
+            }
+            CachedTileImpl candidate = cursor.next();
+            if (!filter.apply(candidate)) {
+                continue;
+            }
+            if (victim == null || order.compare(candidate, victim) < 0) {
+                victim = candidate;
+            }
+            i++;
+        }
+        return victim;
+    }
+}
@@ -0,0 +1,65 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.concurrent;
+
+import it.geosolutions.concurrent.ConcurrentTileCache.Actions;
+
+import javax.media.jai.CachedTile;
+
+/**
+ * Event generated by the concurrent tile caches, when the diagnostics are enabled, for each action done on a tile. The events are delivered
+ * asynchronously to the {@link TileCacheListener}s.
+ */
+public final class TileCacheEvent {
+
+    private final CachedTileImpl tile;
+
+    private final Actions action;
+
+    private final long timeStamp;
+
+    TileCacheEvent(CachedTileImpl tile, Actions action) {
+        this.tile = tile;
+        this.action = action;
+        this.timeStamp = System.currentTimeMillis();
+    }
+
+    /** Returns the tile involved in the event */
+    public CachedTile getTile() {
+        return tile;
+    }
+
+    /** Returns the action done on the tile */
+    public Actions getAction() {
+        return action;
+    }
+
+    /** Returns the time of the event */
+    public long getTimeStamp() {
+        return timeStamp;
+    }
+
+    CachedTileImpl getCachedTile() {
+        return tile;
+    }
+
+    @Override
+    public String toString() {
+        return "TileCacheEvent[" + action + ", " + tile.getKey() + "]";
+    }
+}
@@ -0,0 +1,34 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.concurrent;
+
+import java.util.List;
+
+/**
+ * Listener of the events generated by the concurrent tile caches when the diagnostics are enabled. The events are delivered in batches by a
+ * dedicated thread, in the same order they have been generated, so the listener never runs on the threads accessing the cache.
+ */
+public interface TileCacheListener {
+
+    /**
+     * Receives a batch of tile events. The list must not be modified nor kept after the method returns.
+     * 
+     * @param events the events, in the order they have been generated
+     */
+    public void tileEvents(List<TileCacheEvent> events);
+}
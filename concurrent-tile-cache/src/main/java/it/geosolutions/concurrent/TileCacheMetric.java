@@ -0,0 +1,77 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.concurrent;
+
+import it.geosolutions.jaiext.utilities.TileCostRecorder;
+
+/**
+ * Tile cache metric understood by the {@link ConcurrentTileCache}. The metric carries the priority class of the tiles of an image, if any, and
+ * the mean time spent computing a tile of the image, which is the recomputation cost used by the {@link ConcurrentTileCache.EvictionPolicy#COST_AWARE}
+ * eviction. The compute times are recorded by the JAI-EXT tile scheduler, which measures the computation of each tile.
+ * <p>
+ * For the JAI operations the metric is set as value of the {@link javax.media.jai.JAI#KEY_TILE_CACHE_METRIC} rendering hint; since the metric
+ * records the compute times of an image, each image should have its own metric.
+ */
+public final class TileCacheMetric implements TileCostRecorder {
+
+    /** Weight of a new compute time in the mean */
+    private static final double WEIGHT = 0.125;
+
+    /** The priority class of the tiles, <code>null</code> if the tiles have no quota */
+    private final TilePriorityClass priorityClass;
+
+    /** The exponential moving average of the compute times, in nanoseconds, 0 if no time has been recorded */
+    private volatile double computeTime;
+
+    /** Creates a metric for tiles without priority class. */
+    public TileCacheMetric() {
+        this(null);
+    }
+
+    /**
+     * Creates a metric for the tiles of a priority class.
+     * 
+     * @param priorityClass the priority class of the tiles, or <code>null</code>
+     */
+    public TileCacheMetric(TilePriorityClass priorityClass) {
+        this.priorityClass = priorityClass;
+    }
+
+    /** Returns the priority class of the tiles, or <code>null</code> if the tiles have no quota */
+    public TilePriorityClass getPriorityClass() {
+        return priorityClass;
+    }
+
+    /**
+     * Records the time spent computing a tile. Concurrent updates may lose a sample, which is acceptable for an estimate of the cost.
+     */
+    public void recordComputeTime(long nanos) {
+        double mean = computeTime;
+        computeTime = mean == 0 ? nanos : mean + WEIGHT * (nanos - mean);
+    }
+
+    /** Returns the mean time spent computing a tile, in nanoseconds, or 0 if no time has been recorded */
+    public double getComputeTime() {
+        return computeTime;
+    }
+
+    @Override
+    public String toString() {
+        return "TileCacheMetric[" + priorityClass + ", computeTime=" + computeTime + "]";
+    }
+}
@@ -0,0 +1,112 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.concurrent;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the statistics of a {@link ConcurrentTileCache}. The counters are always collected, independently from the diagnostics,
+ * and they are read without locking the cache, so the values of a snapshot may be slightly inconsistent with each other.
+ */
+public final class TileCacheStatistics {
+
+    private final long hitCount;
+
+    private final long missCount;
+
+    private final long evictionCount;
+
+    private final long removalCount;
+
+    private final long replacementCount;
+
+    private final long tileCount;
+
+    private final long memoryUsed;
+
+    private final Map<Object, Long> ownerMemoryUsed;
+
+    TileCacheStatistics(long hitCount, long missCount, long evictionCount, long removalCount,
+            long replacementCount, long tileCount, long memoryUsed, Map<Object, Long> ownerMemoryUsed) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.removalCount = removalCount;
+        this.replacementCount = replacementCount;
+        this.tileCount = tileCount;
+        this.memoryUsed = memoryUsed;
+        this.ownerMemoryUsed = Collections.unmodifiableMap(ownerMemoryUsed);
+    }
+
+    /** Returns the number of requests of a tile found in the cache */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /** Returns the number of requests of a tile not found in the cache */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /** Returns the number of tiles evicted for memory constraints */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /** Returns the number of tiles removed explicitly or by a flush */
+    public long getRemovalCount() {
+        return removalCount;
+    }
+
+    /** Returns the number of tiles replaced by a new tile with the same key */
+    public long getReplacementCount() {
+        return replacementCount;
+    }
+
+    /** Returns the number of tiles in the cache */
+    public long getTileCount() {
+        return tileCount;
+    }
+
+    /** Returns the memory used by the cached tiles in bytes */
+    public long getMemoryUsed() {
+        return memoryUsed;
+    }
+
+    /**
+     * Returns the memory used by the cached tiles of each image, in bytes. The map keys are the image keys returned by
+     * {@link CachedTileImpl#hashKey(java.awt.image.RenderedImage)}.
+     */
+    public Map<Object, Long> getOwnerMemoryUsed() {
+        return ownerMemoryUsed;
+    }
+
+    /** Returns the ratio between the hits and the tile requests, or 1 if no tile has been requested */
+    public double getHitRate() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 1d : (double) hitCount / requests;
+    }
+
+    @Override
+    public String toString() {
+        return "TileCacheStatistics[hits=" + hitCount + ", misses=" + missCount + ", evictions="
+                + evictionCount + ", removals=" + removalCount + ", replacements="
+                + replacementCount + ", tiles=" + tileCount + ", memory=" + memoryUsed + "]";
+    }
+}
@@ -0,0 +1,216 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.concurrent;
+
+import it.geosolutions.concurrent.ConcurrentTileCache.Actions;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Asynchronous delivery of the tile events generated by the concurrent tile caches. The events are stored in a bounded ring buffer, without
+ * locking, by the threads accessing the cache and they are delivered in batches to the {@link TileCacheListener}s by a daemon thread. If the
+ * buffer is full the event is dropped instead of blocking the caller.
+ * <p>
+ * The delivery thread is started when needed and it stops after being idle for a while, so that an unused dispatcher does not keep a thread
+ * alive.
+ */
+final class TileEventDispatcher {
+
+    /** The default number of events which can be waiting for delivery */
+    static final int DEFAULT_BUFFER_SIZE = 4096;
+
+    /** Maximum number of events delivered together */
+    private static final int BATCH_SIZE = 256;
+
+    /** Time after which an idle delivery thread stops */
+    private static final long IDLE_TIMEOUT = TimeUnit.SECONDS.toNanos(1);
+
+    /** Maximum time the delivery thread waits for new events */
+    private static final long WAIT_TIME = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final static Logger LOGGER = Logger.getLogger(TileEventDispatcher.class.toString());
+
+    /** The ring buffer. An empty slot contains <code>null</code> */
+    private final AtomicReferenceArray<TileCacheEvent> buffer;
+
+    /** Mask used for mapping a sequence to the buffer slot */
+    private final int mask;
+
+    /** Sequence of the next event to publish */
+    private final AtomicLong tail = new AtomicLong(0);
+
+    /** Sequence of the next event to deliver, written only by the delivery thread */
+    private volatile long head;
+
+    /** Number of events dropped because the buffer was full */
+    private final AtomicLong dropped = new AtomicLong(0);
+
+    private final List<TileCacheListener> listeners = new CopyOnWriteArrayList<TileCacheListener>();
+
+    /** Indicates if a delivery thread is active */
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    /** Indicates if the delivery thread is waiting for new events */
+    private volatile boolean waiting;
+
+    /** The delivery thread */
+    private volatile Thread consumer;
+
+    /** Name of the delivery thread */
+    private final String name;
+
+    TileEventDispatcher(String name, int bufferSize) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("Buffer size must be at least 1");
+        }
+        // the size is rounded to a power of 2
+        int size = Integer.highestOneBit(bufferSize);
+        if (size < bufferSize) {
+            size <<= 1;
+        }
+        this.buffer = new AtomicReferenceArray<TileCacheEvent>(size);
+        this.mask = size - 1;
+        this.name = name;
+    }
+
+    void addListener(TileCacheListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+        listeners.add(listener);
+    }
+
+    void removeListener(TileCacheListener listener) {
+        listeners.remove(listener);
+    }
+
+    /** Returns the number of events dropped because the buffer was full */
+    long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Publishes a new event for the tile. The method never blocks: the event is dropped if the buffer is full.
+     * 
+     * @return <code>true</code> if the event has been published
+     */
+    boolean publish(CachedTileImpl tile, Actions action) {
+        TileCacheEvent event = new TileCacheEvent(tile, action);
+        while (true) {
+            long t = tail.get();
+            if (t - head >= buffer.length()) {
+                dropped.incrementAndGet();
+                return false;
+            }
+            if (tail.compareAndSet(t, t + 1)) {
+                buffer.set((int) (t & mask), event);
+                break;
+            }
+        }
+        // starts or wakes up the delivery thread
+        if (running.compareAndSet(false, true)) {
+            Thread thread = new Thread(new Runnable() {
+                public void run() {
+                    deliverEvents();
+                }
+            }, name);
+            thread.setDaemon(true);
+            consumer = thread;
+            thread.start();
+        } else if (waiting) {
+            Thread thread = consumer;
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            }
+        }
+        return true;
+    }
+
+    /** Indicates if no event has been published after the delivered ones */
+    private boolean isEmpty() {
+        return tail.get() == head;
+    }
+
+    /** Delivery loop */
+    private void deliverEvents() {
+        List<TileCacheEvent> batch = new ArrayList<TileCacheEvent>(BATCH_SIZE);
+        List<TileCacheEvent> readOnly = Collections.unmodifiableList(batch);
+        long idleSince = System.nanoTime();
+        while (true) {
+            drain(batch);
+            if (!batch.isEmpty()) {
+                deliver(readOnly);
+                batch.clear();
+                idleSince = System.nanoTime();
+            } else if (System.nanoTime() - idleSince > IDLE_TIMEOUT) {
+                running.set(false);
+                // an event published in the meantime may have not started a new thread
+                if (isEmpty() || !running.compareAndSet(false, true)) {
+                    return;
+                }
+            } else {
+                waiting = true;
+                if (isEmpty()) {
+                    LockSupport.parkNanos(this, WAIT_TIME);
+                }
+                waiting = false;
+            }
+        }
+    }
+
+    /** Moves the published events from the buffer to the batch */
+    private void drain(List<TileCacheEvent> batch) {
+        long h = head;
+        while (batch.size() < BATCH_SIZE) {
+            int index = (int) (h & mask);
+            TileCacheEvent event = buffer.get(index);
+            // the slot may have been reserved but not written yet
+            if (event == null) {
+                break;
+            }
+            buffer.set(index, null);
+            batch.add(event);
+            h++;
+        }
+        head = h;
+    }
+
+    /** Delivers a batch of events to all the listeners */
+    private void deliver(List<TileCacheEvent> batch) {
+        Iterator<TileCacheListener> it = listeners.iterator();
+        while (it.hasNext()) {
+            TileCacheListener listener = it.next();
+            try {
+                listener.tileEvents(batch);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Error delivering the tile cache events", e);
+            }
+        }
+    }
+}
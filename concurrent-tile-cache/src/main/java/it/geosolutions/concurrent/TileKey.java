@@ -0,0 +1,146 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.concurrent;
+
+import java.awt.image.RenderedImage;
+
+import javax.media.jai.PlanarImage;
+import javax.media.jai.remote.SerializableRenderedImage;
+
+/**
+ * Compact key used by the concurrent tile caches for identifying a tile. The key is composed by the image key (the image ID for
+ * {@link PlanarImage} and {@link SerializableRenderedImage}, the image hashcode otherwise) and by the tile indexes. The hash code is calculated
+ * only once at creation time.
+ * <p>
+ * The image key is the ID object already stored by the owner image, so that the creation of a key does not require any copy. Lookup operations
+ * can use the reusable per-thread key returned by {@link #lookupKey(RenderedImage, int, int)} in order to avoid any allocation. The keys
+ * returned by {@link #create(RenderedImage, int, int)} are never modified after their creation; only the per-thread lookup keys are updated,
+ * which is why they must never be stored.
+ */
+public final class TileKey {
+
+    /** Per-thread key used only for lookups. It must never be stored inside a cache. */
+    private static final ThreadLocal<TileKey> LOOKUP_KEY = new ThreadLocal<TileKey>() {
+        @Override
+        protected TileKey initialValue() {
+            return new TileKey();
+        }
+    };
+
+    /** Key associated to the tile owner. The fields are only updated on the per-thread lookup keys */
+    private Object imageKey;
+
+    /** Tile X index */
+    private int tileX;
+
+    /** Tile Y index */
+    private int tileY;
+
+    /** Precomputed hash code */
+    private int hash;
+
+    private TileKey() {
+    }
+
+    private TileKey(Object imageKey, int tileX, int tileY) {
+        set(imageKey, tileX, tileY);
+    }
+
+    /**
+     * Creates a new key for the selected tile, which is never modified afterwards. This key can be stored inside a cache.
+     */
+    public static TileKey create(RenderedImage owner, int tileX, int tileY) {
+        return new TileKey(imageKey(owner), tileX, tileY);
+    }
+
+    /**
+     * Returns a key for the selected tile which is reused by the calling thread. The returned key is valid only until the next call of this
+     * method on the same thread, so it must be used only for a single lookup operation and must never be stored.
+     */
+    static TileKey lookupKey(RenderedImage owner, int tileX, int tileY) {
+        TileKey key = LOOKUP_KEY.get();
+        key.set(imageKey(owner), tileX, tileY);
+        return key;
+    }
+
+    /**
+     * Returns the key associated to the input image. For {@link PlanarImage} and {@link SerializableRenderedImage} the image ID is returned
+     * as is, otherwise the image hashcode is used.
+     */
+    public static Object imageKey(RenderedImage owner) {
+        Object imageID = null;
+        if (owner instanceof PlanarImage) {
+            imageID = ((PlanarImage) owner).getImageID();
+        } else if (owner instanceof SerializableRenderedImage) {
+            imageID = ((SerializableRenderedImage) owner).getImageID();
+        }
+
+        if (imageID != null) {
+            return imageID;
+        }
+        return Integer.valueOf(owner.hashCode());
+    }
+
+    private void set(Object imageKey, int tileX, int tileY) {
+        this.imageKey = imageKey;
+        this.tileX = tileX;
+        this.tileY = tileY;
+        int h = imageKey.hashCode();
+        h = 31 * h + tileX;
+        h = 31 * h + tileY;
+        this.hash = h;
+    }
+
+    /** Returns the key associated to the tile owner */
+    public Object getImageKey() {
+        return imageKey;
+    }
+
+    /** Returns the tile X index */
+    public int getTileX() {
+        return tileX;
+    }
+
+    /** Returns the tile Y index */
+    public int getTileY() {
+        return tileY;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof TileKey)) {
+            return false;
+        }
+        TileKey other = (TileKey) obj;
+        return hash == other.hash && tileX == other.tileX && tileY == other.tileY
+                && imageKey.equals(other.imageKey);
+    }
+
+    @Override
+    public String toString() {
+        return "TileKey[" + imageKey + ", " + tileX + ", " + tileY + "]";
+    }
+}
@@ -0,0 +1,78 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.concurrent;
+
+/**
+ * Priority class of the tiles cached by a {@link ConcurrentTileCache}. Each class has a memory quota, expressed as a share of the cache memory:
+ * the tiles of the class are evicted when the class exceeds its maximum share, while they are evicted for making room to other tiles only if
+ * the class exceeds its guaranteed minimum share. When the cache is divided in segments, the minimum share is guaranteed in each segment,
+ * as a share of the segment memory budget.
+ * <p>
+ * The tiles are assigned to a class by passing a {@link TileCacheMetric} of the class as tile cache metric when they are added to the cache.
+ * For the JAI operations this can be done by setting the metric as value of the {@link javax.media.jai.JAI#KEY_TILE_CACHE_METRIC} rendering
+ * hint. The tiles without a class have no quota.
+ */
+public final class TilePriorityClass {
+
+    private final String name;
+
+    private final float minimumShare;
+
+    private final float maximumShare;
+
+    /**
+     * Creates a new priority class.
+     * 
+     * @param name the class name
+     * @param minimumShare the share of the cache memory guaranteed to the class, between 0 and 1
+     * @param maximumShare the maximum share of the cache memory used by the class, between minimumShare and 1
+     */
+    public TilePriorityClass(String name, float minimumShare, float maximumShare) {
+        if (minimumShare < 0.0F || minimumShare > 1.0F) {
+            throw new IllegalArgumentException("Minimum share should be between 0 and 1");
+        }
+        if (maximumShare < minimumShare || maximumShare > 1.0F) {
+            throw new IllegalArgumentException(
+                    "Maximum share should be between the minimum share and 1");
+        }
+        this.name = name;
+        this.minimumShare = minimumShare;
+        this.maximumShare = maximumShare;
+    }
+
+    /** Returns the class name */
+    public String getName() {
+        return name;
+    }
+
+    /** Returns the share of the cache memory guaranteed to the class */
+    public float getMinimumShare() {
+        return minimumShare;
+    }
+
+    /** Returns the maximum share of the cache memory used by the class */
+    public float getMaximumShare() {
+        return maximumShare;
+    }
+
+    @Override
+    public String toString() {
+        return "TilePriorityClass[" + name + ", min=" + minimumShare + ", max=" + maximumShare
+                + "]";
+    }
+}
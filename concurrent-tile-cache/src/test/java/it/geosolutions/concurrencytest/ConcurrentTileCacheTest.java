@@ -0,0 +1,537 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.concurrencytest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import it.geosolutions.concurrent.CachedTileImpl;
+import it.geosolutions.concurrent.ConcurrentTileCache;
+import it.geosolutions.concurrent.ConcurrentTileCache.Actions;
+import it.geosolutions.concurrent.ConcurrentTileCacheMultiMap;
+import it.geosolutions.concurrent.TileCacheEvent;
+import it.geosolutions.concurrent.TileCacheListener;
+import it.geosolutions.concurrent.TileCacheMetric;
+import it.geosolutions.concurrent.TileCacheStatistics;
+import it.geosolutions.concurrent.TilePriorityClass;
+
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import javax.media.jai.CachedTile;
+import javax.media.jai.RasterFactory;
+import javax.media.jai.TileCache;
+import javax.media.jai.TiledImage;
+
+import org.junit.Test;
+
+/**
+ * This test class is used for checking that the {@link ConcurrentTileCache} and the {@link ConcurrentTileCacheMultiMap} handle correctly the
+ * tiles of each image.
+ */
+public class ConcurrentTileCacheTest {
+
+    /** Tile size of the test images */
+    private final static int TILE_SIZE = 100;
+
+    /** Number of tiles of the test images on each axis */
+    private final static int NUM_TILES = 10;
+
+    @Test
+    public void testGetAndRemoveTiles() {
+        checkGetAndRemoveTiles(new ConcurrentTileCache(128 * 1024 * 1024, false, 1f, 4));
+        checkGetAndRemoveTiles(new ConcurrentTileCacheMultiMap(128 * 1024 * 1024, false, 1f, 4));
+        ConcurrentTileCache segmented = new ConcurrentTileCache(128 * 1024 * 1024, false, 1f, 4);
+        segmented.setSegmentCount(8);
+        checkGetAndRemoveTiles(segmented);
+    }
+
+    @Test
+    public void testSegmentMemoryBudget() {
+        long tileSize = TILE_SIZE * TILE_SIZE;
+        ConcurrentTileCache cache = new ConcurrentTileCache(tileSize * 16, false, 1f, 4);
+        cache.setSegmentCount(4);
+        for (int i = 0; i < 8; i++) {
+            TiledImage image = createImage();
+            for (int j = 0; j < NUM_TILES; j++) {
+                cache.add(image, j, 0, image.getTile(j, 0));
+            }
+        }
+        // the segments never exceed the memory of the cache
+        assertTrue(cache.getCacheMemoryUsed() <= tileSize * 16);
+        assertEquals(cache.getCacheTileCount() * tileSize, cache.getCacheMemoryUsed());
+    }
+
+    @Test
+    public void testGetAndRemoveTilesDiagnostics() {
+        checkGetAndRemoveTiles(new ConcurrentTileCache(128 * 1024 * 1024, true, 1f, 4));
+        checkGetAndRemoveTiles(new ConcurrentTileCacheMultiMap(128 * 1024 * 1024, true, 1f, 4));
+    }
+
+    private void checkGetAndRemoveTiles(TileCache cache) {
+        TiledImage image = createImage();
+        TiledImage other = createImage();
+
+        // Only a few tiles of the image are cached
+        cache.add(image, 0, 0, image.getTile(0, 0));
+        cache.add(image, 5, 5, image.getTile(5, 5));
+        cache.add(image, 9, 9, image.getTile(9, 9));
+        cache.add(other, 0, 0, other.getTile(0, 0));
+
+        assertEquals(3, cache.getTiles(image).length);
+        assertEquals(1, cache.getTiles(other).length);
+
+        // Removal of a single tile
+        cache.remove(image, 5, 5);
+        assertNull(cache.getTile(image, 5, 5));
+        assertEquals(2, cache.getTiles(image).length);
+
+        // Removal of all the tiles of the image
+        cache.removeTiles(image);
+        assertNull(cache.getTiles(image));
+        assertNull(cache.getTile(image, 0, 0));
+
+        // The tiles of the other image are still present
+        assertNotNull(cache.getTile(other, 0, 0));
+        assertEquals(1, cache.getTiles(other).length);
+    }
+
+    @Test
+    public void testOffHeapStore() {
+        TiledImage image = createImage();
+        for (int i = 0; i < NUM_TILES; i++) {
+            image.setSample(i * TILE_SIZE + i, i, 0, i + 1);
+        }
+        // The cache can contain only two tiles, the evicted ones are moved off-heap
+        ConcurrentTileCache cache = new ConcurrentTileCache(TILE_SIZE * TILE_SIZE * 2, false, 1f, 1);
+        cache.setOffHeapCapacity(TILE_SIZE * TILE_SIZE * NUM_TILES);
+        for (int i = 0; i < NUM_TILES; i++) {
+            cache.add(image, i, 0, image.getTile(i, 0));
+        }
+        assertTrue(cache.getOffHeapTileCount() > 0);
+
+        // All the tiles can be retrieved with their data
+        for (int i = 0; i < NUM_TILES; i++) {
+            Raster tile = cache.getTile(image, i, 0);
+            assertNotNull(tile);
+            assertEquals(image.getTile(i, 0).getBounds(), tile.getBounds());
+            assertEquals(i + 1, tile.getSample(i * TILE_SIZE + i, i, 0));
+        }
+
+        // Removing the image tiles clears also the off-heap store
+        cache.removeTiles(image);
+        assertEquals(0, cache.getOffHeapTileCount());
+        assertNull(cache.getTile(image, 0, 0));
+    }
+
+    @Test
+    public void testOffHeapCapacityLimit() {
+        TiledImage image = createImage();
+        ConcurrentTileCache cache = new ConcurrentTileCache(TILE_SIZE * TILE_SIZE * 2, false, 1f, 1);
+        // The capacity is limited to the maximum direct memory of the JVM
+        cache.setOffHeapCapacity(Long.MAX_VALUE);
+        assertTrue(cache.getOffHeapCapacity() < Long.MAX_VALUE);
+        assertTrue(cache.getOffHeapCapacity() > 0);
+        for (int i = 0; i < NUM_TILES; i++) {
+            cache.add(image, i, 0, image.getTile(i, 0));
+        }
+        assertTrue(cache.getOffHeapTileCount() > 0);
+    }
+
+    @Test
+    public void testCostAwareEviction() {
+        TiledImage image = createImage();
+        // The cache can contain only four tiles
+        ConcurrentTileCache cache = new ConcurrentTileCache(TILE_SIZE * TILE_SIZE * 4, false, 1f, 1);
+        cache.setEvictionPolicy(ConcurrentTileCache.EvictionPolicy.COST_AWARE);
+        // The tiles of the first image are expensive to compute
+        TiledImage cheapImage = createImage();
+        TileCacheMetric expensive = new TileCacheMetric();
+        expensive.recordComputeTime(1000000);
+        TileCacheMetric cheap = new TileCacheMetric();
+        cheap.recordComputeTime(1);
+        for (int i = 0; i < NUM_TILES; i++) {
+            cache.add(image, i, 0, image.getTile(i, 0), expensive);
+            cache.add(cheapImage, i, 0, cheapImage.getTile(i, 0), cheap);
+        }
+        assertTrue(cache.getCacheMemoryUsed() <= TILE_SIZE * TILE_SIZE * 4);
+
+        // The cheap tiles are evicted first
+        int expensiveTiles = 0;
+        for (int i = 0; i < NUM_TILES; i++) {
+            if (cache.getTile(image, i, 0) != null) {
+                expensiveTiles++;
+            }
+        }
+        assertTrue(expensiveTiles >= 3);
+    }
+
+    @Test
+    public void testStatistics() {
+        TiledImage image = createImage();
+        long tileSize = TILE_SIZE * TILE_SIZE;
+        // Statistics are collected also without diagnostics
+        ConcurrentTileCache cache = new ConcurrentTileCache(tileSize * 4, false, 1f, 1);
+        for (int i = 0; i < NUM_TILES; i++) {
+            cache.add(image, i, 0, image.getTile(i, 0));
+        }
+        cache.add(image, 9, 0, image.getTile(9, 0));
+        cache.getTile(image, 9, 0);
+        cache.getTile(image, 0, 9);
+        cache.remove(image, 9, 0);
+
+        TileCacheStatistics stats = cache.getStatistics();
+        assertEquals(1, stats.getHitCount());
+        assertEquals(1, stats.getMissCount());
+        assertEquals(1, stats.getReplacementCount());
+        assertEquals(1, stats.getRemovalCount());
+        assertEquals(NUM_TILES - stats.getTileCount() - 1, stats.getEvictionCount());
+        assertEquals(stats.getTileCount() * tileSize, stats.getMemoryUsed());
+        assertEquals(stats.getMemoryUsed(), cache.getCacheMemoryUsed());
+        assertEquals(stats.getMemoryUsed(), cache.getCacheMemoryUsed(image));
+        assertEquals(Long.valueOf(stats.getMemoryUsed()),
+                stats.getOwnerMemoryUsed().get(CachedTileImpl.hashKey(image)));
+    }
+
+    @Test
+    public void testTileEvents() throws InterruptedException {
+        TiledImage image = createImage();
+        ConcurrentTileCache cache = new ConcurrentTileCache(128 * 1024 * 1024, true, 1f, 4);
+        final List<TileCacheEvent> received = Collections
+                .synchronizedList(new ArrayList<TileCacheEvent>());
+        final Thread caller = Thread.currentThread();
+        cache.addTileCacheListener(new TileCacheListener() {
+            public void tileEvents(List<TileCacheEvent> events) {
+                // the events are never delivered on the thread accessing the cache
+                if (Thread.currentThread() != caller) {
+                    received.addAll(events);
+                }
+            }
+        });
+        cache.add(image, 0, 0, image.getTile(0, 0));
+        cache.getTile(image, 0, 0);
+        cache.remove(image, 0, 0);
+
+        // the events are delivered asynchronously
+        for (int i = 0; i < 100 && received.size() < 4; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(4, received.size());
+        assertEquals(Actions.ADDITION, received.get(0).getAction());
+        assertEquals(Actions.UPDATING_TILE_FROM_GETTILE, received.get(1).getAction());
+        assertEquals(Actions.ABOUT_TO_REMOVAL, received.get(2).getAction());
+        assertEquals(Actions.MANUAL_REMOVAL, received.get(3).getAction());
+        assertEquals(0, cache.getDroppedEventCount());
+    }
+
+    @Test
+    public void testResizeWithoutFlush() throws InterruptedException {
+        TiledImage image = createImage();
+        long tileSize = TILE_SIZE * TILE_SIZE;
+        ConcurrentTileCache cache = new ConcurrentTileCache(tileSize * NUM_TILES, false, 1f, 4);
+        for (int i = 0; i < NUM_TILES; i++) {
+            cache.add(image, i, 0, image.getTile(i, 0));
+        }
+        // the last tiles are accessed again
+        Thread.sleep(1);
+        for (int i = NUM_TILES - 3; i < NUM_TILES; i++) {
+            assertNotNull(cache.getTile(image, i, 0));
+        }
+
+        // Shrinking the cache evicts only the least recently used tiles
+        cache.setMemoryCapacity(tileSize * 3);
+        assertEquals(3, cache.getCacheTileCount());
+        for (int i = NUM_TILES - 3; i < NUM_TILES; i++) {
+            assertNotNull(cache.getTile(image, i, 0));
+        }
+
+        // Growing the cache and changing its structure keeps the tiles
+        cache.setMemoryCapacity(tileSize * NUM_TILES);
+        cache.setConcurrencyLevel(8);
+        assertEquals(3, cache.getCacheTileCount());
+        assertEquals(3, cache.getTiles(image).length);
+        assertEquals(tileSize * 3, cache.getCacheMemoryUsed());
+    }
+
+    @Test
+    public void testExactLruEviction() {
+        TiledImage image = createImage();
+        long tileSize = TILE_SIZE * TILE_SIZE;
+        ConcurrentTileCache cache = new ConcurrentTileCache(tileSize * NUM_TILES, false, 1f, 4);
+        for (int i = 0; i < NUM_TILES; i++) {
+            cache.add(image, i, 0, image.getTile(i, 0));
+        }
+        // the even tiles are accessed again
+        for (int i = 0; i < NUM_TILES; i += 2) {
+            assertNotNull(cache.getTile(image, i, 0));
+        }
+        // the new tiles evict exactly the odd ones
+        for (int i = 0; i < NUM_TILES / 2; i++) {
+            cache.add(image, i, 1, image.getTile(i, 1));
+        }
+        for (int i = 0; i < NUM_TILES; i++) {
+            assertEquals(i % 2 == 0, cache.getTile(image, i, 0) != null);
+        }
+    }
+
+    @Test
+    public void testMultiMapResizeDuringAdd() throws InterruptedException {
+        final long tileSize = TILE_SIZE * TILE_SIZE;
+        final ConcurrentTileCacheMultiMap cache = new ConcurrentTileCacheMultiMap(tileSize * 200,
+                true, 1f, 1);
+        final TiledImage[] images = new TiledImage[4];
+        Thread[] threads = new Thread[images.length];
+        for (int i = 0; i < images.length; i++) {
+            final TiledImage image = createImage();
+            images[i] = image;
+            threads[i] = new Thread() {
+                public void run() {
+                    for (int j = 0; j < 20 * NUM_TILES * NUM_TILES; j++) {
+                        int tile = j % (NUM_TILES * NUM_TILES);
+                        cache.add(image, tile % NUM_TILES, tile / NUM_TILES,
+                                image.getTile(tile % NUM_TILES, tile / NUM_TILES));
+                        if (j % 11 == 0) {
+                            cache.remove(image, tile % NUM_TILES, tile / NUM_TILES);
+                        }
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        // the cache is resized while the tiles are added, removed and evicted
+        for (int i = 0; i < 100; i++) {
+            cache.setMemoryCapacity(tileSize * (50 + (i % 5) * 40));
+        }
+        for (int i = 0; i < threads.length; i++) {
+            threads[i].join();
+        }
+        // the memory and the multimap follow the tiles of the current cache
+        int indexed = 0;
+        for (int i = 0; i < images.length; i++) {
+            Raster[] tiles = cache.getTiles(images[i]);
+            indexed += tiles != null ? tiles.length : 0;
+        }
+        assertEquals(cache.getCacheTileCount() * tileSize, cache.getCacheMemoryUsed());
+        assertEquals(cache.getCacheTileCount(), indexed);
+    }
+
+    @Test
+    public void testAddDuringRebuild() throws InterruptedException {
+        final long tileSize = TILE_SIZE * TILE_SIZE;
+        final ConcurrentTileCache cache = new ConcurrentTileCache(128 * 1024 * 1024, false, 1f, 4);
+        final TiledImage[] images = new TiledImage[4];
+        Thread[] threads = new Thread[images.length];
+        for (int i = 0; i < images.length; i++) {
+            final TiledImage image = createImage();
+            images[i] = image;
+            threads[i] = new Thread() {
+                public void run() {
+                    for (int j = 0; j < 20 * NUM_TILES * NUM_TILES; j++) {
+                        int tile = j % (NUM_TILES * NUM_TILES);
+                        cache.add(image, tile % NUM_TILES, tile / NUM_TILES,
+                                image.getTile(tile % NUM_TILES, tile / NUM_TILES));
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        // the segments are rebuilt and flushed while the tiles are added
+        for (int i = 0; i < 50; i++) {
+            cache.setSegmentCount(1 + i % 4);
+            if (i % 10 == 0) {
+                cache.flush();
+            }
+        }
+        for (int i = 0; i < threads.length; i++) {
+            threads[i].join();
+        }
+        // no tile is left in a discarded segment and no key is dropped from
+        // the index, so the memory is counted once for each cached tile
+        long indexed = 0;
+        for (int i = 0; i < images.length; i++) {
+            indexed += cache.getCacheMemoryUsed(images[i]);
+        }
+        assertEquals(cache.getCacheTileCount() * tileSize, cache.getCacheMemoryUsed());
+        assertEquals(cache.getCacheMemoryUsed(), indexed);
+    }
+
+    @Test
+    public void testConcurrentAddAndRemove() throws InterruptedException {
+        checkConcurrentAddAndRemove(ConcurrentTileCache.EvictionPolicy.LRU);
+        checkConcurrentAddAndRemove(ConcurrentTileCache.EvictionPolicy.COST_AWARE);
+    }
+
+    private void checkConcurrentAddAndRemove(ConcurrentTileCache.EvictionPolicy policy)
+            throws InterruptedException {
+        long tileSize = TILE_SIZE * TILE_SIZE;
+        // the cache is small, so the tiles are also evicted while added and removed
+        final ConcurrentTileCache cache = new ConcurrentTileCache(tileSize * 10, false, 1f, 4);
+        cache.setEvictionPolicy(policy);
+        final TilePriorityClass priorityClass = new TilePriorityClass("class", 0.2f, 0.8f);
+        final TiledImage[] images = new TiledImage[2];
+        Thread[] threads = new Thread[images.length * 3];
+        for (int i = 0; i < images.length; i++) {
+            final TiledImage image = createImage();
+            images[i] = image;
+            // two threads add the tiles of the image and one removes them
+            for (int k = 0; k < 3; k++) {
+                final boolean remove = k == 2;
+                threads[i * 3 + k] = new Thread() {
+                    public void run() {
+                        TileCacheMetric metric = new TileCacheMetric(priorityClass);
+                        for (int j = 0; j < 50 * NUM_TILES * NUM_TILES; j++) {
+                            int tile = j % (NUM_TILES * NUM_TILES);
+                            int tileX = tile % NUM_TILES;
+                            int tileY = tile / NUM_TILES;
+                            if (remove) {
+                                cache.remove(image, tileX, tileY);
+                            } else {
+                                cache.add(image, tileX, tileY, image.getTile(tileX, tileY), metric);
+                                cache.getTile(image, tileX, tileY);
+                            }
+                        }
+                    }
+                };
+            }
+        }
+        for (int i = 0; i < threads.length; i++) {
+            threads[i].start();
+        }
+        for (int i = 0; i < threads.length; i++) {
+            threads[i].join();
+        }
+        // the memory of the cached tiles is counted once by every counter
+        long indexed = 0;
+        for (int i = 0; i < images.length; i++) {
+            indexed += cache.getCacheMemoryUsed(images[i]);
+        }
+        assertEquals(cache.getCacheTileCount() * tileSize, cache.getCacheMemoryUsed());
+        assertEquals(cache.getCacheMemoryUsed(), cache.getCacheMemoryUsed(priorityClass));
+        assertEquals(cache.getCacheMemoryUsed(), indexed);
+
+        // once all the tiles are removed no memory is left
+        for (int i = 0; i < images.length; i++) {
+            cache.removeTiles(images[i]);
+            assertEquals(0, cache.getCacheMemoryUsed(images[i]));
+        }
+        assertEquals(0, cache.getCacheTileCount());
+        assertEquals(0, cache.getCacheMemoryUsed());
+        assertEquals(0, cache.getCacheMemoryUsed(priorityClass));
+    }
+
+    @Test
+    public void testPriorityClassQuotas() {
+        long tileSize = TILE_SIZE * TILE_SIZE;
+        ConcurrentTileCache cache = new ConcurrentTileCache(tileSize * 20, false, 1f, 4);
+        TilePriorityClass base = new TilePriorityClass("base", 0.25f, 1f);
+        TilePriorityClass mosaic = new TilePriorityClass("mosaic", 0f, 0.5f);
+
+        TiledImage baseImage = createImage();
+        for (int i = 0; i < 5; i++) {
+            cache.add(baseImage, i, 0, baseImage.getTile(i, 0), new TileCacheMetric(base));
+        }
+        // The mosaic tiles never exceed their maximum share
+        TiledImage mosaicImage = createImage();
+        TileCacheMetric mosaicMetric = new TileCacheMetric(mosaic);
+        for (int i = 0; i < NUM_TILES * NUM_TILES; i++) {
+            cache.add(mosaicImage, i % NUM_TILES, i / NUM_TILES,
+                    mosaicImage.getTile(i % NUM_TILES, i / NUM_TILES), mosaicMetric);
+        }
+        assertTrue(cache.getCacheMemoryUsed(mosaic) <= tileSize * 10);
+
+        // The tiles without class do not evict the guaranteed base tiles
+        TiledImage other = createImage();
+        for (int i = 0; i < NUM_TILES * NUM_TILES; i++) {
+            cache.add(other, i % NUM_TILES, i / NUM_TILES,
+                    other.getTile(i % NUM_TILES, i / NUM_TILES));
+        }
+        assertEquals(tileSize * 5, cache.getCacheMemoryUsed(base));
+        assertEquals(5, cache.getTiles(baseImage).length);
+    }
+
+    @Test
+    public void testGuaranteedMinimum() {
+        checkGuaranteedMinimum(ConcurrentTileCache.EvictionPolicy.LRU);
+        checkGuaranteedMinimum(ConcurrentTileCache.EvictionPolicy.COST_AWARE);
+    }
+
+    private void checkGuaranteedMinimum(ConcurrentTileCache.EvictionPolicy policy) {
+        long tileSize = TILE_SIZE * TILE_SIZE;
+        ConcurrentTileCache cache = new ConcurrentTileCache(tileSize * 20, false, 1f, 4);
+        cache.setEvictionPolicy(policy);
+        // the cache is mostly used by the protected class, so the samples
+        // contain almost only its tiles
+        TilePriorityClass base = new TilePriorityClass("base", 0.9f, 1f);
+        TiledImage baseImage = createImage();
+        TileCacheMetric baseMetric = new TileCacheMetric(base);
+        for (int i = 0; i < 18; i++) {
+            cache.add(baseImage, i % NUM_TILES, i / NUM_TILES,
+                    baseImage.getTile(i % NUM_TILES, i / NUM_TILES), baseMetric);
+        }
+        TiledImage other = createImage();
+        for (int i = 0; i < NUM_TILES * NUM_TILES; i++) {
+            cache.add(other, i % NUM_TILES, i / NUM_TILES,
+                    other.getTile(i % NUM_TILES, i / NUM_TILES));
+        }
+        // only the tiles without class are evicted
+        assertEquals(tileSize * 18, cache.getCacheMemoryUsed(base));
+        assertEquals(18, cache.getTiles(baseImage).length);
+        assertTrue(cache.getCacheMemoryUsed() <= tileSize * 20);
+    }
+
+    @Test
+    public void testTileComparator() {
+        TiledImage image = createImage();
+        long tileSize = TILE_SIZE * TILE_SIZE;
+        ConcurrentTileCache cache = new ConcurrentTileCache(tileSize * 3, false, 1f, 4);
+        // the whole cache is sampled, so the eviction follows exactly the comparator
+        cache.setEvictionSampleSize(NUM_TILES);
+        // the tiles on the right are evicted first
+        Comparator<CachedTile> comparator = new Comparator<CachedTile>() {
+            public int compare(CachedTile o1, CachedTile o2) {
+                return o2.getTile().getMinX() - o1.getTile().getMinX();
+            }
+        };
+        cache.setTileComparator(comparator);
+        assertEquals(comparator, cache.getTileComparator());
+        for (int i = 0; i < NUM_TILES; i++) {
+            cache.add(image, i, 0, image.getTile(i, 0));
+        }
+        for (int i = 0; i < 2; i++) {
+            assertNotNull(cache.getTile(image, i, 0));
+        }
+        assertEquals(3, cache.getCacheTileCount());
+
+        // A null comparator restores the eviction policy
+        cache.setTileComparator(null);
+        assertNull(cache.getTileComparator());
+    }
+
+    /** Creates a new image with NUM_TILES x NUM_TILES tiles */
+    static TiledImage createImage() {
+        SampleModel sm = RasterFactory.createBandedSampleModel(DataBuffer.TYPE_BYTE, TILE_SIZE,
+                TILE_SIZE, 1);
+        return new TiledImage(0, 0, TILE_SIZE * NUM_TILES, TILE_SIZE * NUM_TILES, 0, 0, sm, null);
+    }
+}
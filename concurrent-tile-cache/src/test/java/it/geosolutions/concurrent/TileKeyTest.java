@@ -0,0 +1,87 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.concurrent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+
+import javax.media.jai.RasterFactory;
+import javax.media.jai.TiledImage;
+
+import org.junit.Test;
+
+/**
+ * This test class is used for checking that the per-thread lookup keys of {@link TileKey} match the stored keys and are never stored inside the
+ * cache.
+ */
+public class TileKeyTest {
+
+    @Test
+    public void testLookupKeyEquality() {
+        TiledImage image = createImage();
+        TileKey stored = TileKey.create(image, 2, 3);
+        TileKey lookup = TileKey.lookupKey(image, 2, 3);
+
+        assertNotSame(stored, lookup);
+        assertEquals(stored, lookup);
+        assertEquals(lookup, stored);
+        assertEquals(stored.hashCode(), lookup.hashCode());
+
+        // The lookup key is reused by the thread
+        assertSame(lookup, TileKey.lookupKey(image, 3, 2));
+        assertFalse(stored.equals(lookup));
+        assertFalse(lookup.equals(TileKey.create(createImage(), 3, 2)));
+    }
+
+    @Test
+    public void testLookupKeyNotStored() throws InterruptedException {
+        final TiledImage image = createImage();
+        final ConcurrentTileCache cache = new ConcurrentTileCache();
+        cache.add(image, 2, 3, image.getTile(2, 3));
+        // the lookup key of this thread is used by the cache operations
+        assertNotNull(cache.getTile(image, 2, 3));
+        cache.add(image, 2, 3, image.getTile(2, 3));
+        cache.remove(image, 4, 4);
+
+        // a stored lookup key would now refer to another tile
+        TileKey.lookupKey(image, 5, 5);
+
+        final Raster[] found = new Raster[1];
+        Thread reader = new Thread() {
+            public void run() {
+                found[0] = cache.getTile(image, 2, 3);
+            }
+        };
+        reader.start();
+        reader.join();
+        assertNotNull(found[0]);
+        assertEquals(1, cache.getTiles(image).length);
+    }
+
+    private static TiledImage createImage() {
+        SampleModel sm = RasterFactory.createBandedSampleModel(DataBuffer.TYPE_BYTE, 10, 10, 1);
+        return new TiledImage(0, 0, 100, 100, 0, 0, sm, null);
+    }
+}
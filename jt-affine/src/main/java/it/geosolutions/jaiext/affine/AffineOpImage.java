@@ -20,6 +20,7 @@ package it.geosolutions.jaiext.affine;
 import it.geosolutions.jaiext.interpolators.InterpolationNearest;
 import it.geosolutions.jaiext.iterators.RandomIterFactory;
 import it.geosolutions.jaiext.range.Range;
+import it.geosolutions.jaiext.utilities.MultiTileComputer;
 
 import java.awt.Point;
 import java.awt.Rectangle;
@@ -57,7 +58,7 @@ import com.sun.media.jai.util.ImageUtil;
  * </ul>
  * 
  */
-abstract class AffineOpImage extends GeometricOpImage {
+abstract class AffineOpImage extends GeometricOpImage implements MultiTileComputer {
 
     /** ROI extender */
     final static BorderExtender roiExtender = BorderExtender
@@ -458,7 +459,7 @@ abstract class AffineOpImage extends GeometricOpImage {
                     srcROIImage.getHeight() + tpad + bpad);
             Raster data = srcROIImage.getExtendedData(rect,
                     BorderExtender.createInstance(BorderExtender.BORDER_ZERO));
-            roiIter = RandomIterFactory.create(data, data.getBounds(), false, true);
+            roiIter = RandomIterFactory.createShared(data, data.getBounds(), 1);
             roiBounds = srcROIImage.getBounds();
             hasROI = true;
 
@@ -600,6 +601,100 @@ abstract class AffineOpImage extends GeometricOpImage {
         i_transform.transform(destPoint, srcPoint);
     }
 
+    /**
+     * Computes several tiles at once. The source data, including the padding needed by the interpolation kernel, are fetched once for the union
+     * of the tiles and shared by the tile computations, instead of being fetched again for each tile. Each tile is computed from the part of the
+     * shared source it would have fetched by itself. The tiles lying outside the source are computed by <code>computeTile()</code>.
+     */
+    public Raster[] computeTiles(Point[] tileIndices) {
+        int numTiles = tileIndices.length;
+        Raster[] tiles = new Raster[numTiles];
+
+        // Clip the tiles against the writable destination area, and compute
+        // the union of the source rectangles needed by the tiles.
+        Rectangle[] destRects = new Rectangle[numTiles];
+        Rectangle[] srcRects = new Rectangle[numTiles];
+        Rectangle union = null;
+        for (int i = 0; i < numTiles; i++) {
+            Rectangle rect = new Rectangle(tileXToX(tileIndices[i].x), tileYToY(tileIndices[i].y),
+                    tileWidth, tileHeight);
+            destRects[i] = rect.intersection(theDest);
+            if (destRects[i].width <= 0 || destRects[i].height <= 0) {
+                continue;
+            }
+            Rectangle srcRect = mapDestRect(destRects[i], 0);
+            srcRect = srcRect.intersection(extender == null ? srcimg : padimg);
+            if (srcRect.width > 0 && srcRect.height > 0) {
+                srcRects[i] = srcRect;
+                union = union == null ? srcRect : union.union(srcRect);
+            }
+        }
+
+        // Get the source and ROI data of the union only once
+        PlanarImage srcIMG = getSourceImage(0);
+        Raster source = null;
+        Raster roi = null;
+        if (union != null) {
+            if (extender == null) {
+                source = srcIMG.getData(union);
+                if (hasROI && useROIAccessor) {
+                    roi = srcROIImage.getData(union.intersection(srcROIImage.getBounds()));
+                }
+            } else {
+                source = srcIMG.getExtendedData(union, extender);
+                if (hasROI && useROIAccessor) {
+                    roi = srcROIImage.getExtendedData(union, roiExtender);
+                }
+            }
+        }
+
+        Raster[] sources = new Raster[1];
+        Raster[] rois = new Raster[1];
+        for (int i = 0; i < numTiles; i++) {
+            Rectangle srcRect = srcRects[i];
+            Rectangle roiRect = null;
+            if (srcRect != null && roi != null) {
+                roiRect = srcRect.intersection(roi.getBounds());
+                if (roiRect.isEmpty()) {
+                    srcRect = null;
+                }
+            }
+            if (srcRect == null) {
+                // No source data: the tile is filled with the background
+                tiles[i] = computeTile(tileIndices[i].x, tileIndices[i].y);
+                continue;
+            }
+            Point org = new Point(tileXToX(tileIndices[i].x), tileYToY(tileIndices[i].y));
+            WritableRaster dest = createWritableRaster(sampleModel, org);
+            Rectangle destRect = destRects[i];
+            Rectangle destRect1 = new Rectangle(org.x, org.y, tileWidth, tileHeight)
+                    .intersection(getBounds());
+            if (!destRect1.equals(destRect)) {
+                // beware that destRect1 contains destRect
+                ImageUtil.fillBordersWithBackgroundValues(destRect1, destRect, dest,
+                        backgroundValues);
+            }
+
+            // The part of the shared source needed by this tile
+            sources[0] = source.createChild(srcRect.x, srcRect.y, srcRect.width, srcRect.height,
+                    srcRect.x, srcRect.y, null);
+            if (roiRect != null) {
+                rois[0] = roi.createChild(roiRect.x, roiRect.y, roiRect.width, roiRect.height,
+                        roiRect.x, roiRect.y, null);
+                computeRect(sources, dest, destRect, rois);
+            } else {
+                computeRect(sources, dest, destRect);
+            }
+            tiles[i] = dest;
+        }
+
+        // Recycle the source data
+        if (union != null && srcIMG.overlapsMultipleTiles(union)) {
+            recycleTile(source);
+        }
+        return tiles;
+    }
+
     public Raster computeTile(int tileX, int tileY) {
         //
         // Create a new WritableRaster to represent this tile.
@@ -0,0 +1,68 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.jaiext.iterators;
+
+import java.awt.Rectangle;
+
+import javax.media.jai.iterator.RandomIter;
+
+/**
+ * A {@link RandomIter} which can also copy a whole block of samples of a band into a primitive array, instead of reading the samples one by
+ * one. The block may span several tiles. The samples are stored row by row: the sample at (x, y) is at index
+ * <code>(y - rect.y) * rect.width + (x - rect.x)</code>. All the iterators created by {@link RandomIterFactory} implement this interface.
+ * 
+ * <p>
+ * The block must not be empty and must lie inside the image bounds, and the array receiving the samples, when given, must hold at least
+ * <code>rect.width * rect.height</code> samples; otherwise an <code>IllegalArgumentException</code> is thrown. The block is not clipped:
+ * callers reading near the image edges must intersect it with the image bounds themselves.
+ */
+public interface BlockRandomIter extends RandomIter {
+
+    /**
+     * Copies the samples of a block into an int array.
+     * 
+     * @param rect the block to read.
+     * @param b the band to read.
+     * @param iArray the array receiving the samples, or <code>null</code>.
+     * @return the array of samples, allocated if <code>iArray</code> is <code>null</code>.
+     * @throws IllegalArgumentException if the block is empty or not inside the image, or if the array is too small.
+     */
+    int[] readBlock(Rectangle rect, int b, int[] iArray);
+
+    /**
+     * Copies the samples of a block into a float array.
+     * 
+     * @param rect the block to read.
+     * @param b the band to read.
+     * @param fArray the array receiving the samples, or <code>null</code>.
+     * @return the array of samples, allocated if <code>fArray</code> is <code>null</code>.
+     * @throws IllegalArgumentException if the block is empty or not inside the image, or if the array is too small.
+     */
+    float[] readBlock(Rectangle rect, int b, float[] fArray);
+
+    /**
+     * Copies the samples of a block into a double array.
+     * 
+     * @param rect the block to read.
+     * @param b the band to read.
+     * @param dArray the array receiving the samples, or <code>null</code>.
+     * @return the array of samples, allocated if <code>dArray</code> is <code>null</code>.
+     * @throws IllegalArgumentException if the block is empty or not inside the image, or if the array is too small.
+     */
+    double[] readBlock(Rectangle rect, int b, double[] dArray);
+}
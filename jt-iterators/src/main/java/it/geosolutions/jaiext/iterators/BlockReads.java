@@ -0,0 +1,446 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.jaiext.iterators;
+
+import java.awt.Rectangle;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferDouble;
+import java.awt.image.DataBufferFloat;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DataBufferShort;
+import java.awt.image.DataBufferUShort;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+
+import javax.media.jai.PlanarImage;
+
+/**
+ * Implementation of the block reads of the {@link BlockRandomIter}s. The block is read tile by tile. When the tile has a
+ * {@link ComponentSampleModel} and a standard <code>DataBuffer</code>, the samples are copied straight from the data array, with
+ * <code>System.arraycopy()</code> for the rows of contiguous samples of the same type, instead of going through the <code>SampleModel</code>
+ * for each sample.
+ */
+final class BlockReads {
+
+    /**
+     * Copies the samples of a block of an image into an int array.
+     * 
+     * @param im the image to read.
+     * @param slots the tiles cached by the iterator, or <code>null</code>.
+     * @param rect the block to read.
+     * @param b the band to read.
+     * @param dst the array receiving the samples, or <code>null</code>.
+     * @return the array of samples.
+     * @throws IllegalArgumentException if the block is empty or not inside the image, or if the array is too small.
+     */
+    static int[] readBlock(RenderedImage im, TileSlots slots, Rectangle rect, int b,
+            int[] dst) {
+        checkBlock(im, rect, dst == null ? -1 : dst.length);
+        if (dst == null) {
+            dst = new int[rect.width * rect.height];
+        }
+        read(im, slots, rect, b, dst);
+        return dst;
+    }
+
+    /**
+     * Copies the samples of a block of an image into a float array.
+     * 
+     * @param im the image to read.
+     * @param slots the tiles cached by the iterator, or <code>null</code>.
+     * @param rect the block to read.
+     * @param b the band to read.
+     * @param dst the array receiving the samples, or <code>null</code>.
+     * @return the array of samples.
+     * @throws IllegalArgumentException if the block is empty or not inside the image, or if the array is too small.
+     */
+    static float[] readBlock(RenderedImage im, TileSlots slots, Rectangle rect, int b,
+            float[] dst) {
+        checkBlock(im, rect, dst == null ? -1 : dst.length);
+        if (dst == null) {
+            dst = new float[rect.width * rect.height];
+        }
+        read(im, slots, rect, b, dst);
+        return dst;
+    }
+
+    /**
+     * Copies the samples of a block of an image into a double array.
+     * 
+     * @param im the image to read.
+     * @param slots the tiles cached by the iterator, or <code>null</code>.
+     * @param rect the block to read.
+     * @param b the band to read.
+     * @param dst the array receiving the samples, or <code>null</code>.
+     * @return the array of samples.
+     * @throws IllegalArgumentException if the block is empty or not inside the image, or if the array is too small.
+     */
+    static double[] readBlock(RenderedImage im, TileSlots slots, Rectangle rect, int b,
+            double[] dst) {
+        checkBlock(im, rect, dst == null ? -1 : dst.length);
+        if (dst == null) {
+            dst = new double[rect.width * rect.height];
+        }
+        read(im, slots, rect, b, dst);
+        return dst;
+    }
+
+    /**
+     * Checks that a block can be read: it must be non empty and lie inside the image, so that all the tiles it spans exist, and the array
+     * receiving the samples, if any, must be large enough to hold them.
+     * 
+     * @param im the image to read.
+     * @param rect the block to read.
+     * @param length the length of the array receiving the samples, or -1 if it will be allocated.
+     */
+    private static void checkBlock(RenderedImage im, Rectangle rect, int length) {
+        if (rect == null) {
+            throw new IllegalArgumentException("The block to read is null");
+        }
+        if (rect.isEmpty()) {
+            throw new IllegalArgumentException("The block to read is empty: " + rect);
+        }
+        Rectangle imBounds = new Rectangle(im.getMinX(), im.getMinY(), im.getWidth(),
+                im.getHeight());
+        if (!imBounds.contains(rect)) {
+            throw new IllegalArgumentException("The block " + rect
+                    + " is not inside the image bounds " + imBounds);
+        }
+        if (length >= 0 && length < (long) rect.width * rect.height) {
+            throw new IllegalArgumentException("The array of " + length
+                    + " samples is too small for the block " + rect);
+        }
+    }
+
+    /** Copies the samples of a block tile by tile into an int, float or double array */
+    private static void read(RenderedImage im, TileSlots slots, Rectangle rect, int b, Object dst) {
+        int tileGridXOffset = im.getTileGridXOffset();
+        int tileGridYOffset = im.getTileGridYOffset();
+        int tileWidth = im.getTileWidth();
+        int tileHeight = im.getTileHeight();
+        int minTileX = PlanarImage.XToTileX(rect.x, tileGridXOffset, tileWidth);
+        int maxTileX = PlanarImage.XToTileX(rect.x + rect.width - 1, tileGridXOffset, tileWidth);
+        int minTileY = PlanarImage.YToTileY(rect.y, tileGridYOffset, tileHeight);
+        int maxTileY = PlanarImage.YToTileY(rect.y + rect.height - 1, tileGridYOffset, tileHeight);
+        Rectangle area = new Rectangle();
+        for (int tileY = minTileY; tileY <= maxTileY; tileY++) {
+            for (int tileX = minTileX; tileX <= maxTileX; tileX++) {
+                Raster tile = slots != null ? slots.getTile(im, tileX, tileY) : im.getTile(tileX,
+                        tileY);
+                Rectangle.intersect(tile.getBounds(), rect, area);
+                if (area.isEmpty()) {
+                    continue;
+                }
+                int offset = (area.y - rect.y) * rect.width + area.x - rect.x;
+                if (dst instanceof int[]) {
+                    copy(tile, area, b, (int[]) dst, offset, rect.width);
+                } else if (dst instanceof float[]) {
+                    copy(tile, area, b, (float[]) dst, offset, rect.width);
+                } else {
+                    copy(tile, area, b, (double[]) dst, offset, rect.width);
+                }
+            }
+        }
+    }
+
+    /** Copies the samples of a tile area into an int array */
+    private static void copy(Raster tile, Rectangle area, int b, int[] dst, int offset,
+            int scan) {
+        DataBuffer db = tile.getDataBuffer();
+        SampleModel sm = tile.getSampleModel();
+        int x0 = area.x - tile.getSampleModelTranslateX();
+        int y0 = area.y - tile.getSampleModelTranslateY();
+        int w = area.width;
+        int h = area.height;
+        if (sm instanceof ComponentSampleModel) {
+            ComponentSampleModel csm = (ComponentSampleModel) sm;
+            int pixelStride = csm.getPixelStride();
+            int lineStride = csm.getScanlineStride();
+            int bank = csm.getBankIndices()[b];
+            int start = db.getOffsets()[bank] + csm.getBandOffsets()[b] + y0 * lineStride + x0
+                    * pixelStride;
+            if (db instanceof DataBufferByte) {
+                byte[] data = ((DataBufferByte) db).getData(bank);
+                for (int j = 0; j < h; j++) {
+                    int s = start + j * lineStride;
+                    int d = offset + j * scan;
+                    for (int i = 0; i < w; i++, s += pixelStride) {
+                        dst[d + i] = data[s] & 0xff;
+                    }
+                }
+                return;
+            } else if (db instanceof DataBufferUShort) {
+                short[] data = ((DataBufferUShort) db).getData(bank);
+                for (int j = 0; j < h; j++) {
+                    int s = start + j * lineStride;
+                    int d = offset + j * scan;
+                    for (int i = 0; i < w; i++, s += pixelStride) {
+                        dst[d + i] = data[s] & 0xffff;
+                    }
+                }
+                return;
+            } else if (db instanceof DataBufferShort) {
+                short[] data = ((DataBufferShort) db).getData(bank);
+                for (int j = 0; j < h; j++) {
+                    int s = start + j * lineStride;
+                    int d = offset + j * scan;
+                    for (int i = 0; i < w; i++, s += pixelStride) {
+                        dst[d + i] = data[s];
+                    }
+                }
+                return;
+            } else if (db instanceof DataBufferInt) {
+                int[] data = ((DataBufferInt) db).getData(bank);
+                if (pixelStride == 1) {
+                    for (int j = 0; j < h; j++) {
+                        System.arraycopy(data, start + j * lineStride, dst, offset + j * scan, w);
+                    }
+                    return;
+                }
+                for (int j = 0; j < h; j++) {
+                    int s = start + j * lineStride;
+                    int d = offset + j * scan;
+                    for (int i = 0; i < w; i++, s += pixelStride) {
+                        dst[d + i] = data[s];
+                    }
+                }
+                return;
+            } else if (db instanceof DataBufferFloat) {
+                float[] data = ((DataBufferFloat) db).getData(bank);
+                for (int j = 0; j < h; j++) {
+                    int s = start + j * lineStride;
+                    int d = offset + j * scan;
+                    for (int i = 0; i < w; i++, s += pixelStride) {
+                        dst[d + i] = (int) data[s];
+                    }
+                }
+                return;
+            } else if (db instanceof DataBufferDouble) {
+                double[] data = ((DataBufferDouble) db).getData(bank);
+                for (int j = 0; j < h; j++) {
+                    int s = start + j * lineStride;
+                    int d = offset + j * scan;
+                    for (int i = 0; i < w; i++, s += pixelStride) {
+                        dst[d + i] = (int) data[s];
+                    }
+                }
+                return;
+            }
+        }
+        // Generic sample model or data buffer
+        for (int j = 0; j < h; j++) {
+            int d = offset + j * scan;
+            for (int i = 0; i < w; i++) {
+                dst[d + i] = sm.getSample(x0 + i, y0 + j, b, db);
+            }
+        }
+    }
+
+    /** Copies the samples of a tile area into a float array */
+    private static void copy(Raster tile, Rectangle area, int b, float[] dst, int offset,
+            int scan) {
+        DataBuffer db = tile.getDataBuffer();
+        SampleModel sm = tile.getSampleModel();
+        int x0 = area.x - tile.getSampleModelTranslateX();
+        int y0 = area.y - tile.getSampleModelTranslateY();
+        int w = area.width;
+        int h = area.height;
+        if (sm instanceof ComponentSampleModel) {
+            ComponentSampleModel csm = (ComponentSampleModel) sm;
+            int pixelStride = csm.getPixelStride();
+            int lineStride = csm.getScanlineStride();
+            int bank = csm.getBankIndices()[b];
+            int start = db.getOffsets()[bank] + csm.getBandOffsets()[b] + y0 * lineStride + x0
+                    * pixelStride;
+            if (db instanceof DataBufferByte) {
+                byte[] data = ((DataBufferByte) db).getData(bank);
+                for (int j = 0; j < h; j++) {
+                    int s = start + j * lineStride;
+                    int d = offset + j * scan;
+                    for (int i = 0; i < w; i++, s += pixelStride) {
+                        dst[d + i] = data[s] & 0xff;
+                    }
+                }
+                return;
+            } else if (db instanceof DataBufferUShort) {
+                short[] data = ((DataBufferUShort) db).getData(bank);
+                for (int j = 0; j < h; j++) {
+                    int s = start + j * lineStride;
+                    int d = offset + j * scan;
+                    for (int i = 0; i < w; i++, s += pixelStride) {
+                        dst[d + i] = data[s] & 0xffff;
+                    }
+                }
+                return;
+            } else if (db instanceof DataBufferShort) {
+                short[] data = ((DataBufferShort) db).getData(bank);
+                for (int j = 0; j < h; j++) {
+                    int s = start + j * lineStride;
+                    int d = offset + j * scan;
+                    for (int i = 0; i < w; i++, s += pixelStride) {
+                        dst[d + i] = data[s];
+                    }
+                }
+                return;
+            } else if (db instanceof DataBufferInt) {
+                int[] data = ((DataBufferInt) db).getData(bank);
+                for (int j = 0; j < h; j++) {
+                    int s = start + j * lineStride;
+                    int d = offset + j * scan;
+                    for (int i = 0; i < w; i++, s += pixelStride) {
+                        dst[d + i] = data[s];
+                    }
+                }
+                return;
+            } else if (db instanceof DataBufferFloat) {
+                float[] data = ((DataBufferFloat) db).getData(bank);
+                if (pixelStride == 1) {
+                    for (int j = 0; j < h; j++) {
+                        System.arraycopy(data, start + j * lineStride, dst, offset + j * scan, w);
+                    }
+                    return;
+                }
+                for (int j = 0; j < h; j++) {
+                    int s = start + j * lineStride;
+                    int d = offset + j * scan;
+                    for (int i = 0; i < w; i++, s += pixelStride) {
+                        dst[d + i] = data[s];
+                    }
+                }
+                return;
+            } else if (db instanceof DataBufferDouble) {
+                double[] data = ((DataBufferDouble) db).getData(bank);
+                for (int j = 0; j < h; j++) {
+                    int s = start + j * lineStride;
+                    int d = offset + j * scan;
+                    for (int i = 0; i < w; i++, s += pixelStride) {
+                        dst[d + i] = (float) data[s];
+                    }
+                }
+                return;
+            }
+        }
+        // Generic sample model or data buffer
+        for (int j = 0; j < h; j++) {
+            int d = offset + j * scan;
+            for (int i = 0; i < w; i++) {
+                dst[d + i] = sm.getSampleFloat(x0 + i, y0 + j, b, db);
+            }
+        }
+    }
+
+    /** Copies the samples of a tile area into a double array */
+    private static void copy(Raster tile, Rectangle area, int b, double[] dst, int offset,
+            int scan) {
+        DataBuffer db = tile.getDataBuffer();
+        SampleModel sm = tile.getSampleModel();
+        int x0 = area.x - tile.getSampleModelTranslateX();
+        int y0 = area.y - tile.getSampleModelTranslateY();
+        int w = area.width;
+        int h = area.height;
+        if (sm instanceof ComponentSampleModel) {
+            ComponentSampleModel csm = (ComponentSampleModel) sm;
+            int pixelStride = csm.getPixelStride();
+            int lineStride = csm.getScanlineStride();
+            int bank = csm.getBankIndices()[b];
+            int start = db.getOffsets()[bank] + csm.getBandOffsets()[b] + y0 * lineStride + x0
+                    * pixelStride;
+            if (db instanceof DataBufferByte) {
+                byte[] data = ((DataBufferByte) db).getData(bank);
+                for (int j = 0; j < h; j++) {
+                    int s = start + j * lineStride;
+                    int d = offset + j * scan;
+                    for (int i = 0; i < w; i++, s += pixelStride) {
+                        dst[d + i] = data[s] & 0xff;
+                    }
+                }
+                return;
+            } else if (db instanceof DataBufferUShort) {
+                short[] data = ((DataBufferUShort) db).getData(bank);
+                for (int j = 0; j < h; j++) {
+                    int s = start + j * lineStride;
+                    int d = offset + j * scan;
+                    for (int i = 0; i < w; i++, s += pixelStride) {
+                        dst[d + i] = data[s] & 0xffff;
+                    }
+                }
+                return;
+            } else if (db instanceof DataBufferShort) {
+                short[] data = ((DataBufferShort) db).getData(bank);
+                for (int j = 0; j < h; j++) {
+                    int s = start + j * lineStride;
+                    int d = offset + j * scan;
+                    for (int i = 0; i < w; i++, s += pixelStride) {
+                        dst[d + i] = data[s];
+                    }
+                }
+                return;
+            } else if (db instanceof DataBufferInt) {
+                int[] data = ((DataBufferInt) db).getData(bank);
+                for (int j = 0; j < h; j++) {
+                    int s = start + j * lineStride;
+                    int d = offset + j * scan;
+                    for (int i = 0; i < w; i++, s += pixelStride) {
+                        dst[d + i] = data[s];
+                    }
+                }
+                return;
+            } else if (db instanceof DataBufferFloat) {
+                float[] data = ((DataBufferFloat) db).getData(bank);
+                for (int j = 0; j < h; j++) {
+                    int s = start + j * lineStride;
+                    int d = offset + j * scan;
+                    for (int i = 0; i < w; i++, s += pixelStride) {
+                        dst[d + i] = data[s];
+                    }
+                }
+                return;
+            } else if (db instanceof DataBufferDouble) {
+                double[] data = ((DataBufferDouble) db).getData(bank);
+                if (pixelStride == 1) {
+                    for (int j = 0; j < h; j++) {
+                        System.arraycopy(data, start + j * lineStride, dst, offset + j * scan, w);
+                    }
+                    return;
+                }
+                for (int j = 0; j < h; j++) {
+                    int s = start + j * lineStride;
+                    int d = offset + j * scan;
+                    for (int i = 0; i < w; i++, s += pixelStride) {
+                        dst[d + i] = data[s];
+                    }
+                }
+                return;
+            }
+        }
+        // Generic sample model or data buffer
+        for (int j = 0; j < h; j++) {
+            int d = offset + j * scan;
+            for (int i = 0; i < w; i++) {
+                dst[d + i] = sm.getSampleDouble(x0 + i, y0 + j, b, db);
+            }
+        }
+    }
+
+    /** Prevent this class from ever being instantiated. */
+    private BlockReads() {
+    }
+}
@@ -0,0 +1,100 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.jaiext.iterators;
+
+import java.awt.Rectangle;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+
+/**
+ * Base class of the iterators specialized for the images with a {@link ComponentSampleModel}, such as a
+ * <code>PixelInterleavedSampleModel</code> or a <code>BandedSampleModel</code>. The subclasses read the samples straight from the primitive
+ * arrays of the current tile, indexed with the strides and the band offsets of the tile, instead of calling the <code>SampleModel</code> for
+ * each sample. The tiles whose sample model or data buffer is not supported are read through the <code>SampleModel</code>. The tiles are
+ * located as in {@link RandomIterFallbackLarge}, so the creation of the iterator does not depend on the size of the bounds.
+ */
+public abstract class ComponentRandomIter extends RandomIterFallbackLarge {
+
+    /** The number of bands of the image */
+    protected final int numBands;
+
+    /** Distance between two pixels of a row in the data arrays of the current tile */
+    protected int pixelStride;
+
+    /** Distance between two rows in the data arrays of the current tile */
+    protected int lineStride;
+
+    /**
+     * The position of the sample (0, 0) of each band in the data arrays of the current tile, including the tile translation and the data buffer
+     * offsets. The sample (x, y) of the band b is at <code>x * pixelStride + y * lineStride + bandOffsets[b]</code>.
+     */
+    protected final int[] bandOffsets;
+
+    public ComponentRandomIter(RenderedImage im, Rectangle bounds, int tileCacheSize) {
+        super(im, bounds, tileCacheSize);
+        this.numBands = sampleModel.getNumBands();
+        this.bandOffsets = new int[numBands];
+    }
+
+    /**
+     * Makes current the tile containing the pixel (x, y). When the tile changes, the data arrays, the strides and the band offsets of the new
+     * tile are stored.
+     * 
+     * @param x the X coordinate of the pixel.
+     * @param y the Y coordinate of the pixel.
+     */
+    protected final void makeCurrentTile(int x, int y) {
+        Raster tile = makeCurrent(x, y);
+        if (tile != null) {
+            SampleModel sm = tile.getSampleModel();
+            if (sm instanceof ComponentSampleModel
+                    && setBanks(dataBuffer, ((ComponentSampleModel) sm).getBankIndices())) {
+                ComponentSampleModel csm = (ComponentSampleModel) sm;
+                pixelStride = csm.getPixelStride();
+                lineStride = csm.getScanlineStride();
+                int translation = -sampleModelTranslateX * pixelStride - sampleModelTranslateY
+                        * lineStride;
+                int[] offsets = csm.getBandOffsets();
+                int[] banks = csm.getBankIndices();
+                int[] dataOffsets = dataBuffer.getOffsets();
+                for (int b = 0; b < numBands; b++) {
+                    bandOffsets[b] = translation + offsets[b] + dataOffsets[banks[b]];
+                }
+            } else {
+                setBanks(null, null);
+            }
+        }
+    }
+
+    /**
+     * Stores the data arrays of the bands of the current tile.
+     * 
+     * @param dataBuffer the data buffer of the current tile, or <code>null</code> to read the tile through the <code>SampleModel</code>.
+     * @param bankIndices the bank of each band.
+     * @return <code>false</code> if the data buffer is not supported, in which case the tile is read through the <code>SampleModel</code>.
+     */
+    protected abstract boolean setBanks(DataBuffer dataBuffer, int[] bankIndices);
+
+    public void done() {
+        super.done();
+        setBanks(null, null);
+    }
+}
@@ -0,0 +1,125 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.jaiext.iterators;
+
+import java.awt.Rectangle;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferFloat;
+import java.awt.image.RenderedImage;
+
+/**
+ * {@link ComponentRandomIter} reading the samples of the float images straight from the <code>DataBufferFloat</code> arrays.
+ */
+public class ComponentRandomIterFloat extends ComponentRandomIter {
+
+    /** The data array of each band of the current tile, <code>null</code> if the tile is read through the <code>SampleModel</code> */
+    private float[][] banks;
+
+    public ComponentRandomIterFloat(RenderedImage im, Rectangle bounds, int tileCacheSize) {
+        super(im, bounds, tileCacheSize);
+    }
+
+    protected boolean setBanks(DataBuffer dataBuffer, int[] bankIndices) {
+        if (!(dataBuffer instanceof DataBufferFloat)) {
+            banks = null;
+            return false;
+        }
+        if (banks == null) {
+            banks = new float[numBands][];
+        }
+        for (int b = 0; b < numBands; b++) {
+            banks[b] = ((DataBufferFloat) dataBuffer).getData(bankIndices[b]);
+        }
+        return true;
+    }
+
+    public int getSample(int x, int y, int b) {
+        makeCurrentTile(x, y);
+        if (banks != null) {
+            return (int) banks[b][x * pixelStride + y * lineStride + bandOffsets[b]];
+        }
+        return sampleModel.getSample(x - sampleModelTranslateX, y - sampleModelTranslateY, b,
+                dataBuffer);
+    }
+
+    public float getSampleFloat(int x, int y, int b) {
+        makeCurrentTile(x, y);
+        if (banks != null) {
+            return banks[b][x * pixelStride + y * lineStride + bandOffsets[b]];
+        }
+        return sampleModel.getSampleFloat(x - sampleModelTranslateX, y - sampleModelTranslateY, b,
+                dataBuffer);
+    }
+
+    public double getSampleDouble(int x, int y, int b) {
+        makeCurrentTile(x, y);
+        if (banks != null) {
+            return banks[b][x * pixelStride + y * lineStride + bandOffsets[b]];
+        }
+        return sampleModel.getSampleDouble(x - sampleModelTranslateX, y - sampleModelTranslateY, b,
+                dataBuffer);
+    }
+
+    public int[] getPixel(int x, int y, int[] iArray) {
+        makeCurrentTile(x, y);
+        if (banks != null) {
+            if (iArray == null) {
+                iArray = new int[numBands];
+            }
+            int index = x * pixelStride + y * lineStride;
+            for (int b = 0; b < numBands; b++) {
+                iArray[b] = (int) banks[b][index + bandOffsets[b]];
+            }
+            return iArray;
+        }
+        return sampleModel.getPixel(x - sampleModelTranslateX, y - sampleModelTranslateY, iArray,
+                dataBuffer);
+    }
+
+    public float[] getPixel(int x, int y, float[] fArray) {
+        makeCurrentTile(x, y);
+        if (banks != null) {
+            if (fArray == null) {
+                fArray = new float[numBands];
+            }
+            int index = x * pixelStride + y * lineStride;
+            for (int b = 0; b < numBands; b++) {
+                fArray[b] = banks[b][index + bandOffsets[b]];
+            }
+            return fArray;
+        }
+        return sampleModel.getPixel(x - sampleModelTranslateX, y - sampleModelTranslateY, fArray,
+                dataBuffer);
+    }
+
+    public double[] getPixel(int x, int y, double[] dArray) {
+        makeCurrentTile(x, y);
+        if (banks != null) {
+            if (dArray == null) {
+                dArray = new double[numBands];
+            }
+            int index = x * pixelStride + y * lineStride;
+            for (int b = 0; b < numBands; b++) {
+                dArray[b] = banks[b][index + bandOffsets[b]];
+            }
+            return dArray;
+        }
+        return sampleModel.getPixel(x - sampleModelTranslateX, y - sampleModelTranslateY, dArray,
+                dataBuffer);
+    }
+}
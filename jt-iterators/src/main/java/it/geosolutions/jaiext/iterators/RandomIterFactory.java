@@ -18,6 +18,8 @@
 package it.geosolutions.jaiext.iterators;
 
 import java.awt.Rectangle;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
 import java.awt.image.Raster;
 import java.awt.image.RenderedImage;
 import java.awt.image.WritableRaster;
@@ -39,6 +41,12 @@ import com.sun.media.jai.iterator.WritableRandomIterFallback;
  */
 public class RandomIterFactory {
 
+    /**
+     * Width or height of the bounds beyond which the cached iterators store the limits of each tile instead of the tile position of each pixel
+     * of the bounds, see {@link RandomIterFallbackLarge}.
+     */
+    public static final int LARGE_BOUNDS_SIZE = 8192;
+
     /**
      * Constructs and returns an instance of RandomIter suitable for iterating over the given bounding rectangle within the given RenderedImage
      * source. If the bounds parameter is null, the entire image will be used. If cachedTiles is set to true, the current tile used by the iterator
@@ -52,16 +60,44 @@ public class RandomIterFactory {
      */
     public static RandomIter create(RenderedImage im, Rectangle bounds, boolean cachedTiles,
             boolean arrayCalculation) {
+        return create(im, bounds, cachedTiles, arrayCalculation, 1);
+    }
+
+    /**
+     * Constructs and returns an instance of RandomIter suitable for iterating over the given bounding rectangle within the given RenderedImage
+     * source, as {@link #create(RenderedImage, Rectangle, boolean, boolean)} does. If cachedTiles and arrayCalculation are set to true, the
+     * iterator keeps the last <code>tileCacheSize</code> tiles it has used in a small array, instead of the current tile only. This avoids going
+     * back to the image when the reads keep moving between a few neighbouring tiles, as rotated or warped reads do. The images with a
+     * {@link ComponentSampleModel} are then read by a {@link ComponentRandomIter}, which takes the samples straight from the data arrays of the
+     * tiles and locates the tiles from their limits, as {@link RandomIterFallbackLarge} does. The tiles of the other images are located the same
+     * way when the bounds are wider or higher than {@link #LARGE_BOUNDS_SIZE}, so that the creation of the iterator takes a time and a memory
+     * proportional to the number of tiles instead of the size of the bounds.
+     * 
+     * @param im a read-only RenderedImage source.
+     * @param bounds the bounding Rectangle for the iterator, or null.
+     * @param cachedTiles flag indicating if tiles must be cached during iteration.
+     * @param arrayCalculation flag indicating if tile positions must be pre-calculated.
+     * @param tileCacheSize the number of tiles cached by the iterator, ignored if the tiles are not cached.
+     * @return a RandomIter allowing read-only access to the source.
+     */
+    public static RandomIter create(RenderedImage im, Rectangle bounds, boolean cachedTiles,
+            boolean arrayCalculation, int tileCacheSize) {
         if (bounds == null) {
             bounds = new Rectangle(im.getMinX(), im.getMinY(), im.getWidth(), im.getHeight());
         }
         if (arrayCalculation) {
+            if (cachedTiles
+                    && (im.getSampleModel() instanceof ComponentSampleModel
+                            || bounds.width > LARGE_BOUNDS_SIZE
+                            || bounds.height > LARGE_BOUNDS_SIZE)) {
+                return createCursor(im, bounds, tileCacheSize);
+            }
             if (im.getMinTileX() >= Byte.MIN_VALUE
                     && (im.getMinTileX() + im.getNumXTiles() - 1) <= Byte.MAX_VALUE
                     && im.getMinTileY() >= Byte.MIN_VALUE
                     && (im.getMinTileY() + im.getNumYTiles() - 1) <= Byte.MAX_VALUE) {
                 if (cachedTiles) {
-                    return new RandomIterFallbackByte(im, bounds);
+                    return new RandomIterFallbackByte(im, bounds, tileCacheSize);
                 } else {
                     return new RandomIterFallbackByteNoCache(im, bounds);
                 }
@@ -70,13 +106,13 @@ public class RandomIterFactory {
                     && im.getMinTileY() >= Short.MIN_VALUE
                     && (im.getMinTileY() + im.getNumYTiles() - 1) <= Short.MAX_VALUE) {
                 if (cachedTiles) {
-                    return new RandomIterFallbackShort(im, bounds);
+                    return new RandomIterFallbackShort(im, bounds, tileCacheSize);
                 } else {
                     return new RandomIterFallbackShortNoCache(im, bounds);
                 }
             } else {
                 if (cachedTiles) {
-                    return new RandomIterFallbackInt(im, bounds);
+                    return new RandomIterFallbackInt(im, bounds, tileCacheSize);
                 } else {
                     return new RandomIterFallbackIntNoCache(im, bounds);
                 }
@@ -87,6 +123,71 @@ public class RandomIterFactory {
 
     }
 
+    /**
+     * Constructs and returns an instance of RandomIter suitable for iterating over the given bounding rectangle within the given RenderedImage
+     * source, which can be shared by all the threads computing the tiles of an image. Each thread reads the source through its own cursor, which
+     * keeps the last <code>tileCacheSize</code> tiles it has used, so that an <code>OpImage</code> can create the iterator once instead of
+     * creating a new one for each tile. If the bounds parameter is null, the entire image will be used.
+     * 
+     * @param im a read-only RenderedImage source.
+     * @param bounds the bounding Rectangle for the iterator, or null.
+     * @param tileCacheSize the number of tiles cached by the cursor of each thread.
+     * @return a RandomIter allowing read-only access to the source from several threads.
+     * @see RandomIterFallbackLocal
+     */
+    public static RandomIter createShared(RenderedImage im, Rectangle bounds, int tileCacheSize) {
+        if (bounds == null) {
+            bounds = new Rectangle(im.getMinX(), im.getMinY(), im.getWidth(), im.getHeight());
+        }
+        return new RandomIterFallbackLocal(im, bounds, tileCacheSize);
+    }
+
+    /**
+     * Constructs and returns an instance of RandomIter suitable for iterating over the given bounding rectangle within the given Raster source,
+     * which can be shared by all the threads computing the tiles of an image, as {@link #createShared(RenderedImage, Rectangle, int)} does.
+     * 
+     * @param ras a read-only Raster source.
+     * @param bounds the bounding Rectangle for the iterator, or null.
+     * @param tileCacheSize the number of tiles cached by the cursor of each thread.
+     * @return a RandomIter allowing read-only access to the source from several threads.
+     */
+    public static RandomIter createShared(Raster ras, Rectangle bounds, int tileCacheSize) {
+        RenderedImage im = new WrapperRI(ras);
+
+        return createShared(im, bounds, tileCacheSize);
+    }
+
+    /**
+     * Creates a cached iterator whose creation takes a time and a memory proportional to the number of tiles of the image: a
+     * {@link ComponentRandomIter} for the images with a <code>ComponentSampleModel</code>, a {@link RandomIterFallbackLarge} otherwise.
+     * 
+     * @param im a read-only RenderedImage source.
+     * @param bounds the bounding Rectangle for the iterator.
+     * @param tileCacheSize the number of tiles cached by the iterator.
+     * @return the iterator.
+     */
+    static BlockRandomIter createCursor(RenderedImage im, Rectangle bounds, int tileCacheSize) {
+        if (im.getSampleModel() instanceof ComponentSampleModel) {
+            switch (im.getSampleModel().getDataType()) {
+            case DataBuffer.TYPE_BYTE:
+                return new ComponentRandomIterByte(im, bounds, tileCacheSize);
+            case DataBuffer.TYPE_USHORT:
+                return new ComponentRandomIterUShort(im, bounds, tileCacheSize);
+            case DataBuffer.TYPE_SHORT:
+                return new ComponentRandomIterShort(im, bounds, tileCacheSize);
+            case DataBuffer.TYPE_INT:
+                return new ComponentRandomIterInt(im, bounds, tileCacheSize);
+            case DataBuffer.TYPE_FLOAT:
+                return new ComponentRandomIterFloat(im, bounds, tileCacheSize);
+            case DataBuffer.TYPE_DOUBLE:
+                return new ComponentRandomIterDouble(im, bounds, tileCacheSize);
+            default:
+                break;
+            }
+        }
+        return new RandomIterFallbackLarge(im, bounds, tileCacheSize);
+    }
+
     /**
      * Constructs and returns an instance of RandomIter suitable for iterating over the given bounding rectangle within the given Raster source. If
      * the bounds parameter is null, the entire Raster will be used. If cachedTiles is set to true, the current tile used by the iterator is cached.
@@ -105,6 +206,24 @@ public class RandomIterFactory {
         return create(im, bounds, cachedTiles, arrayCalculation);
     }
 
+    /**
+     * Constructs and returns an instance of RandomIter suitable for iterating over the given bounding rectangle within the given Raster source, as
+     * {@link #create(RenderedImage, Rectangle, boolean, boolean, int)} does.
+     * 
+     * @param ras a read-only Raster source.
+     * @param bounds the bounding Rectangle for the iterator, or null.
+     * @param cachedTiles flag indicating if tiles must be cached during iteration.
+     * @param arrayCalculation flag indicating if tile positions must be pre-calculated.
+     * @param tileCacheSize the number of tiles cached by the iterator, ignored if the tiles are not cached.
+     * @return a RandomIter allowing read-only access to the source.
+     */
+    public static RandomIter create(Raster ras, Rectangle bounds, boolean cachedTiles,
+            boolean arrayCalculation, int tileCacheSize) {
+        RenderedImage im = new WrapperRI(ras);
+
+        return create(im, bounds, cachedTiles, arrayCalculation, tileCacheSize);
+    }
+
     /**
      * Constructs and returns an instance of WritableRandomIter suitable for iterating over the given bounding rectangle within the given
      * WritableRenderedImage source. If the bounds parameter is null, the entire image will be used.
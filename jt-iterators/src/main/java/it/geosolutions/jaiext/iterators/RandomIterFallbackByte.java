@@ -24,7 +24,6 @@ import java.awt.image.RenderedImage;
 import java.awt.image.SampleModel;
 
 import javax.media.jai.PlanarImage;
-import javax.media.jai.iterator.RandomIter;
 
 /**
  * Slight modified version of JAI {@link RandomIterFallbackNoCacheNoArray} that uses byte vectors to handle indexes rather than int vector. This way we use 4x4
@@ -32,7 +31,7 @@ import javax.media.jai.iterator.RandomIter;
  * 
  * @author Simone Giannecchini, GeoSolutions SAS
  */
-public class RandomIterFallbackByte implements RandomIter {
+public class RandomIterFallbackByte implements BlockRandomIter {
 
     protected RenderedImage im;
 
@@ -58,6 +57,9 @@ public class RandomIterFallbackByte implements RandomIter {
 
     protected byte[] yTiles;
 
+    /** The slots holding the recently used tiles, <code>null</code> if only the current tile is kept */
+    private TileSlots tileSlots;
+
     public RandomIterFallbackByte(RenderedImage im, Rectangle bounds) {
         this.im = im;
 
@@ -107,6 +109,21 @@ public class RandomIterFallbackByte implements RandomIter {
         }
     }
 
+    /**
+     * Constructor of an iterator keeping the most recently used tiles in a fixed number of slots, so that the iterator does not go back to the
+     * image each time the reads move between neighbouring tiles.
+     * 
+     * @param im the image to iterate.
+     * @param bounds the bounds of the iteration.
+     * @param tileCacheSize the number of tiles kept by the iterator. With 1 tile only the current tile is kept.
+     */
+    public RandomIterFallbackByte(RenderedImage im, Rectangle bounds, int tileCacheSize) {
+        this(im, bounds);
+        if (tileCacheSize > 1) {
+            this.tileSlots = new TileSlots(tileCacheSize);
+        }
+    }
+
     /**
      * Sets dataBuffer to the correct buffer for the pixel (x, y) = (xLocal + boundsRect.x, yLocal + boundsRect.y).
      * 
@@ -121,7 +138,8 @@ public class RandomIterFallbackByte implements RandomIter {
             xID = xIDNew;
             yID = yIDNew;
 
-            Raster tile = im.getTile(xID, yID);
+            Raster tile = tileSlots != null ? tileSlots.getTile(im, xID, yID) : im.getTile(xID,
+                    yID);
 
             this.dataBuffer = tile.getDataBuffer();
             this.sampleModelTranslateX = tile.getSampleModelTranslateX();
@@ -171,9 +189,24 @@ public class RandomIterFallbackByte implements RandomIter {
                 dataBuffer);
     }
 
+    public int[] readBlock(Rectangle rect, int b, int[] iArray) {
+        return BlockReads.readBlock(im, tileSlots, rect, b, iArray);
+    }
+
+    public float[] readBlock(Rectangle rect, int b, float[] fArray) {
+        return BlockReads.readBlock(im, tileSlots, rect, b, fArray);
+    }
+
+    public double[] readBlock(Rectangle rect, int b, double[] dArray) {
+        return BlockReads.readBlock(im, tileSlots, rect, b, dArray);
+    }
+
     public void done() {
         xTiles = null;
         yTiles = null;
         dataBuffer = null;
+        if (tileSlots != null) {
+            tileSlots.clear();
+        }
     }
 }
@@ -23,13 +23,12 @@ import java.awt.image.RenderedImage;
 import java.awt.image.SampleModel;
 
 import javax.media.jai.PlanarImage;
-import javax.media.jai.iterator.RandomIter;
 
 /**
  * Modified version of JAI {@link RandomIterFallbackByte} that stores the tile positions in a int array. The current tile is not cached but it is
  * calculated every time.
  */
-public class RandomIterFallbackIntNoCache implements RandomIter {
+public class RandomIterFallbackIntNoCache implements BlockRandomIter {
 
     protected RenderedImage im;
 
@@ -179,6 +178,18 @@ public class RandomIterFallbackIntNoCache implements RandomIter {
                 tile.getDataBuffer());
     }
 
+    public int[] readBlock(Rectangle rect, int b, int[] iArray) {
+        return BlockReads.readBlock(im, null, rect, b, iArray);
+    }
+
+    public float[] readBlock(Rectangle rect, int b, float[] fArray) {
+        return BlockReads.readBlock(im, null, rect, b, fArray);
+    }
+
+    public double[] readBlock(Rectangle rect, int b, double[] dArray) {
+        return BlockReads.readBlock(im, null, rect, b, dArray);
+    }
+
     public void done() {
         xTiles = null;
         yTiles = null;
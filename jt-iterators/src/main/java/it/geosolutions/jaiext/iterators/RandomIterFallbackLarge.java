@@ -25,14 +25,17 @@ import java.awt.image.SampleModel;
 import java.util.Arrays;
 
 import javax.media.jai.PlanarImage;
-import javax.media.jai.iterator.RandomIter;
+
 /**
- * Slight modified version of JAI {@link RandomIterFallbackNoCacheNoArray} that uses byte vectors to handle indexes rather than int vector. This way we use 4x4
- * times less memory in the iterator
+ * Slight modified version of JAI {@link RandomIterFallbackNoCacheNoArray} for very large images. Instead of storing the tile index of each
+ * row and column of the bounds, as {@link RandomIterFallbackInt} does, the iterator stores the last column and row of each tile, so that
+ * its creation takes a time and a memory proportional to the number of tiles. The iterator keeps the limits of the current tile and looks for a
+ * new tile only when the pixel is outside of them: with a power of two tile size the tile index is computed by a shift, otherwise it is
+ * searched among the tile limits.
  * 
  * @author Simone Giannecchini, GeoSolutions SAS
  */
-public class RandomIterFallbackLarge implements RandomIter {
+public class RandomIterFallbackLarge implements BlockRandomIter {
 
     protected RenderedImage im;
 
@@ -54,8 +57,10 @@ public class RandomIterFallbackLarge implements RandomIter {
 
     protected int boundsY;
 
+    /** The last column of each tile */
     protected int[] xTiles;
 
+    /** The last row of each tile */
     protected int[] yTiles;
 
     private int minTileX;
@@ -70,6 +75,12 @@ public class RandomIterFallbackLarge implements RandomIter {
 
     private int tileWidth;
 
+    /** The shift giving the tile index of a column, -1 if the tile width is not a power of two */
+    private int tileXShift;
+
+    /** The shift giving the tile index of a row, -1 if the tile height is not a power of two */
+    private int tileYShift;
+
     private int currentMaxXInclusive = Integer.MIN_VALUE;
 
     private int currentMaxYInclusive = Integer.MIN_VALUE;
@@ -82,6 +93,9 @@ public class RandomIterFallbackLarge implements RandomIter {
 
     private int currentMinYInclusive = Integer.MAX_VALUE;
 
+    /** The slots holding the recently used tiles, <code>null</code> if only the current tile is kept */
+    private TileSlots tileSlots;
+
     public RandomIterFallbackLarge(RenderedImage im, Rectangle bounds) {
         this.im = im;
 
@@ -97,6 +111,8 @@ public class RandomIterFallbackLarge implements RandomIter {
         tileGridXOffset = im.getTileGridXOffset();
         tileHeight = im.getTileHeight();
         tileGridYOffset = im.getTileGridYOffset();
+        tileXShift = getShift(tileWidth);
+        tileYShift = getShift(tileHeight);
         minTileX = im.getMinTileX();
 
         final int maxTileXExcluded = minTileX + im.getNumXTiles();
@@ -114,59 +130,87 @@ public class RandomIterFallbackLarge implements RandomIter {
         final int maxy = miny + im.getHeight() - 1;
 
         for (int xT = minTileX; xT < maxTileXExcluded; xT++) {
-            xTiles[xT - minTileX] = PlanarImage.tileXToX(xT, tileGridXOffset, tileWidth)
-                    + tileWidth - 1;
-            xTiles[xT - minTileX] = Math.min(xTiles[xT], maxx);
+            xTiles[xT - minTileX] = Math.min(PlanarImage.tileXToX(xT, tileGridXOffset, tileWidth)
+                    + tileWidth - 1, maxx);
         }
         for (int yT = minTileY; yT < maxTileYExcluded; yT++) {
-            yTiles[yT - minTileY] = PlanarImage.tileYToY(yT, tileGridYOffset, tileHeight)
-                    + tileHeight - 1;
-            yTiles[yT - minTileY] = Math.min(yTiles[yT], maxy);
+            yTiles[yT - minTileY] = Math.min(PlanarImage.tileYToY(yT, tileGridYOffset, tileHeight)
+                    + tileHeight - 1, maxy);
         }
     }
 
     /**
-     * Sets dataBuffer to the correct buffer for the pixel (x, y) = (xLocal + boundsRect.x, yLocal + boundsRect.y).
+     * Constructor of an iterator keeping the most recently used tiles in a fixed number of slots, so that the iterator does not go back to the
+     * image each time the reads move between neighbouring tiles.
      * 
-     * @param xLocal the X coordinate in the local coordinate system.
-     * @param yLocal the Y coordinate in the local coordinate system.
+     * @param im the image to iterate.
+     * @param bounds the bounds of the iteration.
+     * @param tileCacheSize the number of tiles kept by the iterator. With 1 tile only the current tile is kept.
      */
-    private void makeCurrent(int xLocal, int yLocal) {
-        if ((xLocal <= currentMaxXInclusive) && (xLocal >= currentMinXInclusive)
-                && (yLocal <= currentMaxYInclusive) && (yLocal >= currentMinYInclusive)) {
-            return;
+    public RandomIterFallbackLarge(RenderedImage im, Rectangle bounds, int tileCacheSize) {
+        this(im, bounds);
+        if (tileCacheSize > 1) {
+            this.tileSlots = new TileSlots(tileCacheSize);
         }
+    }
 
-        int xIDNew = Arrays.binarySearch(xTiles, xLocal);
-        if (xIDNew < 0) {
-            xIDNew += 1;
-            xIDNew *= -1;
+    /** Returns the shift equivalent to a division by the supplied tile size, or -1 if the size is not a power of two. */
+    private static int getShift(int tileSize) {
+        return Integer.bitCount(tileSize) == 1 ? Integer.numberOfTrailingZeros(tileSize) : -1;
+    }
+
+    /**
+     * Sets dataBuffer to the correct buffer for the pixel (x, y).
+     * 
+     * @param x the X coordinate of the pixel.
+     * @param y the Y coordinate of the pixel.
+     * @return the new current tile, or <code>null</code> if the current tile has not changed.
+     */
+    protected final Raster makeCurrent(int x, int y) {
+        if ((x <= currentMaxXInclusive) && (x >= currentMinXInclusive)
+                && (y <= currentMaxYInclusive) && (y >= currentMinYInclusive)) {
+            return null;
         }
-        xIDNew += minTileX;
 
-        int yIDNew = Arrays.binarySearch(yTiles, yLocal);
-        if (yIDNew < 0) {
-            yIDNew += 1;
-            yIDNew *= -1;
+        int xIDNew;
+        if (tileXShift >= 0) {
+            xIDNew = (x - tileGridXOffset) >> tileXShift;
+        } else {
+            xIDNew = Arrays.binarySearch(xTiles, x);
+            if (xIDNew < 0) {
+                xIDNew += 1;
+                xIDNew *= -1;
+            }
+            xIDNew += minTileX;
         }
-        yIDNew += minTileY;
-
-        if ((xIDNew != xID) || (yIDNew != yID) || (dataBuffer == null)) {
-            xID = xIDNew;
-            yID = yIDNew;
-            currentMaxXInclusive = xTiles[xID - minTileX];
-            currentMaxYInclusive = yTiles[yID - minTileY];
-            currentMinXInclusive = ((xID - minTileX - 1) >= 0) ? (xTiles[xID - minTileX - 1] + 1)
-                    : minx;
-            currentMinYInclusive = ((yID - minTileY - 1) >= 0) ? (yTiles[yID - minTileY - 1] + 1)
-                    : miny;
-
-            Raster tile = im.getTile(xID, yID);
-
-            this.dataBuffer = tile.getDataBuffer();
-            this.sampleModelTranslateX = tile.getSampleModelTranslateX();
-            this.sampleModelTranslateY = tile.getSampleModelTranslateY();
+
+        int yIDNew;
+        if (tileYShift >= 0) {
+            yIDNew = (y - tileGridYOffset) >> tileYShift;
+        } else {
+            yIDNew = Arrays.binarySearch(yTiles, y);
+            if (yIDNew < 0) {
+                yIDNew += 1;
+                yIDNew *= -1;
+            }
+            yIDNew += minTileY;
         }
+
+        xID = xIDNew;
+        yID = yIDNew;
+        currentMaxXInclusive = xTiles[xID - minTileX];
+        currentMaxYInclusive = yTiles[yID - minTileY];
+        currentMinXInclusive = ((xID - minTileX - 1) >= 0) ? (xTiles[xID - minTileX - 1] + 1)
+                : minx;
+        currentMinYInclusive = ((yID - minTileY - 1) >= 0) ? (yTiles[yID - minTileY - 1] + 1)
+                : miny;
+
+        Raster tile = tileSlots != null ? tileSlots.getTile(im, xID, yID) : im.getTile(xID, yID);
+
+        this.dataBuffer = tile.getDataBuffer();
+        this.sampleModelTranslateX = tile.getSampleModelTranslateX();
+        this.sampleModelTranslateY = tile.getSampleModelTranslateY();
+        return tile;
     }
 
     public int getSample(int x, int y, int b) {
@@ -211,9 +255,28 @@ public class RandomIterFallbackLarge implements RandomIter {
                 dataBuffer);
     }
 
+    public int[] readBlock(Rectangle rect, int b, int[] iArray) {
+        return BlockReads.readBlock(im, tileSlots, rect, b, iArray);
+    }
+
+    public float[] readBlock(Rectangle rect, int b, float[] fArray) {
+        return BlockReads.readBlock(im, tileSlots, rect, b, fArray);
+    }
+
+    public double[] readBlock(Rectangle rect, int b, double[] dArray) {
+        return BlockReads.readBlock(im, tileSlots, rect, b, dArray);
+    }
+
     public void done() {
         xTiles = null;
         yTiles = null;
         dataBuffer = null;
+        currentMaxXInclusive = Integer.MIN_VALUE;
+        currentMaxYInclusive = Integer.MIN_VALUE;
+        currentMinXInclusive = Integer.MAX_VALUE;
+        currentMinYInclusive = Integer.MAX_VALUE;
+        if (tileSlots != null) {
+            tileSlots.clear();
+        }
     }
 }
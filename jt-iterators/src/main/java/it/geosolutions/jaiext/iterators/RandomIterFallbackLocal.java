@@ -0,0 +1,134 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.jaiext.iterators;
+
+import java.awt.Rectangle;
+import java.awt.image.RenderedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <code>RandomIter</code> which can be shared by all the threads computing the tiles of an image, typically created once by an
+ * <code>OpImage</code> for its source or ROI instead of creating a new iterator for each computed tile. Each thread reads the image through its
+ * own cursor, kept in a <code>ThreadLocal</code>: a cached iterator created by {@link RandomIterFactory} on the first access of the thread,
+ * which keeps the most recently used tiles in its slots and reads the images with a <code>ComponentSampleModel</code> straight from the data
+ * arrays.
+ * <p>
+ * The cursors locate the tiles from their limits, as {@link RandomIterFallbackLarge} does, so that the memory used by each thread does not
+ * depend on the size of the bounds. {@link #done()} must be called when no thread uses the iterator anymore: it releases the tiles held by the
+ * cursors of all the threads.
+ */
+public class RandomIterFallbackLocal implements BlockRandomIter {
+
+    private final RenderedImage im;
+
+    private final Rectangle boundsRect;
+
+    /** The number of tiles kept by the cursor of each thread */
+    private final int tileCacheSize;
+
+    /** The cursors of all the threads, released by {@link #done()} */
+    private final List<BlockRandomIter> cursors = new ArrayList<BlockRandomIter>();
+
+    /** The cursor of each thread, replaced by {@link #done()} */
+    private volatile ThreadLocal<BlockRandomIter> iterator = createCursors();
+
+    public RandomIterFallbackLocal(RenderedImage im, Rectangle bounds) {
+        this(im, bounds, 1);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param im the image to iterate.
+     * @param bounds the bounds of the iteration.
+     * @param tileCacheSize the number of tiles kept by the cursor of each thread.
+     */
+    public RandomIterFallbackLocal(RenderedImage im, Rectangle bounds, int tileCacheSize) {
+        this.im = im;
+        Rectangle imBounds = new Rectangle(im.getMinX(), im.getMinY(), im.getWidth(),
+                im.getHeight());
+        this.boundsRect = imBounds.intersection(bounds);
+        this.tileCacheSize = tileCacheSize;
+    }
+
+    /** Creates the <code>ThreadLocal</code> giving the cursor of each thread, created on the first access of the thread */
+    private ThreadLocal<BlockRandomIter> createCursors() {
+        return new ThreadLocal<BlockRandomIter>() {
+
+            @Override
+            protected BlockRandomIter initialValue() {
+                BlockRandomIter cursor = RandomIterFactory.createCursor(im, boundsRect,
+                        tileCacheSize);
+                synchronized (cursors) {
+                    cursors.add(cursor);
+                }
+                return cursor;
+            }
+        };
+    }
+
+    public int getSample(int x, int y, int b) {
+        return iterator.get().getSample(x, y, b);
+    }
+
+    public float getSampleFloat(int x, int y, int b) {
+        return iterator.get().getSampleFloat(x, y, b);
+    }
+
+    public double getSampleDouble(int x, int y, int b) {
+        return iterator.get().getSampleDouble(x, y, b);
+    }
+
+    public int[] getPixel(int x, int y, int[] iArray) {
+        return iterator.get().getPixel(x, y, iArray);
+    }
+
+    public float[] getPixel(int x, int y, float[] fArray) {
+        return iterator.get().getPixel(x, y, fArray);
+    }
+
+    public double[] getPixel(int x, int y, double[] dArray) {
+        return iterator.get().getPixel(x, y, dArray);
+    }
+
+    public int[] readBlock(Rectangle rect, int b, int[] iArray) {
+        return iterator.get().readBlock(rect, b, iArray);
+    }
+
+    public float[] readBlock(Rectangle rect, int b, float[] fArray) {
+        return iterator.get().readBlock(rect, b, fArray);
+    }
+
+    public double[] readBlock(Rectangle rect, int b, double[] dArray) {
+        return iterator.get().readBlock(rect, b, dArray);
+    }
+
+    /**
+     * Releases the tiles held by the cursors of all the threads. The iterator can be used again afterwards, each thread then creates a new cursor.
+     */
+    public void done() {
+        synchronized (cursors) {
+            iterator = createCursors();
+            for (BlockRandomIter cursor : cursors) {
+                cursor.done();
+            }
+            cursors.clear();
+        }
+    }
+}
@@ -23,13 +23,12 @@ import java.awt.image.RenderedImage;
 import java.awt.image.SampleModel;
 
 import javax.media.jai.PlanarImage;
-import javax.media.jai.iterator.RandomIter;
 
 /**
  * Modified version of JAI {@link RandomIterFallbackIntNoCache} that doesn't stores the tile positions in an array. The current tile is
  * not cached but it is calculated every time.
  */
-public class RandomIterFallbackNoCacheNoArray implements RandomIter {
+public class RandomIterFallbackNoCacheNoArray implements BlockRandomIter {
 
     private RenderedImage im;
 
@@ -153,6 +152,18 @@ public class RandomIterFallbackNoCacheNoArray implements RandomIter {
                 tile.getDataBuffer());
     }
 
+    public int[] readBlock(Rectangle rect, int b, int[] iArray) {
+        return BlockReads.readBlock(im, null, rect, b, iArray);
+    }
+
+    public float[] readBlock(Rectangle rect, int b, float[] fArray) {
+        return BlockReads.readBlock(im, null, rect, b, fArray);
+    }
+
+    public double[] readBlock(Rectangle rect, int b, double[] dArray) {
+        return BlockReads.readBlock(im, null, rect, b, dArray);
+    }
+
     public void done() {
     }
 }
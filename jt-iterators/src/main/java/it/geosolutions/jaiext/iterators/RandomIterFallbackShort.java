@@ -24,7 +24,6 @@ import java.awt.image.RenderedImage;
 import java.awt.image.SampleModel;
 
 import javax.media.jai.PlanarImage;
-import javax.media.jai.iterator.RandomIter;
 
 
 /**
@@ -33,7 +32,7 @@ import javax.media.jai.iterator.RandomIter;
  * 
  * @author Simone Giannecchini, GeoSolutions SAS
  */
-public class RandomIterFallbackShort implements RandomIter {
+public class RandomIterFallbackShort implements BlockRandomIter {
 
     protected RenderedImage im;
 
@@ -59,6 +58,9 @@ public class RandomIterFallbackShort implements RandomIter {
 
     protected short[] yTiles;
 
+    /** The slots holding the recently used tiles, <code>null</code> if only the current tile is kept */
+    private TileSlots tileSlots;
+
     public RandomIterFallbackShort(RenderedImage im, Rectangle bounds) {
         this.im = im;
 
@@ -108,6 +110,21 @@ public class RandomIterFallbackShort implements RandomIter {
         }
     }
 
+    /**
+     * Constructor of an iterator keeping the most recently used tiles in a fixed number of slots, so that the iterator does not go back to the
+     * image each time the reads move between neighbouring tiles.
+     * 
+     * @param im the image to iterate.
+     * @param bounds the bounds of the iteration.
+     * @param tileCacheSize the number of tiles kept by the iterator. With 1 tile only the current tile is kept.
+     */
+    public RandomIterFallbackShort(RenderedImage im, Rectangle bounds, int tileCacheSize) {
+        this(im, bounds);
+        if (tileCacheSize > 1) {
+            this.tileSlots = new TileSlots(tileCacheSize);
+        }
+    }
+
     /**
      * Sets dataBuffer to the correct buffer for the pixel (x, y) = (xLocal + boundsRect.x, yLocal + boundsRect.y).
      * 
@@ -122,7 +139,8 @@ public class RandomIterFallbackShort implements RandomIter {
             xID = xIDNew;
             yID = yIDNew;
 
-            Raster tile = im.getTile(xID, yID);
+            Raster tile = tileSlots != null ? tileSlots.getTile(im, xID, yID) : im.getTile(xID,
+                    yID);
 
             this.dataBuffer = tile.getDataBuffer();
             this.sampleModelTranslateX = tile.getSampleModelTranslateX();
@@ -172,9 +190,24 @@ public class RandomIterFallbackShort implements RandomIter {
                 dataBuffer);
     }
 
+    public int[] readBlock(Rectangle rect, int b, int[] iArray) {
+        return BlockReads.readBlock(im, tileSlots, rect, b, iArray);
+    }
+
+    public float[] readBlock(Rectangle rect, int b, float[] fArray) {
+        return BlockReads.readBlock(im, tileSlots, rect, b, fArray);
+    }
+
+    public double[] readBlock(Rectangle rect, int b, double[] dArray) {
+        return BlockReads.readBlock(im, tileSlots, rect, b, dArray);
+    }
+
     public void done() {
         xTiles = null;
         yTiles = null;
         dataBuffer = null;
+        if (tileSlots != null) {
+            tileSlots.clear();
+        }
     }
 }
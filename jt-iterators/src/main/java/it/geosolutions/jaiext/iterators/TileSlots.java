@@ -0,0 +1,85 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.jaiext.iterators;
+
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+
+/**
+ * Small cache of the tiles most recently used by a <code>RandomIter</code>, kept in a fixed number of slots ordered from the most to the least
+ * recently used tile. The slots are scanned linearly, without hashing: with the few slots needed to hold the neighbouring tiles read by a
+ * rotated or warped access pattern, the scan is cheaper than a lookup in the tile cache of the image.
+ */
+final class TileSlots {
+
+    /** The tile indices of the slots */
+    private final int[] xIDs;
+
+    private final int[] yIDs;
+
+    /** The tiles of the slots, <code>null</code> if the slot is empty */
+    private final Raster[] tiles;
+
+    /**
+     * Constructor.
+     * 
+     * @param size the number of slots.
+     */
+    TileSlots(int size) {
+        xIDs = new int[size];
+        yIDs = new int[size];
+        tiles = new Raster[size];
+    }
+
+    /**
+     * Returns the requested tile, taken from the slots if present, otherwise from the image. The tile becomes the most recently used one and, if
+     * it was not present, it replaces the least recently used tile.
+     * 
+     * @param im the image of the tiles.
+     * @param xID the X index of the tile.
+     * @param yID the Y index of the tile.
+     * @return the tile.
+     */
+    Raster getTile(RenderedImage im, int xID, int yID) {
+        int last = tiles.length - 1;
+        int i = 0;
+        while (i < last && tiles[i] != null && (xIDs[i] != xID || yIDs[i] != yID)) {
+            i++;
+        }
+        Raster tile = tiles[i];
+        if (tile == null || xIDs[i] != xID || yIDs[i] != yID) {
+            // Not found: the last slot is replaced
+            tile = im.getTile(xID, yID);
+        }
+        // Move the tile to the first slot
+        System.arraycopy(xIDs, 0, xIDs, 1, i);
+        System.arraycopy(yIDs, 0, yIDs, 1, i);
+        System.arraycopy(tiles, 0, tiles, 1, i);
+        xIDs[0] = xID;
+        yIDs[0] = yID;
+        tiles[0] = tile;
+        return tile;
+    }
+
+    /** Empties the slots */
+    void clear() {
+        for (int i = 0; i < tiles.length; i++) {
+            tiles[i] = null;
+        }
+    }
+}
@@ -18,10 +18,12 @@
 package it.geosolutions.jaiext.iterators;
 
 import static org.junit.Assert.*;
+import java.awt.Rectangle;
 import java.awt.image.ComponentSampleModel;
 import java.awt.image.DataBuffer;
 import java.awt.image.RenderedImage;
 import java.awt.image.SampleModel;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.media.jai.TiledImage;
 import javax.media.jai.iterator.RandomIter;
 import org.junit.BeforeClass;
@@ -308,6 +310,59 @@ public class RandomIterTest {
         testRandomIterDouble(testImageIntIMGDouble, valueArrayIntIMGDouble, false, false);
     }
 
+    // This tests is used for the iterators caching more than one tile, reading along a rotated line which crosses the tile boundaries.
+    @Test
+    public void testRandomIterTileCache() {
+        testRandomIterTileCache(testImageByte, iterByte);
+
+        testRandomIterTileCache(testImageShort, iterShort);
+    }
+
+    // This tests is used for the block reads of the iterators, on a block spanning several tiles.
+    @Test
+    public void testReadBlock() {
+        testReadBlock(testImageByte, iterByte, true, true);
+
+        testReadBlock(testImageByteIMGDouble, iterByteIMGDouble, false, true);
+
+        testReadBlock(testImageShort, iterShort, false, false);
+    }
+
+    // This tests is used for the block reads at the edges of the image and for the invalid blocks.
+    @Test
+    public void testReadBlockEdges() {
+        testReadBlockEdges(testImageByte, iterByte, true, true);
+
+        testReadBlockEdges(testImageShort, iterShort, false, false);
+    }
+
+    @Test
+    public void testComponentRandomIter() {
+        testComponentRandomIter(testImageByte, iterByte, ComponentRandomIterInt.class);
+
+        testComponentRandomIter(testImageByteIMGFloat, iterByteIMGFloat,
+                ComponentRandomIterFloat.class);
+
+        testComponentRandomIter(testImageByteIMGDouble, iterByteIMGDouble,
+                ComponentRandomIterDouble.class);
+    }
+
+    @Test
+    public void testRandomIterLarge() {
+        testRandomIterLarge(testImageByte, iterByte);
+
+        // Tile size which is not a power of two
+        RenderedImage img = createTestImage(DataBuffer.TYPE_INT, 254, 254, 50, 40);
+        testRandomIterLarge(img, javax.media.jai.iterator.RandomIterFactory.create(img, null));
+    }
+
+    @Test
+    public void testSharedRandomIter() throws InterruptedException {
+        testSharedRandomIter(testImageByte, iterByte);
+
+        testSharedRandomIter(testImageShort, iterShort);
+    }
+
     // This tests is used for the RandomIterFallbackByte speed test on an integral image.
     @Test
     public void testSpeed() {
@@ -431,6 +486,155 @@ public class RandomIterTest {
         }
     }
 
+    /** Method for testing a RandomIter caching 4 tiles against the JAI RandomIter */
+    public void testRandomIterTileCache(RenderedImage img, RandomIter expected) {
+        RandomIter iter = RandomIterFactory.create(img, null, true, true, 4);
+        int maxX = img.getMinX() + img.getWidth() - 1;
+        int maxY = img.getMinY() + img.getHeight() - 1;
+        for (int i = 0; i < 1000; i++) {
+            // Back and forth across the neighbouring tiles
+            int x = Math.min(maxX, img.getMinX() + i / 4 + (i % 2) * 3);
+            int y = Math.min(maxY, img.getMinY() + i / 8 + (i % 3) * 5);
+            assertEquals(expected.getSample(x, y, 0), iter.getSample(x, y, 0));
+        }
+        iter.done();
+    }
+
+    /** Method for testing the block reads of the selected RandomIter against the JAI RandomIter */
+    public void testReadBlock(RenderedImage img, RandomIter expected, boolean cachedTiles,
+            boolean arrayCalculation) {
+        BlockRandomIter iter = (BlockRandomIter) RandomIterFactory.create(img, null, cachedTiles,
+                arrayCalculation);
+        Rectangle rect = new Rectangle(img.getMinX() + 30, img.getMinY() + 20, 100, 90);
+        int[] iArray = iter.readBlock(rect, 0, (int[]) null);
+        float[] fArray = iter.readBlock(rect, 0, new float[rect.width * rect.height]);
+        double[] dArray = iter.readBlock(rect, 0, (double[]) null);
+        for (int y = rect.y; y < rect.y + rect.height; y++) {
+            for (int x = rect.x; x < rect.x + rect.width; x++) {
+                int index = (y - rect.y) * rect.width + x - rect.x;
+                assertEquals(expected.getSample(x, y, 0), iArray[index]);
+                assertEquals(expected.getSampleFloat(x, y, 0), fArray[index], DELTA);
+                assertEquals(expected.getSampleDouble(x, y, 0), dArray[index], DELTA);
+            }
+        }
+        iter.done();
+    }
+
+    /** Method for testing the block reads at the edges of the image and the rejection of the invalid blocks */
+    public void testReadBlockEdges(RenderedImage img, RandomIter expected, boolean cachedTiles,
+            boolean arrayCalculation) {
+        BlockRandomIter iter = (BlockRandomIter) RandomIterFactory.create(img, null, cachedTiles,
+                arrayCalculation);
+        int maxX = img.getMinX() + img.getWidth();
+        int maxY = img.getMinY() + img.getHeight();
+        // Block ending on the last column and row of the image
+        Rectangle rect = new Rectangle(maxX - 40, maxY - 30, 40, 30);
+        int[] iArray = iter.readBlock(rect, 0, (int[]) null);
+        for (int y = rect.y; y < rect.y + rect.height; y++) {
+            for (int x = rect.x; x < rect.x + rect.width; x++) {
+                int index = (y - rect.y) * rect.width + x - rect.x;
+                assertEquals(expected.getSample(x, y, 0), iArray[index]);
+            }
+        }
+        // Block crossing the edge of the image
+        try {
+            iter.readBlock(new Rectangle(maxX - 10, maxY - 10, 20, 20), 0, (int[]) null);
+            fail("A block outside the image should be rejected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        // Block outside the image
+        try {
+            iter.readBlock(new Rectangle(maxX + 5, maxY + 5, 10, 10), 0, (double[]) null);
+            fail("A block outside the image should be rejected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        // Array too small for the block
+        try {
+            iter.readBlock(rect, 0, new float[rect.width * rect.height - 1]);
+            fail("An array too small for the block should be rejected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        iter.done();
+    }
+
+    public void testComponentRandomIter(RenderedImage img, RandomIter expected,
+            Class<? extends ComponentRandomIter> iterClass) {
+        RandomIter iter = RandomIterFactory.create(img, null, true, true);
+        assertEquals(iterClass, iter.getClass());
+        int numBands = img.getSampleModel().getNumBands();
+        int[] iArray = new int[numBands];
+        double[] dArray = new double[numBands];
+        for (int y = img.getMinY(); y < img.getMinY() + img.getHeight(); y += 3) {
+            for (int x = img.getMinX(); x < img.getMinX() + img.getWidth(); x += 3) {
+                iter.getPixel(x, y, iArray);
+                iter.getPixel(x, y, dArray);
+                for (int b = 0; b < numBands; b++) {
+                    assertEquals(expected.getSample(x, y, b), iter.getSample(x, y, b));
+                    assertEquals(expected.getSample(x, y, b), iArray[b]);
+                    assertEquals(expected.getSampleFloat(x, y, b), iter.getSampleFloat(x, y, b),
+                            DELTA);
+                    assertEquals(expected.getSampleDouble(x, y, b), dArray[b], DELTA);
+                }
+            }
+        }
+        iter.done();
+    }
+
+    public void testRandomIterLarge(RenderedImage img, RandomIter expected) {
+        RandomIter iter = new RandomIterFallbackLarge(img, new Rectangle(img.getMinX(),
+                img.getMinY(), img.getWidth(), img.getHeight()), 4);
+        for (int y = img.getMinY(); y < img.getMinY() + img.getHeight(); y += 3) {
+            for (int x = img.getMinX(); x < img.getMinX() + img.getWidth(); x += 3) {
+                assertEquals(expected.getSample(x, y, 0), iter.getSample(x, y, 0));
+                assertEquals(expected.getSampleDouble(x, y, 0), iter.getSampleDouble(x, y, 0),
+                        DELTA);
+            }
+        }
+        iter.done();
+    }
+
+    public void testSharedRandomIter(final RenderedImage img, RandomIter expected)
+            throws InterruptedException {
+        final int minX = img.getMinX();
+        final int minY = img.getMinY();
+        final int width = img.getWidth();
+        final int height = img.getHeight();
+        final int[] values = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                values[y * width + x] = expected.getSample(x + minX, y + minY, 0);
+            }
+        }
+
+        final RandomIter iter = RandomIterFactory.createShared(img, null, 4);
+        final AtomicInteger errors = new AtomicInteger();
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            final int first = i;
+            threads[i] = new Thread() {
+                public void run() {
+                    // Each thread reads the image in a different order
+                    for (int y = first; y < height; y += 2) {
+                        for (int x = first; x < width; x += 3) {
+                            if (iter.getSample(x + minX, y + minY, 0) != values[y * width + x]) {
+                                errors.incrementAndGet();
+                            }
+                        }
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        iter.done();
+        assertEquals(0, errors.get());
+    }
+
     /** Method for testing the one of the 3 types of RandomIter on the selected image */
     public void testIteratorSpeed(RenderedImage img, boolean cachedTiles, boolean arrayCalculation, boolean subsequentIterator) {
         // RandomIter used
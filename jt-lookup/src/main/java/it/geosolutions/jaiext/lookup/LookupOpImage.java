@@ -57,6 +57,9 @@ public class LookupOpImage extends ColormapOpImage {
     /** ROI image*/
     private PlanarImage srcROIImage;
 
+    /** ROI iterator shared by the threads*/
+    private RandomIter roiIter;
+
     /** Boolean indicating if Roi RasterAccessor must be used*/
     private boolean useRoiAccessor;
 
@@ -106,8 +109,8 @@ public class LookupOpImage extends ColormapOpImage {
             final Rectangle rect = new Rectangle(srcROIImage.getBounds());
             // Roi image data store
             Raster data = srcROIImage.getData(rect);
-            // Creation of a RandomIterator for selecting random pixel inside the ROI
-            RandomIter roiIter = RandomIterFactory.create(data, data.getBounds(), false, true);
+            // Creation of a RandomIterator shared by all the threads for selecting random pixel inside the ROI
+            roiIter = RandomIterFactory.createShared(data, data.getBounds(), 1);
             // Boolean indicating if roi is present
             hasROI = true;
             // ROI bounds are saved 
@@ -176,4 +179,15 @@ public class LookupOpImage extends ColormapOpImage {
         }
     }
 
+    /**
+     * When the dispose method is called, the ROI iterator is also released, so that the cursors it keeps for each thread are not retained.
+     */
+    @Override
+    public synchronized void dispose() {
+        if (roiIter != null) {
+            roiIter.done();
+        }
+        super.dispose();
+    }
+
 }
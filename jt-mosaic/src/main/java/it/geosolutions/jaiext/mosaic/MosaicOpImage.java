@@ -18,6 +18,7 @@
 package it.geosolutions.jaiext.mosaic;
 
 import it.geosolutions.jaiext.range.Range;
+import it.geosolutions.jaiext.utilities.CancellationToken;
 
 import java.awt.Point;
 import java.awt.Rectangle;
@@ -460,6 +461,8 @@ public class MosaicOpImage extends OpImage {
      * This method overrides the OpImage compute tile method and calculates the mosaic operation for the selected tile.
      */
     public Raster computeTile(int tileX, int tileY) {
+        // Stop if the computation has been cancelled
+        CancellationToken.checkCancelled();
         // The destination raster is created as WritableRaster
         WritableRaster destRaster = createWritableRaster(sampleModel, new Point(tileXToX(tileX),
                 tileYToY(tileY)));
@@ -476,6 +479,8 @@ public class MosaicOpImage extends OpImage {
         Range[] noDataRanges = new Range[numSources];
         // The previous array is filled with the source raster data
         for (int i = 0; i < numSources; i++) {
+            // The cancellation is checked before requesting each source
+            CancellationToken.checkCancelled();
             PlanarImage source = getSourceImage(i);
             Rectangle srcRect = mapDestRect(destRectangle, i);
             Raster data = srcRect != null && srcRect.isEmpty() ? null : source.getExtendedData(
@@ -752,6 +757,8 @@ public class MosaicOpImage extends OpImage {
             if (mosaicTypeSelected == MosaicDescriptor.MOSAIC_TYPE_OVERLAY) {
                 for (int dstY = dstMinY; dstY < dstMaxY; dstY++) { // For all the Y
                                                                    // values
+                    // Stop between the rows if the computation has been cancelled
+                    CancellationToken.checkCancelled();
                     // Source line Offset and pixel Offset,
                     // Alpha line Offset and pixel Offset are initialized
                     for (int s = 0; s < sourcesNumber; s++) {
@@ -846,6 +853,8 @@ public class MosaicOpImage extends OpImage {
                 }
             } else { // the mosaicType is MOSAIC_TYPE_BLEND
                 for (int dstY = dstMinY; dstY < dstMaxY; dstY++) {
+                    // Stop between the rows if the computation has been cancelled
+                    CancellationToken.checkCancelled();
                     // Source and pixel Offset are initialized and Source and alpha
                     // line offset are
                     // translated (cycle accross all the sources)
@@ -1077,6 +1086,8 @@ public class MosaicOpImage extends OpImage {
             if (mosaicTypeSelected == MosaicDescriptor.MOSAIC_TYPE_OVERLAY) {
                 for (int dstY = dstMinY; dstY < dstMaxY; dstY++) { // For all the Y
                                                                    // values
+                    // Stop between the rows if the computation has been cancelled
+                    CancellationToken.checkCancelled();
                     // Source line Offset and pixel Offset,
                     // Alpha line Offset and pixel Offset are initialized
                     for (int s = 0; s < sourcesNumber; s++) {
@@ -1174,6 +1185,8 @@ public class MosaicOpImage extends OpImage {
                 }
             } else { // the mosaicType is MOSAIC_TYPE_BLEND
                 for (int dstY = dstMinY; dstY < dstMaxY; dstY++) {
+                    // Stop between the rows if the computation has been cancelled
+                    CancellationToken.checkCancelled();
                     // Source and pixel Offset are initialized and Source and alpha
                     // line offset are
                     // translated (cycle accross all the sources)
@@ -1408,6 +1421,8 @@ public class MosaicOpImage extends OpImage {
             if (mosaicTypeSelected == MosaicDescriptor.MOSAIC_TYPE_OVERLAY) {
                 for (int dstY = dstMinY; dstY < dstMaxY; dstY++) { // For all the Y
                                                                    // values
+                    // Stop between the rows if the computation has been cancelled
+                    CancellationToken.checkCancelled();
                     // Source line Offset and pixel Offset,
                     // Alpha line Offset and pixel Offset are initialized
                     for (int s = 0; s < sourcesNumber; s++) {
@@ -1504,6 +1519,8 @@ public class MosaicOpImage extends OpImage {
                 }
             } else { // the mosaicType is MOSAIC_TYPE_BLEND
                 for (int dstY = dstMinY; dstY < dstMaxY; dstY++) {
+                    // Stop between the rows if the computation has been cancelled
+                    CancellationToken.checkCancelled();
                     // Source and pixel Offset are initialized and Source and alpha
                     // line offset are
                     // translated (cycle accross all the sources)
@@ -1737,6 +1754,8 @@ public class MosaicOpImage extends OpImage {
             if (mosaicTypeSelected == MosaicDescriptor.MOSAIC_TYPE_OVERLAY) {
                 for (int dstY = dstMinY; dstY < dstMaxY; dstY++) { // For all the Y
                                                                    // values
+                    // Stop between the rows if the computation has been cancelled
+                    CancellationToken.checkCancelled();
                     // Source line Offset and pixel Offset,
                     // Alpha line Offset and pixel Offset are initialized
                     for (int s = 0; s < sourcesNumber; s++) {
@@ -1833,6 +1852,8 @@ public class MosaicOpImage extends OpImage {
                 }
             } else { // the mosaicType is MOSAIC_TYPE_BLEND
                 for (int dstY = dstMinY; dstY < dstMaxY; dstY++) {
+                    // Stop between the rows if the computation has been cancelled
+                    CancellationToken.checkCancelled();
                     // Source and pixel Offset are initialized and Source and alpha
                     // line offset are
                     // translated (cycle accross all the sources)
@@ -2066,6 +2087,8 @@ public class MosaicOpImage extends OpImage {
             if (mosaicTypeSelected == MosaicDescriptor.MOSAIC_TYPE_OVERLAY) {
                 for (int dstY = dstMinY; dstY < dstMaxY; dstY++) { // For all the Y
                                                                    // values
+                    // Stop between the rows if the computation has been cancelled
+                    CancellationToken.checkCancelled();
                     // Source line Offset and pixel Offset,
                     // Alpha line Offset and pixel Offset are initialized
                     for (int s = 0; s < sourcesNumber; s++) {
@@ -2164,6 +2187,8 @@ public class MosaicOpImage extends OpImage {
                 }
             } else { // the mosaicType is MOSAIC_TYPE_BLEND
                 for (int dstY = dstMinY; dstY < dstMaxY; dstY++) {
+                    // Stop between the rows if the computation has been cancelled
+                    CancellationToken.checkCancelled();
                     // Source and pixel Offset are initialized and Source and alpha
                     // line offset are
                     // translated (cycle accross all the sources)
@@ -2399,6 +2424,8 @@ public class MosaicOpImage extends OpImage {
             if (mosaicTypeSelected == MosaicDescriptor.MOSAIC_TYPE_OVERLAY) {
                 for (int dstY = dstMinY; dstY < dstMaxY; dstY++) { // For all the Y
                                                                    // values
+                    // Stop between the rows if the computation has been cancelled
+                    CancellationToken.checkCancelled();
                     // Source line Offset and pixel Offset,
                     // Alpha line Offset and pixel Offset are initialized
                     for (int s = 0; s < sourcesNumber; s++) {
@@ -2497,6 +2524,8 @@ public class MosaicOpImage extends OpImage {
                 }
             } else { // the mosaicType is MOSAIC_TYPE_BLEND
                 for (int dstY = dstMinY; dstY < dstMaxY; dstY++) {
+                    // Stop between the rows if the computation has been cancelled
+                    CancellationToken.checkCancelled();
                     // Source and pixel Offset are initialized and Source and alpha
                     // line offset are
                     // translated (cycle accross all the sources)
@@ -167,8 +167,8 @@ public class RescaleOpImage extends PointOpImage {
             final Rectangle rect = new Rectangle(srcROIImage.getBounds());
             // Roi image data store
             Raster data = srcROIImage.getData(rect);
-            // Creation of a RandomIterator for selecting random pixel inside the ROI
-            roiIter = RandomIterFactory.create(data, data.getBounds(), false, true);
+            // Creation of a RandomIterator shared by all the threads for selecting random pixel inside the ROI
+            roiIter = RandomIterFactory.createShared(data, data.getBounds(), 1);
             // ROI bounds are saved
             roiBounds = srcROIImage.getBounds();
             // The useRoiAccessor parameter is set
@@ -2239,4 +2239,15 @@ public class RescaleOpImage extends PointOpImage {
             }
         }
     }
+
+    /**
+     * When the dispose method is called, the ROI iterator is also released, so that the cursors it keeps for each thread are not retained.
+     */
+    @Override
+    public synchronized void dispose() {
+        if (roiIter != null) {
+            roiIter.done();
+        }
+        super.dispose();
+    }
 }
@@ -344,6 +344,8 @@ public class ScaleBicubicOpImage extends ScaleOpImage {
                 int bandOffset = bandOffsets[k];
                 // cycle on the y values
                 for (int j = 0; j < dheight; j++) {
+                    // Stop between the rows if the computation has been cancelled
+                    checkCancelled();
                     // pixel offset initialization
                     int dstPixelOffset = dstlineOffset;
                     // y position selection
@@ -408,6 +410,8 @@ public class ScaleBicubicOpImage extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -498,6 +502,8 @@ public class ScaleBicubicOpImage extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -606,6 +612,8 @@ public class ScaleBicubicOpImage extends ScaleOpImage {
                         final int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -714,6 +722,8 @@ public class ScaleBicubicOpImage extends ScaleOpImage {
                             int bandOffset = bandOffsets[k];
                             // cycle on the y values
                             for (int j = 0; j < dheight; j++) {
+                                // Stop between the rows if the computation has been cancelled
+                                checkCancelled();
                                 // pixel offset initialization
                                 int dstPixelOffset = dstlineOffset;
                                 // y position selection
@@ -852,6 +862,8 @@ public class ScaleBicubicOpImage extends ScaleOpImage {
                             int bandOffset = bandOffsets[k];
                             // cycle on the y values
                             for (int j = 0; j < dheight; j++) {
+                                // Stop between the rows if the computation has been cancelled
+                                checkCancelled();
                                 // pixel offset initialization
                                 int dstPixelOffset = dstlineOffset;
                                 // y position selection
@@ -1010,6 +1022,8 @@ public class ScaleBicubicOpImage extends ScaleOpImage {
                 int bandOffset = bandOffsets[k];
                 // cycle on the y values
                 for (int j = 0; j < dheight; j++) {
+                    // Stop between the rows if the computation has been cancelled
+                    checkCancelled();
                     // pixel offset initialization
                     int dstPixelOffset = dstlineOffset;
                     // y position selection
@@ -1074,6 +1088,8 @@ public class ScaleBicubicOpImage extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -1164,6 +1180,8 @@ public class ScaleBicubicOpImage extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -1269,6 +1287,8 @@ public class ScaleBicubicOpImage extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -1367,6 +1387,8 @@ public class ScaleBicubicOpImage extends ScaleOpImage {
                             int bandOffset = bandOffsets[k];
                             // cycle on the y values
                             for (int j = 0; j < dheight; j++) {
+                                // Stop between the rows if the computation has been cancelled
+                                checkCancelled();
                                 // pixel offset initialization
                                 int dstPixelOffset = dstlineOffset;
                                 // y position selection
@@ -1492,6 +1514,8 @@ public class ScaleBicubicOpImage extends ScaleOpImage {
                             int bandOffset = bandOffsets[k];
                             // cycle on the y values
                             for (int j = 0; j < dheight; j++) {
+                                // Stop between the rows if the computation has been cancelled
+                                checkCancelled();
                                 // pixel offset initialization
                                 int dstPixelOffset = dstlineOffset;
                                 // y position selection
@@ -1648,6 +1672,8 @@ public class ScaleBicubicOpImage extends ScaleOpImage {
                 int bandOffset = bandOffsets[k];
                 // cycle on the y values
                 for (int j = 0; j < dheight; j++) {
+                    // Stop between the rows if the computation has been cancelled
+                    checkCancelled();
                     // pixel offset initialization
                     int dstPixelOffset = dstlineOffset;
                     // y position selection
@@ -1712,6 +1738,8 @@ public class ScaleBicubicOpImage extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -1801,6 +1829,8 @@ public class ScaleBicubicOpImage extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -1907,6 +1937,8 @@ public class ScaleBicubicOpImage extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -2004,6 +2036,8 @@ public class ScaleBicubicOpImage extends ScaleOpImage {
                             int bandOffset = bandOffsets[k];
                             // cycle on the y values
                             for (int j = 0; j < dheight; j++) {
+                                // Stop between the rows if the computation has been cancelled
+                                checkCancelled();
                                 // pixel offset initialization
                                 int dstPixelOffset = dstlineOffset;
                                 // y position selection
@@ -2129,6 +2163,8 @@ public class ScaleBicubicOpImage extends ScaleOpImage {
                             int bandOffset = bandOffsets[k];
                             // cycle on the y values
                             for (int j = 0; j < dheight; j++) {
+                                // Stop between the rows if the computation has been cancelled
+                                checkCancelled();
                                 // pixel offset initialization
                                 int dstPixelOffset = dstlineOffset;
                                 // y position selection
@@ -2284,6 +2320,8 @@ public class ScaleBicubicOpImage extends ScaleOpImage {
                 int bandOffset = bandOffsets[k];
                 // cycle on the y values
                 for (int j = 0; j < dheight; j++) {
+                    // Stop between the rows if the computation has been cancelled
+                    checkCancelled();
                     // pixel offset initialization
                     int dstPixelOffset = dstlineOffset;
                     // y position selection
@@ -2341,6 +2379,8 @@ public class ScaleBicubicOpImage extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -2423,6 +2463,8 @@ public class ScaleBicubicOpImage extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -2523,6 +2565,8 @@ public class ScaleBicubicOpImage extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -2614,6 +2658,8 @@ public class ScaleBicubicOpImage extends ScaleOpImage {
                             int bandOffset = bandOffsets[k];
                             // cycle on the y values
                             for (int j = 0; j < dheight; j++) {
+                                // Stop between the rows if the computation has been cancelled
+                                checkCancelled();
                                 // pixel offset initialization
                                 int dstPixelOffset = dstlineOffset;
                                 // y position selection
@@ -2732,6 +2778,8 @@ public class ScaleBicubicOpImage extends ScaleOpImage {
                             int bandOffset = bandOffsets[k];
                             // cycle on the y values
                             for (int j = 0; j < dheight; j++) {
+                                // Stop between the rows if the computation has been cancelled
+                                checkCancelled();
                                 // pixel offset initialization
                                 int dstPixelOffset = dstlineOffset;
                                 // y position selection
@@ -2880,6 +2928,8 @@ public class ScaleBicubicOpImage extends ScaleOpImage {
                 int bandOffset = bandOffsets[k];
                 // cycle on the y values
                 for (int j = 0; j < dheight; j++) {
+                    // Stop between the rows if the computation has been cancelled
+                    checkCancelled();
                     // pixel offset initialization
                     int dstPixelOffset = dstlineOffset;
                     // y position selection
@@ -2940,6 +2990,8 @@ public class ScaleBicubicOpImage extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -3026,6 +3078,8 @@ public class ScaleBicubicOpImage extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -3128,6 +3182,8 @@ public class ScaleBicubicOpImage extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -3225,6 +3281,8 @@ public class ScaleBicubicOpImage extends ScaleOpImage {
                             int bandOffset = bandOffsets[k];
                             // cycle on the y values
                             for (int j = 0; j < dheight; j++) {
+                                // Stop between the rows if the computation has been cancelled
+                                checkCancelled();
                                 // pixel offset initialization
                                 int dstPixelOffset = dstlineOffset;
                                 // y position selection
@@ -3347,6 +3405,8 @@ public class ScaleBicubicOpImage extends ScaleOpImage {
                             int bandOffset = bandOffsets[k];
                             // cycle on the y values
                             for (int j = 0; j < dheight; j++) {
+                                // Stop between the rows if the computation has been cancelled
+                                checkCancelled();
                                 // pixel offset initialization
                                 int dstPixelOffset = dstlineOffset;
                                 // y position selection
@@ -3499,6 +3559,8 @@ public class ScaleBicubicOpImage extends ScaleOpImage {
                 int bandOffset = bandOffsets[k];
                 // cycle on the y values
                 for (int j = 0; j < dheight; j++) {
+                    // Stop between the rows if the computation has been cancelled
+                    checkCancelled();
                     // pixel offset initialization
                     int dstPixelOffset = dstlineOffset;
                     // y position selection
@@ -3552,6 +3614,8 @@ public class ScaleBicubicOpImage extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -3631,6 +3695,8 @@ public class ScaleBicubicOpImage extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -3726,6 +3792,8 @@ public class ScaleBicubicOpImage extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -3816,6 +3884,8 @@ public class ScaleBicubicOpImage extends ScaleOpImage {
                             int bandOffset = bandOffsets[k];
                             // cycle on the y values
                             for (int j = 0; j < dheight; j++) {
+                                // Stop between the rows if the computation has been cancelled
+                                checkCancelled();
                                 // pixel offset initialization
                                 int dstPixelOffset = dstlineOffset;
                                 // y position selection
@@ -3930,6 +4000,8 @@ public class ScaleBicubicOpImage extends ScaleOpImage {
                             int bandOffset = bandOffsets[k];
                             // cycle on the y values
                             for (int j = 0; j < dheight; j++) {
+                                // Stop between the rows if the computation has been cancelled
+                                checkCancelled();
                                 // pixel offset initialization
                                 int dstPixelOffset = dstlineOffset;
                                 // y position selection
@@ -324,6 +324,8 @@ public class ScaleBilinearOpImage extends ScaleOpImage {
                 final int bandOffset = bandOffsets[k];
                 // cycle on the y values
                 for (int j = 0; j < dheight; j++) {
+                    // Stop between the rows if the computation has been cancelled
+                    checkCancelled();
                     // pixel offset initialization
                     int dstPixelOffset = dstlineOffset;
                     // y position selection
@@ -366,6 +368,8 @@ public class ScaleBilinearOpImage extends ScaleOpImage {
                         final int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -430,6 +434,8 @@ public class ScaleBilinearOpImage extends ScaleOpImage {
                         final int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -509,6 +515,8 @@ public class ScaleBilinearOpImage extends ScaleOpImage {
                         final int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -573,6 +581,8 @@ public class ScaleBilinearOpImage extends ScaleOpImage {
                             final int bandOffset = bandOffsets[k];
                             // cycle on the y values
                             for (int j = 0; j < dheight; j++) {
+                                // Stop between the rows if the computation has been cancelled
+                                checkCancelled();
                                 // pixel offset initialization
                                 int dstPixelOffset = dstlineOffset;
                                 // y position selection
@@ -655,6 +665,8 @@ public class ScaleBilinearOpImage extends ScaleOpImage {
                             final int bandOffset = bandOffsets[k];
                             // cycle on the y values
                             for (int j = 0; j < dheight; j++) {
+                                // Stop between the rows if the computation has been cancelled
+                                checkCancelled();
                                 // pixel offset initialization
                                 int dstPixelOffset = dstlineOffset;
                                 // y position selection
@@ -776,6 +788,8 @@ public class ScaleBilinearOpImage extends ScaleOpImage {
                 final int bandOffset = bandOffsets[k];
                 // cycle on the y values
                 for (int j = 0; j < dheight; j++) {
+                    // Stop between the rows if the computation has been cancelled
+                    checkCancelled();
                     // pixel offset initialization
                     int dstPixelOffset = dstlineOffset;
                     // y position selection
@@ -818,6 +832,8 @@ public class ScaleBilinearOpImage extends ScaleOpImage {
                         final int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -882,6 +898,8 @@ public class ScaleBilinearOpImage extends ScaleOpImage {
                         final int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -949,6 +967,8 @@ public class ScaleBilinearOpImage extends ScaleOpImage {
                         final int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -1010,6 +1030,8 @@ public class ScaleBilinearOpImage extends ScaleOpImage {
                             final int bandOffset = bandOffsets[k];
                             // cycle on the y values
                             for (int j = 0; j < dheight; j++) {
+                                // Stop between the rows if the computation has been cancelled
+                                checkCancelled();
                                 // pixel offset initialization
                                 int dstPixelOffset = dstlineOffset;
                                 // y position selection
@@ -1092,6 +1114,8 @@ public class ScaleBilinearOpImage extends ScaleOpImage {
                             final int bandOffset = bandOffsets[k];
                             // cycle on the y values
                             for (int j = 0; j < dheight; j++) {
+                                // Stop between the rows if the computation has been cancelled
+                                checkCancelled();
                                 // pixel offset initialization
                                 int dstPixelOffset = dstlineOffset;
                                 // y position selection
@@ -1215,6 +1239,8 @@ public class ScaleBilinearOpImage extends ScaleOpImage {
                 final int bandOffset = bandOffsets[k];
                 // cycle on the y values
                 for (int j = 0; j < dheight; j++) {
+                    // Stop between the rows if the computation has been cancelled
+                    checkCancelled();
                     // pixel offset initialization
                     int dstPixelOffset = dstlineOffset;
                     // y position selection
@@ -1257,6 +1283,8 @@ public class ScaleBilinearOpImage extends ScaleOpImage {
                         final int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -1321,6 +1349,8 @@ public class ScaleBilinearOpImage extends ScaleOpImage {
                         final int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -1388,6 +1418,8 @@ public class ScaleBilinearOpImage extends ScaleOpImage {
                         final int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -1449,6 +1481,8 @@ public class ScaleBilinearOpImage extends ScaleOpImage {
                             final int bandOffset = bandOffsets[k];
                             // cycle on the y values
                             for (int j = 0; j < dheight; j++) {
+                                // Stop between the rows if the computation has been cancelled
+                                checkCancelled();
                                 // pixel offset initialization
                                 int dstPixelOffset = dstlineOffset;
                                 // y position selection
@@ -1526,6 +1560,8 @@ public class ScaleBilinearOpImage extends ScaleOpImage {
                             final int bandOffset = bandOffsets[k];
                             // cycle on the y values
                             for (int j = 0; j < dheight; j++) {
+                                // Stop between the rows if the computation has been cancelled
+                                checkCancelled();
                                 // pixel offset initialization
                                 int dstPixelOffset = dstlineOffset;
                                 // y position selection
@@ -1649,6 +1685,8 @@ public class ScaleBilinearOpImage extends ScaleOpImage {
                 final int bandOffset = bandOffsets[k];
                 // cycle on the y values
                 for (int j = 0; j < dheight; j++) {
+                    // Stop between the rows if the computation has been cancelled
+                    checkCancelled();
                     // pixel offset initialization
                     int dstPixelOffset = dstlineOffset;
                     // y position selection
@@ -1691,6 +1729,8 @@ public class ScaleBilinearOpImage extends ScaleOpImage {
                         final int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -1751,6 +1791,8 @@ public class ScaleBilinearOpImage extends ScaleOpImage {
                         final int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -1812,6 +1854,8 @@ public class ScaleBilinearOpImage extends ScaleOpImage {
                         final int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -1873,6 +1917,8 @@ public class ScaleBilinearOpImage extends ScaleOpImage {
                             final int bandOffset = bandOffsets[k];
                             // cycle on the y values
                             for (int j = 0; j < dheight; j++) {
+                                // Stop between the rows if the computation has been cancelled
+                                checkCancelled();
                                 // pixel offset initialization
                                 int dstPixelOffset = dstlineOffset;
                                 // y position selection
@@ -1950,6 +1996,8 @@ public class ScaleBilinearOpImage extends ScaleOpImage {
                             final int bandOffset = bandOffsets[k];
                             // cycle on the y values
                             for (int j = 0; j < dheight; j++) {
+                                // Stop between the rows if the computation has been cancelled
+                                checkCancelled();
                                 // pixel offset initialization
                                 int dstPixelOffset = dstlineOffset;
                                 // y position selection
@@ -2072,6 +2120,8 @@ public class ScaleBilinearOpImage extends ScaleOpImage {
                 final int bandOffset = bandOffsets[k];
                 // cycle on the y values
                 for (int j = 0; j < dheight; j++) {
+                    // Stop between the rows if the computation has been cancelled
+                    checkCancelled();
                     // pixel offset initialization
                     int dstPixelOffset = dstlineOffset;
                     // y position selection
@@ -2114,6 +2164,8 @@ public class ScaleBilinearOpImage extends ScaleOpImage {
                         final int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -2178,6 +2230,8 @@ public class ScaleBilinearOpImage extends ScaleOpImage {
                         final int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -2243,6 +2297,8 @@ public class ScaleBilinearOpImage extends ScaleOpImage {
                         final int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -2308,6 +2364,8 @@ public class ScaleBilinearOpImage extends ScaleOpImage {
                             final int bandOffset = bandOffsets[k];
                             // cycle on the y values
                             for (int j = 0; j < dheight; j++) {
+                                // Stop between the rows if the computation has been cancelled
+                                checkCancelled();
                                 // pixel offset initialization
                                 int dstPixelOffset = dstlineOffset;
                                 // y position selection
@@ -2390,6 +2448,8 @@ public class ScaleBilinearOpImage extends ScaleOpImage {
                             final int bandOffset = bandOffsets[k];
                             // cycle on the y values
                             for (int j = 0; j < dheight; j++) {
+                                // Stop between the rows if the computation has been cancelled
+                                checkCancelled();
                                 // pixel offset initialization
                                 int dstPixelOffset = dstlineOffset;
                                 // y position selection
@@ -2516,6 +2576,8 @@ public class ScaleBilinearOpImage extends ScaleOpImage {
                 final int bandOffset = bandOffsets[k];
                 // cycle on the y values
                 for (int j = 0; j < dheight; j++) {
+                    // Stop between the rows if the computation has been cancelled
+                    checkCancelled();
                     // pixel offset initialization
                     int dstPixelOffset = dstlineOffset;
                     // y position selection
@@ -2558,6 +2620,8 @@ public class ScaleBilinearOpImage extends ScaleOpImage {
                         final int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -2622,6 +2686,8 @@ public class ScaleBilinearOpImage extends ScaleOpImage {
                         final int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -2687,6 +2753,8 @@ public class ScaleBilinearOpImage extends ScaleOpImage {
                         final int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -2751,6 +2819,8 @@ public class ScaleBilinearOpImage extends ScaleOpImage {
                             final int bandOffset = bandOffsets[k];
                             // cycle on the y values
                             for (int j = 0; j < dheight; j++) {
+                                // Stop between the rows if the computation has been cancelled
+                                checkCancelled();
                                 // pixel offset initialization
                                 int dstPixelOffset = dstlineOffset;
                                 // y position selection
@@ -2832,6 +2902,8 @@ public class ScaleBilinearOpImage extends ScaleOpImage {
                             final int bandOffset = bandOffsets[k];
                             // cycle on the y values
                             for (int j = 0; j < dheight; j++) {
+                                // Stop between the rows if the computation has been cancelled
+                                checkCancelled();
                                 // pixel offset initialization
                                 int dstPixelOffset = dstlineOffset;
                                 // y position selection
@@ -607,6 +607,8 @@ public class ScaleGeneralOpImage extends ScaleOpImage {
             int bandOffset = bandOffsets[k];
             // cycle on the y values
             for (int j = 0; j < dheight; j++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 // pixel offset initialization
                 int dstPixelOffset = dstlineOffset;
                 // y position selection
@@ -925,6 +927,8 @@ public class ScaleGeneralOpImage extends ScaleOpImage {
         int[] coordinates = new int[2];
 
         for (int j = 0; j < dheight; j++) {
+            // Stop between the rows if the computation has been cancelled
+            checkCancelled();
 
             y = yvalues[j];
             yfrac = yfracvalues[j].intValue();
@@ -302,6 +302,8 @@ public class ScaleNearestOpImage extends ScaleOpImage {
                 int bandOffset = bandOffsets[k];
                 // cycle on the y values
                 for (int j = 0; j < dheight; j++) {
+                    // Stop between the rows if the computation has been cancelled
+                    checkCancelled();
                     // pixel offset initialization
                     int dstPixelOffset = dstlineOffset;
                     // y position selection
@@ -334,6 +336,8 @@ public class ScaleNearestOpImage extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -376,6 +380,8 @@ public class ScaleNearestOpImage extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -424,6 +430,8 @@ public class ScaleNearestOpImage extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -457,6 +465,8 @@ public class ScaleNearestOpImage extends ScaleOpImage {
                             int bandOffset = bandOffsets[k];
                             // cycle on the y values
                             for (int j = 0; j < dheight; j++) {
+                                // Stop between the rows if the computation has been cancelled
+                                checkCancelled();
                                 // pixel offset initialization
                                 int dstPixelOffset = dstlineOffset;
                                 // y position selection
@@ -506,6 +516,8 @@ public class ScaleNearestOpImage extends ScaleOpImage {
                             int bandOffset = bandOffsets[k];
                             // cycle on the y values
                             for (int j = 0; j < dheight; j++) {
+                                // Stop between the rows if the computation has been cancelled
+                                checkCancelled();
                                 // pixel offset initialization
                                 int dstPixelOffset = dstlineOffset;
                                 // y position selection
@@ -600,6 +612,8 @@ public class ScaleNearestOpImage extends ScaleOpImage {
                 int bandOffset = bandOffsets[k];
                 // cycle on the y values
                 for (int j = 0; j < dheight; j++) {
+                    // Stop between the rows if the computation has been cancelled
+                    checkCancelled();
                     // pixel offset initialization
                     int dstPixelOffset = dstlineOffset;
                     // y position selection
@@ -632,6 +646,8 @@ public class ScaleNearestOpImage extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -675,6 +691,8 @@ public class ScaleNearestOpImage extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -721,6 +739,8 @@ public class ScaleNearestOpImage extends ScaleOpImage {
                     int bandOffset = bandOffsets[k];
                     // cycle on the y values
                     for (int j = 0; j < dheight; j++) {
+                        // Stop between the rows if the computation has been cancelled
+                        checkCancelled();
                         // pixel offset initialization
                         int dstPixelOffset = dstlineOffset;
                         // y position selection
@@ -762,6 +782,8 @@ public class ScaleNearestOpImage extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -811,6 +833,8 @@ public class ScaleNearestOpImage extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -905,6 +929,8 @@ public class ScaleNearestOpImage extends ScaleOpImage {
                 int bandOffset = bandOffsets[k];
                 // cycle on the y values
                 for (int j = 0; j < dheight; j++) {
+                    // Stop between the rows if the computation has been cancelled
+                    checkCancelled();
                     // pixel offset initialization
                     int dstPixelOffset = dstlineOffset;
                     // y position selection
@@ -937,6 +963,8 @@ public class ScaleNearestOpImage extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -980,6 +1008,8 @@ public class ScaleNearestOpImage extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -1026,6 +1056,8 @@ public class ScaleNearestOpImage extends ScaleOpImage {
                     int bandOffset = bandOffsets[k];
                     // cycle on the y values
                     for (int j = 0; j < dheight; j++) {
+                        // Stop between the rows if the computation has been cancelled
+                        checkCancelled();
                         // pixel offset initialization
                         int dstPixelOffset = dstlineOffset;
                         // y position selection
@@ -1067,6 +1099,8 @@ public class ScaleNearestOpImage extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -1116,6 +1150,8 @@ public class ScaleNearestOpImage extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -1209,6 +1245,8 @@ public class ScaleNearestOpImage extends ScaleOpImage {
                 int bandOffset = bandOffsets[k];
                 // cycle on the y values
                 for (int j = 0; j < dheight; j++) {
+                    // Stop between the rows if the computation has been cancelled
+                    checkCancelled();
                     // pixel offset initialization
                     int dstPixelOffset = dstlineOffset;
                     // y position selection
@@ -1241,6 +1279,8 @@ public class ScaleNearestOpImage extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -1284,6 +1324,8 @@ public class ScaleNearestOpImage extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -1330,6 +1372,8 @@ public class ScaleNearestOpImage extends ScaleOpImage {
                     int bandOffset = bandOffsets[k];
                     // cycle on the y values
                     for (int j = 0; j < dheight; j++) {
+                        // Stop between the rows if the computation has been cancelled
+                        checkCancelled();
                         // pixel offset initialization
                         int dstPixelOffset = dstlineOffset;
                         // y position selection
@@ -1371,6 +1415,8 @@ public class ScaleNearestOpImage extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -1420,6 +1466,8 @@ public class ScaleNearestOpImage extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -1514,6 +1562,8 @@ public class ScaleNearestOpImage extends ScaleOpImage {
                 int bandOffset = bandOffsets[k];
                 // cycle on the y values
                 for (int j = 0; j < dheight; j++) {
+                    // Stop between the rows if the computation has been cancelled
+                    checkCancelled();
                     // pixel offset initialization
                     int dstPixelOffset = dstlineOffset;
                     // y position selection
@@ -1546,6 +1596,8 @@ public class ScaleNearestOpImage extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -1589,6 +1641,8 @@ public class ScaleNearestOpImage extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -1635,6 +1689,8 @@ public class ScaleNearestOpImage extends ScaleOpImage {
                     int bandOffset = bandOffsets[k];
                     // cycle on the y values
                     for (int j = 0; j < dheight; j++) {
+                        // Stop between the rows if the computation has been cancelled
+                        checkCancelled();
                         // pixel offset initialization
                         int dstPixelOffset = dstlineOffset;
                         // y position selection
@@ -1676,6 +1732,8 @@ public class ScaleNearestOpImage extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -1725,6 +1783,8 @@ public class ScaleNearestOpImage extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -1819,6 +1879,8 @@ public class ScaleNearestOpImage extends ScaleOpImage {
                 int bandOffset = bandOffsets[k];
                 // cycle on the y values
                 for (int j = 0; j < dheight; j++) {
+                    // Stop between the rows if the computation has been cancelled
+                    checkCancelled();
                     // pixel offset initialization
                     int dstPixelOffset = dstlineOffset;
                     // y position selection
@@ -1851,6 +1913,8 @@ public class ScaleNearestOpImage extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -1894,6 +1958,8 @@ public class ScaleNearestOpImage extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -1940,6 +2006,8 @@ public class ScaleNearestOpImage extends ScaleOpImage {
                     int bandOffset = bandOffsets[k];
                     // cycle on the y values
                     for (int j = 0; j < dheight; j++) {
+                        // Stop between the rows if the computation has been cancelled
+                        checkCancelled();
                         // pixel offset initialization
                         int dstPixelOffset = dstlineOffset;
                         // y position selection
@@ -1981,6 +2049,8 @@ public class ScaleNearestOpImage extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -2030,6 +2100,8 @@ public class ScaleNearestOpImage extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
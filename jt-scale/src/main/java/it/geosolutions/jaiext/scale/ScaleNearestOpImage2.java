@@ -335,6 +335,8 @@ public class ScaleNearestOpImage2 extends ScaleOpImage {
             int bandOffset = bandOffsets[k];
             // cycle on the y values
             for (int j = 0; j < dheight; j++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 // pixel offset initialization
                 int dstPixelOffset = dstlineOffset;
                 // y position selection
@@ -492,6 +494,8 @@ public class ScaleNearestOpImage2 extends ScaleOpImage {
             int bandOffset = bandOffsets[k];
             // cycle on the y values
             for (int j = 0; j < dheight; j++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 // pixel offset initialization
                 int dstPixelOffset = dstlineOffset;
                 // y position selection
@@ -654,6 +658,8 @@ public class ScaleNearestOpImage2 extends ScaleOpImage {
             int bandOffset = bandOffsets[k];
             // cycle on the y values
             for (int j = 0; j < dheight; j++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 // pixel offset initialization
                 int dstPixelOffset = dstlineOffset;
                 // y position selection
@@ -814,6 +820,8 @@ public class ScaleNearestOpImage2 extends ScaleOpImage {
             int bandOffset = bandOffsets[k];
             // cycle on the y values
             for (int j = 0; j < dheight; j++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 // pixel offset initialization
                 int dstPixelOffset = dstlineOffset;
                 // y position selection
@@ -976,6 +984,8 @@ public class ScaleNearestOpImage2 extends ScaleOpImage {
             int bandOffset = bandOffsets[k];
             // cycle on the y values
             for (int j = 0; j < dheight; j++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 // pixel offset initialization
                 int dstPixelOffset = dstlineOffset;
                 // y position selection
@@ -1154,6 +1164,8 @@ public class ScaleNearestOpImage2 extends ScaleOpImage {
             int bandOffset = bandOffsets[k];
             // cycle on the y values
             for (int j = 0; j < dheight; j++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 // pixel offset initialization
                 int dstPixelOffset = dstlineOffset;
                 // y position selection
@@ -334,6 +334,8 @@ public class ScaleNearestOpImage3 extends ScaleOpImage {
 
             // cycle on the y values
             for (int j = 0; j < dheight; j++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
 
                 // Calculate the source position in the source data array.
                 int posy = (srcYInt - srcRectY) * srcScanlineStride;
@@ -394,6 +396,8 @@ public class ScaleNearestOpImage3 extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -436,6 +440,8 @@ public class ScaleNearestOpImage3 extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -484,6 +490,8 @@ public class ScaleNearestOpImage3 extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -522,6 +530,8 @@ public class ScaleNearestOpImage3 extends ScaleOpImage {
                             int bandOffset = bandOffsets[k];
                             // cycle on the y values
                             for (int j = 0; j < dheight; j++) {
+                                // Stop between the rows if the computation has been cancelled
+                                checkCancelled();
                                 // pixel offset initialization
                                 int dstPixelOffset = dstlineOffset;
                                 // y position selection
@@ -571,6 +581,8 @@ public class ScaleNearestOpImage3 extends ScaleOpImage {
                             int bandOffset = bandOffsets[k];
                             // cycle on the y values
                             for (int j = 0; j < dheight; j++) {
+                                // Stop between the rows if the computation has been cancelled
+                                checkCancelled();
                                 // pixel offset initialization
                                 int dstPixelOffset = dstlineOffset;
                                 // y position selection
@@ -665,6 +677,8 @@ public class ScaleNearestOpImage3 extends ScaleOpImage {
                 int bandOffset = bandOffsets[k];
                 // cycle on the y values
                 for (int j = 0; j < dheight; j++) {
+                    // Stop between the rows if the computation has been cancelled
+                    checkCancelled();
                     // pixel offset initialization
                     int dstPixelOffset = dstlineOffset;
                     // y position selection
@@ -697,6 +711,8 @@ public class ScaleNearestOpImage3 extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -740,6 +756,8 @@ public class ScaleNearestOpImage3 extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -786,6 +804,8 @@ public class ScaleNearestOpImage3 extends ScaleOpImage {
                     int bandOffset = bandOffsets[k];
                     // cycle on the y values
                     for (int j = 0; j < dheight; j++) {
+                        // Stop between the rows if the computation has been cancelled
+                        checkCancelled();
                         // pixel offset initialization
                         int dstPixelOffset = dstlineOffset;
                         // y position selection
@@ -827,6 +847,8 @@ public class ScaleNearestOpImage3 extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -876,6 +898,8 @@ public class ScaleNearestOpImage3 extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -970,6 +994,8 @@ public class ScaleNearestOpImage3 extends ScaleOpImage {
                 int bandOffset = bandOffsets[k];
                 // cycle on the y values
                 for (int j = 0; j < dheight; j++) {
+                    // Stop between the rows if the computation has been cancelled
+                    checkCancelled();
                     // pixel offset initialization
                     int dstPixelOffset = dstlineOffset;
                     // y position selection
@@ -1002,6 +1028,8 @@ public class ScaleNearestOpImage3 extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -1045,6 +1073,8 @@ public class ScaleNearestOpImage3 extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -1091,6 +1121,8 @@ public class ScaleNearestOpImage3 extends ScaleOpImage {
                     int bandOffset = bandOffsets[k];
                     // cycle on the y values
                     for (int j = 0; j < dheight; j++) {
+                        // Stop between the rows if the computation has been cancelled
+                        checkCancelled();
                         // pixel offset initialization
                         int dstPixelOffset = dstlineOffset;
                         // y position selection
@@ -1132,6 +1164,8 @@ public class ScaleNearestOpImage3 extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -1181,6 +1215,8 @@ public class ScaleNearestOpImage3 extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -1274,6 +1310,8 @@ public class ScaleNearestOpImage3 extends ScaleOpImage {
                 int bandOffset = bandOffsets[k];
                 // cycle on the y values
                 for (int j = 0; j < dheight; j++) {
+                    // Stop between the rows if the computation has been cancelled
+                    checkCancelled();
                     // pixel offset initialization
                     int dstPixelOffset = dstlineOffset;
                     // y position selection
@@ -1306,6 +1344,8 @@ public class ScaleNearestOpImage3 extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -1349,6 +1389,8 @@ public class ScaleNearestOpImage3 extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -1395,6 +1437,8 @@ public class ScaleNearestOpImage3 extends ScaleOpImage {
                     int bandOffset = bandOffsets[k];
                     // cycle on the y values
                     for (int j = 0; j < dheight; j++) {
+                        // Stop between the rows if the computation has been cancelled
+                        checkCancelled();
                         // pixel offset initialization
                         int dstPixelOffset = dstlineOffset;
                         // y position selection
@@ -1436,6 +1480,8 @@ public class ScaleNearestOpImage3 extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -1485,6 +1531,8 @@ public class ScaleNearestOpImage3 extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -1579,6 +1627,8 @@ public class ScaleNearestOpImage3 extends ScaleOpImage {
                 int bandOffset = bandOffsets[k];
                 // cycle on the y values
                 for (int j = 0; j < dheight; j++) {
+                    // Stop between the rows if the computation has been cancelled
+                    checkCancelled();
                     // pixel offset initialization
                     int dstPixelOffset = dstlineOffset;
                     // y position selection
@@ -1611,6 +1661,8 @@ public class ScaleNearestOpImage3 extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -1654,6 +1706,8 @@ public class ScaleNearestOpImage3 extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -1700,6 +1754,8 @@ public class ScaleNearestOpImage3 extends ScaleOpImage {
                     int bandOffset = bandOffsets[k];
                     // cycle on the y values
                     for (int j = 0; j < dheight; j++) {
+                        // Stop between the rows if the computation has been cancelled
+                        checkCancelled();
                         // pixel offset initialization
                         int dstPixelOffset = dstlineOffset;
                         // y position selection
@@ -1746,6 +1802,8 @@ public class ScaleNearestOpImage3 extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -1800,6 +1858,8 @@ public class ScaleNearestOpImage3 extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -1899,6 +1959,8 @@ public class ScaleNearestOpImage3 extends ScaleOpImage {
                 int bandOffset = bandOffsets[k];
                 // cycle on the y values
                 for (int j = 0; j < dheight; j++) {
+                    // Stop between the rows if the computation has been cancelled
+                    checkCancelled();
                     // pixel offset initialization
                     int dstPixelOffset = dstlineOffset;
                     // y position selection
@@ -1931,6 +1993,8 @@ public class ScaleNearestOpImage3 extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -1974,6 +2038,8 @@ public class ScaleNearestOpImage3 extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -2020,6 +2086,8 @@ public class ScaleNearestOpImage3 extends ScaleOpImage {
                     int bandOffset = bandOffsets[k];
                     // cycle on the y values
                     for (int j = 0; j < dheight; j++) {
+                        // Stop between the rows if the computation has been cancelled
+                        checkCancelled();
                         // pixel offset initialization
                         int dstPixelOffset = dstlineOffset;
                         // y position selection
@@ -2066,6 +2134,8 @@ public class ScaleNearestOpImage3 extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -2120,6 +2190,8 @@ public class ScaleNearestOpImage3 extends ScaleOpImage {
                         int bandOffset = bandOffsets[k];
                         // cycle on the y values
                         for (int j = 0; j < dheight; j++) {
+                            // Stop between the rows if the computation has been cancelled
+                            checkCancelled();
                             // pixel offset initialization
                             int dstPixelOffset = dstlineOffset;
                             // y position selection
@@ -30,6 +30,8 @@ import it.geosolutions.jaiext.interpolators.InterpolationBilinear;
 import it.geosolutions.jaiext.interpolators.InterpolationNearest;
 import it.geosolutions.jaiext.iterators.RandomIterFactory;
 import it.geosolutions.jaiext.range.Range;
+import it.geosolutions.jaiext.utilities.CancellationToken;
+import it.geosolutions.jaiext.utilities.MultiTileComputer;
 
 import javax.media.jai.BorderExtender;
 import javax.media.jai.GeometricOpImage;
@@ -113,7 +115,7 @@ import com.sun.media.jai.util.Rational;
  * @see OpImage
  * 
  */
-public abstract class ScaleOpImage extends GeometricOpImage {
+public abstract class ScaleOpImage extends GeometricOpImage implements MultiTileComputer {
 
     /** The horizontal scale factor. */
     protected float scaleX;
@@ -1025,7 +1027,7 @@ public abstract class ScaleOpImage extends GeometricOpImage {
                     srcROIImage.getHeight() + tpad + bpad);
             Raster data = srcROIImage.getExtendedData(rect,
                     BorderExtender.createInstance(BorderExtender.BORDER_ZERO));
-            roiIter = RandomIterFactory.create(data, data.getBounds(), false, true);
+            roiIter = RandomIterFactory.createShared(data, data.getBounds(), 1);
             hasROI = true;
             roiBounds = srcROIImage.getBounds();
             this.useRoiAccessor = useRoiAccessor;
@@ -1379,6 +1381,101 @@ public abstract class ScaleOpImage extends GeometricOpImage {
         return new Rectangle(s_x0, s_y0, (s_x1 - s_x0 + 1), (s_y1 - s_y0 + 1));
     }
 
+    /**
+     * Computes several tiles at once. The source data, including the halo needed by the interpolation kernel, are fetched once for the union of
+     * the tiles and shared by the tile computations, instead of being fetched again for each tile. Each tile is computed from the part of the
+     * shared source it would have fetched by itself.
+     * 
+     * @param tileIndices The X and Y indices of the tiles.
+     * 
+     * @return The tiles as <code>Raster</code>s, in the order of the indices.
+     */
+    public Raster[] computeTiles(Point[] tileIndices) {
+        int numTiles = tileIndices.length;
+        Raster[] tiles = new Raster[numTiles];
+
+        // Clip the tiles against the part of the destination rectangle that
+        // can be written, and compute the union of the clipped tiles.
+        Rectangle[] destRects = new Rectangle[numTiles];
+        Rectangle union = null;
+        for (int i = 0; i < numTiles; i++) {
+            Rectangle rect = new Rectangle(tileXToX(tileIndices[i].x), tileYToY(tileIndices[i].y),
+                    tileWidth, tileHeight);
+            destRects[i] = rect.intersection(computableBounds);
+            if (!destRects[i].isEmpty()) {
+                union = union == null ? destRects[i] : union.union(destRects[i]);
+            }
+        }
+
+        if (!cobbleSources || union == null) {
+            for (int i = 0; i < numTiles; i++) {
+                tiles[i] = computeTile(tileIndices[i].x, tileIndices[i].y);
+            }
+            return tiles;
+        }
+
+        // Get the source data of the union only once
+        Rectangle srcRect = mapDestRect(union, 0);
+        PlanarImage source0 = getSourceImage(0);
+        Raster source;
+        Raster roi = null;
+        if (extender == null) {
+            // Without an extender only the data inside the source and the ROI
+            // can be requested
+            srcRect = srcRect.intersection(source0.getBounds());
+            Rectangle roiRect = null;
+            if (hasROI && useRoiAccessor) {
+                roiRect = srcRect.intersection(srcROIImage.getBounds());
+            }
+            if (srcRect.isEmpty() || (roiRect != null && roiRect.isEmpty())) {
+                for (int i = 0; i < numTiles; i++) {
+                    tiles[i] = computeTile(tileIndices[i].x, tileIndices[i].y);
+                }
+                return tiles;
+            }
+            source = source0.getData(srcRect);
+            if (roiRect != null)
+                roi = srcROIImage.getData(roiRect);
+        } else {
+            source = source0.getExtendedData(srcRect, extender);
+            if (hasROI && useRoiAccessor)
+                roi = srcROIImage.getExtendedData(srcRect, roiExtender);
+        }
+
+        Raster[] sources = new Raster[1];
+        Raster[] rois = new Raster[1];
+        for (int i = 0; i < numTiles; i++) {
+            // Stop between the tiles if the computation has been cancelled.
+            CancellationToken.checkCancelled();
+
+            // Create a new WritableRaster to represent this tile.
+            WritableRaster dest = createWritableRaster(sampleModel, new Point(
+                    tileXToX(tileIndices[i].x), tileYToY(tileIndices[i].y)));
+            Rectangle destRect = destRects[i];
+            if (!destRect.isEmpty()) {
+                // The part of the shared source needed by this tile
+                Rectangle tileSrcRect = mapDestRect(destRect, 0).intersection(source.getBounds());
+                Rectangle roiRect = roi != null ? tileSrcRect.intersection(roi.getBounds()) : null;
+                if (tileSrcRect.isEmpty() || (roiRect != null && roiRect.isEmpty())) {
+                    // Nothing shared for this tile: compute it by itself
+                    tiles[i] = computeTile(tileIndices[i].x, tileIndices[i].y);
+                    continue;
+                }
+                sources[0] = source.createChild(tileSrcRect.x, tileSrcRect.y, tileSrcRect.width,
+                        tileSrcRect.height, tileSrcRect.x, tileSrcRect.y, null);
+                if (roiRect != null) {
+                    rois[0] = roi.createChild(roiRect.x, roiRect.y, roiRect.width,
+                            roiRect.height, roiRect.x, roiRect.y, null);
+                    computeRect(sources, dest, destRect, rois);
+                } else {
+                    computeRect(sources, dest, destRect);
+                }
+            }
+            tiles[i] = dest;
+        }
+        return tiles;
+    }
+
     /**
      * Computes a tile. If source cobbling was requested at construction time, the source tile boundaries are overlayed onto the destination, cobbling
      * is performed for areas that intersect multiple source tiles, and <code>computeRect(Raster[], WritableRaster, Rectangle)</code> is called for
@@ -1406,6 +1503,9 @@ public abstract class ScaleOpImage extends GeometricOpImage {
      */
     public Raster computeTile(int tileX, int tileY) {
 
+        // Stop if the computation has been cancelled.
+        CancellationToken.checkCancelled();
+
         if (!cobbleSources) {
             return super.computeTile(tileX, tileY);
         }
@@ -1478,6 +1578,9 @@ public abstract class ScaleOpImage extends GeometricOpImage {
                     // Along X TileBoundaries
                     int xsplit = srcXSplits.nextElement();
 
+                    // Check the cancellation between the source blocks.
+                    CancellationToken.checkCancelled();
+
                     // Construct a pseudo tile for intersection purposes
                     Rectangle srcTile = new Rectangle(xsplit, ysplit, srcTileWidth, srcTileHeight);
 
@@ -1802,6 +1905,16 @@ public abstract class ScaleOpImage extends GeometricOpImage {
         return dest;
     }
 
+    /**
+     * Stops the computation if the cancellation token bound to the current thread has been cancelled. Subclasses call it between the rows of
+     * the destination, so that a cancelled tile does not run to completion.
+     * 
+     * @exception java.util.concurrent.CancellationException if the computation has been cancelled.
+     */
+    protected final void checkCancelled() {
+        CancellationToken.checkCancelled();
+    }
+
     @Override
     public synchronized void dispose() {
         if (srcROIImage != null) {
@@ -0,0 +1,295 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.jaiext.scheduler;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Elastic executor used by the <code>JAIExtTileScheduler</code> when the {@link JAIExtTileScheduler.Backend#ELASTIC} backend is selected. Each job
+ * runs on its own thread, taken from a pool which grows up to the maximum number of jobs in flight and shrinks when the threads are idle. A
+ * semaphore with one permit per unit of parallelism limits the number of jobs computing at the same time: a job blocked on I/O can give back its
+ * permit through {@link #callBlocking(Callable)}, so that many I/O bound jobs can be in flight while only <code>parallelism</code> jobs use the
+ * CPU.
+ */
+final class ElasticPool implements JobExecutor {
+
+    /** Time after which an idle thread exits, in seconds. */
+    private static final long KEEP_ALIVE = 60;
+
+    /** The job computed by the current thread while it holds a permit. */
+    private static final ThreadLocal<JobRunner> HELD = new ThreadLocal<JobRunner>();
+
+    /** The scheduler that created the pool. */
+    private final JAIExtTileScheduler scheduler;
+
+    /** The name of the threads. */
+    private final String name;
+
+    /** Counter used to compose the names of the threads. */
+    private final AtomicInteger threadCount = new AtomicInteger();
+
+    /** The threads running the jobs. */
+    private final ThreadPoolExecutor executor;
+
+    /** Counter giving the submission order of the jobs. */
+    private final AtomicLong sequence = new AtomicLong();
+
+    /** The permits to compute a job. */
+    private final Permits permits = new Permits();
+
+    /** The number of permits. */
+    private int parallelism;
+
+    /** The priority of the threads. */
+    private volatile int priority = Thread.NORM_PRIORITY;
+
+    /** The <code>ThreadGroup</code> of the threads. */
+    private volatile ThreadGroup group;
+
+    /**
+     * Constructor.
+     * 
+     * @param scheduler The scheduler to notify when a blocking job is done.
+     * @param name The name of the threads.
+     * @param maxInFlight The maximum number of jobs in flight, that is the maximum number of threads.
+     */
+    ElasticPool(JAIExtTileScheduler scheduler, String name, int maxInFlight) {
+        this.scheduler = scheduler;
+        this.name = name;
+        executor = new ThreadPoolExecutor(maxInFlight, maxInFlight, KEEP_ALIVE, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<Runnable>(), new ThreadFactory() {
+                    public Thread newThread(Runnable r) {
+                        Thread t = new Thread(group, r, ElasticPool.this.name
+                                + threadCount.getAndIncrement());
+                        t.setDaemon(true);
+                        t.setPriority(priority);
+                        return t;
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Runs a blocking task, typically an I/O operation, inside a tile computation. If the calling thread is computing a job of an elastic pool, its
+     * permit is given back while the task runs, so that another job can use the CPU. Otherwise the task is simply called.
+     * 
+     * @param task The blocking task.
+     * @return The result of the task.
+     * @throws Exception if the task fails.
+     */
+    static <T> T callBlocking(Callable<T> task) throws Exception {
+        Object held = beginBlocking();
+        try {
+            return task.call();
+        } finally {
+            endBlocking(held);
+        }
+    }
+
+    /**
+     * Gives back the permit held by the calling thread, if any, before a blocking operation.
+     * 
+     * @return The permits to acquire again with {@link #endBlocking(Object)}, or <code>null</code>.
+     */
+    static Object beginBlocking() {
+        JobRunner held = HELD.get();
+        if (held != null) {
+            HELD.set(null);
+            held.permits().release();
+        }
+        return held;
+    }
+
+    /**
+     * Acquires again the permit given back by {@link #beginBlocking()}.
+     * 
+     * @param held The value returned by {@link #beginBlocking()}.
+     */
+    static void endBlocking(Object held) {
+        if (held != null) {
+            JobRunner runner = (JobRunner) held;
+            runner.permits().acquire(runner);
+            HELD.set(runner);
+        }
+    }
+
+    /** Returns the maximum number of jobs in flight. */
+    int getMaxInFlight() {
+        return executor.getMaximumPoolSize();
+    }
+
+    /** Sets the maximum number of jobs in flight. */
+    void setMaxInFlight(int maxInFlight) {
+        if (maxInFlight > executor.getMaximumPoolSize()) {
+            executor.setMaximumPoolSize(maxInFlight);
+            executor.setCorePoolSize(maxInFlight);
+        } else {
+            executor.setCorePoolSize(maxInFlight);
+            executor.setMaximumPoolSize(maxInFlight);
+        }
+    }
+
+    public synchronized int getParallelism() {
+        return parallelism;
+    }
+
+    public synchronized void setParallelism(int parallelism, int priority, ThreadGroup group) {
+        this.priority = priority;
+        if (group != null) {
+            this.group = group;
+        }
+        if (parallelism > this.parallelism) {
+            permits.release(parallelism - this.parallelism);
+        } else if (parallelism < this.parallelism) {
+            permits.reduce(this.parallelism - parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    /** Queued jobs start in priority order, then in submission order, so <code>first</code> is ignored. */
+    public void execute(Job job, boolean first) {
+        executor.execute(new JobRunner(job, sequence.getAndIncrement()));
+    }
+
+    public boolean remove(Job job) {
+        return executor.remove(new JobRunner(job, 0));
+    }
+
+    /** Always returns <code>false</code>: waiting threads do not hold a permit. */
+    public boolean helpCompute() {
+        return false;
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Semaphore granting the permits by decreasing job priority, then by submission order, and whose number of permits can be reduced.
+     */
+    private static final class Permits {
+
+        /** The jobs waiting for a permit. */
+        private final PriorityQueue<JobRunner> waiting = new PriorityQueue<JobRunner>();
+
+        /** The available permits, negative if the permits have been reduced while in use. */
+        private int available;
+
+        /** Acquires a permit for the supplied job, waiting until no job before it is waiting. */
+        synchronized void acquire(JobRunner runner) {
+            boolean interrupted = false;
+            waiting.add(runner);
+            while (available <= 0 || waiting.peek() != runner) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            waiting.poll();
+            available--;
+            // The next job may acquire a permit as well.
+            notifyAll();
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /** Releases a permit. */
+        synchronized void release() {
+            release(1);
+        }
+
+        /** Adds permits. */
+        synchronized void release(int permits) {
+            available += permits;
+            notifyAll();
+        }
+
+        /** Removes permits, without waiting for the permits in use. */
+        synchronized void reduce(int reduction) {
+            available -= reduction;
+        }
+    }
+
+    /**
+     * Runnable computing a job while holding a permit. Two runners are equal if they compute the same job. Runners are ordered by decreasing job
+     * priority, then by submission order.
+     */
+    private final class JobRunner implements Runnable, Comparable<JobRunner> {
+
+        final Job job;
+
+        final long order;
+
+        JobRunner(Job job, long order) {
+            this.job = job;
+            this.order = order;
+        }
+
+        public int compareTo(JobRunner other) {
+            int priority = job.getPriority();
+            int otherPriority = other.job.getPriority();
+            if (priority != otherPriority) {
+                return priority > otherPriority ? -1 : 1;
+            }
+            return order < other.order ? -1 : (order == other.order ? 0 : 1);
+        }
+
+        /** Returns the permits of the pool. */
+        Permits permits() {
+            return permits;
+        }
+
+        public void run() {
+            permits.acquire(this);
+            HELD.set(this);
+            try {
+                job.compute();
+            } finally {
+                JobRunner held = HELD.get();
+                HELD.set(null);
+                if (held != null) {
+                    permits.release();
+                }
+            }
+
+            // Notify the scheduler only if the Job is blocking.
+            if (job.isBlocking()) {
+                synchronized (scheduler) {
+                    scheduler.notifyAll();
+                }
+            }
+        }
+
+        public int hashCode() {
+            return System.identityHashCode(job);
+        }
+
+        public boolean equals(Object obj) {
+            return obj instanceof JobRunner && ((JobRunner) obj).job == job;
+        }
+    }
+}
@@ -17,28 +17,45 @@
 */
 package it.geosolutions.jaiext.scheduler;
 
+import it.geosolutions.jaiext.utilities.CancellationToken;
+import it.geosolutions.jaiext.utilities.MultiTileComputer;
+import it.geosolutions.jaiext.utilities.TileCostRecorder;
+
 import java.awt.Point;
 import java.awt.RenderingHints;
 import java.awt.image.Raster;
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
-import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.media.jai.OpImage;
 import javax.media.jai.PlanarImage;
+import javax.media.jai.RenderedOp;
 import javax.media.jai.TileCache;
 import javax.media.jai.TileComputationListener;
 import javax.media.jai.TileRequest;
@@ -66,19 +83,28 @@ class Request implements TileRequest {
 
     final Hashtable tileStatus;
 
+    final int priority;
+
+    final long deadline;
+
+    final CancellationToken token;
+
     /**
-     * Constructs a <code>Request</code>.
+     * Constructs a <code>Request</code>. The cancellation token of the request is cancelled by the cancellation token bound to the calling
+     * thread, if any.
      * 
      * @param scheduler The scheduler processing this request.
      * @param image The image for which tiles are being computed.
      * @param tileIndices The indices of the tiles to be computed.
      * @param tileListeners The listeners to be notified of tile computation, cancellation, or failure.
+     * @param priority The priority of the request. Requests with higher priority are computed first.
+     * @param deadline The time, in milliseconds since the epoch, after which the tiles are not computed anymore, or 0 if there is no deadline.
      * 
      * @exception IllegalArgumentException if <code>scheduler</code>, <code>image</code>, or <code>tileIndices</code> is <code>null</code> or if
      *            <code>tileIndices</code> is zero-length.
      */
     Request(TileScheduler scheduler, PlanarImage image, Point[] tileIndices,
-            TileComputationListener[] tileListeners) {
+            TileComputationListener[] tileListeners, int priority, long deadline) {
 
         // Save a reference to the scheduler.
         if (scheduler == null) {
@@ -118,6 +144,10 @@ class Request implements TileRequest {
 
         // Initialize status table.
         tileStatus = new Hashtable(tileIndices.length);
+
+        this.priority = priority;
+        this.deadline = deadline;
+        token = new CancellationToken(CancellationToken.current());
     }
 
     // --- TileRequest implementation ---
@@ -176,6 +206,25 @@ interface Job {
 
     /** Returns the first exception encountered or <code>null</code>. */
     Exception getException();
+
+    /** Returns the priority of the job. Jobs with higher priority are computed first. */
+    int getPriority();
+
+    /** Sets the time at which the job has been queued, in nanoseconds. */
+    void setQueuedTime(long queuedTime);
+
+    /** Returns the time at which the job has been queued, in nanoseconds. */
+    long getQueuedTime();
+
+    /**
+     * Claims the job, either to compute it or to drop it from the queue.
+     * 
+     * @return <code>false</code> if the job has already been claimed.
+     */
+    boolean claim();
+
+    /** Returns <code>true</code> if the job has been claimed. */
+    boolean isClaimed();
 }
 
 /**
@@ -197,6 +246,12 @@ final class RequestJob implements Job {
 
     final int offset; // offset into arrays
 
+    final int priority; // the job priority
+
+    long queuedTime; // the time at which the job has been queued
+
+    final AtomicBoolean claimed = new AtomicBoolean(); // whether the job has been claimed
+
     boolean done = false; // flag indicating completion status
 
     Exception exception = null; // Any exception that might have occured
@@ -204,94 +259,192 @@ final class RequestJob implements Job {
 
     /** Constructor. */
     RequestJob(JAIExtTileScheduler scheduler, PlanarImage owner, int tileX, int tileY,
-            Raster[] tiles, int offset) {
+            Raster[] tiles, int offset, int priority) {
         this.scheduler = scheduler;
         this.owner = owner;
         this.tileX = tileX;
         this.tileY = tileY;
         this.tiles = tiles;
         this.offset = offset;
+        this.priority = priority;
     }
 
     /**
      * Tile computation. Does the actual call to getTile().
      */
     public void compute() {
-        // Get the Request List.
+        if (!scheduler.jobStarted(this, false)) {
+            done = true;
+            return;
+        }
+
+        try {
+            // Get the Request List.
+            List reqList;
+            synchronized (scheduler.tileRequests) {
+                // Initialize the tile ID.
+                Object tileID = JAIExtTileScheduler.tileKey(owner, tileX, tileY);
+
+                // Remove the List of Requests from the request Map.
+                reqList = (List) scheduler.tileRequests.remove(tileID);
+
+                // Remove the tile Job from the job Map.
+                scheduler.tileJobs.remove(tileID);
+            }
+
+            // Drop the tile if every request has been cancelled or its deadline
+            // has expired.
+            if (reqList != null && !reqList.isEmpty() && isDropped(reqList)) {
+                scheduler.tilesCancelled(reqList, owner, tileX, tileY);
+                reqList = null;
+            }
+
+            // Check whether reqList is valid in case job was cancelled while
+            // blocking on the tileRequests Map above.
+            // XXX Do not need empty check in next line?
+            if (reqList != null && !reqList.isEmpty()) {
+                // Update tile status to "processing".
+                Point p = new Point(tileX, tileY);
+                Integer tileStatus = new Integer(TileRequest.TILE_STATUS_PROCESSING);
+                Iterator reqIter = reqList.iterator();
+                while (reqIter.hasNext()) {
+                    Request r = (Request) reqIter.next();
+                    r.tileStatus.put(p, tileStatus);
+                }
+
+                // Bind the cancellation token of the requests to this thread.
+                CancellationToken previous = CancellationToken.bind(reqList.size() == 1 ? ((Request) reqList
+                        .get(0)).token : new RequestsToken(reqList));
+                try {
+                    tiles[offset] = owner.getTile(tileX, tileY);
+                    scheduler.getQueueMonitor(false).computed();
+                } catch (Exception e) {
+                    exception = e;
+                } finally {
+                    CancellationToken.bind(previous);
+
+                    // Extract the Set of all TileComputationListeners. A cancelled
+                    // tile is notified below.
+                    int numReq = reqList.size();
+                    Set listeners = exception instanceof CancellationException ? null
+                            : JAIExtTileScheduler.getListeners(reqList);
+
+                    // XXX Do not need empty check in next line.
+                    if (listeners != null && !listeners.isEmpty()) {
+                        // Get TileRequests as an array for later use.
+                        TileRequest[] requests = (TileRequest[]) reqList.toArray(new TileRequest[0]);
+
+                        // Update tile status as needed.
+                        tileStatus = new Integer(exception == null ? TileRequest.TILE_STATUS_COMPUTED
+                                : TileRequest.TILE_STATUS_FAILED);
+                        for (int i = 0; i < numReq; i++) {
+                            ((Request) requests[i]).tileStatus.put(p, tileStatus);
+                        }
+
+                        // Create an Iterator over the listeners.
+                        Iterator iter = listeners.iterator();
+
+                        // Notify listeners.
+                        if (exception == null) {
+                            // Tile computation successful.
+                            while (iter.hasNext()) {
+                                TileComputationListener listener = (TileComputationListener) iter
+                                        .next();
+                                listener.tileComputed(scheduler, requests, owner, tileX, tileY,
+                                        tiles[offset]);
+                            }
+                        } else {
+                            // Tile computation unsuccessful.
+                            while (iter.hasNext()) {
+                                TileComputationListener listener = (TileComputationListener) iter
+                                        .next();
+                                listener.tileComputationFailure(scheduler, requests, owner, tileX,
+                                        tileY, exception);
+                            }
+                        }
+                    }
+                }
+
+                // The computation has been stopped by the cancellation token.
+                if (exception instanceof CancellationException) {
+                    scheduler.tilesCancelled(reqList, owner, tileX, tileY);
+                }
+            }
+        } finally {
+            scheduler.jobFinished(false);
+        }
+        // Set the flag indicating job completion.
+        done = true;
+    }
+
+    /**
+     * Fails the tile without computing it, because the job has been rejected by the scheduler. Must be called before the job is queued.
+     * 
+     * @param cause The cause of the rejection.
+     */
+    void reject(Exception cause) {
         List reqList;
         synchronized (scheduler.tileRequests) {
-            // Initialize the tile ID.
             Object tileID = JAIExtTileScheduler.tileKey(owner, tileX, tileY);
-
-            // Remove the List of Requests from the request Map.
             reqList = (List) scheduler.tileRequests.remove(tileID);
-
-            // Remove the tile Job from the job Map.
             scheduler.tileJobs.remove(tileID);
         }
+        exception = cause;
 
-        // Check whether reqList is valid in case job was cancelled while
-        // blocking on the tileRequests Map above.
-        // XXX Do not need empty check in next line?
         if (reqList != null && !reqList.isEmpty()) {
-            // Update tile status to "processing".
+            // Update tile status to "failed".
             Point p = new Point(tileX, tileY);
-            Integer tileStatus = new Integer(TileRequest.TILE_STATUS_PROCESSING);
-            Iterator reqIter = reqList.iterator();
-            while (reqIter.hasNext()) {
-                Request r = (Request) reqIter.next();
-                r.tileStatus.put(p, tileStatus);
+            Integer tileStatus = new Integer(TileRequest.TILE_STATUS_FAILED);
+            TileRequest[] requests = (TileRequest[]) reqList.toArray(new TileRequest[0]);
+            for (int i = 0; i < requests.length; i++) {
+                ((Request) requests[i]).tileStatus.put(p, tileStatus);
             }
 
-            try {
-                tiles[offset] = owner.getTile(tileX, tileY);
-            } catch (Exception e) {
-                exception = e;
-            } finally {
-                // Extract the Set of all TileComputationListeners.
-                int numReq = reqList.size();
-                Set listeners = JAIExtTileScheduler.getListeners(reqList);
-
-                // XXX Do not need empty check in next line.
-                if (listeners != null && !listeners.isEmpty()) {
-                    // Get TileRequests as an array for later use.
-                    TileRequest[] requests = (TileRequest[]) reqList.toArray(new TileRequest[0]);
-
-                    // Update tile status as needed.
-                    tileStatus = new Integer(exception == null ? TileRequest.TILE_STATUS_COMPUTED
-                            : TileRequest.TILE_STATUS_FAILED);
-                    for (int i = 0; i < numReq; i++) {
-                        ((Request) requests[i]).tileStatus.put(p, tileStatus);
-                    }
-
-                    // Create an Iterator over the listeners.
-                    Iterator iter = listeners.iterator();
-
-                    // Notify listeners.
-                    if (exception == null) {
-                        // Tile computation successful.
-                        while (iter.hasNext()) {
-                            TileComputationListener listener = (TileComputationListener) iter
-                                    .next();
-                            listener.tileComputed(scheduler, requests, owner, tileX, tileY,
-                                    tiles[offset]);
-                        }
-                    } else {
-                        // Tile computation unsuccessful.
-                        while (iter.hasNext()) {
-                            TileComputationListener listener = (TileComputationListener) iter
-                                    .next();
-                            listener.tileComputationFailure(scheduler, requests, owner, tileX,
-                                    tileY, exception);
-                        }
-                    }
+            // Notify listeners.
+            Set listeners = JAIExtTileScheduler.getListeners(reqList);
+            if (listeners != null) {
+                Iterator iter = listeners.iterator();
+                while (iter.hasNext()) {
+                    TileComputationListener listener = (TileComputationListener) iter.next();
+                    listener.tileComputationFailure(scheduler, requests, owner, tileX, tileY,
+                            cause);
                 }
             }
         }
-        // Set the flag indicating job completion.
         done = true;
     }
 
+    /** Returns <code>true</code> if all the requests have been cancelled or their deadlines have expired. */
+    private static boolean isDropped(List reqList) {
+        int numReq = reqList.size();
+        for (int i = 0; i < numReq; i++) {
+            Request request = (Request) reqList.get(i);
+            if (!JAIExtTileScheduler.isExpired(request.deadline) && !request.token.isCancelled()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Cancellation token of a tile shared by several requests: it is cancelled when all the requests are cancelled. */
+    private static final class RequestsToken extends CancellationToken {
+
+        private final Request[] requests;
+
+        RequestsToken(List reqList) {
+            requests = (Request[]) reqList.toArray(new Request[reqList.size()]);
+        }
+
+        public boolean isCancelled() {
+            for (int i = 0; i < requests.length; i++) {
+                if (!requests[i].token.isCancelled()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
     /**
      * Returns <code>true</code> if the job is not done; that is, the tile is not computed and no exceptions have occurred.
      */
@@ -314,6 +467,27 @@ final class RequestJob implements Job {
         return exception;
     }
 
+    /** Returns the priority of the request which created the job. */
+    public int getPriority() {
+        return priority;
+    }
+
+    public void setQueuedTime(long queuedTime) {
+        this.queuedTime = queuedTime;
+    }
+
+    public long getQueuedTime() {
+        return queuedTime;
+    }
+
+    public boolean claim() {
+        return claimed.compareAndSet(false, true);
+    }
+
+    public boolean isClaimed() {
+        return claimed.get();
+    }
+
     /** Returns a string representation of the class object. */
     public String toString() {
         String tString = "null";
@@ -345,6 +519,16 @@ final class TileJob implements Job {
 
     final int numTiles; // number of elements to use in indices array
 
+    final int priority; // the job priority
+
+    final long deadline; // the time after which the tiles are not computed
+
+    final CancellationToken token; // the token of the thread which scheduled the job
+
+    long queuedTime; // the time at which the job has been queued
+
+    final AtomicBoolean claimed = new AtomicBoolean(); // whether the job has been claimed
+
     boolean done = false; // flag indicating completion status
 
     Exception exception = null; // The first exception that might have
@@ -352,7 +536,8 @@ final class TileJob implements Job {
 
     /** Constructor. */
     TileJob(JAIExtTileScheduler scheduler, boolean isBlocking, PlanarImage owner,
-            Point[] tileIndices, Raster[] tiles, int offset, int numTiles) {
+            Point[] tileIndices, Raster[] tiles, int offset, int numTiles, int priority,
+            long deadline) {
         this.scheduler = scheduler;
         this.isBlocking = isBlocking;
         this.owner = owner;
@@ -360,13 +545,29 @@ final class TileJob implements Job {
         this.tiles = tiles;
         this.offset = offset;
         this.numTiles = numTiles;
+        this.priority = priority;
+        this.deadline = deadline;
+        token = CancellationToken.current();
     }
 
     /**
-     * Tile computation. Does the actual calls to getTile().
+     * Tile computation. Does the actual calls to getTile() with the cancellation token of the thread which scheduled the job.
      */
     public void compute() {
-        exception = scheduler.compute(owner, tileIndices, tiles, offset, numTiles, null);
+        // A dropped prefetch job is not computed.
+        if (!scheduler.jobStarted(this, !isBlocking)) {
+            done = true;
+            return;
+        }
+
+        CancellationToken previous = CancellationToken.bind(token);
+        try {
+            exception = scheduler.compute(owner, tileIndices, tiles, offset, numTiles, null,
+                    deadline, scheduler.getQueueMonitor(!isBlocking));
+        } finally {
+            CancellationToken.bind(previous);
+            scheduler.jobFinished(!isBlocking);
+        }
         done = true;
     }
 
@@ -391,6 +592,97 @@ final class TileJob implements Job {
     public Exception getException() {
         return exception;
     }
+
+    /** Returns the priority of the job. */
+    public int getPriority() {
+        return priority;
+    }
+
+    public void setQueuedTime(long queuedTime) {
+        this.queuedTime = queuedTime;
+    }
+
+    public long getQueuedTime() {
+        return queuedTime;
+    }
+
+    public boolean claim() {
+        return claimed.compareAndSet(false, true);
+    }
+
+    public boolean isClaimed() {
+        return claimed.get();
+    }
+
+    /**
+     * Fails the job without computing it, because it has been rejected by the scheduler. Must be called before the job is queued.
+     * 
+     * @param cause The cause of the rejection.
+     */
+    void reject(Exception cause) {
+        exception = cause;
+        done = true;
+    }
+}
+
+/**
+ * Key of a tile handled by the scheduler. It is made of the image ID and of the tile index inside the image.
+ */
+final class TileKey {
+
+    final Object imageID; // the ID of the image this tile belongs to
+
+    final long index; // the tile index
+
+    /** Constructor. */
+    TileKey(Object imageID, long index) {
+        this.imageID = imageID;
+        this.index = index;
+    }
+
+    public int hashCode() {
+        return 31 * imageID.hashCode() + (int) (index ^ (index >>> 32));
+    }
+
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof TileKey)) {
+            return false;
+        }
+        TileKey other = (TileKey) obj;
+        return index == other.index && imageID.equals(other.imageID);
+    }
+}
+
+/**
+ * The computation of a tile in progress, shared by the thread computing the tile and the threads waiting for the same tile. The computing thread
+ * completes it with the computed tile or with the cause of the failure.
+ */
+final class TileFuture extends FutureTask<Raster> {
+
+    /** Placeholder task: the tile is computed by the thread which registered the future, not by <code>run()</code>. */
+    private static final Callable<Raster> NO_TASK = new Callable<Raster>() {
+        public Raster call() {
+            return null;
+        }
+    };
+
+    /** Constructor. */
+    TileFuture() {
+        super(NO_TASK);
+    }
+
+    /** Completes the future with the computed tile. */
+    void complete(Raster tile) {
+        set(tile);
+    }
+
+    /** Completes the future with the cause of the failure. */
+    void fail(Throwable cause) {
+        setException(cause);
+    }
 }
 
 /**
@@ -476,6 +768,18 @@ class WorkerThread extends Thread {
  */
 public class JAIExtTileScheduler implements TileScheduler {
     
+    /**
+     * Backends used by the scheduler to execute the tile computation jobs.
+     */
+    public enum Backend {
+        /** Worker threads sharing a single job queue. */
+        QUEUE,
+        /** Worker threads owning a deque of jobs each and stealing jobs from the other workers when idle. */
+        WORK_STEALING,
+        /** A thread for each job in flight, with the number of jobs computing at the same time limited by the parallelism. */
+        ELASTIC
+    }
+
     /** Logger associated to the scheduler*/
     public final static Logger LOGGER = Logger.getLogger(JAIExtTileScheduler.class.getName());
     
@@ -485,6 +789,46 @@ public class JAIExtTileScheduler implements TileScheduler {
     /** The default number of worker threads. */
     private static final int NUM_PREFETCH_THREADS_DEFAULT = 1;
 
+    /**
+     * Orders in which the tiles of a request are computed.
+     */
+    public enum TileOrder {
+        /** The tiles are computed in the requested order. */
+        AS_REQUESTED,
+        /** The tiles are computed along a Z-order (Morton) curve. */
+        Z_ORDER,
+        /** The tiles are computed along a Hilbert curve, which keeps consecutive tiles adjacent. */
+        HILBERT
+    }
+
+    /**
+     * Policies applied when a job queue has reached its bound.
+     */
+    public enum OverloadPolicy {
+        /** The caller waits until the queue has room. */
+        BLOCK,
+        /** The oldest prefetch jobs are dropped from the prefetch queue, while the callers of the standard queue wait as with {@link #BLOCK}. */
+        DROP_OLDEST_PREFETCH,
+        /** The job is rejected: its tiles fail and the failure is notified to the listeners. */
+        REJECT
+    }
+
+    /** The default priority of the tile requests. */
+    public static final int NORM_REQUEST_PRIORITY = 0;
+
+    /** The number of jobs in flight per processor for the elastic backend, leaving room for the jobs blocked on I/O. */
+    private static final int IN_FLIGHT_JOBS_PER_PROCESSOR = 4;
+
+    /** The default maximum number of jobs in flight for the elastic backend. */
+    private static final int MAX_IN_FLIGHT_JOBS_DEFAULT = IN_FLIGHT_JOBS_PER_PROCESSOR
+            * Runtime.getRuntime().availableProcessors();
+
+    /** The default maximum number of tiles computed at once by a <code>MultiTileComputer</code>. */
+    private static final int MAX_BATCH_SIZE_DEFAULT = 8;
+
+    /** The default time between two adaptations of the parallelism, in milliseconds. */
+    private static final long ADAPTATION_INTERVAL_DEFAULT = 1000;
+
     /**
      * The instance counter. It is used to compose the name of the ThreadGroup.
      */
@@ -550,10 +894,15 @@ public class JAIExtTileScheduler implements TileScheduler {
 
     /**
      * <code>Map</code> of tiles currently being computed. The key is created from the image and tile indices by the <code>tileKey()</code> method.
-     * Each key is mapped to an <code>Object[1]</code> which may contain <code>null</code>, a <code>Raster</code>, or an indefinite
-     * <code>Object</code> which represent, respectively, that the tile is being computed, the tile itself, and that the tile computation failed.
+     * Each key is mapped to the <code>TileFuture</code> which is completed with the tile, or with the failure cause, when the computation ends.
+     */
+    private final ConcurrentMap<Object, TileFuture> tilesInProgress = new ConcurrentHashMap<Object, TileFuture>();
+
+    /**
+     * Maximum time in milliseconds a thread waits for a tile computed by another thread. A value of 0 means that the thread waits until the
+     * computation ends.
      */
-    private Map tilesInProgress = new HashMap();
+    private volatile long tileTimeout = 0;
 
     /**
      * <code>Map</code> of tiles to <code>Request</code>s. The key is created from the image and tile indices by the <code>tileKey()</code> method.
@@ -568,25 +917,55 @@ public class JAIExtTileScheduler implements TileScheduler {
      */
     Map tileJobs = new HashMap();
 
+    /** The backend executing the tile computation jobs. */
+    private volatile Backend backend = Backend.QUEUE;
+
+    /** The executor of the standard jobs, created when a backend other than the job queue is first used. */
+    private JobExecutor executor;
+
+    /** The executor of the prefetch jobs, created when a backend other than the job queue is first used. */
+    private JobExecutor prefetchExecutor;
+
+    /** The order in which the tiles of a request are computed. */
+    private volatile TileOrder tileOrder = TileOrder.AS_REQUESTED;
+
+    /** The maximum number of jobs in flight for the elastic backend. */
+    private int maxInFlightJobs = MAX_IN_FLIGHT_JOBS_DEFAULT;
+
+    /** The maximum number of tiles computed at once by a <code>MultiTileComputer</code>. */
+    private volatile int maxBatchSize = MAX_BATCH_SIZE_DEFAULT;
+
+    /** The controller adapting the parallelism, or <code>null</code> if the parallelism is fixed. */
+    private ParallelismController parallelismController;
+
+    /** The time between two adaptations of the parallelism, in milliseconds. */
+    private volatile long adaptationInterval = ADAPTATION_INTERVAL_DEFAULT;
+
+    /** The monitor of the jobs waiting to be computed by the standard workers, whatever the backend. */
+    private final QueueMonitor queueMonitor = new QueueMonitor(false);
+
+    /** The monitor of the jobs waiting to be computed by the prefetch workers, whatever the backend. */
+    private final QueueMonitor prefetchQueueMonitor = new QueueMonitor(true);
+
+    /** The policy applied when a job queue is full. */
+    private volatile OverloadPolicy overloadPolicy = OverloadPolicy.BLOCK;
+
+    /** The metrics of the operations, keyed by the class of the images computing the tiles. */
+    private final ConcurrentMap<Class, OperationMetrics> classMetrics = new ConcurrentHashMap<Class, OperationMetrics>();
+
+    /** The metrics of the operations of the <code>RenderedOp</code>s, keyed by operation name. */
+    private final ConcurrentMap<String, OperationMetrics> renderedOpMetrics = new ConcurrentHashMap<String, OperationMetrics>();
+
     /** The name of this instance. */
     private String nameOfThisInstance;
 
     /**
-     * Returns the hash table "key" as a <code>Object</code> for this tile. For <code>PlanarImage</code> and <code>SerializableRenderedImage</code>,
-     * the key is generated by the method <code>ImageUtilgenerateID(Object) </code>. For the other cases, a <code>Long</code> object is returned. The
-     * upper 32 bits for this <code>Long</code> is the tile owner's hash code, and the lower 32 bits is the tile's index.
+     * Returns the hash table "key" as a <code>Object</code> for this tile. The key is a <code>TileKey</code> made of the image ID, as generated by
+     * the method <code>ImageUtil.generateID(Object)</code>, and of the tile index.
      */
     static Object tileKey(PlanarImage owner, int tileX, int tileY) {
         long idx = tileY * (long) owner.getNumXTiles() + tileX;
-
-        BigInteger imageID = (BigInteger) owner.getImageID();
-        byte[] buf = imageID.toByteArray();
-        int length = buf.length;
-        byte[] buf1 = new byte[length + 8];
-        System.arraycopy(buf, 0, buf1, 0, length);
-        for (int i = 7, j = 0; i >= 0; i--, j += 8)
-            buf1[length++] = (byte) (idx >> j);
-        return new BigInteger(buf1);
+        return new TileKey(owner.getImageID(), idx);
     }
 
     /**
@@ -667,10 +1046,45 @@ public class JAIExtTileScheduler implements TileScheduler {
     }
 
     /**
-     * Tile computation. Does the actual calls to getTile().
+     * Returns <code>true</code> if the supplied deadline has expired.
+     * 
+     * @param deadline The time in milliseconds since the epoch, or 0 if there is no deadline.
+     */
+    static boolean isExpired(long deadline) {
+        return deadline > 0 && System.currentTimeMillis() > deadline;
+    }
+
+    /**
+     * Marks a tile as cancelled in the supplied <code>Request</code>s, which have been cancelled or whose deadlines have expired, and notifies
+     * their listeners.
+     */
+    void tilesCancelled(List reqList, PlanarImage owner, int tileX, int tileY) {
+        if(LOGGER.isLoggable(Level.FINEST)){
+            LOGGER.log(Level.FINEST, "Cancelled tile: ("+ tileX + ", " + tileY +")");
+        }
+        Point p = new Point(tileX, tileY);
+        Integer tileStatus = new Integer(TileRequest.TILE_STATUS_CANCELLED);
+        int numReq = reqList.size();
+        for (int i = 0; i < numReq; i++) {
+            ((Request) reqList.get(i)).tileStatus.put(p, tileStatus);
+        }
+        Set listeners = getListeners(reqList);
+        if (listeners != null) {
+            TileRequest[] requests = (TileRequest[]) reqList.toArray(new TileRequest[0]);
+            Iterator iter = listeners.iterator();
+            while (iter.hasNext()) {
+                TileComputationListener listener = (TileComputationListener) iter.next();
+                listener.tileCancelled(this, requests, owner, tileX, tileY);
+            }
+        }
+    }
+
+    /**
+     * Tile computation. Does the actual calls to getTile(). The computation stops at the first tile found after the deadline. The computed tiles
+     * are counted by the supplied monitor, if any.
      */
     Exception compute(PlanarImage owner, Point[] tileIndices, Raster[] tiles, int offset,
-            int numTiles, Request request) {
+            int numTiles, Request request, long deadline, QueueMonitor monitor) {
         Exception exception = null;
 
         if(LOGGER.isLoggable(Level.FINEST)){
@@ -679,14 +1093,36 @@ public class JAIExtTileScheduler implements TileScheduler {
         
         int j = offset;
         if (request == null || request.listeners == null) {
+            // The batched computation is abandoned once the image fails it.
+            boolean batching = owner instanceof OpImage && owner instanceof MultiTileComputer;
             for (int i = 0; i < numTiles; i++, j++) {
                 Point p = tileIndices[j];
 
+                if (isExpired(deadline)) {
+                    exception = new CancellationException(JaiI18N.getString("JaiExtTileScheduler_11"));
+                    break;
+                }
+                if (CancellationToken.isCurrentCancelled()) {
+                    exception = new CancellationException(JaiI18N.getString("JaiExtTileScheduler_13"));
+                    break;
+                }
+
                 try {
                     if(LOGGER.isLoggable(Level.FINEST)){
                         LOGGER.log(Level.FINEST, "Requested tile: ("+ p.x + ", " + p.y +")");
                     }
-                    tiles[j] = owner.getTile(p.x, p.y);
+                    // Compute the following tiles together if the image
+                    // supports it.
+                    if (batching && tiles[j] == null && i < numTiles - 1) {
+                        batching = computeBatch((OpImage) owner, tileIndices, tiles, j,
+                                offset + numTiles);
+                    }
+                    if (tiles[j] == null) {
+                        tiles[j] = owner.getTile(p.x, p.y);
+                    }
+                    if (monitor != null) {
+                        monitor.computed();
+                    }
                 } catch (Exception e) {
                     exception = e;
 
@@ -699,6 +1135,15 @@ public class JAIExtTileScheduler implements TileScheduler {
             for (int i = 0; i < numTiles; i++, j++) {
                 Point p = tileIndices[j];
 
+                if (isExpired(deadline)) {
+                    exception = new CancellationException(JaiI18N.getString("JaiExtTileScheduler_11"));
+                    break;
+                }
+                if (CancellationToken.isCurrentCancelled()) {
+                    exception = new CancellationException(JaiI18N.getString("JaiExtTileScheduler_13"));
+                    break;
+                }
+
                 // Update tile status to "processing".
                 Integer tileStatus = new Integer(TileRequest.TILE_STATUS_PROCESSING);
                 request.tileStatus.put(p, tileStatus);
@@ -744,11 +1189,14 @@ public class JAIExtTileScheduler implements TileScheduler {
             }
             int lastOffset = j;
             int numFailed = numTiles - (lastOffset - offset);
+            // Cancelled tiles are not failed.
+            boolean cancelled = exception instanceof CancellationException;
 
             // Mark all tiles starting with the one which generated the
             // Exception as "failed".
             for (int i = 0, k = lastOffset; i < numFailed; i++) {
-                Integer tileStatus = new Integer(TileRequest.TILE_STATUS_FAILED);
+                Integer tileStatus = new Integer(cancelled ? TileRequest.TILE_STATUS_CANCELLED
+                        : TileRequest.TILE_STATUS_FAILED);
                 request.tileStatus.put(tileIndices[k++], tileStatus);
             }
 
@@ -759,7 +1207,11 @@ public class JAIExtTileScheduler implements TileScheduler {
                 Iterator iter = request.listeners.iterator();
                 while (iter.hasNext()) {
                     TileComputationListener listener = (TileComputationListener) iter.next();
-                    listener.tileComputationFailure(this, reqs, owner, p.x, p.y, exception);
+                    if (cancelled) {
+                        listener.tileCancelled(this, reqs, owner, p.x, p.y);
+                    } else {
+                        listener.tileComputationFailure(this, reqs, owner, p.x, p.y, exception);
+                    }
                 }
             }
         }
@@ -775,6 +1227,108 @@ public class JAIExtTileScheduler implements TileScheduler {
         return exception;
     }
 
+    /**
+     * Computes at once a run of adjacent tiles of the same row through <code>MultiTileComputer.computeTiles()</code>, up to the maximum batch
+     * size, and adds them to the tile cache. The tiles of the run which are cached or computed by other threads are left out: they are
+     * obtained later through <code>getTile()</code>, as are the tiles which the image failed to compute. If the image throws an exception, the
+     * exception is reported to the <code>ImagingListener</code> as for a single tile, the threads waiting for the tiles of the batch fail
+     * and the caller computes the tiles one at a time.
+     * 
+     * @param owner The image the tiles belong to.
+     * @param tileIndices An array of tile X and Y indices.
+     * @param tiles The computed tiles.
+     * @param start The index of the first tile of the run.
+     * @param end The index after the last tile which may be part of the run.
+     * @return <code>false</code> if the image failed to compute the batch.
+     */
+    private boolean computeBatch(OpImage owner, Point[] tileIndices, Raster[] tiles, int start, int end) {
+        // Find the run of adjacent tiles.
+        int runEnd = start + 1;
+        int maxSize = maxBatchSize;
+        while (runEnd < end && runEnd - start < maxSize) {
+            Point previous = tileIndices[runEnd - 1];
+            Point next = tileIndices[runEnd];
+            if (next.y != previous.y || next.x != previous.x + 1) {
+                break;
+            }
+            runEnd++;
+        }
+        if (runEnd - start < 2) {
+            return true;
+        }
+
+        // Register the computation of the tiles which are neither cached nor
+        // in progress.
+        TileCache cache = owner.getTileCache();
+        int length = runEnd - start;
+        int[] offsets = new int[length];
+        Object[] tileIDs = new Object[length];
+        TileFuture[] futures = new TileFuture[length];
+        int size = 0;
+        for (int k = start; k < runEnd; k++) {
+            Point p = tileIndices[k];
+            if (cache != null && (tiles[k] = cache.getTile(owner, p.x, p.y)) != null) {
+                continue;
+            }
+            Object tileID = tileKey(owner, p.x, p.y);
+            TileFuture future = new TileFuture();
+            if (tilesInProgress.putIfAbsent(tileID, future) == null) {
+                offsets[size] = k;
+                tileIDs[size] = tileID;
+                futures[size++] = future;
+            }
+        }
+        if (size == 0) {
+            return true;
+        }
+        Point[] indices = new Point[size];
+        for (int i = 0; i < size; i++) {
+            indices[i] = tileIndices[offsets[i]];
+        }
+
+        if(LOGGER.isLoggable(Level.FINEST)){
+            LOGGER.log(Level.FINEST, "Computing " + size + " tiles from: ("+ indices[0].x + ", " + indices[0].y +")");
+        }
+        Raster[] computed = null;
+        Throwable failure = null;
+        long startTime = System.nanoTime();
+        try {
+            computed = ((MultiTileComputer) owner).computeTiles(indices);
+        } catch (CancellationException e) {
+            failure = e;
+            throw e;
+        } catch (RuntimeException e) {
+            failure = e;
+            sendExceptionToListener(JaiI18N.getString("JaiExtTileScheduler_5"), e);
+        } catch (Error e) {
+            failure = e;
+            throw e;
+        } finally {
+            // The time is shared among the tiles of the batch.
+            long time = (System.nanoTime() - startTime) / size;
+            OperationMetrics metrics = getOperationMetrics(owner);
+            for (int i = 0; i < size; i++) {
+                Raster tile = computed != null && computed.length == size ? computed[i] : null;
+                metrics.recordCompute(time, tile == null
+                        && !(failure instanceof CancellationException));
+                if (tile != null) {
+                    recordTileCost(owner, time);
+                    if (cache != null) {
+                        cache.add(owner, indices[i].x, indices[i].y, tile,
+                                owner.getTileCacheMetric());
+                    }
+                    tiles[offsets[i]] = tile;
+                    futures[i].complete(tile);
+                } else {
+                    futures[i].fail(failure != null ? failure : new ImagingException(
+                            JaiI18N.getString("JaiExtTileScheduler_4")));
+                }
+                tilesInProgress.remove(tileIDs[i], futures[i]);
+            }
+        }
+        return failure == null;
+    }
+
     /**
      * Schedules a single tile for computation.
      * 
@@ -787,13 +1341,15 @@ public class JAIExtTileScheduler implements TileScheduler {
      * @return The computed tile
      */
     //
-    // This method blocks on the 'tilesInProgress' Map to avoid simultaneous
+    // This method uses the 'tilesInProgress' Map to avoid simultaneous
     // computation of the same tile in two or more different threads. The idea
     // is to release the resources of all but one thread so that the computation
-    // occurs more quickly. The synchronization variable is an Object[] of length
-    // unity. The computed tile is passed from the computing thread to the
-    // waiting threads via the contents of this Object[]. Thus this method does
-    // not depend on the TileCache to transfer the data.
+    // occurs more quickly. The first thread registers a TileFuture with
+    // putIfAbsent() and computes the tile, the other threads wait on the same
+    // future. The computed tile is passed from the computing thread to the
+    // waiting threads via the future. Thus this method does not depend on the
+    // TileCache to transfer the data, and no lock is shared between the
+    // computations of different tiles.
     //
     public Raster scheduleTile(OpImage owner, int tileX, int tileY) {
         if (owner == null) {
@@ -810,20 +1366,13 @@ public class JAIExtTileScheduler implements TileScheduler {
         // Get the tile's unique ID.
         Object tileID = tileKey(owner, tileX, tileY);
 
-        // Set the computation flag and initialize or retrieve the tile cache.
-        boolean computeTile = false;
-        Object[] cache = null;
-        synchronized (tilesInProgress) {
-            if (computeTile = !tilesInProgress.containsKey(tileID)) {
-                // Computing: add tile ID to the map.
-                tilesInProgress.put(tileID, cache = new Object[1]);
-            } else {
-                // Waiting: get tile cache from the Map.
-                cache = (Object[]) tilesInProgress.get(tileID);
-            }
-        }
+        // Register the computation or retrieve the one in progress.
+        TileFuture future = new TileFuture();
+        TileFuture inProgress = tilesInProgress.putIfAbsent(tileID, future);
 
-        if (computeTile) {
+        if (inProgress == null) {
+            Throwable failure = null;
+            long start = System.nanoTime();
             try {
                 try {
                     if(LOGGER.isLoggable(Level.FINEST)){
@@ -846,8 +1395,13 @@ public class JAIExtTileScheduler implements TileScheduler {
                     tile = owner.computeTile(tileX, tileY);
                 }
             } catch (Throwable e) {
+                failure = e;
                 // Re-throw the Error or Exception.
-                if (e instanceof Error) {
+                if (e instanceof CancellationException) {
+                    // The computation has been stopped by the cancellation
+                    // token of the calling thread.
+                    throw (CancellationException) e;
+                } else if (e instanceof Error) {
                     throw (Error) e;
                 } else if (e instanceof RuntimeException) {
                     sendExceptionToListener(JaiI18N.getString("JaiExtTileScheduler_5"), e);
@@ -860,49 +1414,130 @@ public class JAIExtTileScheduler implements TileScheduler {
                      */
                 }
             } finally {
-                synchronized (cache) {
-                    // Always set the cached tile to a non-null value.
-                    cache[0] = tile != null ? tile : new Object();
-                    if(LOGGER.isLoggable(Level.FINEST)){
-                        LOGGER.log(Level.FINEST, "Cache notify");
-                    }
-                    // Notify the thread(s).
-                    cache.notifyAll();
-
-                    synchronized (tilesInProgress) {
-                        // Remove the tile ID from the Map.
-                        tilesInProgress.remove(tileID);
-                    }
-                }
-            }
-        } else {
-            synchronized (cache) {
-                // Check the cache: a null value indicates computation is
-                // still in progress.
-                if (cache[0] == null) {
-                    // Wait for the computation to complete.
-                    try {
-                        if(LOGGER.isLoggable(Level.FINEST)){
-                            LOGGER.log(Level.FINEST, "Cache Waiting");
-                        }
-                        cache.wait(); // XXX Should there be a timeout?
-                    } catch (Exception e) {
-                        // XXX What response here?
-                    }
+                long time = System.nanoTime() - start;
+                getOperationMetrics(owner).recordCompute(time,
+                        tile == null && !(failure instanceof CancellationException));
+                if (tile != null) {
+                    recordTileCost(owner, time);
                 }
 
-                // Set the result only if cache contains a Raster.
-                if (cache[0] instanceof Raster) {
-                    tile = (Raster) cache[0];
+                // Always complete the future, so that the waiting threads are released.
+                if (tile != null) {
+                    future.complete(tile);
                 } else {
-                    throw new RuntimeException(JaiI18N.getString("JaiExtTileScheduler_4"));
+                    future.fail(failure != null ? failure : new ImagingException(
+                            JaiI18N.getString("JaiExtTileScheduler_4")));
+                }
+                if(LOGGER.isLoggable(Level.FINEST)){
+                    LOGGER.log(Level.FINEST, "Cache notify");
                 }
+                // Remove the tile ID from the Map.
+                tilesInProgress.remove(tileID, future);
+            }
+        } else {
+            // An elastic job waiting for another thread gives back its permit.
+            Object held = ElasticPool.beginBlocking();
+            try {
+                tile = waitForTile(inProgress);
+            } finally {
+                ElasticPool.endBlocking(held);
+            }
+            if (tile == null) {
+                // The computation has been cancelled by the token of another
+                // thread: compute the tile for this thread.
+                return scheduleTile(owner, tileX, tileY);
             }
         }
 
         return tile;
     }
 
+    /**
+     * Waits for a tile computed by another thread.
+     * 
+     * @param inProgress The computation in progress.
+     * 
+     * @return The computed tile, or <code>null</code> if the computing thread has been stopped by its cancellation token while the token of the
+     *         calling thread is not cancelled.
+     * 
+     * @exception java.util.concurrent.CancellationException if the computation has been cancelled by <code>cancelTile()</code> or by the
+     *            cancellation token of the calling thread.
+     * @exception RuntimeException if the computation failed, the tile timeout expired or the thread has been interrupted.
+     */
+    private Raster waitForTile(TileFuture inProgress) {
+        if(LOGGER.isLoggable(Level.FINEST)){
+            LOGGER.log(Level.FINEST, "Cache Waiting");
+        }
+        try {
+            long timeout = tileTimeout;
+            Raster tile = timeout > 0 ? inProgress.get(timeout, TimeUnit.MILLISECONDS)
+                    : inProgress.get();
+            if (tile != null) {
+                return tile;
+            }
+        } catch (TimeoutException e) {
+            throw new RuntimeException(JaiI18N.getString("JaiExtTileScheduler_8"), e);
+        } catch (InterruptedException e) {
+            // Preserve the interruption for the caller.
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof CancellationException) {
+                CancellationToken.checkCancelled();
+                return null;
+            }
+            // The computation failed: the cause has already been reported
+            // by the computing thread.
+        }
+        throw new RuntimeException(JaiI18N.getString("JaiExtTileScheduler_4"));
+    }
+
+    /**
+     * Cancels the computation of a tile scheduled by <code>scheduleTile()</code>. The threads waiting for the tile are released with a
+     * <code>CancellationException</code>, while the thread computing the tile is not interrupted and still receives the tile. Subsequent requests
+     * for the same tile start a new computation.
+     * 
+     * @param owner The image the tile belongs to.
+     * @param tileX The tile's X index.
+     * @param tileY The tile's Y index.
+     * 
+     * @exception IllegalArgumentException if <code>owner</code> is <code>null</code>.
+     * 
+     * @return <code>true</code> if a computation in progress has been cancelled.
+     */
+    public boolean cancelTile(PlanarImage owner, int tileX, int tileY) {
+        if (owner == null) {
+            throw new IllegalArgumentException(JaiI18N.getString("JaiExtTileScheduler_1"));
+        }
+        Object tileID = tileKey(owner, tileX, tileY);
+        TileFuture inProgress = tilesInProgress.get(tileID);
+        if (inProgress == null || !inProgress.cancel(false)) {
+            return false;
+        }
+        tilesInProgress.remove(tileID, inProgress);
+        return true;
+    }
+
+    /**
+     * Sets the maximum time a thread waits for a tile which is being computed by another thread in <code>scheduleTile()</code>. When the timeout
+     * expires a <code>RuntimeException</code> is thrown. A value of 0, the default, means that the thread waits until the computation ends.
+     * 
+     * @param timeout The timeout in milliseconds.
+     * @throws IllegalArgumentException if <code>timeout</code> is negative.
+     */
+    public void setTileTimeout(long timeout) {
+        if (timeout < 0) {
+            throw new IllegalArgumentException(JaiI18N.getString("JaiExtTileScheduler_7"));
+        }
+        tileTimeout = timeout;
+    }
+
+    /**
+     * Returns the maximum time in milliseconds a thread waits for a tile which is being computed by another thread.
+     */
+    public long getTileTimeout() {
+        return tileTimeout;
+    }
+
     /**
      * General purpose method for job creation and queueing. Note that the returned value should be ignored if the <code>listener</code> parameter is
      * non-<code>null</code>.
@@ -911,6 +1546,8 @@ public class JAIExtTileScheduler implements TileScheduler {
      * @param tileIndices The indices of the tiles to be computed.
      * @param isPrefetch Whether the operation is a prefetch.
      * @param listener A <code>TileComputationListener</code> of the processing. May be <code>null</code>.
+     * @param priority The priority of the jobs.
+     * @param deadline The time after which the tiles are not computed, or 0 if there is no deadline.
      * 
      * @return The computed tiles. This value is meaningless if <code>listener</code> is non-<code>null</code>.
      */
@@ -923,7 +1560,7 @@ public class JAIExtTileScheduler implements TileScheduler {
     // Integer <=> (isBlocking,isPrefetch) == (false,false)
     // (Raster[])null <=> (isBlocking,isPrefetch) == (false,true)
     private Object scheduleJob(PlanarImage owner, Point[] tileIndices, boolean isBlocking,
-            boolean isPrefetch, TileComputationListener[] listeners) {
+            boolean isPrefetch, TileComputationListener[] listeners, int priority, long deadline) {
         if (owner == null || tileIndices == null) {
             // null parameters
             throw new IllegalArgumentException(JaiI18N.getString("JaiExtTileScheduler_0")); // coding error - no message
@@ -938,6 +1575,16 @@ public class JAIExtTileScheduler implements TileScheduler {
             LOGGER.log(Level.FINEST, "Scheduling Job");
         }
         
+        // Reorder the tiles so that neighbouring tiles are computed together.
+        Point[] requestedIndices = tileIndices;
+        int[] permutation = TileOrdering.sort(tileIndices, tileOrder);
+        if (permutation != null) {
+            tileIndices = new Point[permutation.length];
+            for (int i = 0; i < permutation.length; i++) {
+                tileIndices[i] = requestedIndices[permutation[i]];
+            }
+        }
+
         int numTiles = tileIndices.length;
         Raster[] tiles = new Raster[numTiles];
         Object returnValue = tiles;
@@ -946,17 +1593,32 @@ public class JAIExtTileScheduler implements TileScheduler {
         Job[] jobs = null;
         int numJobs = 0;
 
+        // Wait for room in the queue before taking the locks, unless the
+        // job is scheduled by a worker, whose tile may depend on it.
+        if (overloadPolicy != OverloadPolicy.REJECT
+                && (overloadPolicy == OverloadPolicy.BLOCK || !isPrefetch)
+                && !isSchedulerThread()) {
+            getQueueMonitor(isPrefetch).awaitRoom();
+        }
+
         synchronized (getWorkers(isPrefetch)) {
             numThreads = getNumThreads(isPrefetch);
 
+            // The bound is checked once for the whole request, so that its
+            // jobs are either all queued or all rejected.
+            boolean reject = overloadPolicy == OverloadPolicy.REJECT && !isSchedulerThread()
+                    && getQueueMonitor(isPrefetch).isFull();
+
             if (numThreads > 0) { // worker threads exist
                 if (numTiles <= numThreads || // no more tiles than threads
-                        (!isBlocking && !isPrefetch)) { // non-blocking, non-prefetch
+                        (!isBlocking && !isPrefetch) || // non-blocking, non-prefetch
+                        backend == Backend.ELASTIC) { // a thread for each tile
 
                     jobs = new Job[numTiles];
 
                     if (!isBlocking && !isPrefetch) {
-                        Request request = new Request(this, owner, tileIndices, listeners);
+                        Request request = new Request(this, owner, requestedIndices, listeners,
+                                priority, deadline);
 
                         // Override return value.
                         returnValue = request;
@@ -982,19 +1644,19 @@ public class JAIExtTileScheduler implements TileScheduler {
                                     tileRequests.put(tileID, reqList);
 
                                     jobs[numJobs] = new RequestJob(this, owner, p.x, p.y, tiles,
-                                            numJobs);
+                                            numJobs, priority);
 
                                     tileJobs.put(tileID, jobs[numJobs]);
 
-                                    addJob(jobs[numJobs++], false);
+                                    addJob(jobs[numJobs++], false, reject);
                                 }
                             }
                         }
                     } else { // numTiles <= numThreads
                         while (numJobs < numTiles) {
                             jobs[numJobs] = new TileJob(this, isBlocking, owner, tileIndices,
-                                    tiles, numJobs, 1);
-                            addJob(jobs[numJobs++], isPrefetch);
+                                    tiles, numJobs, 1, priority, deadline);
+                            addJob(jobs[numJobs++], isPrefetch, reject);
                         }
                     }
                 } else { // more tiles than worker threads
@@ -1056,10 +1718,10 @@ public class JAIExtTileScheduler implements TileScheduler {
 
                         // Create a job to process the number of tiles needed.
                         jobs[numJobs] = new TileJob(this, isBlocking, owner, tileIndices, tiles,
-                                numTilesQueued, numTilesInThread);
+                                numTilesQueued, numTilesInThread, priority, deadline);
 
                         // Queue the job and increment the job count.
-                        addJob(jobs[numJobs++], isPrefetch);
+                        addJob(jobs[numJobs++], isPrefetch, reject);
 
                         // Increment the count of tiles queued.
                         numTilesQueued += numTilesInThread;
@@ -1078,48 +1740,65 @@ public class JAIExtTileScheduler implements TileScheduler {
             // case we just want to continue.
             if (isBlocking) {
                 LinkedList jobQueue = getQueue(isPrefetch);
-                for (int i = 0; i < numJobs; i++) {
-                    synchronized (this) {
-                        while (jobs[i].notDone()) {
-                            try {
-                                if(LOGGER.isLoggable(Level.FINEST)){
-                                    LOGGER.log(Level.FINEST, "Waiting the Job computation");
+                JobExecutor pool = getPool(isPrefetch);
+                // An elastic job waiting for other jobs gives back its permit.
+                Object held = ElasticPool.beginBlocking();
+                try {
+                    for (int i = 0; i < numJobs; i++) {
+                        // A work-stealing worker keeps computing queued jobs
+                        // instead of blocking.
+                        while (jobs[i].notDone() && pool != null && pool.helpCompute()) {
+                        }
+                        synchronized (this) {
+                            while (jobs[i].notDone()) {
+                                try {
+                                    if(LOGGER.isLoggable(Level.FINEST)){
+                                        LOGGER.log(Level.FINEST, "Waiting the Job computation");
+                                    }
+                                    wait(5000l);
+                                } catch (InterruptedException ie) {
+                                    // Ignore: should never happen.
                                 }
-                                wait(5000l);
-                            } catch (InterruptedException ie) {
-                                // Ignore: should never happen.
                             }
                         }
-                    }
 
-                    // XXX: should we re-throw the exception or
-                    // should we reschedule this job ??
-                    Exception e = jobs[i].getException();
-
-                    if (e != null) {
-                        // Throw a RuntimeException with the Exception's
-                        // message concatenated with the stack trace.
-                        String message = JaiI18N.getString("JaiExtTileScheduler_5");
-                        sendExceptionToListener(message, new ImagingException(message, e));
-                        /*
-                         * throw new RuntimeException(e.getMessage()+"\n"+ getStackTraceString(e));
-                         */
+                        // XXX: should we re-throw the exception or
+                        // should we reschedule this job ??
+                        Exception e = jobs[i].getException();
+
+                        if (e != null) {
+                            reportJobException(e);
+                        }
                     }
+                } finally {
+                    ElasticPool.endBlocking(held);
                 }
             }
         } else { // numThreads == 0
             Request request = null;
             if (!isBlocking && !isPrefetch) {
-                request = new Request(this, owner, tileIndices, listeners);
+                request = new Request(this, owner, requestedIndices, listeners, priority,
+                        deadline);
                 returnValue = request;
             }
 
             // no workers; sequentially compute tiles in main thread
-            Exception e = compute(owner, tileIndices, tiles, 0, numTiles, request);
+            CancellationToken previous = request != null ? CancellationToken.bind(request.token)
+                    : null;
+            Exception e;
+            try {
+                e = compute(owner, tileIndices, tiles, 0, numTiles, request, deadline, null);
+            } finally {
+                if (request != null) {
+                    CancellationToken.bind(previous);
+                }
+            }
 
-            // Throw a RuntimeException with the Exception's
-            // message concatenated with the stack trace.
-            if (e != null) {
+            if (e != null && request == null) {
+                reportJobException(e);
+            } else if (e != null && !(e instanceof CancellationException)) {
+                // Throw a RuntimeException with the Exception's
+                // message concatenated with the stack trace.
                 String message = JaiI18N.getString("JaiExtTileScheduler_5");
                 sendExceptionToListener(message, new ImagingException(message, e));
                 /*
@@ -1128,6 +1807,15 @@ public class JAIExtTileScheduler implements TileScheduler {
             }
         }
 
+        // Return the tiles in the requested order.
+        if (permutation != null && returnValue == tiles) {
+            Raster[] requestedTiles = new Raster[tiles.length];
+            for (int i = 0; i < permutation.length; i++) {
+                requestedTiles[permutation[i]] = tiles[i];
+            }
+            returnValue = requestedTiles;
+        }
+
         return returnValue;
     }
 
@@ -1143,7 +1831,27 @@ public class JAIExtTileScheduler implements TileScheduler {
         if (owner == null || tileIndices == null) {
             throw new IllegalArgumentException(JaiI18N.getString("JaiExtTileScheduler_0"));
         }
-        return (Raster[]) scheduleJob(owner, tileIndices, true, false, null);
+        return scheduleTiles(owner, tileIndices, NORM_REQUEST_PRIORITY, 0);
+    }
+
+    /**
+     * Schedules multiple tiles of an image for computation with the supplied priority and deadline. Tiles with higher priority are computed
+     * before the queued tiles with lower priority. The tiles which are not started before the deadline are not computed and are returned as
+     * <code>null</code>.
+     * 
+     * @param owner The image the tiles belong to.
+     * @param tileIndices An array of tile X and Y indices.
+     * @param priority The priority of the tiles. The default priority is {@link #NORM_REQUEST_PRIORITY}.
+     * @param deadline The time, in milliseconds since the epoch as returned by <code>System.currentTimeMillis()</code>, after which the tiles
+     *        are not computed anymore, or 0 if there is no deadline.
+     * 
+     * @return An array of computed tiles.
+     */
+    public Raster[] scheduleTiles(OpImage owner, Point tileIndices[], int priority, long deadline) {
+        if (owner == null || tileIndices == null) {
+            throw new IllegalArgumentException(JaiI18N.getString("JaiExtTileScheduler_0"));
+        }
+        return (Raster[]) scheduleJob(owner, tileIndices, true, false, null, priority, deadline);
     }
 
     /**
@@ -1156,7 +1864,28 @@ public class JAIExtTileScheduler implements TileScheduler {
         if (target == null || tileIndices == null) {
             throw new IllegalArgumentException(JaiI18N.getString("JaiExtTileScheduler_0"));
         }
-        return (TileRequest) scheduleJob(target, tileIndices, false, false, tileListeners);
+        return scheduleTiles(target, tileIndices, tileListeners, NORM_REQUEST_PRIORITY, 0);
+    }
+
+    /**
+     * Schedules a list of tiles for computation with the supplied priority and deadline. Tiles with higher priority are computed before the queued
+     * tiles with lower priority, so that interactive requests can overtake batch requests. When the deadline expires before a tile is started, the
+     * tile is not computed and the listeners are notified through <code>tileCancelled()</code>.
+     * 
+     * @param target The image the tiles belong to.
+     * @param tileIndices An array of tile X and Y indices.
+     * @param tileListeners The listeners to be notified of tile computation, cancellation, or failure.
+     * @param priority The priority of the tiles. The default priority is {@link #NORM_REQUEST_PRIORITY}.
+     * @param deadline The time, in milliseconds since the epoch as returned by <code>System.currentTimeMillis()</code>, after which the tiles
+     *        are not computed anymore, or 0 if there is no deadline.
+     */
+    public TileRequest scheduleTiles(PlanarImage target, Point[] tileIndices,
+            TileComputationListener[] tileListeners, int priority, long deadline) {
+        if (target == null || tileIndices == null) {
+            throw new IllegalArgumentException(JaiI18N.getString("JaiExtTileScheduler_0"));
+        }
+        return (TileRequest) scheduleJob(target, tileIndices, false, false, tileListeners,
+                priority, deadline);
     }
 
     /**
@@ -1202,6 +1931,12 @@ public class JAIExtTileScheduler implements TileScheduler {
             // Cache the count.
             int numTiles = indices.length;
 
+            // Stop the computation of the tiles in progress if the whole
+            // request is cancelled.
+            if (numTiles == reqIndexList.size()) {
+                req.token.cancel();
+            }
+
             // Cache status value.
             Integer tileStatus = new Integer(TileRequest.TILE_STATUS_CANCELLED);
 
@@ -1228,8 +1963,10 @@ public class JAIExtTileScheduler implements TileScheduler {
                 if (reqList.isEmpty()) {
                     synchronized (queue) {
                         Object job = tileJobs.remove(tileID);
-                        if (job != null) {
-                            queue.remove(job);
+                        if (job != null
+                                && (queue.remove(job) || (executor != null && executor
+                                        .remove((Job) job)))) {
+                            queueMonitor.removed();
                         }
                     }
                     tileRequests.remove(tileID);
@@ -1266,7 +2003,7 @@ public class JAIExtTileScheduler implements TileScheduler {
         if (owner == null || tileIndices == null) {
             throw new IllegalArgumentException(JaiI18N.getString("JaiExtTileScheduler_0"));
         }
-        scheduleJob(owner, tileIndices, false, true, null);
+        scheduleJob(owner, tileIndices, false, true, null, NORM_REQUEST_PRIORITY, 0);
     }
 
     /**
@@ -1279,6 +2016,8 @@ public class JAIExtTileScheduler implements TileScheduler {
      * number of processors is not available via the virtual machine. A parallelism value of zero indicates that all tile computation will be effected
      * in the primary thread. A parallelism value of <i>N</i> indicates that there will be <i>N</i> worker threads in addition to the primary
      * scheduler thread. In JAI the parallelism defaults to a value of 2 unless explicity set by the application.
+     * <p>
+     * When the adaptive parallelism is enabled, the supplied value is only the starting point of the controller.
      * 
      * @param parallelism The suggested degree of parallelism.
      * @throws IllegalArgumentException if <code>parallelism</code> is negative.
@@ -1297,6 +2036,85 @@ public class JAIExtTileScheduler implements TileScheduler {
         return parallelism;
     }
 
+    /**
+     * Enables the adaptive parallelism: the number of standard workers is resized between the supplied bounds according to the observed tile
+     * throughput, the time waited by the jobs in the queue and the load of the system. The parallelism moves by one thread at each adaptation
+     * interval, in the direction which improves the throughput, and shrinks while the system is oversubscribed. The prefetch parallelism is not
+     * adapted.
+     * 
+     * @param minParallelism The minimum number of worker threads.
+     * @param maxParallelism The maximum number of worker threads.
+     * @throws IllegalArgumentException if <code>minParallelism</code> is less than 1 or greater than <code>maxParallelism</code>.
+     */
+    public void setAdaptiveParallelism(int minParallelism, int maxParallelism) {
+        if (minParallelism < 1 || maxParallelism < minParallelism) {
+            throw new IllegalArgumentException(JaiI18N.getString("JaiExtTileScheduler_20"));
+        }
+        synchronized (getWorkers(false)) {
+            if (parallelismController != null) {
+                parallelismController.stop();
+            }
+            parallelism = Math.max(minParallelism, Math.min(maxParallelism, parallelism));
+            createThreadGroup(false);
+            parallelismController = new ParallelismController(this, queueMonitor, minParallelism,
+                    maxParallelism, rootGroup, nameOfThisInstance + "Controller");
+            parallelismController.start();
+        }
+    }
+
+    /**
+     * Disables the adaptive parallelism. The current parallelism is kept until it is changed by <code>setParallelism()</code>.
+     */
+    public void disableAdaptiveParallelism() {
+        synchronized (getWorkers(false)) {
+            if (parallelismController != null) {
+                parallelismController.stop();
+                parallelismController = null;
+            }
+        }
+    }
+
+    /**
+     * Returns <code>true</code> if the parallelism is adapted by the scheduler.
+     */
+    public boolean isAdaptiveParallelism() {
+        synchronized (getWorkers(false)) {
+            return parallelismController != null;
+        }
+    }
+
+    /**
+     * Sets the time between two adaptations of the parallelism. The default interval is one second.
+     * 
+     * @param interval The adaptation interval in milliseconds.
+     * @throws IllegalArgumentException if <code>interval</code> is less than 1.
+     */
+    public void setAdaptationInterval(long interval) {
+        if (interval < 1) {
+            throw new IllegalArgumentException(JaiI18N.getString("JaiExtTileScheduler_21"));
+        }
+        adaptationInterval = interval;
+    }
+
+    /**
+     * Returns the time between two adaptations of the parallelism, in milliseconds.
+     */
+    public long getAdaptationInterval() {
+        return adaptationInterval;
+    }
+
+    /**
+     * Applies the parallelism computed by a controller, unless the controller has been replaced in the meantime.
+     */
+    void adaptParallelism(ParallelismController controller, int parallelism) {
+        synchronized (getWorkers(false)) {
+            if (controller == parallelismController) {
+                this.parallelism = parallelism;
+                getNumThreads(false);
+            }
+        }
+    }
+
     /**
      * Identical to <code>setParallelism()</code> but applies only to <code>prefetchTiles()</code>.
      */
@@ -1354,6 +2172,243 @@ public class JAIExtTileScheduler implements TileScheduler {
         return prefetchPriority;
     }
 
+    /**
+     * Sets the backend executing the tile computation jobs. With {@link Backend#QUEUE}, the default, the worker threads take the jobs from a single
+     * shared queue. With {@link Backend#WORK_STEALING} each worker owns a deque of jobs and steals jobs from the other workers when its deque is
+     * empty, so that large batches of tiles are spread across the workers without contention on a shared queue. With {@link Backend#ELASTIC} each
+     * tile is computed by its own thread, up to the maximum number of jobs in flight, while the parallelism limits the number of tiles computing at
+     * the same time: tiles waiting for I/O inside {@link #callBlocking(Callable)} do not count. The jobs already queued are completed by the
+     * previous backend.
+     * 
+     * @param backend The backend to use.
+     * @throws IllegalArgumentException if <code>backend</code> is <code>null</code>.
+     */
+    public void setBackend(Backend backend) {
+        if (backend == null) {
+            throw new IllegalArgumentException(JaiI18N.getString("JaiExtTileScheduler_9"));
+        }
+        synchronized (getWorkers(false)) {
+            synchronized (getWorkers(true)) {
+                if (this.backend == backend) {
+                    return;
+                }
+                Backend previous = this.backend;
+                this.backend = backend;
+                if (previous == Backend.QUEUE) {
+                    terminateAll(false);
+                    terminateAll(true);
+                } else {
+                    shutdownPools();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the backend executing the tile computation jobs.
+     */
+    public Backend getBackend() {
+        return backend;
+    }
+
+    /**
+     * Sets the order in which the tiles of a request are computed. With {@link TileOrder#Z_ORDER} or {@link TileOrder#HILBERT} the tiles are
+     * sorted along the curve before being split into jobs, so that each worker computes a contiguous run of neighbouring tiles. Neighbouring tiles
+     * share their source tiles in area and geometric operations, which raises the source tile cache hits. The tiles returned by
+     * <code>scheduleTiles()</code> are always in the requested order.
+     * 
+     * @param tileOrder The order of the tiles.
+     * @throws IllegalArgumentException if <code>tileOrder</code> is <code>null</code>.
+     */
+    public void setTileOrder(TileOrder tileOrder) {
+        if (tileOrder == null) {
+            throw new IllegalArgumentException(JaiI18N.getString("JaiExtTileScheduler_12"));
+        }
+        this.tileOrder = tileOrder;
+    }
+
+    /**
+     * Returns the order in which the tiles of a request are computed.
+     */
+    public TileOrder getTileOrder() {
+        return tileOrder;
+    }
+
+    /**
+     * Sets the maximum number of jobs in flight for the {@link Backend#ELASTIC} backend, that is the maximum number of threads running the jobs.
+     * Jobs exceeding this number wait in a queue. The default is four jobs per available processor: the jobs blocked on I/O give back their permit,
+     * while each job in flight keeps its own thread and stack, so the number should be raised only for I/O bound operations.
+     * 
+     * @param maxInFlightJobs The maximum number of jobs in flight.
+     * @throws IllegalArgumentException if <code>maxInFlightJobs</code> is less than 1.
+     */
+    public void setMaxInFlightJobs(int maxInFlightJobs) {
+        if (maxInFlightJobs < 1) {
+            throw new IllegalArgumentException(JaiI18N.getString("JaiExtTileScheduler_10"));
+        }
+        synchronized (getWorkers(false)) {
+            synchronized (getWorkers(true)) {
+                this.maxInFlightJobs = maxInFlightJobs;
+                if (executor instanceof ElasticPool) {
+                    ((ElasticPool) executor).setMaxInFlight(maxInFlightJobs);
+                }
+                if (prefetchExecutor instanceof ElasticPool) {
+                    ((ElasticPool) prefetchExecutor).setMaxInFlight(maxInFlightJobs);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the maximum number of jobs in flight for the {@link Backend#ELASTIC} backend.
+     */
+    public int getMaxInFlightJobs() {
+        return maxInFlightJobs;
+    }
+
+    /**
+     * Sets the maximum number of adjacent tiles computed at once for the images implementing <code>MultiTileComputer</code>. A value of 1
+     * disables the batched computation. The tiles are batched only inside the jobs computing several tiles, that is for the blocking and
+     * prefetch requests with more tiles than worker threads: the {@link Backend#ELASTIC} backend, the non-blocking requests with listeners and
+     * <code>scheduleTile()</code> compute one tile for each job.
+     * 
+     * @param maxBatchSize The maximum number of tiles of a batch.
+     * @throws IllegalArgumentException if <code>maxBatchSize</code> is less than 1.
+     */
+    public void setMaxBatchSize(int maxBatchSize) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException(JaiI18N.getString("JaiExtTileScheduler_19"));
+        }
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Returns the maximum number of adjacent tiles computed at once for the images implementing <code>MultiTileComputer</code>.
+     */
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * Sets the maximum number of jobs waiting to be computed by the standard workers. When the queue is full the {@link OverloadPolicy} is
+     * applied. The bound is checked once when a request is scheduled, so the jobs of a request which finds room are all queued, even beyond the
+     * bound, while with {@link OverloadPolicy#REJECT} the jobs of a request which finds the queue full are all rejected. The jobs scheduled by
+     * the workers themselves are always queued, since the tiles being computed depend on them. By default the queue is not bounded.
+     * 
+     * @param queueBound The maximum number of queued jobs.
+     * @throws IllegalArgumentException if <code>queueBound</code> is less than 1.
+     */
+    public void setQueueBound(int queueBound) {
+        if (queueBound < 1) {
+            throw new IllegalArgumentException(JaiI18N.getString("JaiExtTileScheduler_14"));
+        }
+        queueMonitor.setBound(queueBound);
+    }
+
+    /**
+     * Returns the maximum number of jobs waiting to be computed by the standard workers.
+     */
+    public int getQueueBound() {
+        return queueMonitor.getBound();
+    }
+
+    /**
+     * Identical to <code>setQueueBound()</code> but applies only to <code>prefetchTiles()</code>.
+     * 
+     * @param queueBound The maximum number of queued prefetch jobs.
+     * @throws IllegalArgumentException if <code>queueBound</code> is less than 1.
+     */
+    public void setPrefetchQueueBound(int queueBound) {
+        if (queueBound < 1) {
+            throw new IllegalArgumentException(JaiI18N.getString("JaiExtTileScheduler_14"));
+        }
+        prefetchQueueMonitor.setBound(queueBound);
+    }
+
+    /**
+     * Returns the maximum number of jobs waiting to be computed by the prefetch workers.
+     */
+    public int getPrefetchQueueBound() {
+        return prefetchQueueMonitor.getBound();
+    }
+
+    /**
+     * Sets the policy applied when a job queue is full. The default policy is {@link OverloadPolicy#BLOCK}.
+     * 
+     * @param overloadPolicy The policy.
+     * @throws IllegalArgumentException if <code>overloadPolicy</code> is <code>null</code>.
+     */
+    public void setOverloadPolicy(OverloadPolicy overloadPolicy) {
+        if (overloadPolicy == null) {
+            throw new IllegalArgumentException(JaiI18N.getString("JaiExtTileScheduler_15"));
+        }
+        this.overloadPolicy = overloadPolicy;
+    }
+
+    /**
+     * Returns the policy applied when a job queue is full.
+     */
+    public OverloadPolicy getOverloadPolicy() {
+        return overloadPolicy;
+    }
+
+    /**
+     * Returns the statistics of the jobs waiting to be computed by the standard workers: queue depth, dropped and rejected jobs and time waited in
+     * the queue.
+     */
+    public QueueStatistics getQueueStatistics() {
+        return queueMonitor.getStatistics();
+    }
+
+    /**
+     * Returns the statistics of the jobs waiting to be computed by the prefetch workers.
+     */
+    public QueueStatistics getPrefetchQueueStatistics() {
+        return prefetchQueueMonitor.getStatistics();
+    }
+
+    /**
+     * Returns the statistics of the operations whose tiles have been scheduled, sorted by operation name: time waited in the queues by the jobs,
+     * time spent computing the tiles and number of failures. The operations are identified by the class of the images computing the tiles, and
+     * the compute time of a tile includes the time spent computing its source tiles.
+     */
+    public List<OperationStatistics> getOperationStatistics() {
+        List<OperationStatistics> statistics = new ArrayList<OperationStatistics>();
+        for (OperationMetrics metrics : classMetrics.values()) {
+            statistics.add(metrics.getStatistics());
+        }
+        for (OperationMetrics metrics : renderedOpMetrics.values()) {
+            statistics.add(metrics.getStatistics());
+        }
+        Collections.sort(statistics, new Comparator<OperationStatistics>() {
+            public int compare(OperationStatistics o1, OperationStatistics o2) {
+                return o1.getOperationName().compareTo(o2.getOperationName());
+            }
+        });
+        return statistics;
+    }
+
+    /**
+     * Clears the statistics of the operations.
+     */
+    public void resetOperationStatistics() {
+        classMetrics.clear();
+        renderedOpMetrics.clear();
+    }
+
+    /**
+     * Runs a blocking task, typically the I/O of an image reader, inside a tile computation. When the tile is computed by the
+     * {@link Backend#ELASTIC} backend, the thread gives back its computation permit while the task runs, so that another tile can use the CPU in
+     * the meantime. Otherwise the task is simply called.
+     * 
+     * @param task The blocking task.
+     * @return The result of the task.
+     * @throws Exception if the task fails.
+     */
+    public static <T> T callBlocking(Callable<T> task) throws Exception {
+        return ElasticPool.callBlocking(task);
+    }
+
     /**
      * Recreate the <code>ThreadGroup</code>is and <code>WorkThread</code>s. This happens in the case of applet: the java plugin will exist after the
      * termination of the applet so that JAI and TileScheduler will also exist. However, the <code>ThreadGroup</code>s are destroyed. Thus, the old
@@ -1404,6 +2459,16 @@ public class JAIExtTileScheduler implements TileScheduler {
     private int getNumThreads(boolean isPrefetch) {
         createThreadGroup(isPrefetch);
 
+        if (backend != Backend.QUEUE) {
+            JobExecutor pool = getPool(isPrefetch);
+            if (isPrefetch) {
+                pool.setParallelism(prefetchParallelism, prefetchPriority, prefetchGroup);
+            } else {
+                pool.setParallelism(parallelism, priority, standardGroup);
+            }
+            return pool.getParallelism();
+        }
+
         // Local variables.
         Vector thr = getWorkers(isPrefetch);
         int nthr;
@@ -1448,7 +2513,7 @@ public class JAIExtTileScheduler implements TileScheduler {
             // WorkerThread will remove itself later from the appropriate
             // Vector.
             while (nthr > prll) {
-                addJob(WorkerThread.TERMINATE, isPrefetch);
+                addJob(WorkerThread.TERMINATE, isPrefetch, false);
                 nthr--;
             }
         }
@@ -1473,54 +2538,243 @@ public class JAIExtTileScheduler implements TileScheduler {
         return isPrefetch ? prefetchQueue : queue;
     }
 
-    /** Append a job to the appropriate queue. */
-    private void addJob(Object job, boolean isPrefetch) {
+    /**
+     * Returns the appropriate executor, creating it if a backend other than the job queue is selected, or <code>null</code> if the executor has not
+     * been created.
+     */
+    private JobExecutor getPool(boolean isPrefetch) {
+        synchronized (getWorkers(isPrefetch)) {
+            if (isPrefetch) {
+                if (prefetchExecutor == null && backend != Backend.QUEUE) {
+                    prefetchExecutor = createExecutor(nameOfThisInstance + "PrefetchWorker");
+                }
+                return prefetchExecutor;
+            } else {
+                if (executor == null && backend != Backend.QUEUE) {
+                    executor = createExecutor(nameOfThisInstance + "StandardWorker");
+                }
+                return executor;
+            }
+        }
+    }
+
+    /** Creates the executor for the current backend. */
+    private JobExecutor createExecutor(String name) {
+        if (backend == Backend.ELASTIC) {
+            return new ElasticPool(this, name, maxInFlightJobs);
+        }
+        return new WorkStealingPool(this, name);
+    }
+
+    /** Append a job to the appropriate queue, or rejects it if its request has found the queue full. */
+    private void addJob(Object job, boolean isPrefetch, boolean reject) {
         if (job == null || (job != WorkerThread.TERMINATE && !(job instanceof Job))) {
             // Programming error: deliberately no message.
             throw new IllegalArgumentException();
         }
 
+        // Blocking jobs are computed before the non-blocking ones.
+        boolean overtakeRequests = !isPrefetch && job instanceof TileJob;
+
+        if (job != WorkerThread.TERMINATE) {
+            QueueMonitor monitor = getQueueMonitor(isPrefetch);
+            if (reject) {
+                monitor.rejected();
+                rejectJob((Job) job, isPrefetch);
+                return;
+            }
+            monitor.queued((Job) job);
+        }
+
+        if (backend != Backend.QUEUE && job != WorkerThread.TERMINATE) {
+            getPool(isPrefetch).execute((Job) job, overtakeRequests
+                    || ((Job) job).getPriority() > NORM_REQUEST_PRIORITY);
+            dropOverflow(isPrefetch);
+            return;
+        }
+
         LinkedList jobQueue;
         synchronized (jobQueue = getQueue(isPrefetch)) {
-            if (isPrefetch || jobQueue.isEmpty() || job instanceof RequestJob) {
+            if (job == WorkerThread.TERMINATE) {
                 // Append job to queue.
                 jobQueue.addLast(job);
             } else {
-                // If the queue is non-empty or the job is a TileJob
-                // insert the job after the last TileJob in the queue.
-                boolean inserted = false;
-                for (int idx = jobQueue.size() - 1; idx >= 0; idx--) {
-                    if (jobQueue.get(idx) instanceof TileJob) {
-                        jobQueue.add(idx + 1, job);
-                        inserted = true;
+                // Insert the job after the last job which must be computed
+                // before it, scanning the queue from the end.
+                Job newJob = (Job) job;
+                ListIterator iter = jobQueue.listIterator(jobQueue.size());
+                while (iter.hasPrevious()) {
+                    Object queued = iter.previous();
+                    if (queued instanceof Job
+                            && runsBefore((Job) queued, newJob, overtakeRequests)) {
+                        iter.next();
                         break;
                     }
                 }
-                if (!inserted) {
-                    jobQueue.addFirst(job);
-                }
+                iter.add(job);
             }
             jobQueue.notify();
         }
+        dropOverflow(isPrefetch);
         
         if(LOGGER.isLoggable(Level.FINEST)){
             LOGGER.log(Level.FINEST, "Added Job to the Queue");
         }
     }
 
+    /** Drops the oldest prefetch jobs while the prefetch queue exceeds its bound, if required by the overload policy. */
+    private void dropOverflow(boolean isPrefetch) {
+        if (!isPrefetch || overloadPolicy != OverloadPolicy.DROP_OLDEST_PREFETCH) {
+            return;
+        }
+        Job dropped;
+        while (prefetchQueueMonitor.getDepth() > prefetchQueueMonitor.getBound()
+                && (dropped = prefetchQueueMonitor.dropOldest()) != null) {
+            // The job has been claimed, so it is never computed even if it
+            // cannot be removed.
+            if (backend == Backend.QUEUE) {
+                synchronized (prefetchQueue) {
+                    prefetchQueue.remove(dropped);
+                }
+            } else {
+                getPool(true).remove(dropped);
+            }
+            if(LOGGER.isLoggable(Level.FINEST)){
+                LOGGER.log(Level.FINEST, "Dropped prefetch Job");
+            }
+        }
+    }
+
+    /** Fails a job rejected because its queue is full, notifying the listeners. */
+    private void rejectJob(Job job, boolean isPrefetch) {
+        if(LOGGER.isLoggable(Level.FINE)){
+            LOGGER.log(Level.FINE, "Rejected Job: the queue is full");
+        }
+        RejectedExecutionException cause = new RejectedExecutionException(
+                JaiI18N.getString("JaiExtTileScheduler_16"));
+        if (job instanceof RequestJob) {
+            ((RequestJob) job).reject(cause);
+        } else {
+            // The caller of a blocking job reports the exception when the
+            // job is done.
+            ((TileJob) job).reject(cause);
+            if (isPrefetch) {
+                String message = JaiI18N.getString("JaiExtTileScheduler_5");
+                sendExceptionToListener(message, new ImagingException(message, cause));
+            }
+        }
+    }
+
+    /**
+     * Notifies the start of a job computation, claiming the job.
+     * 
+     * @return <code>false</code> if the job has been dropped and must not be computed.
+     */
+    boolean jobStarted(Job job, boolean isPrefetch) {
+        if (!job.claim()) {
+            return false;
+        }
+        long wait = getQueueMonitor(isPrefetch).started(job);
+        getOperationMetrics(job.getOwner()).recordQueueWait(wait);
+        return true;
+    }
+
+    /** Notifies the end of a job computation. */
+    void jobFinished(boolean isPrefetch) {
+        getQueueMonitor(isPrefetch).finished();
+    }
+
+    /**
+     * Passes the compute time of a tile to the tile cache metric of its image, if the metric records the tile costs.
+     */
+    private static void recordTileCost(OpImage owner, long time) {
+        Object metric = owner.getTileCacheMetric();
+        if (metric instanceof TileCostRecorder) {
+            ((TileCostRecorder) metric).recordComputeTime(time);
+        }
+    }
+
+    /** Returns the metrics of the operation of an image. */
+    private OperationMetrics getOperationMetrics(PlanarImage owner) {
+        OperationMetrics metrics;
+        if (owner instanceof RenderedOp) {
+            String operationName = ((RenderedOp) owner).getOperationName();
+            metrics = renderedOpMetrics.get(operationName);
+            if (metrics == null) {
+                metrics = new OperationMetrics(owner.getClass(), operationName);
+                OperationMetrics previous = renderedOpMetrics.putIfAbsent(operationName, metrics);
+                if (previous != null) {
+                    metrics = previous;
+                }
+            }
+        } else {
+            Class imageClass = owner.getClass();
+            metrics = classMetrics.get(imageClass);
+            if (metrics == null) {
+                metrics = new OperationMetrics(imageClass,
+                        OperationMetrics.operationName(imageClass));
+                OperationMetrics previous = classMetrics.putIfAbsent(imageClass, metrics);
+                if (previous != null) {
+                    metrics = previous;
+                }
+            }
+        }
+        return metrics;
+    }
+
+    /** Returns the monitor of the standard or prefetch queue. */
+    QueueMonitor getQueueMonitor(boolean isPrefetch) {
+        return isPrefetch ? prefetchQueueMonitor : queueMonitor;
+    }
+
+    /** Returns <code>true</code> if the current thread is a worker of this scheduler, whatever the backend. */
+    private boolean isSchedulerThread() {
+        ThreadGroup group = Thread.currentThread().getThreadGroup();
+        return group != null && group.getParent() == rootGroup;
+    }
+
+    /**
+     * Returns <code>true</code> if a queued job must be computed before a new job: jobs with higher priority are computed first, while jobs with
+     * the same priority are computed in queue order, except for blocking jobs which overtake the non-blocking requests.
+     */
+    private static boolean runsBefore(Job queued, Job job, boolean overtakeRequests) {
+        if (queued.getPriority() != job.getPriority()) {
+            return queued.getPriority() > job.getPriority();
+        }
+        return !overtakeRequests || !(queued instanceof RequestJob);
+    }
+
     /** Queue WorkerThread.TERMINATEs to all workers. */
     protected void finalize() throws Throwable {
+        disableAdaptiveParallelism();
         terminateAll(false);
         terminateAll(true);
+        shutdownPools();
         super.finalize();
     }
 
+    /** Stops the executors once the jobs already queued are done. */
+    private void shutdownPools() {
+        synchronized (getWorkers(false)) {
+            if (executor != null) {
+                executor.shutdown();
+                executor = null;
+            }
+        }
+        synchronized (getWorkers(true)) {
+            if (prefetchExecutor != null) {
+                prefetchExecutor.shutdown();
+                prefetchExecutor = null;
+            }
+        }
+    }
+
     /** Queue WorkerThread.TERMINATEs to all appropriate workers. */
     private void terminateAll(boolean isPrefetch) {
         synchronized (getWorkers(isPrefetch)) {
             int numThreads = isPrefetch ? numPrefetchThreads : numWorkerThreads;
             for (int i = 0; i < numThreads; i++) {
-                addJob(WorkerThread.TERMINATE, isPrefetch);
+                addJob(WorkerThread.TERMINATE, isPrefetch, false);
                 if (isPrefetch) {
                     numPrefetchThreads--;
                 } else {
@@ -1533,6 +2787,26 @@ public class JAIExtTileScheduler implements TileScheduler {
         }
     }
 
+    /**
+     * Reports the exception of a job computed for the calling thread. A cancelled computation is thrown back if the cancellation token of the
+     * calling thread is cancelled, and ignored if the deadline of the job has expired.
+     */
+    private void reportJobException(Exception e) {
+        if (e instanceof CancellationException) {
+            if (CancellationToken.isCurrentCancelled()) {
+                throw (CancellationException) e;
+            }
+            return;
+        }
+        // Throw a RuntimeException with the Exception's
+        // message concatenated with the stack trace.
+        String message = JaiI18N.getString("JaiExtTileScheduler_5");
+        sendExceptionToListener(message, new ImagingException(message, e));
+        /*
+         * throw new RuntimeException(e.getMessage()+"\n"+ getStackTraceString(e));
+         */
+    }
+
     void sendExceptionToListener(String message, Throwable e) {
         ImagingListener listener = ImageUtil.getImagingListener((RenderingHints) null);
         listener.errorOccurred(message, e, this, false);
@@ -0,0 +1,62 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.jaiext.scheduler;
+
+/**
+ * Executor of the tile computation jobs used by the <code>JAIExtTileScheduler</code> backends other than the default job queue.
+ */
+interface JobExecutor {
+
+    /** Returns the number of jobs which can be computed at the same time. */
+    int getParallelism();
+
+    /**
+     * Sets the number of jobs which can be computed at the same time and the priority of the threads computing them.
+     * 
+     * @param parallelism The number of jobs computed at the same time.
+     * @param priority The priority of the threads.
+     * @param group The <code>ThreadGroup</code> of the new threads.
+     */
+    void setParallelism(int parallelism, int priority, ThreadGroup group);
+
+    /**
+     * Queues a job.
+     * 
+     * @param job The job to compute.
+     * @param first Whether the job should be computed before the other queued jobs, if the executor supports it.
+     */
+    void execute(Job job, boolean first);
+
+    /**
+     * Removes a job which has not been started yet.
+     * 
+     * @return <code>true</code> if the job has been removed.
+     */
+    boolean remove(Job job);
+
+    /**
+     * Computes a queued job in the calling thread, if the executor supports it. It is used by threads of the executor waiting for the completion
+     * of other jobs.
+     * 
+     * @return <code>true</code> if a job has been computed.
+     */
+    boolean helpCompute();
+
+    /** Stops the executor once the jobs already queued are done. */
+    void shutdown();
+}
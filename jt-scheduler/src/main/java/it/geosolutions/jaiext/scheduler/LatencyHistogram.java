@@ -0,0 +1,94 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.jaiext.scheduler;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of latencies in nanoseconds, with logarithmic buckets in the manner of the HDR histograms: each power of two is split
+ * into {@value #SUB_BUCKETS} linear sub-buckets, so that the recorded values are kept with a relative precision of about 3%, from 1 nanosecond
+ * up to the maximum <code>long</code> value, in a fixed amount of memory.
+ */
+final class LatencyHistogram {
+
+    /** The number of bits of the sub-bucket index. */
+    private static final int SUB_BUCKET_BITS = 5;
+
+    /** The number of sub-buckets of each power of two. */
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /** The number of buckets covering the positive <code>long</code> values. */
+    static final int NUM_BUCKETS = bucketIndex(Long.MAX_VALUE) + 1;
+
+    /** The counts of the recorded values in each bucket. */
+    private final AtomicLongArray counts = new AtomicLongArray(NUM_BUCKETS);
+
+    /** The sum of the recorded values. */
+    private final AtomicLong total = new AtomicLong();
+
+    /** The maximum recorded value. */
+    private final AtomicLong max = new AtomicLong();
+
+    /** Returns the index of the bucket of a value. */
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return value < 0 ? 0 : (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        return ((shift + 1) << SUB_BUCKET_BITS) | (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    /** Returns the highest value of a bucket. */
+    static long bucketMaxValue(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        long lowest = (long) (SUB_BUCKETS | (index & (SUB_BUCKETS - 1))) << shift;
+        return lowest + ((1L << shift) - 1);
+    }
+
+    /**
+     * Records a value.
+     * 
+     * @param value The value in nanoseconds. Negative values are recorded as 0.
+     */
+    void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts.incrementAndGet(bucketIndex(value));
+        total.addAndGet(value);
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+        }
+    }
+
+    /** Returns a snapshot of the histogram. The values recorded while the snapshot is taken may be partially accounted. */
+    LatencyStatistics getStatistics() {
+        long[] snapshot = new long[NUM_BUCKETS];
+        long count = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        return new LatencyStatistics(snapshot, count, total.get(), max.get());
+    }
+}
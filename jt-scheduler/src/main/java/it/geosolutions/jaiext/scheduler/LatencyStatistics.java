@@ -0,0 +1,90 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.jaiext.scheduler;
+
+/**
+ * Snapshot of a latency histogram collected by the <code>JAIExtTileScheduler</code>. All the times are returned in milliseconds.
+ */
+public final class LatencyStatistics {
+
+    private final long[] counts;
+
+    private final long count;
+
+    private final long total;
+
+    private final long max;
+
+    LatencyStatistics(long[] counts, long count, long total, long max) {
+        this.counts = counts;
+        this.count = count;
+        this.total = total;
+        this.max = max;
+    }
+
+    /** Returns the number of recorded values. */
+    public long getCount() {
+        return count;
+    }
+
+    /** Returns the sum of the recorded values. */
+    public double getTotal() {
+        return total / 1e6;
+    }
+
+    /** Returns the mean of the recorded values, or 0 if no value has been recorded. */
+    public double getMean() {
+        return count == 0 ? 0 : total / 1e6 / count;
+    }
+
+    /** Returns the maximum recorded value. */
+    public double getMax() {
+        return max / 1e6;
+    }
+
+    /**
+     * Returns the value below which the supplied percentage of the recorded values falls, with the precision of the histogram buckets.
+     * 
+     * @param percentile The percentage, between 0 and 100.
+     * @return The value at the percentile, or 0 if no value has been recorded.
+     * @throws IllegalArgumentException if <code>percentile</code> is not between 0 and 100.
+     */
+    public double getPercentile(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException(JaiI18N.getString("JaiExtTileScheduler_17"));
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long cumulated = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulated += counts[i];
+            if (cumulated >= rank) {
+                return Math.min(LatencyHistogram.bucketMaxValue(i), max) / 1e6;
+            }
+        }
+        return max / 1e6;
+    }
+
+    /** Returns a string representation of the statistics. */
+    public String toString() {
+        return "[count=" + count + ", mean=" + getMean() + "ms, p50=" + getPercentile(50)
+                + "ms, p99=" + getPercentile(99) + "ms, max=" + getMax() + "ms]";
+    }
+}
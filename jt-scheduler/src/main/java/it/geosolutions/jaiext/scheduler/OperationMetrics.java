@@ -0,0 +1,79 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.jaiext.scheduler;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latencies and failures of the tiles of an operation, recorded by the <code>JAIExtTileScheduler</code>.
+ */
+final class OperationMetrics {
+
+    /** The class of the images computing the tiles. */
+    private final Class imageClass;
+
+    /** The name of the operation. */
+    private final String operationName;
+
+    /** The time waited in the queue by the jobs. */
+    private final LatencyHistogram queueWaitTime = new LatencyHistogram();
+
+    /** The time spent computing the tiles. */
+    private final LatencyHistogram computeTime = new LatencyHistogram();
+
+    /** The number of tile computations which failed. */
+    private final AtomicLong failures = new AtomicLong();
+
+    OperationMetrics(Class imageClass, String operationName) {
+        this.imageClass = imageClass;
+        this.operationName = operationName;
+    }
+
+    /**
+     * Returns the name of the operation of the images of a class, that is the class name without the <code>OpImage</code> suffix.
+     */
+    static String operationName(Class imageClass) {
+        String name = imageClass.getSimpleName();
+        if (name.length() == 0) {
+            // anonymous class
+            name = imageClass.getName();
+        } else if (name.endsWith("OpImage") && name.length() > "OpImage".length()) {
+            name = name.substring(0, name.length() - "OpImage".length());
+        }
+        return name;
+    }
+
+    /** Records the time waited in the queue by a job, in nanoseconds. */
+    void recordQueueWait(long time) {
+        queueWaitTime.record(time);
+    }
+
+    /** Records the time spent computing a tile, in nanoseconds, and whether the computation failed. */
+    void recordCompute(long time, boolean failed) {
+        computeTime.record(time);
+        if (failed) {
+            failures.incrementAndGet();
+        }
+    }
+
+    /** Returns a snapshot of the metrics. */
+    OperationStatistics getStatistics() {
+        return new OperationStatistics(imageClass, operationName, queueWaitTime.getStatistics(),
+                computeTime.getStatistics(), failures.get());
+    }
+}
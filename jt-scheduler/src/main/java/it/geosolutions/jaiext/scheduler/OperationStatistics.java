@@ -0,0 +1,75 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.jaiext.scheduler;
+
+/**
+ * Snapshot of the latencies of the tiles of an operation, collected by the <code>JAIExtTileScheduler</code>. The operations are identified by the
+ * class of the images computing the tiles and by the operation name.
+ */
+public final class OperationStatistics {
+
+    private final Class imageClass;
+
+    private final String operationName;
+
+    private final LatencyStatistics queueWaitTime;
+
+    private final LatencyStatistics computeTime;
+
+    private final long failures;
+
+    OperationStatistics(Class imageClass, String operationName, LatencyStatistics queueWaitTime,
+            LatencyStatistics computeTime, long failures) {
+        this.imageClass = imageClass;
+        this.operationName = operationName;
+        this.queueWaitTime = queueWaitTime;
+        this.computeTime = computeTime;
+        this.failures = failures;
+    }
+
+    /** Returns the class of the images computing the tiles. */
+    public Class getImageClass() {
+        return imageClass;
+    }
+
+    /** Returns the name of the operation. */
+    public String getOperationName() {
+        return operationName;
+    }
+
+    /** Returns the time waited in the scheduler queues by the jobs computing the tiles. */
+    public LatencyStatistics getQueueWaitTime() {
+        return queueWaitTime;
+    }
+
+    /** Returns the time spent computing the tiles, including the failed computations. */
+    public LatencyStatistics getComputeTime() {
+        return computeTime;
+    }
+
+    /** Returns the number of tile computations which failed. Cancelled computations are not failures. */
+    public long getFailures() {
+        return failures;
+    }
+
+    /** Returns a string representation of the statistics. */
+    public String toString() {
+        return operationName + " (" + imageClass.getName() + "): queueWait=" + queueWaitTime
+                + ", compute=" + computeTime + ", failures=" + failures;
+    }
+}
@@ -0,0 +1,209 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.jaiext.scheduler;
+
+import java.lang.ref.WeakReference;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+
+/**
+ * Controller resizing the standard workers of a <code>JAIExtTileScheduler</code> between a minimum and a maximum parallelism. At each interval
+ * the controller measures the tile throughput, the time waited by the jobs in the queue and the load of the system, and moves the parallelism by
+ * one thread in the direction which improves the throughput, in the way of a hill-climbing controller:
+ * <ul>
+ * <li>if the last move increased the throughput, the parallelism keeps moving in the same direction;</li>
+ * <li>if the last move decreased the throughput, the direction is reversed;</li>
+ * <li>if the throughput did not change, the parallelism grows only if the queue latency grows, otherwise the unused threads are released.</li>
+ * </ul>
+ * The parallelism never grows while some workers are idle and no job is waiting in the queue, and shrinks while the system load exceeds the number of processors, so
+ * that the cores are given back to the other workloads of the node.
+ * <p>
+ * The controller only keeps a weak reference to the scheduler, and stops once the scheduler has been collected.
+ */
+final class ParallelismController implements Runnable {
+
+    /** The relative change of throughput below which two measures are considered equal. */
+    static final double TOLERANCE = 0.05;
+
+    /** The system load, relative to the number of processors, above which the system is oversubscribed. */
+    static final double MAX_LOAD = 1.0;
+
+    /** The scheduler whose parallelism is adapted. */
+    private final WeakReference<JAIExtTileScheduler> scheduler;
+
+    /** The monitor of the standard queue. */
+    private final QueueMonitor monitor;
+
+    private final int minParallelism;
+
+    private final int maxParallelism;
+
+    /** The thread running the controller. */
+    private final Thread thread;
+
+    private volatile boolean stopped;
+
+    /** The throughput measured during the last interval, in tiles per second, negative if not measured. */
+    private double lastThroughput = -1;
+
+    /** The parallelism during the last interval. */
+    private int lastParallelism;
+
+    /** The average queue wait of the last interval, in nanoseconds. */
+    private long lastWaitTime;
+
+    /**
+     * Constructor. The controller is started by {@link #start()}.
+     * 
+     * @param scheduler The scheduler whose parallelism is adapted.
+     * @param monitor The monitor of the standard queue of the scheduler.
+     * @param minParallelism The minimum parallelism.
+     * @param maxParallelism The maximum parallelism.
+     * @param group The <code>ThreadGroup</code> of the controller thread.
+     * @param name The name of the controller thread.
+     */
+    ParallelismController(JAIExtTileScheduler scheduler, QueueMonitor monitor,
+            int minParallelism, int maxParallelism, ThreadGroup group, String name) {
+        this.scheduler = new WeakReference<JAIExtTileScheduler>(scheduler);
+        this.monitor = monitor;
+        this.minParallelism = minParallelism;
+        this.maxParallelism = maxParallelism;
+        thread = new Thread(group, this, name);
+        thread.setDaemon(true);
+    }
+
+    int getMinParallelism() {
+        return minParallelism;
+    }
+
+    int getMaxParallelism() {
+        return maxParallelism;
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    /** Stops the controller, leaving the parallelism as it is. */
+    void stop() {
+        stopped = true;
+        thread.interrupt();
+    }
+
+    public void run() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        int processors = Runtime.getRuntime().availableProcessors();
+        long lastTime = System.nanoTime();
+        long lastTiles = monitor.getComputedTiles();
+        long lastStarted = monitor.getStartedJobs();
+        long lastTotalWait = monitor.getTotalWaitTime();
+        while (!stopped) {
+            JAIExtTileScheduler scheduler = this.scheduler.get();
+            if (scheduler == null) {
+                return;
+            }
+            long interval = scheduler.getAdaptationInterval();
+            // Do not keep the scheduler reachable while sleeping.
+            scheduler = null;
+            try {
+                Thread.sleep(interval);
+            } catch (InterruptedException e) {
+                continue;
+            }
+            scheduler = this.scheduler.get();
+            if (scheduler == null) {
+                return;
+            }
+
+            // Measures of the interval
+            long time = System.nanoTime();
+            long tiles = monitor.getComputedTiles();
+            long started = monitor.getStartedJobs();
+            long totalWait = monitor.getTotalWaitTime();
+            long waitTime = started > lastStarted ? (totalWait - lastTotalWait)
+                    / (started - lastStarted) : 0;
+            // The load average is negative if not available
+            double load = os.getSystemLoadAverage() / processors;
+
+            int parallelism = scheduler.getParallelism();
+            boolean saturated = monitor.getDepth() > 0 || monitor.getRunningJobs() >= parallelism;
+            int next = adapt(parallelism, tiles - lastTiles, time - lastTime, saturated, waitTime,
+                    load);
+            if (next != parallelism && !stopped) {
+                scheduler.adaptParallelism(this, next);
+            }
+
+            lastTime = time;
+            lastTiles = tiles;
+            lastStarted = started;
+            lastTotalWait = totalWait;
+        }
+    }
+
+    /**
+     * Computes the parallelism of the next interval from the measures of the last interval.
+     * 
+     * @param parallelism The parallelism during the last interval.
+     * @param tiles The number of tiles computed during the last interval.
+     * @param elapsed The duration of the last interval, in nanoseconds.
+     * @param saturated Whether all the workers are busy or some jobs are waiting in the queue.
+     * @param waitTime The average time waited in the queue by the jobs started during the last interval, in nanoseconds.
+     * @param load The system load relative to the number of processors, negative if not available.
+     * @return The parallelism of the next interval, between the minimum and the maximum parallelism.
+     */
+    int adapt(int parallelism, long tiles, long elapsed, boolean saturated, long waitTime,
+            double load) {
+        if (load <= MAX_LOAD && tiles == 0) {
+            // Nothing to measure: the scheduler is idle, or the tiles take
+            // longer than the interval.
+            if (!saturated) {
+                lastThroughput = -1;
+            }
+            return Math.max(minParallelism, Math.min(maxParallelism, parallelism));
+        }
+
+        double throughput = elapsed > 0 ? tiles * 1E9 / elapsed : 0;
+        int direction;
+        if (load > MAX_LOAD) {
+            // The node is oversubscribed.
+            direction = -1;
+        } else if (lastThroughput < 0 || parallelism == lastParallelism) {
+            // No move to evaluate: explore.
+            direction = saturated ? 1 : -1;
+        } else if (throughput < lastThroughput * (1 - TOLERANCE)) {
+            // The last move made things worse: go back.
+            direction = parallelism > lastParallelism ? -1 : 1;
+        } else if (throughput <= lastThroughput * (1 + TOLERANCE)) {
+            // No gain: the threads are useful only if the jobs wait longer.
+            direction = waitTime > lastWaitTime * (1 + TOLERANCE) ? 1 : -1;
+        } else {
+            // The last move paid off: keep going.
+            direction = parallelism > lastParallelism ? 1 : -1;
+        }
+
+        // New threads would stay idle if the current ones are not all busy.
+        if (direction > 0 && !saturated) {
+            direction = 0;
+        }
+
+        lastThroughput = throughput;
+        lastParallelism = parallelism;
+        lastWaitTime = waitTime;
+        return Math.max(minParallelism, Math.min(maxParallelism, parallelism + direction));
+    }
+}
@@ -0,0 +1,228 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.jaiext.scheduler;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monitor of a job queue of the <code>JAIExtTileScheduler</code>, whatever the backend. It counts the jobs waiting to be computed against the
+ * queue bound, lets the callers wait until the queue has room, keeps the oldest jobs which can be dropped and collects the queue statistics.
+ */
+final class QueueMonitor {
+
+    /** The number of jobs waiting to be computed. */
+    private final AtomicInteger depth = new AtomicInteger();
+
+    /** The maximum number of jobs observed in the queue. */
+    private final AtomicInteger peakDepth = new AtomicInteger();
+
+    /** The maximum number of jobs in the queue. */
+    private volatile int bound = Integer.MAX_VALUE;
+
+    /** The number of callers waiting for room in the queue. */
+    private volatile int waiting;
+
+    /** The queued jobs in queue order, kept only when they can be dropped. May contain started jobs. */
+    private final ConcurrentLinkedQueue<Job> droppable;
+
+    private final AtomicLong queuedJobs = new AtomicLong();
+
+    private final AtomicLong startedJobs = new AtomicLong();
+
+    private final AtomicLong droppedJobs = new AtomicLong();
+
+    private final AtomicLong rejectedJobs = new AtomicLong();
+
+    /** The number of jobs started and not yet finished. */
+    private final AtomicInteger runningJobs = new AtomicInteger();
+
+    /** The number of tiles computed by the jobs of the queue. */
+    private final AtomicLong computedTiles = new AtomicLong();
+
+    /** The total time waited in the queue by the started jobs, in nanoseconds. */
+    private final AtomicLong totalWaitTime = new AtomicLong();
+
+    /** The maximum time waited in the queue by a started job, in nanoseconds. */
+    private final AtomicLong maxWaitTime = new AtomicLong();
+
+    /**
+     * Constructor.
+     * 
+     * @param canDrop Whether the oldest jobs of the queue can be dropped.
+     */
+    QueueMonitor(boolean canDrop) {
+        droppable = canDrop ? new ConcurrentLinkedQueue<Job>() : null;
+    }
+
+    int getBound() {
+        return bound;
+    }
+
+    synchronized void setBound(int bound) {
+        this.bound = bound;
+        // The callers may have room now.
+        notifyAll();
+    }
+
+    /** Returns the number of jobs waiting to be computed. */
+    int getDepth() {
+        return depth.get();
+    }
+
+    /** Returns <code>true</code> if the queue has reached its bound. */
+    boolean isFull() {
+        return depth.get() >= bound;
+    }
+
+    /** Waits until the queue has room. An interrupted caller stops waiting and keeps the interrupted status. */
+    synchronized void awaitRoom() {
+        waiting++;
+        try {
+            while (depth.get() >= bound) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        } finally {
+            waiting--;
+        }
+    }
+
+    /**
+     * Counts a job entering the queue.
+     * 
+     * @param job The queued job.
+     */
+    void queued(Job job) {
+        job.setQueuedTime(System.nanoTime());
+        int size = depth.incrementAndGet();
+        int peak;
+        while (size > (peak = peakDepth.get()) && !peakDepth.compareAndSet(peak, size)) {
+        }
+        queuedJobs.incrementAndGet();
+        if (droppable != null) {
+            droppable.add(job);
+        }
+    }
+
+    /** Counts a job rejected because the queue was full. */
+    void rejected() {
+        rejectedJobs.incrementAndGet();
+    }
+
+    /**
+     * Counts a job leaving the queue to be computed.
+     * 
+     * @param job The started job, already claimed.
+     * @return The time waited in the queue by the job, in nanoseconds.
+     */
+    long started(Job job) {
+        long wait = System.nanoTime() - job.getQueuedTime();
+        totalWaitTime.addAndGet(wait);
+        long max;
+        while (wait > (max = maxWaitTime.get()) && !maxWaitTime.compareAndSet(max, wait)) {
+        }
+        startedJobs.incrementAndGet();
+        runningJobs.incrementAndGet();
+        dequeued();
+
+        // Forget the jobs started in queue order.
+        if (droppable != null) {
+            Job head;
+            while ((head = droppable.peek()) != null && head.isClaimed()) {
+                droppable.remove(head);
+            }
+        }
+        return wait;
+    }
+
+    /** Counts a tile computed by a job of the queue. */
+    void computed() {
+        computedTiles.incrementAndGet();
+    }
+
+    /** Counts a started job which has finished. */
+    void finished() {
+        runningJobs.decrementAndGet();
+    }
+
+    /** Returns the number of jobs started and not yet finished. */
+    int getRunningJobs() {
+        return runningJobs.get();
+    }
+
+    /** Returns the number of tiles computed by the jobs of the queue. */
+    long getComputedTiles() {
+        return computedTiles.get();
+    }
+
+    /** Returns the number of jobs started. */
+    long getStartedJobs() {
+        return startedJobs.get();
+    }
+
+    /** Returns the total time waited in the queue by the started jobs, in nanoseconds. */
+    long getTotalWaitTime() {
+        return totalWaitTime.get();
+    }
+
+    /** Counts a job removed from the queue without being computed. */
+    void removed() {
+        dequeued();
+    }
+
+    /**
+     * Claims the oldest queued job, so that it is never computed, and counts it as dropped.
+     * 
+     * @return The dropped job, to be removed from the queue, or <code>null</code> if no job can be dropped.
+     */
+    Job dropOldest() {
+        if (droppable != null) {
+            Job job;
+            while ((job = droppable.poll()) != null) {
+                if (job.claim()) {
+                    droppedJobs.incrementAndGet();
+                    dequeued();
+                    return job;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void dequeued() {
+        depth.decrementAndGet();
+        if (waiting > 0) {
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+
+    /** Returns a snapshot of the queue statistics. */
+    QueueStatistics getStatistics() {
+        return new QueueStatistics(depth.get(), peakDepth.get(), bound, queuedJobs.get(),
+                startedJobs.get(), droppedJobs.get(), rejectedJobs.get(), totalWaitTime.get(),
+                maxWaitTime.get());
+    }
+}
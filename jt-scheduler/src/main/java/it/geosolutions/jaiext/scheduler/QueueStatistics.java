@@ -0,0 +1,109 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.jaiext.scheduler;
+
+/**
+ * Snapshot of the statistics of a job queue of the <code>JAIExtTileScheduler</code>. The counters are cumulated since the creation of the
+ * scheduler; the depth is the number of jobs waiting to be computed when the snapshot was taken.
+ */
+public final class QueueStatistics {
+
+    private final int depth;
+
+    private final int peakDepth;
+
+    private final int bound;
+
+    private final long queuedJobs;
+
+    private final long startedJobs;
+
+    private final long droppedJobs;
+
+    private final long rejectedJobs;
+
+    private final long totalWaitTime;
+
+    private final long maxWaitTime;
+
+    QueueStatistics(int depth, int peakDepth, int bound, long queuedJobs, long startedJobs,
+            long droppedJobs, long rejectedJobs, long totalWaitTime, long maxWaitTime) {
+        this.depth = depth;
+        this.peakDepth = peakDepth;
+        this.bound = bound;
+        this.queuedJobs = queuedJobs;
+        this.startedJobs = startedJobs;
+        this.droppedJobs = droppedJobs;
+        this.rejectedJobs = rejectedJobs;
+        this.totalWaitTime = totalWaitTime;
+        this.maxWaitTime = maxWaitTime;
+    }
+
+    /** Returns the number of jobs waiting to be computed. */
+    public int getDepth() {
+        return depth;
+    }
+
+    /** Returns the maximum number of jobs observed in the queue. */
+    public int getPeakDepth() {
+        return peakDepth;
+    }
+
+    /** Returns the maximum number of jobs in the queue. */
+    public int getBound() {
+        return bound;
+    }
+
+    /** Returns the number of jobs which entered the queue. */
+    public long getQueuedJobs() {
+        return queuedJobs;
+    }
+
+    /** Returns the number of jobs which left the queue to be computed. */
+    public long getStartedJobs() {
+        return startedJobs;
+    }
+
+    /** Returns the number of jobs dropped from the full queue. */
+    public long getDroppedJobs() {
+        return droppedJobs;
+    }
+
+    /** Returns the number of jobs rejected because the queue was full. */
+    public long getRejectedJobs() {
+        return rejectedJobs;
+    }
+
+    /** Returns the average time waited in the queue by the started jobs, in milliseconds. */
+    public double getAverageWaitTime() {
+        return startedJobs == 0 ? 0 : totalWaitTime / 1e6 / startedJobs;
+    }
+
+    /** Returns the maximum time waited in the queue by a started job, in milliseconds. */
+    public double getMaxWaitTime() {
+        return maxWaitTime / 1e6;
+    }
+
+    /** Returns a string representation of the statistics. */
+    public String toString() {
+        return getClass().getSimpleName() + "[depth=" + depth + ", peakDepth=" + peakDepth
+                + ", bound=" + bound + ", queued=" + queuedJobs + ", started=" + startedJobs
+                + ", dropped=" + droppedJobs + ", rejected=" + rejectedJobs + ", avgWait="
+                + getAverageWaitTime() + "ms, maxWait=" + getMaxWaitTime() + "ms]";
+    }
+}
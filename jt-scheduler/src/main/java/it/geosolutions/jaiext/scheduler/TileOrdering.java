@@ -0,0 +1,147 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.jaiext.scheduler;
+
+import it.geosolutions.jaiext.scheduler.JAIExtTileScheduler.TileOrder;
+
+import java.awt.Point;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Reorders the tile indices of a request along a space filling curve, so that tiles computed one after the other, or by the same job, are
+ * neighbours and share their source tiles.
+ */
+final class TileOrdering {
+
+    private TileOrdering() {
+    }
+
+    /**
+     * Sorts the tile indices along the supplied curve.
+     * 
+     * @param tileIndices The tile indices.
+     * @param order The curve.
+     * @return The permutation giving, for each position in the sorted order, the position of the tile in <code>tileIndices</code>, or
+     *         <code>null</code> if the tiles are kept in the requested order.
+     */
+    static int[] sort(Point[] tileIndices, TileOrder order) {
+        int numTiles = tileIndices.length;
+        if (order == TileOrder.AS_REQUESTED || numTiles < 3) {
+            return null;
+        }
+
+        // Bounds of the requested tiles.
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        for (int i = 0; i < numTiles; i++) {
+            Point p = tileIndices[i];
+            minX = Math.min(minX, p.x);
+            minY = Math.min(minY, p.y);
+            maxX = Math.max(maxX, p.x);
+            maxY = Math.max(maxY, p.y);
+        }
+
+        // Side of the curve: the smallest power of 2 covering the bounds.
+        long extent = Math.max((long) maxX - minX, (long) maxY - minY) + 1;
+        if (extent > (1L << 31)) {
+            return null;
+        }
+        int side = 1;
+        while (side < extent) {
+            side <<= 1;
+        }
+
+        // Position of each tile along the curve.
+        final long[] keys = new long[numTiles];
+        for (int i = 0; i < numTiles; i++) {
+            int x = tileIndices[i].x - minX;
+            int y = tileIndices[i].y - minY;
+            keys[i] = order == TileOrder.HILBERT ? hilbert(side, x, y) : morton(x, y);
+        }
+
+        Integer[] sorted = new Integer[numTiles];
+        for (int i = 0; i < numTiles; i++) {
+            sorted[i] = Integer.valueOf(i);
+        }
+        // The sort is stable: tiles requested twice keep their order.
+        Arrays.sort(sorted, new Comparator<Integer>() {
+            public int compare(Integer i1, Integer i2) {
+                long k1 = keys[i1.intValue()];
+                long k2 = keys[i2.intValue()];
+                return k1 < k2 ? -1 : (k1 == k2 ? 0 : 1);
+            }
+        });
+
+        int[] permutation = new int[numTiles];
+        for (int i = 0; i < numTiles; i++) {
+            permutation[i] = sorted[i].intValue();
+        }
+        return permutation;
+    }
+
+    /**
+     * Returns the position of a tile along the Hilbert curve covering a square of the supplied side.
+     * 
+     * @param side The side of the square, a power of 2.
+     * @param x The X index of the tile inside the square.
+     * @param y The Y index of the tile inside the square.
+     */
+    static long hilbert(int side, int x, int y) {
+        long d = 0;
+        for (int s = side >>> 1; s > 0; s >>>= 1) {
+            int rx = (x & s) > 0 ? 1 : 0;
+            int ry = (y & s) > 0 ? 1 : 0;
+            d += (long) s * s * ((3 * rx) ^ ry);
+            // Rotate the quadrant.
+            if (ry == 0) {
+                if (rx == 1) {
+                    x = side - 1 - x;
+                    y = side - 1 - y;
+                }
+                int t = x;
+                x = y;
+                y = t;
+            }
+        }
+        return d;
+    }
+
+    /**
+     * Returns the position of a tile along the Z-order curve, obtained by interleaving the bits of the tile indices.
+     * 
+     * @param x The non negative X index of the tile.
+     * @param y The non negative Y index of the tile.
+     */
+    static long morton(int x, int y) {
+        return spread(x) | (spread(y) << 1);
+    }
+
+    /** Spreads the bits of a non negative integer on the even bits of a long. */
+    private static long spread(int value) {
+        long v = value & 0xFFFFFFFFL;
+        v = (v | (v << 16)) & 0x0000FFFF0000FFFFL;
+        v = (v | (v << 8)) & 0x00FF00FF00FF00FFL;
+        v = (v | (v << 4)) & 0x0F0F0F0F0F0F0F0FL;
+        v = (v | (v << 2)) & 0x3333333333333333L;
+        v = (v | (v << 1)) & 0x5555555555555555L;
+        return v;
+    }
+}
@@ -0,0 +1,92 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.jaiext.scheduler;
+
+import java.util.List;
+
+/**
+ * Standard MBean exposing the statistics of a <code>JAIExtTileScheduler</code>. It is not registered automatically: a typical registration is
+ * 
+ * <pre>
+ * ManagementFactory.getPlatformMBeanServer().registerMBean(new TileSchedulerMetrics(scheduler),
+ *         new ObjectName(&quot;it.geosolutions.jaiext:type=TileScheduler&quot;));
+ * </pre>
+ */
+public class TileSchedulerMetrics implements TileSchedulerMetricsMBean {
+
+    /** The scheduler to monitor. */
+    private final JAIExtTileScheduler scheduler;
+
+    /**
+     * Constructor.
+     * 
+     * @param scheduler The scheduler to monitor.
+     * @throws IllegalArgumentException if <code>scheduler</code> is <code>null</code>.
+     */
+    public TileSchedulerMetrics(JAIExtTileScheduler scheduler) {
+        if (scheduler == null) {
+            throw new IllegalArgumentException(JaiI18N.getString("JaiExtTileScheduler_18"));
+        }
+        this.scheduler = scheduler;
+    }
+
+    public int getQueueDepth() {
+        return scheduler.getQueueStatistics().getDepth();
+    }
+
+    public int getPrefetchQueueDepth() {
+        return scheduler.getPrefetchQueueStatistics().getDepth();
+    }
+
+    public double getAverageQueueWaitTime() {
+        return scheduler.getQueueStatistics().getAverageWaitTime();
+    }
+
+    public double getAveragePrefetchQueueWaitTime() {
+        return scheduler.getPrefetchQueueStatistics().getAverageWaitTime();
+    }
+
+    public long getOverloadedJobs() {
+        QueueStatistics standard = scheduler.getQueueStatistics();
+        QueueStatistics prefetch = scheduler.getPrefetchQueueStatistics();
+        return standard.getDroppedJobs() + standard.getRejectedJobs() + prefetch.getDroppedJobs()
+                + prefetch.getRejectedJobs();
+    }
+
+    public String[] getOperationNames() {
+        List<OperationStatistics> statistics = scheduler.getOperationStatistics();
+        String[] names = new String[statistics.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = statistics.get(i).getOperationName();
+        }
+        return names;
+    }
+
+    public String[] getOperationStatistics() {
+        List<OperationStatistics> statistics = scheduler.getOperationStatistics();
+        String[] lines = new String[statistics.size()];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = statistics.get(i).toString();
+        }
+        return lines;
+    }
+
+    public void resetOperationStatistics() {
+        scheduler.resetOperationStatistics();
+    }
+}
@@ -0,0 +1,48 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.jaiext.scheduler;
+
+/**
+ * Management interface of {@link TileSchedulerMetrics}, exposing the statistics of a <code>JAIExtTileScheduler</code> through JMX.
+ */
+public interface TileSchedulerMetricsMBean {
+
+    /** Returns the number of jobs waiting to be computed by the standard workers. */
+    int getQueueDepth();
+
+    /** Returns the number of jobs waiting to be computed by the prefetch workers. */
+    int getPrefetchQueueDepth();
+
+    /** Returns the average time waited in the standard queue, in milliseconds. */
+    double getAverageQueueWaitTime();
+
+    /** Returns the average time waited in the prefetch queue, in milliseconds. */
+    double getAveragePrefetchQueueWaitTime();
+
+    /** Returns the number of jobs dropped or rejected because a queue was full. */
+    long getOverloadedJobs();
+
+    /** Returns the names of the operations whose tiles have been computed. */
+    String[] getOperationNames();
+
+    /** Returns a line of statistics for each operation whose tiles have been computed. */
+    String[] getOperationStatistics();
+
+    /** Clears the statistics of the operations. */
+    void resetOperationStatistics();
+}
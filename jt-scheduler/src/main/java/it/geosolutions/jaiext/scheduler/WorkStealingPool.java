@@ -0,0 +1,305 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.jaiext.scheduler;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Work-stealing pool used by the <code>JAIExtTileScheduler</code> when the {@link JAIExtTileScheduler.Backend#WORK_STEALING} backend is selected.
+ * Each worker owns a deque of jobs: jobs are distributed among the workers, or pushed on the deque of the submitting worker when a job is queued
+ * during a tile computation, and a worker whose deque is empty steals jobs from the tail of the other deques. There is no single queue shared by
+ * all the workers, so that large batches of tiles are spread across the workers without contention.
+ */
+final class WorkStealingPool implements JobExecutor {
+
+    /** The scheduler that created the pool. */
+    private final JAIExtTileScheduler scheduler;
+
+    /** The name of the workers. */
+    private final String name;
+
+    /** Workers which accept new jobs. */
+    private volatile Worker[] active = new Worker[0];
+
+    /** All the workers still alive, including the ones which are draining their deque before exiting. */
+    private final List<Worker> workers = new CopyOnWriteArrayList<Worker>();
+
+    /** Index of the worker which receives the next job submitted from outside the pool. */
+    private final AtomicInteger next = new AtomicInteger();
+
+    /** Number of workers waiting for new jobs. */
+    private final AtomicInteger idle = new AtomicInteger();
+
+    /** Monitor used by the idle workers. */
+    private final Object signal = new Object();
+
+    /**
+     * Constructor.
+     * 
+     * @param scheduler The scheduler to notify when a blocking job is done.
+     * @param name The name of the workers.
+     */
+    WorkStealingPool(JAIExtTileScheduler scheduler, String name) {
+        this.scheduler = scheduler;
+        this.name = name;
+    }
+
+    /** Returns the number of workers which accept new jobs. */
+    public int getParallelism() {
+        return active.length;
+    }
+
+    /**
+     * Sets the number of workers and their priority. Exceeding workers stop accepting jobs and exit once their deque is empty.
+     * 
+     * @param parallelism The number of workers.
+     * @param priority The priority of the workers.
+     * @param group The <code>ThreadGroup</code> of the new workers.
+     */
+    public synchronized void setParallelism(int parallelism, int priority, ThreadGroup group) {
+        Worker[] current = active;
+        int size = current.length;
+        if (size != parallelism) {
+            Worker[] resized = new Worker[parallelism];
+            System.arraycopy(current, 0, resized, 0, Math.min(size, parallelism));
+            for (int i = size; i < parallelism; i++) {
+                resized[i] = new Worker(group, name + i);
+                workers.add(resized[i]);
+            }
+            active = resized;
+            for (int i = parallelism; i < size; i++) {
+                current[i].retired = true;
+            }
+            if (parallelism < size) {
+                wakeAll();
+            }
+            for (int i = size; i < parallelism; i++) {
+                resized[i].start();
+            }
+        }
+        for (int i = 0; i < parallelism; i++) {
+            Worker worker = active[i];
+            if (worker.getPriority() != priority && worker.getThreadGroup() != null) {
+                worker.setPriority(priority);
+            }
+        }
+    }
+
+    /** Stops all the workers once the jobs already queued are done. */
+    public void shutdown() {
+        setParallelism(0, Thread.NORM_PRIORITY, null);
+    }
+
+    /**
+     * Queues a job.
+     * 
+     * @param job The job to compute.
+     * @param first Whether the job should be computed before the other jobs of the same worker.
+     */
+    public void execute(Job job, boolean first) {
+        Worker worker = null;
+        Thread current = Thread.currentThread();
+        if (current instanceof Worker && ((Worker) current).pool() == this
+                && !((Worker) current).retired) {
+            // Nested scheduling: keep the job local to the submitting worker.
+            worker = (Worker) current;
+        } else {
+            Worker[] workers = active;
+            if (workers.length == 0) {
+                // Programming error: deliberately no message.
+                throw new IllegalStateException();
+            }
+            worker = workers[(next.getAndIncrement() & Integer.MAX_VALUE) % workers.length];
+        }
+        if (first) {
+            worker.deque.addFirst(job);
+        } else {
+            worker.deque.addLast(job);
+        }
+        if (idle.get() > 0) {
+            synchronized (signal) {
+                signal.notify();
+            }
+        }
+    }
+
+    /**
+     * Removes a job which has not been started yet.
+     * 
+     * @return <code>true</code> if the job has been removed.
+     */
+    public boolean remove(Job job) {
+        for (Worker worker : workers) {
+            if (worker.deque.remove(job)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Computes a queued job in the calling thread if it is a worker of this pool. It is used by workers waiting for the completion of other jobs,
+     * so that they keep computing tiles instead of blocking.
+     * 
+     * @return <code>true</code> if a job has been computed.
+     */
+    public boolean helpCompute() {
+        Thread current = Thread.currentThread();
+        if (!(current instanceof Worker) || ((Worker) current).pool() != this) {
+            return false;
+        }
+        Worker worker = (Worker) current;
+        Job job = worker.deque.pollFirst();
+        if (job == null) {
+            job = steal(worker);
+        }
+        if (job == null) {
+            return false;
+        }
+        compute(job);
+        return true;
+    }
+
+    /** Wakes up all the idle workers. */
+    private void wakeAll() {
+        synchronized (signal) {
+            signal.notifyAll();
+        }
+    }
+
+    /** Returns <code>true</code> if at least one worker has a queued job. */
+    private boolean hasJobs() {
+        for (Worker worker : workers) {
+            if (!worker.deque.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Steals a job from the tail of the deque of another worker. */
+    private Job steal(Worker thief) {
+        int size = workers.size();
+        if (size > 1) {
+            // Start from a different victim for each thief to spread the contention.
+            int start = (thief.hashCode() & Integer.MAX_VALUE) % size;
+            for (int i = 0; i < size; i++) {
+                Worker victim;
+                try {
+                    victim = workers.get((start + i) % size);
+                } catch (IndexOutOfBoundsException e) {
+                    // A worker exited in the meantime.
+                    break;
+                }
+                if (victim != thief) {
+                    Job job = victim.deque.pollLast();
+                    if (job != null) {
+                        return job;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /** Computes a job and notifies the scheduler if the job is blocking. */
+    private void compute(Job job) {
+        job.compute();
+
+        // Notify the scheduler only if the Job is blocking.
+        if (job.isBlocking()) {
+            synchronized (scheduler) {
+                scheduler.notifyAll();
+            }
+        }
+    }
+
+    /** Worker thread of the pool. */
+    final class Worker extends Thread {
+
+        /** The jobs owned by the worker. */
+        final LinkedBlockingDeque<Job> deque = new LinkedBlockingDeque<Job>();
+
+        /** Whether the worker should exit once its deque is empty. */
+        volatile boolean retired;
+
+        /** Constructor. */
+        Worker(ThreadGroup group, String name) {
+            super(group, name);
+            setDaemon(true);
+        }
+
+        /** Returns the pool of the worker. */
+        WorkStealingPool pool() {
+            return WorkStealingPool.this;
+        }
+
+        /** Does the tile computation. */
+        public void run() {
+            try {
+                while (true) {
+                    Job job = deque.pollFirst();
+                    if (job == null) {
+                        job = steal(this);
+                    }
+                    if (job == null) {
+                        if (retired || getThreadGroup() == null) {
+                            // Exit the thread.
+                            return;
+                        }
+                        awaitJob();
+                        continue;
+                    }
+
+                    compute(job);
+                }
+            } finally {
+                workers.remove(this);
+                // Jobs queued after the last check are handed to the other workers.
+                Job job;
+                while ((job = deque.pollFirst()) != null) {
+                    if (active.length > 0) {
+                        execute(job, false);
+                    } else {
+                        compute(job);
+                    }
+                }
+            }
+        }
+
+        /** Waits until a job is queued or the worker is retired. */
+        private void awaitJob() {
+            synchronized (signal) {
+                idle.incrementAndGet();
+                try {
+                    // Check again after registering as idle, so that no notification is lost.
+                    if (!retired && !hasJobs()) {
+                        signal.wait();
+                    }
+                } catch (InterruptedException ie) {
+                    // Ignore: should never happen.
+                } finally {
+                    idle.decrementAndGet();
+                }
+            }
+        }
+    }
+}
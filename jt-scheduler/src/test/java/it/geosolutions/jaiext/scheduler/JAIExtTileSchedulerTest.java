@@ -17,10 +17,34 @@
 */
 package it.geosolutions.jaiext.scheduler;
 
+import it.geosolutions.jaiext.utilities.CancellationToken;
+import it.geosolutions.jaiext.utilities.MultiTileComputer;
+import it.geosolutions.jaiext.utilities.TileCostRecorder;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.DataBuffer;
+import java.awt.image.PixelInterleavedSampleModel;
 import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import javax.media.jai.ImageLayout;
 import javax.media.jai.JAI;
+import javax.media.jai.OpImage;
+import javax.media.jai.PlanarImage;
 import javax.media.jai.RenderedOp;
+import javax.media.jai.SourcelessOpImage;
+import javax.media.jai.TileComputationListener;
+import javax.media.jai.TileRequest;
 import javax.media.jai.TileScheduler;
 import javax.media.jai.operator.ConstantDescriptor;
 import javax.media.jai.operator.ScaleDescriptor;
@@ -73,4 +97,670 @@ public class JAIExtTileSchedulerTest{
         Assert.assertNotNull(tiles);
         Assert.assertTrue(tiles.length > 0);
     }
+
+    @Test
+    public void testWorkStealingBackend() {
+        JAIExtTileScheduler tileScheduler = new JAIExtTileScheduler(4, Thread.NORM_PRIORITY, 1,
+                Thread.MIN_PRIORITY);
+        tileScheduler.setBackend(JAIExtTileScheduler.Backend.WORK_STEALING);
+        Assert.assertEquals(JAIExtTileScheduler.Backend.WORK_STEALING, tileScheduler.getBackend());
+        // Constant descriptor
+        RenderedOp image = ConstantDescriptor.create(DEFAUL_DIM, DEFAUL_DIM, new Byte[]{5}, null);
+
+        //Image scaling
+        image = ScaleDescriptor.create(image, DEFAUL_SCALE, DEFAUL_SCALE, DEFAUL_TRANSLATE, DEFAUL_TRANSLATE, null, null);
+        OpImage opImage = (OpImage) image.getRendering();
+
+        //Requests to the scheduler (No exception will be thrown)
+        Raster[] tiles = tileScheduler.scheduleTiles(opImage, opImage.getTileIndices(opImage.getBounds()));
+        // Check if the tiles have been calculated
+        Assert.assertNotNull(tiles);
+        Assert.assertTrue(tiles.length > 0);
+        for (int i = 0; i < tiles.length; i++) {
+            Assert.assertNotNull(tiles[i]);
+        }
+        // Going back to the queue backend
+        tileScheduler.setBackend(JAIExtTileScheduler.Backend.QUEUE);
+        tiles = tileScheduler.scheduleTiles(opImage, opImage.getTileIndices(opImage.getBounds()));
+        Assert.assertTrue(tiles.length > 0);
+    }
+
+    @Test(timeout = 60000)
+    public void testNestedWorkStealing() {
+        JAIExtTileScheduler tileScheduler = new JAIExtTileScheduler(2, Thread.NORM_PRIORITY, 1,
+                Thread.MIN_PRIORITY);
+        tileScheduler.setBackend(JAIExtTileScheduler.Backend.WORK_STEALING);
+        NestedImage image = new NestedImage(tileScheduler);
+        Point[] indices = image.getTileIndices(image.getBounds());
+
+        // Each tile requests all the source tiles through the same scheduler from
+        // the worker computing it: the waiting workers compute the queued source
+        // tiles instead of blocking, so no deadlock occurs
+        Raster[] tiles = tileScheduler.scheduleTiles(image, indices);
+        for (int i = 0; i < tiles.length; i++) {
+            Assert.assertNotNull(tiles[i]);
+        }
+        Assert.assertEquals(indices.length * indices.length, image.sourceTiles.get());
+    }
+
+    @Test
+    public void testElasticBackend() throws Exception {
+        JAIExtTileScheduler tileScheduler = new JAIExtTileScheduler(2, Thread.NORM_PRIORITY, 1,
+                Thread.MIN_PRIORITY);
+        tileScheduler.setBackend(JAIExtTileScheduler.Backend.ELASTIC);
+        tileScheduler.setMaxInFlightJobs(16);
+        Assert.assertEquals(16, tileScheduler.getMaxInFlightJobs());
+        // Constant descriptor
+        RenderedOp image = ConstantDescriptor.create(DEFAUL_DIM, DEFAUL_DIM, new Byte[]{5}, null);
+
+        //Image scaling
+        image = ScaleDescriptor.create(image, DEFAUL_SCALE, DEFAUL_SCALE, DEFAUL_TRANSLATE, DEFAUL_TRANSLATE, null, null);
+        OpImage opImage = (OpImage) image.getRendering();
+
+        //Requests to the scheduler (No exception will be thrown)
+        Raster[] tiles = tileScheduler.scheduleTiles(opImage, opImage.getTileIndices(opImage.getBounds()));
+        // Check if the tiles have been calculated
+        Assert.assertTrue(tiles.length > 0);
+        for (int i = 0; i < tiles.length; i++) {
+            Assert.assertNotNull(tiles[i]);
+        }
+        // Outside of the scheduler threads the blocking task is simply called
+        Assert.assertEquals("done", JAIExtTileScheduler.callBlocking(new Callable<String>() {
+            public String call() {
+                return "done";
+            }
+        }));
+    }
+
+    @Test
+    public void testExpiredDeadline() throws Exception {
+        JAIExtTileScheduler tileScheduler = new JAIExtTileScheduler(1, Thread.NORM_PRIORITY, 1,
+                Thread.MIN_PRIORITY);
+        // Constant descriptor
+        RenderedOp image = ConstantDescriptor.create(DEFAUL_DIM, DEFAUL_DIM, new Byte[]{5}, null);
+
+        //Image scaling
+        image = ScaleDescriptor.create(image, DEFAUL_SCALE, DEFAUL_SCALE, DEFAUL_TRANSLATE, DEFAUL_TRANSLATE, null, null);
+        PlanarImage planarImage = image.getRendering();
+        Point[] indices = planarImage.getTileIndices(planarImage.getBounds());
+
+        // The deadline has already expired: no tile is computed
+        TileRequest request = tileScheduler.scheduleTiles(planarImage, indices, null,
+                JAIExtTileScheduler.NORM_REQUEST_PRIORITY + 1, 1);
+        for (int i = 0; i < indices.length; i++) {
+            int status = request.getTileStatus(indices[i].x, indices[i].y);
+            for (int j = 0; j < 100 && status == TileRequest.TILE_STATUS_PENDING; j++) {
+                Thread.sleep(50);
+                status = request.getTileStatus(indices[i].x, indices[i].y);
+            }
+            Assert.assertEquals(TileRequest.TILE_STATUS_CANCELLED, status);
+        }
+    }
+
+    @Test
+    public void testRequestPriority() throws Exception {
+        JAIExtTileScheduler tileScheduler = new JAIExtTileScheduler(1, Thread.NORM_PRIORITY, 1,
+                Thread.MIN_PRIORITY);
+        GateImage gate = new GateImage();
+        RecordingImage image = new RecordingImage();
+        final CountDownLatch completed = new CountDownLatch(2);
+        TileComputationListener listener = new TileComputationListener() {
+            public void tileComputed(Object eventSource, TileRequest[] requests, PlanarImage owner,
+                    int tileX, int tileY, Raster tile) {
+                completed.countDown();
+            }
+
+            public void tileCancelled(Object eventSource, TileRequest[] requests,
+                    PlanarImage owner, int tileX, int tileY) {
+            }
+
+            public void tileComputationFailure(Object eventSource, TileRequest[] requests,
+                    PlanarImage owner, int tileX, int tileY, Throwable situation) {
+            }
+        };
+        TileComputationListener[] listeners = new TileComputationListener[] { listener };
+        try {
+            // The only worker is kept busy, so the requests stay in the queue
+            tileScheduler.scheduleTiles(gate, new Point[] { new Point(0, 0) },
+                    new TileComputationListener[0]);
+            Assert.assertTrue(gate.started.await(10, TimeUnit.SECONDS));
+            tileScheduler.scheduleTiles(image, new Point[] { new Point(0, 0) }, listeners,
+                    JAIExtTileScheduler.NORM_REQUEST_PRIORITY, 0);
+            tileScheduler.scheduleTiles(image, new Point[] { new Point(1, 0) }, listeners,
+                    JAIExtTileScheduler.NORM_REQUEST_PRIORITY + 1, 0);
+        } finally {
+            gate.release.countDown();
+        }
+        Assert.assertTrue(completed.await(10, TimeUnit.SECONDS));
+
+        // The request with higher priority overtakes the one queued before it
+        Assert.assertEquals(2, image.computed.size());
+        Assert.assertEquals(new Point(1, 0), image.computed.get(0));
+        Assert.assertEquals(new Point(0, 0), image.computed.get(1));
+    }
+
+    @Test
+    public void testDeadlineExpiredInQueue() throws Exception {
+        JAIExtTileScheduler tileScheduler = new JAIExtTileScheduler(1, Thread.NORM_PRIORITY, 1,
+                Thread.MIN_PRIORITY);
+        GateImage gate = new GateImage();
+        RecordingImage image = new RecordingImage();
+        TileComputationListener[] listeners = new TileComputationListener[0];
+        TileRequest request;
+        try {
+            // The only worker is kept busy, so the request stays in the queue
+            tileScheduler.scheduleTiles(gate, new Point[] { new Point(0, 0) }, listeners);
+            Assert.assertTrue(gate.started.await(10, TimeUnit.SECONDS));
+            long deadline = System.currentTimeMillis() + 100;
+            request = tileScheduler.scheduleTiles(image, new Point[] { new Point(0, 0) },
+                    listeners, JAIExtTileScheduler.NORM_REQUEST_PRIORITY, deadline);
+            // The deadline expires while the request is waiting
+            while (System.currentTimeMillis() <= deadline) {
+                Thread.sleep(50);
+            }
+        } finally {
+            gate.release.countDown();
+        }
+        // The tile is cancelled without being computed
+        int status = request.getTileStatus(0, 0);
+        for (int j = 0; j < 100 && status == TileRequest.TILE_STATUS_PENDING; j++) {
+            Thread.sleep(50);
+            status = request.getTileStatus(0, 0);
+        }
+        Assert.assertEquals(TileRequest.TILE_STATUS_CANCELLED, status);
+        Assert.assertTrue(image.computed.isEmpty());
+    }
+
+    @Test
+    public void testCancellationToken() throws Exception {
+        JAIExtTileScheduler tileScheduler = new JAIExtTileScheduler();
+        // Constant descriptor
+        RenderedOp image = ConstantDescriptor.create(DEFAUL_DIM, DEFAUL_DIM, new Byte[]{5}, null);
+        //Image scaling
+        image = ScaleDescriptor.create(image, DEFAUL_SCALE, DEFAUL_SCALE, DEFAUL_TRANSLATE, DEFAUL_TRANSLATE, null, null);
+        OpImage opImage = (OpImage) image.getRendering();
+        Point[] indices = opImage.getTileIndices(opImage.getBounds());
+
+        // The tiles requested with a cancelled token are not computed
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+        CancellationToken previous = CancellationToken.bind(token);
+        try {
+            tileScheduler.scheduleTiles(opImage, indices);
+            Assert.fail("The computation should have been cancelled");
+        } catch (CancellationException e) {
+            // expected
+        } finally {
+            CancellationToken.bind(previous);
+        }
+
+        // Cancelling the token of the calling thread cancels the request
+        token = new CancellationToken();
+        previous = CancellationToken.bind(token);
+        TileRequest request;
+        try {
+            token.cancel();
+            request = tileScheduler.scheduleTiles(opImage, indices, null);
+        } finally {
+            CancellationToken.bind(previous);
+        }
+        for (int i = 0; i < indices.length; i++) {
+            int status = request.getTileStatus(indices[i].x, indices[i].y);
+            for (int j = 0; j < 100 && status == TileRequest.TILE_STATUS_PENDING; j++) {
+                Thread.sleep(50);
+                status = request.getTileStatus(indices[i].x, indices[i].y);
+            }
+            Assert.assertEquals(TileRequest.TILE_STATUS_CANCELLED, status);
+        }
+    }
+
+    @Test
+    public void testQueueBound() throws Exception {
+        JAIExtTileScheduler tileScheduler = new JAIExtTileScheduler(2, Thread.NORM_PRIORITY, 1,
+                Thread.MIN_PRIORITY);
+        tileScheduler.setPrefetchQueueBound(2);
+        tileScheduler.setOverloadPolicy(JAIExtTileScheduler.OverloadPolicy.DROP_OLDEST_PREFETCH);
+        // Constant descriptor
+        RenderedOp image = ConstantDescriptor.create(DEFAUL_DIM, DEFAUL_DIM, new Byte[]{5}, null);
+        //Image scaling
+        image = ScaleDescriptor.create(image, DEFAUL_SCALE, DEFAUL_SCALE, DEFAUL_TRANSLATE, DEFAUL_TRANSLATE, null, null);
+        PlanarImage planarImage = image.getRendering();
+        Point[] indices = planarImage.getTileIndices(planarImage.getBounds());
+
+        // The prefetch queue never exceeds its bound: the oldest jobs are dropped
+        for (int i = 0; i < indices.length; i++) {
+            tileScheduler.prefetchTiles(planarImage, new Point[] { indices[i] });
+        }
+        QueueStatistics statistics = tileScheduler.getPrefetchQueueStatistics();
+        Assert.assertEquals(indices.length, statistics.getQueuedJobs());
+        Assert.assertTrue(statistics.getPeakDepth() <= 3);
+        Assert.assertTrue(statistics.getDepth() <= 2);
+
+        // The standard queue is not bounded
+        Assert.assertEquals(Integer.MAX_VALUE, tileScheduler.getQueueBound());
+        Raster[] tiles = tileScheduler.scheduleTiles((OpImage) planarImage, indices);
+        for (int i = 0; i < tiles.length; i++) {
+            Assert.assertNotNull(tiles[i]);
+        }
+        Assert.assertEquals(0, tileScheduler.getQueueStatistics().getRejectedJobs());
+    }
+
+    @Test
+    public void testRejectedRequest() throws Exception {
+        JAIExtTileScheduler tileScheduler = new JAIExtTileScheduler(1, Thread.NORM_PRIORITY, 1,
+                Thread.MIN_PRIORITY);
+        tileScheduler.setQueueBound(2);
+        tileScheduler.setOverloadPolicy(JAIExtTileScheduler.OverloadPolicy.REJECT);
+        GateImage image = new GateImage();
+        TileComputationListener[] listeners = new TileComputationListener[0];
+        try {
+            // The only worker is kept busy, so the jobs stay in the queue
+            tileScheduler.scheduleTiles(image, new Point[] { new Point(0, 0) }, listeners);
+            Assert.assertTrue(image.started.await(10, TimeUnit.SECONDS));
+            tileScheduler.scheduleTiles(image, new Point[] { new Point(1, 0) }, listeners);
+
+            // A request finding room is queued entirely, even beyond the bound
+            Point[] straddling = new Point[] { new Point(2, 0), new Point(3, 0), new Point(0, 1) };
+            TileRequest queued = tileScheduler.scheduleTiles(image, straddling, listeners);
+            Assert.assertEquals(0, tileScheduler.getQueueStatistics().getRejectedJobs());
+            Assert.assertEquals(4, tileScheduler.getQueueStatistics().getDepth());
+
+            // A request finding the queue full is rejected entirely
+            Point[] full = new Point[] { new Point(1, 1), new Point(2, 1) };
+            TileRequest rejected = tileScheduler.scheduleTiles(image, full, listeners);
+            Assert.assertEquals(2, tileScheduler.getQueueStatistics().getRejectedJobs());
+            for (int i = 0; i < full.length; i++) {
+                Assert.assertEquals(TileRequest.TILE_STATUS_FAILED,
+                        rejected.getTileStatus(full[i].x, full[i].y));
+            }
+            for (int i = 0; i < straddling.length; i++) {
+                Assert.assertTrue(queued.getTileStatus(straddling[i].x, straddling[i].y)
+                        != TileRequest.TILE_STATUS_FAILED);
+            }
+        } finally {
+            image.release.countDown();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongQueueBound() {
+        JAIExtTileScheduler scheduler = new JAIExtTileScheduler();
+        // Setting of the Wrong bound an exception must be thrown
+        scheduler.setQueueBound(0);
+    }
+
+    @Test
+    public void testOperationStatistics() {
+        JAIExtTileScheduler tileScheduler = new JAIExtTileScheduler();
+        // Constant descriptor
+        RenderedOp image = ConstantDescriptor.create(DEFAUL_DIM, DEFAUL_DIM, new Byte[]{5}, null);
+        //Image scaling
+        image = ScaleDescriptor.create(image, DEFAUL_SCALE, DEFAUL_SCALE, DEFAUL_TRANSLATE, DEFAUL_TRANSLATE, null, null);
+        PlanarImage planarImage = image.getRendering();
+        Point[] indices = planarImage.getTileIndices(planarImage.getBounds());
+        tileScheduler.scheduleTiles((OpImage) planarImage, indices);
+
+        // The jobs computing the tiles have been recorded
+        List<OperationStatistics> statistics = tileScheduler.getOperationStatistics();
+        Assert.assertFalse(statistics.isEmpty());
+        long jobs = 0;
+        for (OperationStatistics operation : statistics) {
+            Assert.assertEquals(0, operation.getFailures());
+            jobs += operation.getQueueWaitTime().getCount();
+        }
+        Assert.assertTrue(jobs > 0);
+
+        tileScheduler.resetOperationStatistics();
+        Assert.assertTrue(tileScheduler.getOperationStatistics().isEmpty());
+    }
+
+    @Test
+    public void testLatencyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            // from 1 to 1000 milliseconds
+            histogram.record(i * 1000000L);
+        }
+        LatencyStatistics statistics = histogram.getStatistics();
+        Assert.assertEquals(1000, statistics.getCount());
+        Assert.assertEquals(500.5, statistics.getMean(), 1E-6);
+        Assert.assertEquals(1000, statistics.getMax(), 1E-6);
+        // The percentiles are kept with a relative precision of about 3%
+        Assert.assertEquals(500, statistics.getPercentile(50), 500 * 0.03);
+        Assert.assertEquals(990, statistics.getPercentile(99), 990 * 0.03);
+        Assert.assertEquals(1000, statistics.getPercentile(100), 1E-6);
+    }
+
+    @Test
+    public void testBatchedComputation() {
+        JAIExtTileScheduler tileScheduler = new JAIExtTileScheduler(1, Thread.NORM_PRIORITY, 1,
+                Thread.MIN_PRIORITY);
+        tileScheduler.setMaxBatchSize(4);
+        Assert.assertEquals(4, tileScheduler.getMaxBatchSize());
+        BatchImage image = new BatchImage();
+        Point[] indices = image.getTileIndices(image.getBounds());
+
+        Raster[] tiles = tileScheduler.scheduleTiles(image, indices);
+        Assert.assertEquals(indices.length, tiles.length);
+        for (int i = 0; i < tiles.length; i++) {
+            Assert.assertNotNull(tiles[i]);
+            Assert.assertEquals(5, tiles[i].getSample(tiles[i].getMinX(), tiles[i].getMinY(), 0));
+        }
+        // The 4 tiles of each row are computed together
+        Assert.assertEquals(4, image.batches);
+        Assert.assertEquals(16, image.batchedTiles);
+    }
+
+    @Test
+    public void testFailedBatch() {
+        JAIExtTileScheduler tileScheduler = new JAIExtTileScheduler(1, Thread.NORM_PRIORITY, 1,
+                Thread.MIN_PRIORITY);
+        tileScheduler.setMaxBatchSize(4);
+        BatchImage image = new BatchImage();
+        image.failBatches = true;
+        Point[] indices = image.getTileIndices(image.getBounds());
+
+        // The tiles are computed one at a time after the failed batch
+        Raster[] tiles = tileScheduler.scheduleTiles(image, indices);
+        for (int i = 0; i < tiles.length; i++) {
+            Assert.assertNotNull(tiles[i]);
+            Assert.assertEquals(5, tiles[i].getSample(tiles[i].getMinX(), tiles[i].getMinY(), 0));
+        }
+        // The batched computation is not attempted again by the job
+        Assert.assertEquals(1, image.batches);
+    }
+
+    @Test
+    public void testTileCostRecording() {
+        JAIExtTileScheduler tileScheduler = new JAIExtTileScheduler(1, Thread.NORM_PRIORITY, 1,
+                Thread.MIN_PRIORITY);
+        tileScheduler.setMaxBatchSize(4);
+        final AtomicInteger recorded = new AtomicInteger();
+        TileCostRecorder metric = new TileCostRecorder() {
+            public void recordComputeTime(long nanos) {
+                Assert.assertTrue(nanos >= 0);
+                recorded.incrementAndGet();
+            }
+        };
+        BatchImage image = new BatchImage(new RenderingHints(JAI.KEY_TILE_CACHE_METRIC, metric));
+
+        // The compute time of each tile is passed to the metric
+        Assert.assertNotNull(tileScheduler.scheduleTile(image, 0, 0));
+        Assert.assertEquals(1, recorded.get());
+        Point[] indices = image.getTileIndices(new Rectangle(0, 32, 128, 32));
+        tileScheduler.scheduleTiles(image, indices);
+        Assert.assertEquals(1, image.batches);
+        Assert.assertEquals(5, recorded.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongMaxBatchSize() {
+        JAIExtTileScheduler scheduler = new JAIExtTileScheduler();
+        scheduler.setMaxBatchSize(0);
+    }
+
+    @Test
+    public void testParallelismController() {
+        JAIExtTileScheduler scheduler = new JAIExtTileScheduler();
+        ParallelismController controller = new ParallelismController(scheduler,
+                new QueueMonitor(false), 1, 4, null, "controller");
+        long second = 1000000000L;
+        // The jobs are waiting: a thread is added
+        Assert.assertEquals(3, controller.adapt(2, 100, second, true, 0, 0));
+        // The throughput grew: another thread is added
+        Assert.assertEquals(4, controller.adapt(3, 150, second, true, 0, 0));
+        // The throughput dropped: the last thread is removed
+        Assert.assertEquals(3, controller.adapt(4, 120, second, true, 0, 0));
+        // The system is oversubscribed: a thread is removed, down to the minimum
+        Assert.assertEquals(2, controller.adapt(3, 120, second, true, 0, 2));
+        Assert.assertEquals(1, controller.adapt(1, 120, second, true, 0, 2));
+        // New threads would be idle
+        Assert.assertEquals(1, controller.adapt(1, 50, second, false, 0, 0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongParallelismBounds() {
+        JAIExtTileScheduler scheduler = new JAIExtTileScheduler();
+        scheduler.setAdaptiveParallelism(4, 2);
+    }
+
+    @Test
+    public void testTileOrdering() {
+        Point[] indices = new Point[64];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = new Point(i % 8, i / 8);
+        }
+        // Along the Hilbert curve consecutive tiles are adjacent
+        int[] permutation = TileOrdering.sort(indices, JAIExtTileScheduler.TileOrder.HILBERT);
+        Assert.assertEquals(indices.length, permutation.length);
+        for (int i = 1; i < permutation.length; i++) {
+            Point previous = indices[permutation[i - 1]];
+            Point current = indices[permutation[i]];
+            Assert.assertEquals(1, Math.abs(previous.x - current.x) + Math.abs(previous.y - current.y));
+        }
+        // Along the Z-order curve the first four tiles are the upper left 2x2 block
+        permutation = TileOrdering.sort(indices, JAIExtTileScheduler.TileOrder.Z_ORDER);
+        for (int i = 0; i < 4; i++) {
+            Point p = indices[permutation[i]];
+            Assert.assertTrue(p.x < 2 && p.y < 2);
+        }
+        // No reordering
+        Assert.assertNull(TileOrdering.sort(indices, JAIExtTileScheduler.TileOrder.AS_REQUESTED));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongTileTimeout() {
+        JAIExtTileScheduler scheduler = new JAIExtTileScheduler();
+        // Setting of the Wrong timeout an exception must be thrown
+        scheduler.setTileTimeout(-1);
+    }
+
+    @Test
+    public void testConcurrentScheduleTile() throws Exception {
+        final JAIExtTileScheduler scheduler = new JAIExtTileScheduler();
+        final CountingImage image = new CountingImage();
+
+        // The same tile is requested by many threads at the same time
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicInteger requesting = new AtomicInteger();
+        final Raster[] tiles = new Raster[8];
+        Thread[] threads = new Thread[tiles.length];
+        for (int i = 0; i < threads.length; i++) {
+            final int index = i;
+            threads[i] = new Thread() {
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    requesting.incrementAndGet();
+                    tiles[index] = scheduler.scheduleTile(image, 0, 0);
+                }
+            };
+            threads[i].start();
+        }
+        try {
+            start.countDown();
+            Assert.assertTrue(image.started.await(10, TimeUnit.SECONDS));
+            // The computation is kept in progress until every thread is waiting for it
+            for (int j = 0; j < 200 && !waiting(threads, requesting); j++) {
+                Thread.sleep(50);
+            }
+            Assert.assertTrue(waiting(threads, requesting));
+        } finally {
+            image.release.countDown();
+        }
+        for (int i = 0; i < threads.length; i++) {
+            threads[i].join();
+        }
+        // Check that every thread received the same tile, computed only once
+        for (int i = 0; i < tiles.length; i++) {
+            Assert.assertNotNull(tiles[i]);
+            Assert.assertSame(tiles[0], tiles[i]);
+        }
+        Assert.assertEquals(1, image.computations.get());
+        // No computation is left in progress
+        Assert.assertFalse(scheduler.cancelTile(image, 0, 0));
+    }
+
+    /**
+     * Indicates if all the threads have requested the tile and are blocked, either computing it or waiting for its computation.
+     */
+    private static boolean waiting(Thread[] threads, AtomicInteger requesting) {
+        if (requesting.get() < threads.length) {
+            return false;
+        }
+        for (int i = 0; i < threads.length; i++) {
+            if (threads[i].getState() != Thread.State.WAITING) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Image of 4x4 tiles whose computation signals that it has started and then blocks until the image is released, so that a test can keep a
+     * worker busy.
+     */
+    private static final class GateImage extends SourcelessOpImage {
+
+        final CountDownLatch started = new CountDownLatch(1);
+
+        final CountDownLatch release = new CountDownLatch(1);
+
+        GateImage() {
+            super(new ImageLayout(0, 0, 128, 128, 0, 0, 32, 32, null, null), null,
+                    new PixelInterleavedSampleModel(DataBuffer.TYPE_BYTE, 32, 32, 1, 32,
+                            new int[] { 0 }), 0, 0, 128, 128);
+        }
+
+        protected void computeRect(PlanarImage[] sources, WritableRaster dest, Rectangle destRect) {
+            // The tiles are computed only once the gate is released
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Constant image of 4x4 tiles counting the computed tiles. Each computation is blocked until the image is released.
+     */
+    private static final class CountingImage extends SourcelessOpImage {
+
+        final AtomicInteger computations = new AtomicInteger();
+
+        final CountDownLatch started = new CountDownLatch(1);
+
+        final CountDownLatch release = new CountDownLatch(1);
+
+        CountingImage() {
+            super(new ImageLayout(0, 0, 128, 128, 0, 0, 32, 32, null, null), null,
+                    new PixelInterleavedSampleModel(DataBuffer.TYPE_BYTE, 32, 32, 1, 32,
+                            new int[] { 0 }), 0, 0, 128, 128);
+        }
+
+        protected void computeRect(PlanarImage[] sources, WritableRaster dest, Rectangle destRect) {
+            computations.incrementAndGet();
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Constant image of 4x4 tiles recording the indices of the computed tiles, in computation order.
+     */
+    private static final class RecordingImage extends SourcelessOpImage {
+
+        final List<Point> computed = new CopyOnWriteArrayList<Point>();
+
+        RecordingImage() {
+            super(new ImageLayout(0, 0, 128, 128, 0, 0, 32, 32, null, null), null,
+                    new PixelInterleavedSampleModel(DataBuffer.TYPE_BYTE, 32, 32, 1, 32,
+                            new int[] { 0 }), 0, 0, 128, 128);
+        }
+
+        protected void computeRect(PlanarImage[] sources, WritableRaster dest, Rectangle destRect) {
+            computed.add(new Point(XToTileX(destRect.x), YToTileY(destRect.y)));
+        }
+    }
+
+    /**
+     * Constant image of 4x4 tiles computing each tile after requesting all the tiles of its source through the supplied scheduler.
+     */
+    private static final class NestedImage extends SourcelessOpImage {
+
+        final JAIExtTileScheduler scheduler;
+
+        final RecordingImage source = new RecordingImage();
+
+        final AtomicInteger sourceTiles = new AtomicInteger();
+
+        NestedImage(JAIExtTileScheduler scheduler) {
+            super(new ImageLayout(0, 0, 128, 128, 0, 0, 32, 32, null, null), null,
+                    new PixelInterleavedSampleModel(DataBuffer.TYPE_BYTE, 32, 32, 1, 32,
+                            new int[] { 0 }), 0, 0, 128, 128);
+            this.scheduler = scheduler;
+        }
+
+        protected void computeRect(PlanarImage[] sources, WritableRaster dest, Rectangle destRect) {
+            Raster[] tiles = scheduler.scheduleTiles(source,
+                    source.getTileIndices(source.getBounds()));
+            for (int i = 0; i < tiles.length; i++) {
+                if (tiles[i] != null) {
+                    sourceTiles.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * Constant image of 4x4 tiles counting the tiles computed together.
+     */
+    private static final class BatchImage extends SourcelessOpImage implements MultiTileComputer {
+
+        int batches;
+
+        int batchedTiles;
+
+        boolean failBatches;
+
+        BatchImage() {
+            this(null);
+        }
+
+        BatchImage(Map configuration) {
+            super(new ImageLayout(0, 0, 128, 128, 0, 0, 32, 32, null, null), configuration,
+                    new PixelInterleavedSampleModel(DataBuffer.TYPE_BYTE, 32, 32, 1, 32,
+                            new int[] { 0 }), 0, 0, 128, 128);
+        }
+
+        public synchronized Raster[] computeTiles(Point[] tileIndices) {
+            batches++;
+            batchedTiles += tileIndices.length;
+            if (failBatches) {
+                throw new IllegalStateException("Batch failure");
+            }
+            Raster[] tiles = new Raster[tileIndices.length];
+            for (int i = 0; i < tileIndices.length; i++) {
+                tiles[i] = computeTile(tileIndices[i].x, tileIndices[i].y);
+            }
+            return tiles;
+        }
+
+        protected void computeRect(PlanarImage[] sources, WritableRaster dest, Rectangle destRect) {
+            for (int y = destRect.y; y < destRect.y + destRect.height; y++) {
+                for (int x = destRect.x; x < destRect.x + destRect.width; x++) {
+                    dest.setSample(x, y, 0, 5);
+                }
+            }
+        }
+    }
 }
@@ -170,8 +170,8 @@ public abstract class StatisticsOpImage extends OpImage {
             final Rectangle rect = new Rectangle(srcROIImage.getBounds());
             // Roi image data store
             Raster data = srcROIImage.getData(rect);
-            // Creation of a RandomIterator for selecting random pixel inside the ROI
-            roiIter = RandomIterFactory.create(data, data.getBounds(), false, true);
+            // Creation of a RandomIterator shared by all the threads for selecting random pixel inside the ROI
+            roiIter = RandomIterFactory.createShared(data, data.getBounds(), 1);
             // ROI bounds are saved
             roiBounds = srcROIImage.getBounds();
             // The useRoiAccessor parameter is set
@@ -264,11 +264,15 @@ public abstract class StatisticsOpImage extends OpImage {
     }
 
     /**
-     * When the dispose method is called, then old dispose method is performed and also the statistic container is cleared.
+     * When the dispose method is called, then old dispose method is performed, the statistic container is cleared and the ROI iterator is
+     * released, so that the cursors it keeps for each thread are not retained.
      */
     public void dispose() {
         super.dispose();
         clearStatistic();
+        if (roiIter != null) {
+            roiIter.done();
+        }
     }
 
     /**
@@ -0,0 +1,115 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.jaiext.utilities;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Token used for the cooperative cancellation of tile computations. A token is bound to the thread which requests the tiles with
+ * {@link #bind(CancellationToken)}; the JAI-EXT tile scheduler propagates it to the threads computing the tiles, and the operations check it between
+ * rows or blocks of pixels through {@link #checkCancelled()}, so that a computation can be stopped while in progress by calling {@link #cancel()}
+ * from any thread. Since the source tiles are requested by the thread computing a tile, the cancellation propagates to the source tile requests as
+ * well.
+ * <p>
+ * A typical usage is:
+ * 
+ * <pre>
+ * CancellationToken token = new CancellationToken();
+ * CancellationToken previous = CancellationToken.bind(token);
+ * try {
+ *     Raster data = image.getData(area);
+ * } finally {
+ *     CancellationToken.bind(previous);
+ * }
+ * </pre>
+ * 
+ * while another thread calls <code>token.cancel()</code> when the result is not needed anymore.
+ */
+public class CancellationToken {
+
+    /** The token bound to the current thread. */
+    private static final ThreadLocal<CancellationToken> CURRENT = new ThreadLocal<CancellationToken>();
+
+    /** The parent token, whose cancellation cancels this token too. May be <code>null</code>. */
+    private final CancellationToken parent;
+
+    /** Whether the token has been cancelled. */
+    private volatile boolean cancelled;
+
+    /** Creates a new token. */
+    public CancellationToken() {
+        this(null);
+    }
+
+    /**
+     * Creates a new token which is cancelled when its parent is cancelled.
+     * 
+     * @param parent The parent token. May be <code>null</code>.
+     */
+    public CancellationToken(CancellationToken parent) {
+        this.parent = parent;
+    }
+
+    /** Cancels the token. */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /** Returns <code>true</code> if the token or its parent has been cancelled. */
+    public boolean isCancelled() {
+        return cancelled || (parent != null && parent.isCancelled());
+    }
+
+    /**
+     * Binds a token to the current thread.
+     * 
+     * @param token The token to bind. May be <code>null</code> to remove the current token.
+     * @return The token previously bound to the current thread, to be restored when the computation is done, or <code>null</code>.
+     */
+    public static CancellationToken bind(CancellationToken token) {
+        CancellationToken previous = CURRENT.get();
+        if (token == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(token);
+        }
+        return previous;
+    }
+
+    /** Returns the token bound to the current thread, or <code>null</code>. */
+    public static CancellationToken current() {
+        return CURRENT.get();
+    }
+
+    /** Returns <code>true</code> if a token is bound to the current thread and it has been cancelled. */
+    public static boolean isCurrentCancelled() {
+        CancellationToken token = CURRENT.get();
+        return token != null && token.isCancelled();
+    }
+
+    /**
+     * Checks the token bound to the current thread.
+     * 
+     * @throws CancellationException if the token has been cancelled.
+     */
+    public static void checkCancelled() {
+        if (isCurrentCancelled()) {
+            throw new CancellationException("Tile computation cancelled");
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.jaiext.utilities;
+
+import java.awt.Point;
+import java.awt.image.Raster;
+
+/**
+ * Interface implemented by the <code>OpImage</code>s which can compute several tiles at once more efficiently than one at a time, for example by
+ * fetching the source data of the union of the tiles once, so that the halo shared by adjacent tiles is not fetched and computed again for each
+ * tile. The JAI-EXT tile scheduler passes to this method the runs of adjacent tiles of a row which are neither cached nor in progress.
+ */
+public interface MultiTileComputer {
+
+    /**
+     * Computes several tiles, as <code>computeTile()</code> does for a single tile. The tiles are not added to the tile cache by this method.
+     * 
+     * @param tileIndices The X and Y indices of the tiles.
+     * @return The computed tiles, in the order of the indices.
+     */
+    Raster[] computeTiles(Point[] tileIndices);
+}
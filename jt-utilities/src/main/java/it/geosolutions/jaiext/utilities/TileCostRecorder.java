@@ -0,0 +1,33 @@
+/* JAI-Ext - OpenSource Java Advanced Image Extensions Library
+*    http://www.geo-solutions.it/
+*    Copyright 2014 GeoSolutions
+
+
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+
+* http://www.apache.org/licenses/LICENSE-2.0
+
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package it.geosolutions.jaiext.utilities;
+
+/**
+ * Interface implemented by the tile cache metrics which keep track of the cost of computing the tiles of an image. When the tile cache metric of
+ * an <code>OpImage</code> implements this interface, the JAI-EXT tile scheduler passes to it the time spent computing each tile of the image, so
+ * that a cost aware tile cache can weigh the tiles by their measured recomputation cost.
+ */
+public interface TileCostRecorder {
+
+    /**
+     * Records the time spent computing a tile of the image.
+     * 
+     * @param nanos The compute time of the tile, in nanoseconds.
+     */
+    void recordComputeTime(long nanos);
+}
@@ -248,6 +248,8 @@ final class WarpBicubicOpImage extends WarpOpImage {
             // ONLY VALID DATA
             if (caseA || (caseB && roiContainsTile)) {
                 for (int h = 0; h < dstHeight; h++) {
+                    // Stop between the rows if the computation has been cancelled
+                    checkCancelled();
                     int pixelOffset = lineOffset;
                     lineOffset += lineStride;
 
@@ -297,6 +299,8 @@ final class WarpBicubicOpImage extends WarpOpImage {
                 // ONLY ROI
             } else if (caseB) {
                 for (int h = 0; h < dstHeight; h++) {
+                    // Stop between the rows if the computation has been cancelled
+                    checkCancelled();
                     int pixelOffset = lineOffset;
                     lineOffset += lineStride;
 
@@ -384,6 +388,8 @@ final class WarpBicubicOpImage extends WarpOpImage {
                 long result = 0;
 
                 for (int h = 0; h < dstHeight; h++) {
+                    // Stop between the rows if the computation has been cancelled
+                    checkCancelled();
                     int pixelOffset = lineOffset;
                     lineOffset += lineStride;
 
@@ -502,6 +508,8 @@ final class WarpBicubicOpImage extends WarpOpImage {
                 // final result initialization
                 long result = 0;
                 for (int h = 0; h < dstHeight; h++) {
+                    // Stop between the rows if the computation has been cancelled
+                    checkCancelled();
                     int pixelOffset = lineOffset;
                     lineOffset += lineStride;
 
@@ -629,6 +637,8 @@ final class WarpBicubicOpImage extends WarpOpImage {
                 // ONLY VALID DATA
             if (caseA || (caseB && roiContainsTile)) {
                 for (int h = 0; h < dstHeight; h++) {
+                    // Stop between the rows if the computation has been cancelled
+                    checkCancelled();
                     int pixelOffset = lineOffset;
                     lineOffset += lineStride;
 
@@ -679,6 +689,8 @@ final class WarpBicubicOpImage extends WarpOpImage {
                 // ONLY ROI
             } else if (caseB) {
                 for (int h = 0; h < dstHeight; h++) {
+                    // Stop between the rows if the computation has been cancelled
+                    checkCancelled();
                     int pixelOffset = lineOffset;
                     lineOffset += lineStride;
 
@@ -767,6 +779,8 @@ final class WarpBicubicOpImage extends WarpOpImage {
                 long result = 0;
 
                 for (int h = 0; h < dstHeight; h++) {
+                    // Stop between the rows if the computation has been cancelled
+                    checkCancelled();
                     int pixelOffset = lineOffset;
                     lineOffset += lineStride;
 
@@ -887,6 +901,8 @@ final class WarpBicubicOpImage extends WarpOpImage {
                 // final result initialization
                 long result = 0;
                 for (int h = 0; h < dstHeight; h++) {
+                    // Stop between the rows if the computation has been cancelled
+                    checkCancelled();
                     int pixelOffset = lineOffset;
                     lineOffset += lineStride;
 
@@ -1063,6 +1079,8 @@ final class WarpBicubicOpImage extends WarpOpImage {
         // ONLY VALID DATA
         if (caseA || (caseB && roiContainsTile)) {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -1113,6 +1131,8 @@ final class WarpBicubicOpImage extends WarpOpImage {
             // ONLY ROI
         } else if (caseB) {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -1201,6 +1221,8 @@ final class WarpBicubicOpImage extends WarpOpImage {
             long result = 0;
 
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -1319,6 +1341,8 @@ final class WarpBicubicOpImage extends WarpOpImage {
             // final result initialization
             long result = 0;
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -1491,6 +1515,8 @@ final class WarpBicubicOpImage extends WarpOpImage {
         // ONLY VALID DATA
         if (caseA || (caseB && roiContainsTile)) {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -1541,6 +1567,8 @@ final class WarpBicubicOpImage extends WarpOpImage {
             // ONLY ROI
         } else if (caseB) {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -1629,6 +1657,8 @@ final class WarpBicubicOpImage extends WarpOpImage {
             long result = 0;
 
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -1747,6 +1777,8 @@ final class WarpBicubicOpImage extends WarpOpImage {
             // final result initialization
             long result = 0;
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -1919,6 +1951,8 @@ final class WarpBicubicOpImage extends WarpOpImage {
         // ONLY VALID DATA
         if (caseA || (caseB && roiContainsTile)) {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -1969,6 +2003,8 @@ final class WarpBicubicOpImage extends WarpOpImage {
             // ONLY ROI
         } else if (caseB) {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -2057,6 +2093,8 @@ final class WarpBicubicOpImage extends WarpOpImage {
             long result = 0;
 
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -2175,6 +2213,8 @@ final class WarpBicubicOpImage extends WarpOpImage {
             // final result initialization
             long result = 0;
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -2347,6 +2387,8 @@ final class WarpBicubicOpImage extends WarpOpImage {
         // ONLY VALID DATA
         if (caseA || (caseB && roiContainsTile)) {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -2397,6 +2439,8 @@ final class WarpBicubicOpImage extends WarpOpImage {
             // ONLY ROI
         } else if (caseB) {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -2483,6 +2527,8 @@ final class WarpBicubicOpImage extends WarpOpImage {
             double sum = 0;
 
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -2597,6 +2643,8 @@ final class WarpBicubicOpImage extends WarpOpImage {
             double tempSum = 0;
             double sum = 0;
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -2769,6 +2817,8 @@ final class WarpBicubicOpImage extends WarpOpImage {
         // ONLY VALID DATA
         if (caseA || (caseB && roiContainsTile)) {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -2810,6 +2860,8 @@ final class WarpBicubicOpImage extends WarpOpImage {
             // ONLY ROI
         } else if (caseB) {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -2887,6 +2939,8 @@ final class WarpBicubicOpImage extends WarpOpImage {
             double sum = 0;
 
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -2993,6 +3047,8 @@ final class WarpBicubicOpImage extends WarpOpImage {
             double tempSum = 0;
             double sum = 0;
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -158,6 +158,8 @@ final class WarpBilinearOpImage extends WarpOpImage {
             // ONLY VALID DATA
             if (caseA || (caseB && roiContainsTile)) {
                 for (int h = 0; h < dstHeight; h++) {
+                    // Stop between the rows if the computation has been cancelled
+                    checkCancelled();
                     int pixelOffset = lineOffset;
                     lineOffset += lineStride;
 
@@ -203,6 +205,8 @@ final class WarpBilinearOpImage extends WarpOpImage {
                 // ONLY ROI
             } else if (caseB) {
                 for (int h = 0; h < dstHeight; h++) {
+                    // Stop between the rows if the computation has been cancelled
+                    checkCancelled();
                     int pixelOffset = lineOffset;
                     lineOffset += lineStride;
 
@@ -261,6 +265,8 @@ final class WarpBilinearOpImage extends WarpOpImage {
                   // ONLY NODATA
             } else if (caseC || (hasROI && hasNoData && roiContainsTile)) {
                 for (int h = 0; h < dstHeight; h++) {
+                    // Stop between the rows if the computation has been cancelled
+                    checkCancelled();
                     int pixelOffset = lineOffset;
                     lineOffset += lineStride;
 
@@ -316,6 +322,8 @@ final class WarpBilinearOpImage extends WarpOpImage {
                   // BOTH ROI AND NODATA
             } else {
                 for (int h = 0; h < dstHeight; h++) {
+                    // Stop between the rows if the computation has been cancelled
+                    checkCancelled();
                     int pixelOffset = lineOffset;
                     lineOffset += lineStride;
 
@@ -385,6 +393,8 @@ final class WarpBilinearOpImage extends WarpOpImage {
                 // ONLY VALID DATA
             if (caseA || (caseB && roiContainsTile)) {
                 for (int h = 0; h < dstHeight; h++) {
+                    // Stop between the rows if the computation has been cancelled
+                    checkCancelled();
                     int pixelOffset = lineOffset;
                     lineOffset += lineStride;
 
@@ -432,6 +442,8 @@ final class WarpBilinearOpImage extends WarpOpImage {
                 // ONLY ROI
             } else if (caseB) {
                 for (int h = 0; h < dstHeight; h++) {
+                    // Stop between the rows if the computation has been cancelled
+                    checkCancelled();
                     int pixelOffset = lineOffset;
                     lineOffset += lineStride;
 
@@ -492,6 +504,8 @@ final class WarpBilinearOpImage extends WarpOpImage {
                   // ONLY NODATA
             } else if (caseC || (hasROI && hasNoData && roiContainsTile)) {
                 for (int h = 0; h < dstHeight; h++) {
+                    // Stop between the rows if the computation has been cancelled
+                    checkCancelled();
                     int pixelOffset = lineOffset;
                     lineOffset += lineStride;
 
@@ -549,6 +563,8 @@ final class WarpBilinearOpImage extends WarpOpImage {
                   // BOTH ROI AND NODATA
             } else {
                 for (int h = 0; h < dstHeight; h++) {
+                    // Stop between the rows if the computation has been cancelled
+                    checkCancelled();
                     int pixelOffset = lineOffset;
                     lineOffset += lineStride;
 
@@ -647,6 +663,8 @@ final class WarpBilinearOpImage extends WarpOpImage {
         // ONLY VALID DATA
         if (caseA || (caseB && roiContainsTile)) {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -692,6 +710,8 @@ final class WarpBilinearOpImage extends WarpOpImage {
             // ONLY ROI
         } else if (caseB) {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -750,6 +770,8 @@ final class WarpBilinearOpImage extends WarpOpImage {
               // ONLY NODATA
         } else if (caseC || (hasROI && hasNoData && roiContainsTile)) {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -805,6 +827,8 @@ final class WarpBilinearOpImage extends WarpOpImage {
               // BOTH ROI AND NODATA
         } else {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -899,6 +923,8 @@ final class WarpBilinearOpImage extends WarpOpImage {
         // ONLY VALID DATA
         if (caseA || (caseB && roiContainsTile)) {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -944,6 +970,8 @@ final class WarpBilinearOpImage extends WarpOpImage {
             // ONLY ROI
         } else if (caseB) {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -1002,6 +1030,8 @@ final class WarpBilinearOpImage extends WarpOpImage {
               // ONLY NODATA
         } else if (caseC || (hasROI && hasNoData && roiContainsTile)) {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -1057,6 +1087,8 @@ final class WarpBilinearOpImage extends WarpOpImage {
               // BOTH ROI AND NODATA
         } else {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -1151,6 +1183,8 @@ final class WarpBilinearOpImage extends WarpOpImage {
         // ONLY VALID DATA
         if (caseA || (caseB && roiContainsTile)) {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -1196,6 +1230,8 @@ final class WarpBilinearOpImage extends WarpOpImage {
             // ONLY ROI
         } else if (caseB) {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -1254,6 +1290,8 @@ final class WarpBilinearOpImage extends WarpOpImage {
               // ONLY NODATA
         } else if (caseC || (hasROI && hasNoData && roiContainsTile)) {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -1309,6 +1347,8 @@ final class WarpBilinearOpImage extends WarpOpImage {
               // BOTH ROI AND NODATA
         } else {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -1403,6 +1443,8 @@ final class WarpBilinearOpImage extends WarpOpImage {
         // ONLY VALID DATA
         if (caseA || (caseB && roiContainsTile)) {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -1448,6 +1490,8 @@ final class WarpBilinearOpImage extends WarpOpImage {
             // ONLY ROI
         } else if (caseB) {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -1506,6 +1550,8 @@ final class WarpBilinearOpImage extends WarpOpImage {
               // ONLY NODATA
         } else if (caseC || (hasROI && hasNoData && roiContainsTile)) {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -1561,6 +1607,8 @@ final class WarpBilinearOpImage extends WarpOpImage {
               // BOTH ROI AND NODATA
         } else {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -1654,6 +1702,8 @@ final class WarpBilinearOpImage extends WarpOpImage {
         // ONLY VALID DATA
         if (caseA || (caseB && roiContainsTile)) {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -1699,6 +1749,8 @@ final class WarpBilinearOpImage extends WarpOpImage {
             // ONLY ROI
         } else if (caseB) {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -1757,6 +1809,8 @@ final class WarpBilinearOpImage extends WarpOpImage {
               // ONLY NODATA
         } else if (caseC || (hasROI && hasNoData && roiContainsTile)) {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -1812,6 +1866,8 @@ final class WarpBilinearOpImage extends WarpOpImage {
               // BOTH ROI AND NODATA
         } else {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
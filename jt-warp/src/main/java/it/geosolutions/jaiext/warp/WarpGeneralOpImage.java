@@ -202,6 +202,8 @@ final class WarpGeneralOpImage extends WarpOpImage {
             // ONLY VALID DATA
             if (caseA || (caseB && roiContainsTile)) {
                 for (int h = 0; h < dstHeight; h++) {
+                    // Stop between the rows if the computation has been cancelled
+                    checkCancelled();
                     int pixelOffset = lineOffset;
                     lineOffset += lineStride;
 
@@ -247,6 +249,8 @@ final class WarpGeneralOpImage extends WarpOpImage {
                 // ONLY ROI
             } else if (caseB) {
                 for (int h = 0; h < dstHeight; h++) {
+                    // Stop between the rows if the computation has been cancelled
+                    checkCancelled();
                     int pixelOffset = lineOffset;
                     lineOffset += lineStride;
 
@@ -312,6 +316,8 @@ final class WarpGeneralOpImage extends WarpOpImage {
                 // ONLY NODATA
             } else if (caseC || (hasROI && hasNoData && roiContainsTile)) {
                 for (int h = 0; h < dstHeight; h++) {
+                    // Stop between the rows if the computation has been cancelled
+                    checkCancelled();
                     int pixelOffset = lineOffset;
                     lineOffset += lineStride;
 
@@ -371,6 +377,8 @@ final class WarpGeneralOpImage extends WarpOpImage {
                 // BOTH ROI AND NODATA
             } else {
                 for (int h = 0; h < dstHeight; h++) {
+                    // Stop between the rows if the computation has been cancelled
+                    checkCancelled();
                     int pixelOffset = lineOffset;
                     lineOffset += lineStride;
 
@@ -444,6 +452,8 @@ final class WarpGeneralOpImage extends WarpOpImage {
             // ONLY VALID DATA
             if (caseA || (caseB && roiContainsTile)) {
                 for (int h = 0; h < dstHeight; h++) {
+                    // Stop between the rows if the computation has been cancelled
+                    checkCancelled();
                     int pixelOffset = lineOffset;
                     lineOffset += lineStride;
 
@@ -489,6 +499,8 @@ final class WarpGeneralOpImage extends WarpOpImage {
                 // ONLY ROI
             } else if (caseB) {
                 for (int h = 0; h < dstHeight; h++) {
+                    // Stop between the rows if the computation has been cancelled
+                    checkCancelled();
                     int pixelOffset = lineOffset;
                     lineOffset += lineStride;
 
@@ -554,6 +566,8 @@ final class WarpGeneralOpImage extends WarpOpImage {
                 // ONLY NODATA
             } else if (caseC || (hasROI && hasNoData && roiContainsTile)) {
                 for (int h = 0; h < dstHeight; h++) {
+                    // Stop between the rows if the computation has been cancelled
+                    checkCancelled();
                     int pixelOffset = lineOffset;
                     lineOffset += lineStride;
 
@@ -604,6 +618,8 @@ final class WarpGeneralOpImage extends WarpOpImage {
                 // BOTH ROI AND NODATA
             } else {
                 for (int h = 0; h < dstHeight; h++) {
+                    // Stop between the rows if the computation has been cancelled
+                    checkCancelled();
                     int pixelOffset = lineOffset;
                     lineOffset += lineStride;
 
@@ -727,6 +743,8 @@ final class WarpGeneralOpImage extends WarpOpImage {
         // ONLY VALID DATA
         if (caseA || (caseB && roiContainsTile)) {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -771,6 +789,8 @@ final class WarpGeneralOpImage extends WarpOpImage {
             // ONLY ROI
         } else if (caseB) {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -836,6 +856,8 @@ final class WarpGeneralOpImage extends WarpOpImage {
         } else if (caseC || (hasROI && hasNoData && roiContainsTile)) {
             int value = 0;
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -890,6 +912,8 @@ final class WarpGeneralOpImage extends WarpOpImage {
         } else {
             int value = 0;
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -1015,6 +1039,8 @@ final class WarpGeneralOpImage extends WarpOpImage {
         // ONLY VALID DATA
         if (caseA || (caseB && roiContainsTile)) {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -1059,6 +1085,8 @@ final class WarpGeneralOpImage extends WarpOpImage {
             // ONLY ROI
         } else if (caseB) {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -1124,6 +1152,8 @@ final class WarpGeneralOpImage extends WarpOpImage {
         } else if (caseC || (hasROI && hasNoData && roiContainsTile)) {
             int value = 0;
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -1178,6 +1208,8 @@ final class WarpGeneralOpImage extends WarpOpImage {
         } else {
             int value = 0;
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -1303,6 +1335,8 @@ final class WarpGeneralOpImage extends WarpOpImage {
         // ONLY VALID DATA
         if (caseA || (caseB && roiContainsTile)) {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -1347,6 +1381,8 @@ final class WarpGeneralOpImage extends WarpOpImage {
             // ONLY ROI
         } else if (caseB) {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -1412,6 +1448,8 @@ final class WarpGeneralOpImage extends WarpOpImage {
         } else if (caseC || (hasROI && hasNoData && roiContainsTile)) {
             int value = 0;
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -1466,6 +1504,8 @@ final class WarpGeneralOpImage extends WarpOpImage {
         } else {
             int value = 0;
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -1588,6 +1628,8 @@ final class WarpGeneralOpImage extends WarpOpImage {
         // ONLY VALID DATA
         if (caseA || (caseB && roiContainsTile)) {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -1632,6 +1674,8 @@ final class WarpGeneralOpImage extends WarpOpImage {
             // ONLY ROI
         } else if (caseB) {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -1697,6 +1741,8 @@ final class WarpGeneralOpImage extends WarpOpImage {
         } else if (caseC || (hasROI && hasNoData && roiContainsTile)) {
             float value = 0;
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -1751,6 +1797,8 @@ final class WarpGeneralOpImage extends WarpOpImage {
         } else {
             float value = 0;
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -1873,6 +1921,8 @@ final class WarpGeneralOpImage extends WarpOpImage {
         // ONLY VALID DATA
         if (caseA || (caseB && roiContainsTile)) {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -1917,6 +1967,8 @@ final class WarpGeneralOpImage extends WarpOpImage {
             // ONLY ROI
         } else if (caseB) {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -1982,6 +2034,8 @@ final class WarpGeneralOpImage extends WarpOpImage {
         } else if (caseC || (hasROI && hasNoData && roiContainsTile)) {
             double value = 0;
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -2036,6 +2090,8 @@ final class WarpGeneralOpImage extends WarpOpImage {
         } else {
             double value = 0;
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
 
@@ -136,7 +136,7 @@ final class WarpNearestOpImage extends WarpOpImage {
             final RandomIter roiIter, boolean roiContainsTile) {
         // Random Iterator on the source image bounds
         final RandomIter iter = RandomIterFactory.create(src, src.getBounds(), TILE_CACHED,
-                ARRAY_CALC);
+                ARRAY_CALC, TILE_CACHE_SIZE);
         // Initial settings
         final int minX = src.getMinX();
         final int maxX = src.getMaxX();
@@ -159,6 +159,8 @@ final class WarpNearestOpImage extends WarpOpImage {
         // NO ROI AND NODATA
         if (caseA || (caseB && roiContainsTile)) {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
                 // Calculation of the warp for the selected row
@@ -192,6 +194,8 @@ final class WarpNearestOpImage extends WarpOpImage {
             // ONLY ROI
         } else if (caseB) {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
                 // Calculation of the warp for the selected row
@@ -235,6 +239,8 @@ final class WarpNearestOpImage extends WarpOpImage {
             // ONLY NODATA
         } else if (caseC || (hasROI && hasNoData && roiContainsTile)) {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
                 // Calculation of the warp for the selected row
@@ -268,6 +274,8 @@ final class WarpNearestOpImage extends WarpOpImage {
             // BOTH ROI AND NODATA
         } else {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
                 // Calculation of the warp for the selected row
@@ -316,7 +324,7 @@ final class WarpNearestOpImage extends WarpOpImage {
             final RandomIter roiIter, boolean roiContainsTile) {
         // Random Iterator on the source image bounds
         final RandomIter iter = RandomIterFactory.create(src, src.getBounds(), TILE_CACHED,
-                ARRAY_CALC);
+                ARRAY_CALC, TILE_CACHE_SIZE);
         // Initial settings
         final int minX = src.getMinX();
         final int maxX = src.getMaxX();
@@ -339,6 +347,8 @@ final class WarpNearestOpImage extends WarpOpImage {
         // NO ROI AND NODATA
         if (caseA || (caseB && roiContainsTile)) {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
                 // Calculation of the warp for the selected row
@@ -372,6 +382,8 @@ final class WarpNearestOpImage extends WarpOpImage {
             // ONLY ROI
         } else if (caseB) {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
                 // Calculation of the warp for the selected row
@@ -416,6 +428,8 @@ final class WarpNearestOpImage extends WarpOpImage {
         } else if (caseC || (hasROI && hasNoData && roiContainsTile)) {
             short inputValue = 0;
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
                 // Calculation of the warp for the selected row
@@ -455,6 +469,8 @@ final class WarpNearestOpImage extends WarpOpImage {
         } else {
             short inputValue = 0;
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
                 // Calculation of the warp for the selected row
@@ -508,7 +524,7 @@ final class WarpNearestOpImage extends WarpOpImage {
             final RandomIter roiIter, boolean roiContainsTile) {
         // Random Iterator on the source image bounds
         final RandomIter iter = RandomIterFactory.create(src, src.getBounds(), TILE_CACHED,
-                ARRAY_CALC);
+                ARRAY_CALC, TILE_CACHE_SIZE);
         // Initial settings
         final int minX = src.getMinX();
         final int maxX = src.getMaxX();
@@ -531,6 +547,8 @@ final class WarpNearestOpImage extends WarpOpImage {
         // NO ROI AND NODATA
         if (caseA || (caseB && roiContainsTile)) {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
                 // Calculation of the warp for the selected row
@@ -564,6 +582,8 @@ final class WarpNearestOpImage extends WarpOpImage {
             // ONLY ROI
         } else if (caseB) {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
                 // Calculation of the warp for the selected row
@@ -608,6 +628,8 @@ final class WarpNearestOpImage extends WarpOpImage {
         } else if (caseC || (hasROI && hasNoData && roiContainsTile)) {
             short inputValue = 0;
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
                 // Calculation of the warp for the selected row
@@ -647,6 +669,8 @@ final class WarpNearestOpImage extends WarpOpImage {
         } else {
             short inputValue = 0;
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
                 // Calculation of the warp for the selected row
@@ -700,7 +724,7 @@ final class WarpNearestOpImage extends WarpOpImage {
             final RandomIter roiIter, boolean roiContainsTile) {
         // Random Iterator on the source image bounds
         final RandomIter iter = RandomIterFactory.create(src, src.getBounds(), TILE_CACHED,
-                ARRAY_CALC);
+                ARRAY_CALC, TILE_CACHE_SIZE);
         // Initial settings
         final int minX = src.getMinX();
         final int maxX = src.getMaxX();
@@ -723,6 +747,8 @@ final class WarpNearestOpImage extends WarpOpImage {
         // NO ROI AND NODATA
         if (caseA || (caseB && roiContainsTile)) {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
                 // Calculation of the warp for the selected row
@@ -755,6 +781,8 @@ final class WarpNearestOpImage extends WarpOpImage {
             // ONLY ROI
         } else if (caseB) {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
                 // Calculation of the warp for the selected row
@@ -798,6 +826,8 @@ final class WarpNearestOpImage extends WarpOpImage {
         } else if (caseC || (hasROI && hasNoData && roiContainsTile)) {
             int inputValue = 0;
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
                 // Calculation of the warp for the selected row
@@ -837,6 +867,8 @@ final class WarpNearestOpImage extends WarpOpImage {
         } else {
             int inputValue = 0;
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
                 // Calculation of the warp for the selected row
@@ -890,7 +922,7 @@ final class WarpNearestOpImage extends WarpOpImage {
             final RandomIter roiIter, boolean roiContainsTile) {
         // Random Iterator on the source image bounds
         final RandomIter iter = RandomIterFactory.create(src, src.getBounds(), TILE_CACHED,
-                ARRAY_CALC);
+                ARRAY_CALC, TILE_CACHE_SIZE);
         // Initial settings
         final int minX = src.getMinX();
         final int maxX = src.getMaxX();
@@ -913,6 +945,8 @@ final class WarpNearestOpImage extends WarpOpImage {
         // NO ROI AND NODATA
         if (caseA || (caseB && roiContainsTile)) {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
                 // Calculation of the warp for the selected row
@@ -945,6 +979,8 @@ final class WarpNearestOpImage extends WarpOpImage {
             // ONLY ROI
         } else if (caseB) {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
                 // Calculation of the warp for the selected row
@@ -989,6 +1025,8 @@ final class WarpNearestOpImage extends WarpOpImage {
         } else if (caseC || (hasROI && hasNoData && roiContainsTile)) {
             float inputValue = 0;
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
                 // Calculation of the warp for the selected row
@@ -1028,6 +1066,8 @@ final class WarpNearestOpImage extends WarpOpImage {
         } else {
             float inputValue = 0;
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
                 // Calculation of the warp for the selected row
@@ -1081,7 +1121,7 @@ final class WarpNearestOpImage extends WarpOpImage {
             final RandomIter roiIter, boolean roiContainsTile) {
         // Random Iterator on the source image bounds
         final RandomIter iter = RandomIterFactory.create(src, src.getBounds(), TILE_CACHED,
-                ARRAY_CALC);
+                ARRAY_CALC, TILE_CACHE_SIZE);
         // Initial settings
         final int minX = src.getMinX();
         final int maxX = src.getMaxX();
@@ -1104,6 +1144,8 @@ final class WarpNearestOpImage extends WarpOpImage {
         // NO ROI AND NODATA
         if (caseA || (caseB && roiContainsTile)) {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
                 // Calculation of the warp for the selected row
@@ -1136,6 +1178,8 @@ final class WarpNearestOpImage extends WarpOpImage {
             // ONLY ROI
         } else if (caseB) {
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
                 // Calculation of the warp for the selected row
@@ -1180,6 +1224,8 @@ final class WarpNearestOpImage extends WarpOpImage {
         } else if (caseC || (hasROI && hasNoData && roiContainsTile)) {
             double inputValue = 0;
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
                 // Calculation of the warp for the selected row
@@ -1219,6 +1265,8 @@ final class WarpNearestOpImage extends WarpOpImage {
         } else {
             double inputValue = 0;
             for (int h = 0; h < dstHeight; h++) {
+                // Stop between the rows if the computation has been cancelled
+                checkCancelled();
                 int pixelOffset = lineOffset;
                 lineOffset += lineStride;
                 // Calculation of the warp for the selected row
@@ -21,6 +21,7 @@ import it.geosolutions.jaiext.border.BorderDescriptor;
 import it.geosolutions.jaiext.interpolators.InterpolationNoData;
 import it.geosolutions.jaiext.iterators.RandomIterFactory;
 import it.geosolutions.jaiext.range.Range;
+import it.geosolutions.jaiext.utilities.CancellationToken;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.RenderingHints;
@@ -67,6 +68,9 @@ public abstract class WarpOpImage extends javax.media.jai.WarpOpImage {
     /** Constant indicating that the inner random iterators must cache the current tile position */
     protected static final boolean TILE_CACHED = true;
 
+    /** Number of tiles cached by the inner random iterators, enough to hold the neighbouring tiles read by a warp */
+    protected static final int TILE_CACHE_SIZE = 4;
+
     /** Destination No Data value associated to Byte data type */
     protected byte destinationNoDataByte;
 
@@ -202,6 +206,9 @@ public abstract class WarpOpImage extends javax.media.jai.WarpOpImage {
     @Override
     public Raster computeTile(final int tileX, final int tileY) {
 
+        // Stop if the computation has been cancelled.
+        CancellationToken.checkCancelled();
+
         // The origin of the tile.
         final Point org = new Point(tileXToX(tileX), tileYToY(tileY));
 
@@ -243,6 +250,9 @@ public abstract class WarpOpImage extends javax.media.jai.WarpOpImage {
             throw new UnsupportedOperationException();
 
         } else {
+            // Check the cancellation again, since the source tiles may have
+            // been computed by the checks above.
+            CancellationToken.checkCancelled();
             final PlanarImage[] srcs = { source };
             computeRect(srcs, dest, destRect);
         }
@@ -250,6 +260,16 @@ public abstract class WarpOpImage extends javax.media.jai.WarpOpImage {
         return dest;
     }
 
+    /**
+     * Stops the computation if the cancellation token bound to the current thread has been cancelled. Subclasses call it between the rows of
+     * the destination, so that a cancelled tile does not run to completion.
+     * 
+     * @exception java.util.concurrent.CancellationException if the computation has been cancelled.
+     */
+    protected final void checkCancelled() {
+        CancellationToken.checkCancelled();
+    }
+
     /**
      * Warps a rectangle. If ROI is present, the intersection between ROI and tile bounds is calculated; The result ROI will be used for calculations
      * inside the computeRect() method.
@@ -288,7 +308,8 @@ public abstract class WarpOpImage extends javax.media.jai.WarpOpImage {
                         roiDisjointTile = true;
                     }else{
                         PlanarImage roiIMG = getImage();
-                        roiIter = RandomIterFactory.create(roiIMG, null, TILE_CACHED, ARRAY_CALC);
+                        roiIter = RandomIterFactory.create(roiIMG, null, TILE_CACHED, ARRAY_CALC,
+                                TILE_CACHE_SIZE);
                     }
                 }
             }
@@ -484,9 +505,11 @@ public abstract class WarpOpImage extends javax.media.jai.WarpOpImage {
         if (extended) {
             RenderedOp op = BorderDescriptor.create(src, leftPad, rightPad, topPad, bottomPad,
                     extender, noDataRange, destinationNoDataDouble, hints);
-            iterSource = RandomIterFactory.create(op, op.getBounds(), TILE_CACHED, ARRAY_CALC);
+            iterSource = RandomIterFactory.create(op, op.getBounds(), TILE_CACHED, ARRAY_CALC,
+                    TILE_CACHE_SIZE);
         } else {
-            iterSource = RandomIterFactory.create(src, src.getBounds(), TILE_CACHED, ARRAY_CALC);
+            iterSource = RandomIterFactory.create(src, src.getBounds(), TILE_CACHED, ARRAY_CALC,
+                    TILE_CACHE_SIZE);
         }
         return iterSource;
     }